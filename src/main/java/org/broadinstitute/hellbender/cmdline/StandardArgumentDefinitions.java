@@ -28,7 +28,12 @@ public final class StandardArgumentDefinitions {
     public static final String METRIC_ACCUMULATION_LEVEL_LONG_NAME = "metric-accumulation-level";
     public static final String CLOUD_PREFETCH_BUFFER_LONG_NAME = "cloud-prefetch-buffer";
     public static final String CLOUD_INDEX_PREFETCH_BUFFER_LONG_NAME = "cloud-index-prefetch-buffer";
+    public static final String LOCAL_PREFETCH_BUFFER_LONG_NAME = "local-prefetch-buffer";
+    public static final String PREFETCH_BUFFER_COUNT_LONG_NAME = "prefetch-buffer-count";
     public static final String DISABLE_BAM_INDEX_CACHING_LONG_NAME = "disable-bam-index-caching";
+    public static final String ASYNC_READS_DECOMPRESSION_LONG_NAME = "async-reads-decompression";
+    public static final String ASYNC_OUTPUT_COMPRESSION_LONG_NAME = "async-output-compression";
+    public static final String RUNTIME_METRICS_OUTPUT_LONG_NAME = "runtime-metrics-output";
     public static final String DISABLE_SEQUENCE_DICT_VALIDATION_NAME = "disable-sequence-dictionary-validation";
     public static final String ADD_OUTPUT_SAM_PROGRAM_RECORD = "add-output-sam-program-record";
     public static final String ADD_OUTPUT_VCF_COMMANDLINE = "add-output-vcf-command-line";
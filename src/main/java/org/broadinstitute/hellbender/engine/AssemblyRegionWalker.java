@@ -14,6 +14,7 @@ import org.broadinstitute.hellbender.utils.SimpleInterval;
 import org.broadinstitute.hellbender.utils.activityprofile.ActivityProfileState;
 import org.broadinstitute.hellbender.utils.downsampling.PositionalDownsampler;
 import org.broadinstitute.hellbender.utils.downsampling.ReadsDownsampler;
+import org.broadinstitute.hellbender.utils.runtime.RuntimeMetrics;
 
 import java.io.IOException;
 import java.io.PrintStream;
@@ -51,6 +52,11 @@ public abstract class AssemblyRegionWalker extends GATKTool {
     public static final String PROFILE_OUT_LONG_NAME = "activity-profile-out";
     public static final String ASSEMBLY_REGION_OUT_LONG_NAME = "assembly-region-out";
 
+    // time spent determining the assembly regions (reading, filtering and evaluating the activity of each locus)
+    // versus time spent processing them in the tool
+    private static final RuntimeMetrics.Timer REGION_DETERMINATION_TIMER = RuntimeMetrics.timer("AssemblyRegionWalker.determineRegions");
+    private static final RuntimeMetrics.Timer APPLY_TIMER = RuntimeMetrics.timer("AssemblyRegionWalker.apply");
+
     @Advanced
     @Argument(fullName = MIN_ASSEMBLY_LONG_NAME, doc = "Minimum size of an assembly region", optional = true)
     protected int minAssemblyRegionSize = defaultMinAssemblyRegionSize();
@@ -256,7 +262,8 @@ public abstract class AssemblyRegionWalker extends GATKTool {
         // meter to check the time more frequently (every 10 regions instead of every 1000 regions).
         progressMeter.setRecordsBetweenTimeChecks(10L);
 
-        for ( final MultiIntervalLocalReadShard readShard : readShards ) {
+        for ( int shardIndex = 0; shardIndex < readShards.size(); shardIndex++ ) {
+            final MultiIntervalLocalReadShard readShard = readShards.get(shardIndex);
             // Since reads in each shard are lazily fetched, we need to pass the filter and transformers to the window
             // instead of filtering the reads directly here
             readShard.setPreReadFilterTransformer(makePreReadFilterTransformer());
@@ -264,7 +271,7 @@ public abstract class AssemblyRegionWalker extends GATKTool {
             readShard.setDownsampler(createDownsampler());
             readShard.setPostReadFilterTransformer(makePostReadFilterTransformer());
 
-            processReadShard(readShard, reference, features);
+            processReadShard(readShard, shardIndex + 1 < readShards.size() ? readShards.get(shardIndex + 1) : null, reference, features);
         }
 
         logger.info(countedFilter.getSummaryLine());
@@ -275,22 +282,36 @@ public abstract class AssemblyRegionWalker extends GATKTool {
      * and send each region to the tool implementation for processing.
      *
      * @param shard MultiIntervalLocalReadShard to process
+     * @param nextShard the shard that will be processed next, whose reads may be prefetched (null if none)
      * @param reference Reference data source
      * @param features FeatureManager
      */
-    private void processReadShard(MultiIntervalLocalReadShard shard, ReferenceDataSource reference, FeatureManager features ) {
+    private void processReadShard(MultiIntervalLocalReadShard shard, MultiIntervalLocalReadShard nextShard, ReferenceDataSource reference, FeatureManager features ) {
         final Iterator<AssemblyRegion> assemblyRegionIter = new AssemblyRegionIterator(shard, getHeaderForReads(), reference, features, assemblyRegionEvaluator(), minAssemblyRegionSize, maxAssemblyRegionSize, assemblyRegionPadding, activeProbThreshold, maxProbPropagationDistance, includeReadsWithDeletionsInIsActivePileups());
 
+        // The query for this shard has started, so hint where the query for the next one will start
+        if ( nextShard != null ) {
+            reads.prefetch(nextShard.getPaddedIntervals());
+        }
+
         // Call into the tool implementation to process each assembly region from this shard.
-        while ( assemblyRegionIter.hasNext() ) {
+        while ( true ) {
+            final long regionStartTime = REGION_DETERMINATION_TIMER.start();
+            if ( ! assemblyRegionIter.hasNext() ) {
+                REGION_DETERMINATION_TIMER.stop(regionStartTime);
+                break;
+            }
             final AssemblyRegion assemblyRegion = assemblyRegionIter.next();
-            
+            REGION_DETERMINATION_TIMER.stop(regionStartTime);
+
             logger.debug("Processing assembly region at " + assemblyRegion.getSpan() + " isActive: " + assemblyRegion.isActive() + " numReads: " + assemblyRegion.getReads().size());
             writeAssemblyRegion(assemblyRegion);
 
+            final long applyStartTime = APPLY_TIMER.start();
             apply(assemblyRegion,
                     new ReferenceContext(reference, assemblyRegion.getExtendedSpan()),
                     new FeatureContext(features, assemblyRegion.getExtendedSpan()));
+            APPLY_TIMER.stop(applyStartTime);
 
             // For this traversal, the progress meter unit is the assembly region rather than the read shard
             progressMeter.update(assemblyRegion.getSpan());
@@ -17,6 +17,7 @@ import org.broadinstitute.hellbender.utils.SimpleInterval;
 import org.broadinstitute.hellbender.utils.Utils;
 import org.broadinstitute.hellbender.utils.gcs.BucketUtils;
 import org.broadinstitute.hellbender.utils.io.IOUtils;
+import org.broadinstitute.hellbender.utils.nio.PrefetchStatistics;
 import org.broadinstitute.hellbender.utils.nio.SeekableByteChannelPrefetcher;
 import org.genomicsdb.model.GenomicsDBExportConfiguration;
 import org.genomicsdb.reader.GenomicsDBFeatureReader;
@@ -118,6 +119,11 @@ public final class FeatureDataSource<T extends Feature> implements GATKDataSourc
      */
     private final boolean supportsRandomAccess;
 
+    /**
+     * Statistics of all the prefetchers opened on this datasource's file and index, if they're being prefetched
+     */
+    private final PrefetchStatistics prefetchStatistics = new PrefetchStatistics();
+
     /**
      * Default value for queryLookaheadBases, if none is specified. This is designed to be large enough
      * so that in typical usage (ie., query intervals with gradually increasing start locations) there will
@@ -248,8 +254,9 @@ public final class FeatureDataSource<T extends Feature> implements GATKDataSourc
         Utils.validateArg(queryLookaheadBases >= 0, "Query lookahead bases must be >= 0");
         this.featureInput = Utils.nonNull(featureInput, "featureInput must not be null");
 
-        final Function<SeekableByteChannel, SeekableByteChannel> cloudWrapper = (cloudPrefetchBuffer > 0 ? is -> SeekableByteChannelPrefetcher.addPrefetcher(cloudPrefetchBuffer, is) : Function.identity());
-        final Function<SeekableByteChannel, SeekableByteChannel> cloudIndexWrapper = (cloudIndexPrefetchBuffer > 0 ? is -> SeekableByteChannelPrefetcher.addPrefetcher(cloudIndexPrefetchBuffer, is) : Function.identity());
+        // the reader may open the file many times, so the prefetchers share one set of statistics
+        final Function<SeekableByteChannel, SeekableByteChannel> cloudWrapper = (cloudPrefetchBuffer > 0 ? is -> SeekableByteChannelPrefetcher.addPrefetcher(cloudPrefetchBuffer, SeekableByteChannelPrefetcher.DEFAULT_BUFFER_COUNT, is, prefetchStatistics) : Function.identity());
+        final Function<SeekableByteChannel, SeekableByteChannel> cloudIndexWrapper = (cloudIndexPrefetchBuffer > 0 ? is -> SeekableByteChannelPrefetcher.addPrefetcher(cloudIndexPrefetchBuffer, SeekableByteChannelPrefetcher.DEFAULT_BUFFER_COUNT, is, prefetchStatistics) : Function.identity());
 
         // Create a feature reader without requiring an index.  We will require one ourselves as soon as
         // a query by interval is attempted.
@@ -281,6 +288,20 @@ public final class FeatureDataSource<T extends Feature> implements GATKDataSourc
         queryCache.printCacheStatistics( getName() );
     }
 
+    /**
+     * @return the statistics of the prefetching of this datasource's file and index (empty if they're not prefetched)
+     */
+    public PrefetchStatistics getPrefetchStatistics() {
+        return prefetchStatistics;
+    }
+
+    /**
+     * @return true if this datasource supports queries by interval (see {@link #query})
+     */
+    public boolean supportsRandomAccess() {
+        return supportsRandomAccess;
+    }
+
     @SuppressWarnings("unchecked")
     private static <T extends Feature> FeatureReader<T> getFeatureReader(final FeatureInput<T> featureInput, final Class<? extends Feature> targetFeatureType,
                                                                          final Function<SeekableByteChannel, SeekableByteChannel> cloudWrapper,
@@ -565,6 +586,9 @@ public final class FeatureDataSource<T extends Feature> implements GATKDataSourc
 
         logger.debug(String.format("Cache statistics for FeatureInput %s:", featureInput));
         queryCache.printCacheStatistics();
+        if (!prefetchStatistics.isEmpty()) {
+            logger.debug(String.format("Prefetching statistics for FeatureInput %s:%n%s", featureInput, prefetchStatistics));
+        }
 
         try {
             if (featureReader != null) {
@@ -32,10 +32,12 @@ import org.broadinstitute.hellbender.utils.Utils;
 import org.broadinstitute.hellbender.utils.config.ConfigFactory;
 import org.broadinstitute.hellbender.utils.config.GATKConfig;
 import org.broadinstitute.hellbender.utils.io.IOUtils;
+import org.broadinstitute.hellbender.utils.nio.SeekableByteChannelPrefetcher;
 import org.broadinstitute.hellbender.utils.read.GATKRead;
 import org.broadinstitute.hellbender.utils.read.ReadUtils;
 import org.broadinstitute.hellbender.utils.read.SAMFileGATKReadWriter;
 import org.broadinstitute.hellbender.utils.reference.ReferenceUtils;
+import org.broadinstitute.hellbender.utils.runtime.RuntimeMetrics;
 import org.broadinstitute.hellbender.utils.variant.GATKVariantContextUtils;
 
 import java.io.File;
@@ -110,12 +112,39 @@ public abstract class GATKTool extends CommandLineProgram {
     @Argument(fullName = StandardArgumentDefinitions.CLOUD_INDEX_PREFETCH_BUFFER_LONG_NAME, shortName = StandardArgumentDefinitions.CLOUD_INDEX_PREFETCH_BUFFER_SHORT_NAME, doc = "Size of the cloud-only prefetch buffer (in MB; 0 to disable). Defaults to cloudPrefetchBuffer if unset.", optional=true)
     public int cloudIndexPrefetchBuffer = getDefaultCloudIndexPrefetchBufferSize();
 
+    @Argument(fullName = StandardArgumentDefinitions.LOCAL_PREFETCH_BUFFER_LONG_NAME, doc = "Size of the prefetch buffer for reads inputs that are not on the cloud, e.g. on NFS or Lustre (in MB; 0 to disable).", optional=true)
+    public int localPrefetchBuffer = 0;
+
+    @Argument(fullName = StandardArgumentDefinitions.PREFETCH_BUFFER_COUNT_LONG_NAME, doc = "Number of prefetch buffers for each reads input, so that up to this many minus one buffers are fetched ahead. With 3 or more, traversals by interval also prefetch the start of the next interval.", optional=true, minValue = 1)
+    public int prefetchBufferCount = SeekableByteChannelPrefetcher.DEFAULT_BUFFER_COUNT;
+
     @Argument(fullName = StandardArgumentDefinitions.DISABLE_BAM_INDEX_CACHING_LONG_NAME,
             shortName = StandardArgumentDefinitions.DISABLE_BAM_INDEX_CACHING_SHORT_NAME,
             doc = "If true, don't cache bam indexes, this will reduce memory requirements but may harm performance if many intervals are specified.  Caching is automatically disabled if there are no intervals specified.",
             optional = true)
     public boolean disableBamIndexCaching = false;
 
+    @Argument(fullName = StandardArgumentDefinitions.ASYNC_READS_DECOMPRESSION_LONG_NAME,
+            doc = "If true, decompress input BAM files ahead of the traversal on background threads, so that decompression " +
+                    "overlaps with processing (and with the decompression of any other input BAM files). If false, the htsjdk " +
+                    "default (the samjdk.use_async_io_read_samtools property) applies.",
+            optional = true)
+    public boolean asyncReadsDecompression = false;
+
+    @Argument(fullName = StandardArgumentDefinitions.ASYNC_OUTPUT_COMPRESSION_LONG_NAME,
+            doc = "If true, encode and compress output SAM/BAM/CRAM and VCF files on a background thread, so that compression " +
+                    "overlaps with processing. Only safe for tools that don't modify reads or variants after writing them. If false, " +
+                    "the htsjdk defaults (the samjdk.use_async_io_write_* properties) apply.",
+            optional = true)
+    public boolean asyncOutputCompression = false;
+
+    @Argument(fullName = StandardArgumentDefinitions.RUNTIME_METRICS_OUTPUT_LONG_NAME,
+            doc = "If specified, time the phases of the run (startup, traversal, and tool-specific steps such as assembly " +
+                    "and pair-HMM in HaplotypeCaller) and write the totals to this file, as JSON if its name ends in .json " +
+                    "and as a tab-separated table otherwise.",
+            optional = true)
+    public String runtimeMetricsOutput = null;
+
     @Argument(fullName = StandardArgumentDefinitions.SITES_ONLY_LONG_NAME,
             doc = "If true, don't emit genotype fields when writing vcf file output.", optional = true)
     public boolean outputSitesOnlyVCFs = false;
@@ -166,6 +195,15 @@ public abstract class GATKTool extends CommandLineProgram {
      */
     protected ProgressMeter progressMeter;
 
+    /*
+     * Timers for the phases of every tool, recorded only if runtimeMetricsOutput is specified
+     */
+    private static final RuntimeMetrics.Timer STARTUP_TIMER = RuntimeMetrics.timer("GATKTool.onStartup");
+    private static final RuntimeMetrics.Timer TRAVERSAL_START_TIMER = RuntimeMetrics.timer("GATKTool.onTraversalStart");
+    private static final RuntimeMetrics.Timer TRAVERSAL_TIMER = RuntimeMetrics.timer("GATKTool.traverse");
+    private static final RuntimeMetrics.Timer TRAVERSAL_SUCCESS_TIMER = RuntimeMetrics.timer("GATKTool.onTraversalSuccess");
+    private static final RuntimeMetrics.Timer CLOSE_TOOL_TIMER = RuntimeMetrics.timer("GATKTool.closeTool");
+
     /**
      * Return the list of GATKCommandLinePluginDescriptors to be used for this tool.
      * Uses the read filter plugin.
@@ -383,9 +421,12 @@ public abstract class GATKTool extends CommandLineProgram {
             if(bamIndexCachingShouldBeEnabled()) {
                 factory = factory.enable(SamReaderFactory.Option.CACHE_FILE_BASED_INDEXES);
             }
+            if (asyncReadsDecompression) {
+                factory = factory.setUseAsyncIo(true);
+            }
 
             reads = new ReadsDataSource(readArguments.getReadPaths(), readArguments.getReadIndexPaths(), factory, cloudPrefetchBuffer,
-                (cloudIndexPrefetchBuffer < 0 ? cloudPrefetchBuffer : cloudIndexPrefetchBuffer));
+                (cloudIndexPrefetchBuffer < 0 ? cloudPrefetchBuffer : cloudIndexPrefetchBuffer), localPrefetchBuffer, prefetchBufferCount);
         }
         else {
             reads = null;
@@ -629,24 +670,38 @@ public abstract class GATKTool extends CommandLineProgram {
     protected void onStartup() {
         super.onStartup();
 
-        loadMasterSequenceDictionary();
+        if ( runtimeMetricsOutput != null ) {
+            RuntimeMetrics.reset();
+            RuntimeMetrics.setEnabled(true);
+        }
+        final long startupStartTime = STARTUP_TIMER.start();
+
+        try {
+            loadMasterSequenceDictionary();
 
-        initializeReference();
+            initializeReference();
 
-        initializeReads(); // Must be initialized after reference, in case we are dealing with CRAM and a reference is required
+            initializeReads(); // Must be initialized after reference, in case we are dealing with CRAM and a reference is required
 
-        initializeFeatures();
+            initializeFeatures();
 
-        initializeIntervals(); // Must be initialized after reference, reads and features, since intervals currently require a sequence dictionary from another data source
+            initializeIntervals(); // Must be initialized after reference, reads and features, since intervals currently require a sequence dictionary from another data source
 
-        if ( seqValidationArguments.performSequenceDictionaryValidation()) {
-            validateSequenceDictionaries();
-        }
+            if ( seqValidationArguments.performSequenceDictionaryValidation()) {
+                validateSequenceDictionaries();
+            }
 
-        checkToolRequirements();
+            checkToolRequirements();
 
-        progressMeter = new ProgressMeter(secondsBetweenProgressUpdates);
-        progressMeter.setRecordLabel(getProgressMeterRecordLabel());
+            progressMeter = new ProgressMeter(secondsBetweenProgressUpdates);
+            progressMeter.setRecordLabel(getProgressMeterRecordLabel());
+        } catch ( final RuntimeException | Error e ) {
+            // doWork won't run, so there will be no metrics to write
+            RuntimeMetrics.setEnabled(false);
+            throw e;
+        }
+
+        STARTUP_TIMER.stop(startupStartTime);
     }
 
     /**
@@ -765,7 +820,8 @@ public abstract class GATKTool extends CommandLineProgram {
                 getHeaderForSAMWriter(),
                 preSorted,
                 createOutputBamIndex,
-                createOutputBamMD5
+                createOutputBamMD5,
+                asyncOutputCompression
             )
         );
     }
@@ -801,6 +857,10 @@ public abstract class GATKTool extends CommandLineProgram {
             options.add(Options.DO_NOT_WRITE_GENOTYPES);
         }
 
+        if (asyncOutputCompression) {
+            options.add(Options.USE_ASYNC_IO);
+        }
+
         return GATKVariantContextUtils.createVCFWriter(
                 outFile,
                 sequenceDictionary,
@@ -929,6 +989,9 @@ public abstract class GATKTool extends CommandLineProgram {
         if ( hasFeatures() ) {
             features.close();
         }
+
+        // metrics are written at the end of doWork, but a subclass may have failed to start up after they were enabled
+        RuntimeMetrics.setEnabled(false);
     }
 
     /**
@@ -960,14 +1023,53 @@ public abstract class GATKTool extends CommandLineProgram {
 
     @Override
     protected final Object doWork() {
+        final Object result;
+        try {
+            result = runTraversalAndCloseTool();
+        } catch ( final RuntimeException | Error e ) {
+            // a failure to write the metrics must not hide the failure of the tool
+            try {
+                writeRuntimeMetrics();
+            } catch ( final RuntimeException metricsException ) {
+                e.addSuppressed(metricsException);
+            }
+            throw e;
+        }
+        writeRuntimeMetrics();
+        return result;
+    }
+
+    private Object runTraversalAndCloseTool() {
         try {
+            long startTime = TRAVERSAL_START_TIMER.start();
             onTraversalStart();
+            TRAVERSAL_START_TIMER.stop(startTime);
             progressMeter.start();
+            startTime = TRAVERSAL_TIMER.start();
             traverse();
+            TRAVERSAL_TIMER.stop(startTime);
             progressMeter.stop();
-            return onTraversalSuccess();
+            startTime = TRAVERSAL_SUCCESS_TIMER.start();
+            final Object result = onTraversalSuccess();
+            TRAVERSAL_SUCCESS_TIMER.stop(startTime);
+            return result;
         } finally {
-            closeTool();
+            final long startTime = CLOSE_TOOL_TIMER.start();
+            try {
+                closeTool();
+            } finally {
+                CLOSE_TOOL_TIMER.stop(startTime);
+            }
+        }
+    }
+
+    /**
+     * Writes the runtime metrics, now that every phase of the run has been timed, and stops recording them
+     */
+    private void writeRuntimeMetrics() {
+        if ( runtimeMetricsOutput != null ) {
+            RuntimeMetrics.setEnabled(false);
+            RuntimeMetrics.write(IOUtils.getPath(runtimeMetricsOutput));
         }
     }
 
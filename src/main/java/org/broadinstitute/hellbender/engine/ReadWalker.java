@@ -5,6 +5,7 @@ import org.broadinstitute.hellbender.engine.filters.ReadFilter;
 import org.broadinstitute.hellbender.engine.filters.WellformedReadFilter;
 import org.broadinstitute.hellbender.utils.SimpleInterval;
 import org.broadinstitute.hellbender.utils.read.GATKRead;
+import org.broadinstitute.hellbender.utils.runtime.RuntimeMetrics;
 
 import java.util.Collections;
 import java.util.List;
@@ -40,6 +41,8 @@ public abstract class ReadWalker extends GATKTool {
      */
     public static final int FEATURE_CACHE_LOOKAHEAD = 1_000;
 
+    private static final RuntimeMetrics.Timer APPLY_TIMER = RuntimeMetrics.timer("ReadWalker.apply");
+
     /**
      * Initialize data sources for traversal.
      *
@@ -88,9 +91,11 @@ public abstract class ReadWalker extends GATKTool {
         getTransformedReadStream(countedFilter)
                 .forEach(read -> {
                     final SimpleInterval readInterval = getReadInterval(read);
+                    final long applyStartTime = APPLY_TIMER.start();
                     apply(read,
                           new ReferenceContext(reference, readInterval), // Will create an empty ReferenceContext if reference or readInterval == null
                           new FeatureContext(features, readInterval));   // Will create an empty FeatureContext if features or readInterval == null
+                    APPLY_TIMER.stop(applyStartTime);
 
                     progressMeter.update(readInterval);
                 });
@@ -2,6 +2,7 @@ package org.broadinstitute.hellbender.engine;
 
 import com.google.common.annotations.VisibleForTesting;
 import htsjdk.samtools.*;
+import htsjdk.samtools.util.BlockCompressedFilePointerUtil;
 import htsjdk.samtools.util.CloseableIterator;
 import htsjdk.samtools.util.IOUtil;
 import java.nio.channels.SeekableByteChannel;
@@ -16,6 +17,7 @@ import org.broadinstitute.hellbender.utils.Utils;
 import org.broadinstitute.hellbender.utils.gcs.BucketUtils;
 import org.broadinstitute.hellbender.utils.iterators.SAMRecordToReadIterator;
 import org.broadinstitute.hellbender.utils.iterators.SamReaderQueryingIterator;
+import org.broadinstitute.hellbender.utils.nio.PrefetchStatistics;
 import org.broadinstitute.hellbender.utils.nio.SeekableByteChannelPrefetcher;
 import org.broadinstitute.hellbender.utils.read.GATKRead;
 import org.broadinstitute.hellbender.utils.read.ReadConstants;
@@ -78,6 +80,17 @@ public final class ReadsDataSource implements GATKDataSource<GATKRead>, AutoClos
      */
     private boolean indicesAvailable;
 
+    /**
+     * Prefetchers wrapping the data channel of each reader, if any, to which we pass hints from {@link #prefetch}.
+     * htsjdk opens the data channel of a SAM/BAM/CRAM file only once, so the last one is the one in use.
+     */
+    private final Map<SamReader, List<SeekableByteChannelPrefetcher>> dataPrefetchers;
+
+    /**
+     * Prefetchers wrapping the index channels, if any, kept only for their statistics.
+     */
+    private final List<SeekableByteChannelPrefetcher> indexPrefetchers;
+
     /**
      * Initialize this data source with a single SAM/BAM file and validation stringency SILENT.
      *
@@ -159,11 +172,31 @@ public final class ReadsDataSource implements GATKDataSource<GATKRead>, AutoClos
     public ReadsDataSource( final List<Path> samPaths, final List<Path> samIndices,
             SamReaderFactory customSamReaderFactory,
             int cloudPrefetchBuffer, int cloudIndexPrefetchBuffer) {
+        this(samPaths, samIndices, customSamReaderFactory, cloudPrefetchBuffer, cloudIndexPrefetchBuffer, 0,
+            SeekableByteChannelPrefetcher.DEFAULT_BUFFER_COUNT);
+    }
+
+    /**
+     * Initialize this data source with multiple SAM/BAM/CRAM files, explicit indices for those files,
+     * and a custom SamReaderFactory.
+     *
+     * @param samPaths paths to SAM/BAM/CRAM files, not null
+     * @param samIndices indices for all of the SAM/BAM/CRAM files, in the same order as samPaths. May be null,
+     *                   in which case index paths are inferred automatically.
+     * @param customSamReaderFactory SamReaderFactory to use, if null a default factory with no reference and validation
+     *                               stringency SILENT is used.
+     * @param cloudPrefetchBuffer MB size of caching/prefetching wrapper for the data, if on Google Cloud (0 to disable).
+     * @param cloudIndexPrefetchBuffer MB size of caching/prefetching wrapper for the index, if on Google Cloud (0 to disable).
+     * @param localPrefetchBuffer MB size of caching/prefetching wrapper for the data, if not on Google Cloud (0 to disable).
+     * @param prefetchBufferCount number of buffers in each prefetching wrapper.
+     */
+    public ReadsDataSource( final List<Path> samPaths, final List<Path> samIndices,
+            SamReaderFactory customSamReaderFactory,
+            int cloudPrefetchBuffer, int cloudIndexPrefetchBuffer, int localPrefetchBuffer, int prefetchBufferCount) {
         this(samPaths, samIndices, customSamReaderFactory,
-            (cloudPrefetchBuffer > 0 ? is -> SeekableByteChannelPrefetcher.addPrefetcher(cloudPrefetchBuffer, is)
-                                     : Function.identity()),
-            (cloudIndexPrefetchBuffer > 0 ? is -> SeekableByteChannelPrefetcher.addPrefetcher(cloudIndexPrefetchBuffer, is)
-                : Function.identity()));
+            getPrefetchingWrapper(cloudPrefetchBuffer, prefetchBufferCount),
+            getPrefetchingWrapper(cloudIndexPrefetchBuffer, prefetchBufferCount),
+            getPrefetchingWrapper(localPrefetchBuffer, prefetchBufferCount));
     }
 
     /**
@@ -182,6 +215,27 @@ public final class ReadsDataSource implements GATKDataSource<GATKRead>, AutoClos
         SamReaderFactory customSamReaderFactory,
         Function<SeekableByteChannel, SeekableByteChannel> cloudWrapper,
         Function<SeekableByteChannel, SeekableByteChannel> cloudIndexWrapper) {
+        this(samPaths, samIndices, customSamReaderFactory, cloudWrapper, cloudIndexWrapper, Function.identity());
+    }
+
+    /**
+     * Initialize this data source with multiple SAM/BAM/CRAM files, explicit indices for those files,
+     * and a custom SamReaderFactory.
+     *
+     * @param samPaths paths to SAM/BAM/CRAM files, not null
+     * @param samIndices indices for all of the SAM/BAM/CRAM files, in the same order as samPaths. May be null,
+     *                   in which case index paths are inferred automatically.
+     * @param customSamReaderFactory SamReaderFactory to use, if null a default factory with no reference and validation
+     *                               stringency SILENT is used.
+     * @param cloudWrapper caching/prefetching wrapper for the data, if on Google Cloud.
+     * @param cloudIndexWrapper caching/prefetching wrapper for the index, if on Google Cloud.
+     * @param localWrapper caching/prefetching wrapper for the data, if not on Google Cloud.
+     */
+    public ReadsDataSource( final List<Path> samPaths, final List<Path> samIndices,
+        SamReaderFactory customSamReaderFactory,
+        Function<SeekableByteChannel, SeekableByteChannel> cloudWrapper,
+        Function<SeekableByteChannel, SeekableByteChannel> cloudIndexWrapper,
+        Function<SeekableByteChannel, SeekableByteChannel> localWrapper) {
         Utils.nonNull(samPaths);
         Utils.nonEmpty(samPaths, "ReadsDataSource cannot be created from empty file list");
 
@@ -192,6 +246,8 @@ public final class ReadsDataSource implements GATKDataSource<GATKRead>, AutoClos
 
         readers = new LinkedHashMap<>(samPaths.size() * 2);
         backingPaths = new LinkedHashMap<>(samPaths.size() * 2);
+        dataPrefetchers = new LinkedHashMap<>(samPaths.size() * 2);
+        indexPrefetchers = new ArrayList<>();
         indicesAvailable = true;
 
         final SamReaderFactory samReaderFactory =
@@ -209,18 +265,21 @@ public final class ReadsDataSource implements GATKDataSource<GATKRead>, AutoClos
                 throw new UserException.CouldNotReadInputFile(samPath.toString(), e);
             }
 
-            Function<SeekableByteChannel, SeekableByteChannel> wrapper =
+            final List<SeekableByteChannelPrefetcher> samPrefetchers = new ArrayList<>(1);
+            Function<SeekableByteChannel, SeekableByteChannel> wrapper = recordPrefetchers(
                 (BucketUtils.isCloudStorageUrl(samPath)
                     ? cloudWrapper
-                    : Function.identity());
+                    : localWrapper),
+                samPrefetchers);
             // if samIndices==null then we'll guess the index name from the file name.
             // If the file's on the cloud, then the search will only consider locations that are also
             // in the cloud.
-            Function<SeekableByteChannel, SeekableByteChannel> indexWrapper =
+            Function<SeekableByteChannel, SeekableByteChannel> indexWrapper = recordPrefetchers(
                 ((samIndices != null && BucketUtils.isCloudStorageUrl(samIndices.get(samCount))
                  || (samIndices == null && BucketUtils.isCloudStorageUrl(samPath)))
                     ? cloudIndexWrapper
-                    : Function.identity());
+                    : Function.identity()),
+                indexPrefetchers);
 
             SamReader reader;
             if ( samIndices == null ) {
@@ -240,6 +299,7 @@ public final class ReadsDataSource implements GATKDataSource<GATKRead>, AutoClos
 
             readers.put(reader, null);
             backingPaths.put(reader, samPath);
+            dataPrefetchers.put(reader, samPrefetchers);
             ++samCount;
         }
 
@@ -247,6 +307,27 @@ public final class ReadsDataSource implements GATKDataSource<GATKRead>, AutoClos
         headerMerger = samPaths.size() > 1 ? createHeaderMerger() : null;
     }
 
+    private static Function<SeekableByteChannel, SeekableByteChannel> getPrefetchingWrapper( final int bufferSizeMB, final int bufferCount ) {
+        return bufferSizeMB > 0 ?
+                is -> SeekableByteChannelPrefetcher.addPrefetcher(bufferSizeMB, bufferCount, is, new PrefetchStatistics()) :
+                Function.identity();
+    }
+
+    /**
+     * Wrap a channel wrapper so that the prefetchers it creates, if any, are added to a list
+     */
+    private static Function<SeekableByteChannel, SeekableByteChannel> recordPrefetchers(
+            final Function<SeekableByteChannel, SeekableByteChannel> wrapper,
+            final List<SeekableByteChannelPrefetcher> prefetchers ) {
+        return channel -> {
+            final SeekableByteChannel wrapped = wrapper.apply(channel);
+            if ( wrapped instanceof SeekableByteChannelPrefetcher ) {
+                prefetchers.add((SeekableByteChannelPrefetcher)wrapped);
+            }
+            return wrapped;
+        };
+    }
+
     /**
      * Are indices available for all files?
      */
@@ -346,6 +427,49 @@ public final class ReadsDataSource implements GATKDataSource<GATKRead>, AutoClos
         return prepareIteratorsForTraversal(Arrays.asList(interval));
     }
 
+    /**
+     * Hints that reads overlapping the given intervals will be queried soon (for example, by the next shard of a
+     * traversal), so that inputs being prefetched can start fetching the data at the start of the first of these
+     * intervals in the background. This doesn't affect any iteration in progress, and is a no-op for inputs that are
+     * not prefetched or that don't have a BAM index.
+     *
+     * @param intervals intervals that will be queried soon
+     */
+    public void prefetch( final List<SimpleInterval> intervals ) {
+        if ( intervals == null || intervals.isEmpty() ) {
+            return;
+        }
+        for ( final Map.Entry<SamReader, List<SeekableByteChannelPrefetcher>> prefetchersEntry : dataPrefetchers.entrySet() ) {
+            final SamReader reader = prefetchersEntry.getKey();
+            final List<SeekableByteChannelPrefetcher> prefetchers = prefetchersEntry.getValue();
+            if ( prefetchers.isEmpty() || ! reader.hasIndex() || ! reader.indexing().hasBrowseableIndex() ) {
+                continue;
+            }
+            final SAMSequenceDictionary sequenceDictionary = reader.getFileHeader().getSequenceDictionary();
+            for ( final SimpleInterval interval : intervals ) {
+                final int contigIndex = sequenceDictionary.getSequenceIndex(interval.getContig());
+                if ( contigIndex < 0 ) {
+                    continue;
+                }
+                final BAMFileSpan span = reader.indexing().getBrowseableIndex().getSpanOverlapping(contigIndex, interval.getStart(), interval.getEnd());
+                if ( span != null && ! span.isEmpty() ) {
+                    prefetchers.get(prefetchers.size() - 1).prefetch(BlockCompressedFilePointerUtil.getBlockAddress(span.getFirstOffset()));
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the statistics of all the prefetchers for the inputs and their indices (empty if no input is prefetched)
+     */
+    public PrefetchStatistics getPrefetchStatistics() {
+        final PrefetchStatistics statistics = new PrefetchStatistics();
+        dataPrefetchers.values().forEach(prefetchers -> prefetchers.forEach(prefetcher -> statistics.add(prefetcher.getPrefetchStatistics())));
+        indexPrefetchers.forEach(prefetcher -> statistics.add(prefetcher.getPrefetchStatistics()));
+        return statistics;
+    }
+
     /**
      * @return An iterator over just the unmapped reads with no assigned position. This operation is not affected
      *         by prior calls to {@link #setTraversalBounds}. The underlying file must be indexed.
@@ -481,6 +605,11 @@ public final class ReadsDataSource implements GATKDataSource<GATKRead>, AutoClos
         catch ( IOException e ) {
             throw new GATKException("Error closing SAMReader");
         }
+
+        final PrefetchStatistics prefetchStatistics = getPrefetchStatistics();
+        if ( ! prefetchStatistics.isEmpty() ) {
+            logger.info("Prefetching statistics for reads inputs:\n" + prefetchStatistics);
+        }
     }
 
     /**
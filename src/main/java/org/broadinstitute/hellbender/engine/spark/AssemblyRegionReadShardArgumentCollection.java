@@ -1,5 +1,6 @@
 package org.broadinstitute.hellbender.engine.spark;
 
+import org.broadinstitute.barclay.argparser.Advanced;
 import org.broadinstitute.barclay.argparser.Argument;
 
 import java.io.Serializable;
@@ -10,9 +11,25 @@ public class AssemblyRegionReadShardArgumentCollection implements Serializable {
     public static final int DEFAULT_READSHARD_SIZE = 5000;
     public static final int DEFAULT_READSHARD_PADDING_SIZE = 100;
 
+    public static final String SHARD_COST_SAMPLE_FRACTION_LONG_NAME = "shard-cost-sample-fraction";
+    public static final String MAX_SHARD_COST_MULTIPLE_LONG_NAME = "max-shard-cost-multiple";
+    public static final double DEFAULT_MAX_SHARD_COST_MULTIPLE = 4.0;
+
     @Argument(fullName="readShardSize", shortName="readShardSize", doc = "Maximum size of each read shard, in bases. For good performance, this should be much larger than the maximum assembly region size.", optional = true)
     public int readShardSize = DEFAULT_READSHARD_SIZE;
 
     @Argument(fullName="readShardPadding", shortName="readShardPadding", doc = "Each read shard has this many bases of extra context on each side. Read shards must have as much or more padding than assembly regions.", optional = true)
     public int readShardPadding = DEFAULT_READSHARD_PADDING_SIZE;
+
+    @Advanced
+    @Argument(fullName=SHARD_COST_SAMPLE_FRACTION_LONG_NAME, doc = "Fraction of reads to sample in order to estimate the cost of processing each read shard. " +
+            "If greater than zero, read shards with an estimated cost greater than " + MAX_SHARD_COST_MULTIPLE_LONG_NAME + " times the mean are split, " +
+            "and read shards are repartitioned (using a shuffle) so that each partition has a similar estimated cost. " +
+            "This reduces the time spent waiting for a few slow partitions when coverage is very uneven. Zero disables cost-based partitioning.", optional = true, minValue = 0.0, maxValue = 1.0)
+    public double shardCostSampleFraction = 0.0;
+
+    @Advanced
+    @Argument(fullName=MAX_SHARD_COST_MULTIPLE_LONG_NAME, doc = "Read shards with an estimated cost greater than this multiple of the mean are split into smaller shards. " +
+            "Only used if " + SHARD_COST_SAMPLE_FRACTION_LONG_NAME + " is greater than zero.", optional = true, minValue = 1.0)
+    public double maxShardCostMultiple = DEFAULT_MAX_SHARD_COST_MULTIPLE;
 }
@@ -2,6 +2,8 @@ package org.broadinstitute.hellbender.engine.spark;
 
 import com.google.common.collect.Iterators;
 import com.google.common.collect.Lists;
+import htsjdk.samtools.CigarElement;
+import htsjdk.samtools.CigarOperator;
 import htsjdk.samtools.SAMFileHeader;
 import htsjdk.samtools.SAMSequenceDictionary;
 import org.apache.spark.SparkFiles;
@@ -36,10 +38,18 @@ import java.util.function.Supplier;
  * the fast version.
  */
 public class FindAssemblyRegionsSpark {
+    private static final long SHARD_COST_SAMPLING_SEED = 1L;
+
+    //reads with indels or soft clips are more likely to lie in active regions and to require assembly
+    private static final double ESTIMATED_COST_PER_READ = 1.;
+    private static final double ESTIMATED_ADDITIONAL_COST_PER_READ_WITH_EVIDENCE = 1.;
 
     /**
      * Get an RDD of assembly regions for the given reads and intervals using the <i>fast</i> algorithm (looks for
      * assembly regions in each read shard in parallel).
+     * If {@link AssemblyRegionReadShardArgumentCollection#shardCostSampleFraction} is positive, the cost of each read
+     * shard is first estimated by sampling the reads, hot shards are split, and the read shards are repartitioned by
+     * cost using a {@link ShardCostBalancer}.
      * @param ctx the Spark context
      * @param reads the coordinate-sorted reads
      * @param header the header for the reads
@@ -67,12 +77,32 @@ public class FindAssemblyRegionsSpark {
             final AssemblyRegionArgumentCollection assemblyRegionArgs,
             final boolean includeReadsWithDeletionsInIsActivePileups,
             final boolean shuffle) {
-        JavaRDD<Shard<GATKRead>> shardedReads = SparkSharder.shard(ctx, reads, GATKRead.class, sequenceDictionary, intervalShards, shardingArgs.readShardSize, shuffle);
+        final ShardCostBalancer shardCostBalancer = shardingArgs.shardCostSampleFraction > 0. ?
+                ShardCostBalancer.estimate(ctx, reads, intervalShards, sequenceDictionary,
+                        shardingArgs.shardCostSampleFraction, SHARD_COST_SAMPLING_SEED, FindAssemblyRegionsSpark::estimateReadCost)
+                        .splitHotShards(shardingArgs.maxShardCostMultiple, assemblyRegionArgs.maxAssemblyRegionSize,
+                                shardingArgs.readShardPadding, sequenceDictionary) :
+                null;
+        JavaRDD<Shard<GATKRead>> shardedReads = SparkSharder.shard(ctx, reads, GATKRead.class, sequenceDictionary,
+                shardCostBalancer == null ? intervalShards : shardCostBalancer.getShardBoundaries(), shardingArgs.readShardSize, shuffle);
+        if (shardCostBalancer != null) {
+            shardedReads = shardCostBalancer.repartition(shardedReads, shardedReads.getNumPartitions(), sequenceDictionary);
+        }
         Broadcast<FeatureManager> bFeatureManager = features == null ? null : ctx.broadcast(features);
         return shardedReads.mapPartitions(getAssemblyRegionsFunctionFast(referenceFileName, bFeatureManager, header,
                 assemblyRegionEvaluatorSupplierBroadcast, assemblyRegionArgs, includeReadsWithDeletionsInIsActivePileups));
     }
 
+    private static double estimateReadCost(final GATKRead read) {
+        for (final CigarElement element : read.getCigarElements()) {
+            final CigarOperator operator = element.getOperator();
+            if (operator.isIndel() || operator == CigarOperator.SOFT_CLIP) {
+                return ESTIMATED_COST_PER_READ + ESTIMATED_ADDITIONAL_COST_PER_READ_WITH_EVIDENCE;
+            }
+        }
+        return ESTIMATED_COST_PER_READ;
+    }
+
     private static FlatMapFunction<Iterator<Shard<GATKRead>>, AssemblyRegionWalkerContext> getAssemblyRegionsFunctionFast(
             final String referenceFileName,
             final Broadcast<FeatureManager> bFeatureManager,
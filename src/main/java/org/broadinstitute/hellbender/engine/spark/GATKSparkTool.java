@@ -4,12 +4,14 @@ import com.google.common.annotations.VisibleForTesting;
 import htsjdk.samtools.SAMFileHeader;
 import htsjdk.samtools.SAMSequenceDictionary;
 import htsjdk.samtools.SamFileHeaderMerger;
+import htsjdk.samtools.SamReaderFactory;
 import htsjdk.samtools.reference.ReferenceSequenceFileFactory;
 import htsjdk.samtools.util.GZIIndex;
 import htsjdk.samtools.util.IOUtil;
 import htsjdk.variant.vcf.VCFHeaderLine;
 import org.apache.spark.api.java.JavaRDD;
 import org.apache.spark.api.java.JavaSparkContext;
+import org.broadinstitute.barclay.argparser.Advanced;
 import org.broadinstitute.barclay.argparser.Argument;
 import org.broadinstitute.barclay.argparser.ArgumentCollection;
 import org.broadinstitute.barclay.argparser.CommandLinePluginDescriptor;
@@ -20,9 +22,14 @@ import org.broadinstitute.hellbender.cmdline.argumentcollections.*;
 import org.broadinstitute.hellbender.engine.FeatureDataSource;
 import org.broadinstitute.hellbender.engine.FeatureManager;
 import org.broadinstitute.hellbender.engine.GATKTool;
+import org.broadinstitute.hellbender.engine.ReadsDataSource;
+import org.broadinstitute.hellbender.engine.ReferenceDataSource;
+import org.broadinstitute.hellbender.engine.Shard;
+import org.broadinstitute.hellbender.engine.ShardBoundary;
 import org.broadinstitute.hellbender.engine.TraversalParameters;
 import org.broadinstitute.hellbender.engine.filters.ReadFilter;
 import org.broadinstitute.hellbender.engine.filters.WellformedReadFilter;
+import org.broadinstitute.hellbender.engine.spark.datasources.ColumnarReadsFormat;
 import org.broadinstitute.hellbender.engine.spark.datasources.ReadsSparkSink;
 import org.broadinstitute.hellbender.engine.spark.datasources.ReadsSparkSource;
 import org.broadinstitute.hellbender.engine.spark.datasources.ReferenceMultiSparkSource;
@@ -43,7 +50,11 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.ZonedDateTime;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Base class for GATK spark tools that accept standard kinds of inputs (reads, reference, and/or intervals).
@@ -80,6 +91,11 @@ public abstract class GATKSparkTool extends SparkCommandLineProgram {
     public static final String SHARDED_OUTPUT_LONG_NAME = "sharded-output";
     public static final String OUTPUT_SHARD_DIR_LONG_NAME = "output-shard-tmp-dir";
     public static final String CREATE_OUTPUT_BAM_SPLITTING_INDEX_LONG_NAME = "create-output-bam-splitting-index";
+    public static final String USE_LOCAL_ENGINE_LONG_NAME = "local-engine";
+    public static final String LOCAL_ENGINE_THREADS_LONG_NAME = "local-engine-threads";
+
+    // how many partitions each local engine thread may compute ahead of the one being consumed
+    private static final int LOCAL_ENGINE_PARTITIONS_IN_FLIGHT_PER_THREAD = 2;
 
     @ArgumentCollection
     public final ReferenceInputArgumentCollection referenceArguments = requiresReference() ? new RequiredReferenceInputArgumentCollection() :  new OptionalReferenceInputArgumentCollection();
@@ -135,6 +151,24 @@ public abstract class GATKSparkTool extends SparkCommandLineProgram {
             doc = "If true, create a VCF index when writing a coordinate-sorted VCF file.", optional = true, common = true)
     public boolean createOutputVariantIndex = true;
 
+    @Advanced
+    @Argument(doc = "Run the tool on a multi-threaded engine in this process rather than on Spark, which avoids the " +
+            "overhead of starting Spark and serializing data between stages. Only supported by some tools, and only " +
+            "suitable for inputs that can be processed on a single machine.",
+            fullName = USE_LOCAL_ENGINE_LONG_NAME,
+            optional = true)
+    protected boolean useLocalEngine = false;
+
+    @Advanced
+    @Argument(doc = "Number of threads used by the local engine. Defaults to 0, which uses one thread per available processor.",
+            fullName = LOCAL_ENGINE_THREADS_LONG_NAME,
+            minValue = 0,
+            optional = true)
+    protected int localEngineThreads = 0;
+
+    private transient ForkJoinPool localEngineExecutor;
+    private transient List<AutoCloseable> localEngineResources;
+
     private ReadsSparkSource readsSource;
     private SAMFileHeader readsHeader;
     private LinkedHashMap<String, SAMFileHeader> readInputs;
@@ -328,6 +362,12 @@ public abstract class GATKSparkTool extends SparkCommandLineProgram {
             } catch (IOException e) {
                 throw new UserException("Failed to read ADAM file " + input, e);
             }
+        } else if (ColumnarReadsFormat.isColumnarReadsPath(input)) {
+            try {
+                output = source.getColumnarReads(input, traversalParameters, getHeaderForReads());
+            } catch (IOException e) {
+                throw new UserException("Failed to read columnar reads " + input, e);
+            }
 
         } else {
             if (hasCramInput() && !hasReference()){
@@ -352,16 +392,20 @@ public abstract class GATKSparkTool extends SparkCommandLineProgram {
     /**
      * Writes the reads from a {@link JavaRDD} to an output file.
      * @param ctx the JavaSparkContext to write.
-     * @param outputFile path to the output bam/cram.
+     * @param outputFile path to the output bam/cram, or to a directory ending in
+     *                   {@link ColumnarReadsFormat#COLUMNAR_READS_EXTENSION} to write the columnar format.
      * @param reads reads to write.
      * @param header the header to write.
      */
     public void writeReads(final JavaSparkContext ctx, final String outputFile, JavaRDD<GATKRead> reads, SAMFileHeader header) {
         try {
+            final boolean columnarOutput = ColumnarReadsFormat.isColumnarReadsPath(outputFile);
+            final ReadsWriteFormat format = columnarOutput ? ReadsWriteFormat.COLUMNAR
+                    : shardedOutput ? ReadsWriteFormat.SHARDED : ReadsWriteFormat.SINGLE;
             ReadsSparkSink.writeReads(ctx, outputFile,
                     hasReference() ? referenceArguments.getReferencePath().toAbsolutePath().toUri().toString() : null,
-                    reads, header, shardedOutput ? ReadsWriteFormat.SHARDED : ReadsWriteFormat.SINGLE,
-                    getRecommendedNumReducers(), shardedPartsDir, createOutputBamIndex, createOutputBamSplittingIndex);
+                    reads, header, format,
+                    getRecommendedNumReducers(), columnarOutput ? null : shardedPartsDir, createOutputBamIndex, createOutputBamSplittingIndex);
         } catch (IOException e) {
             throw new UserException.CouldNotCreateOutputFile(outputFile,"writing failed", e);
         }
@@ -521,6 +565,195 @@ public abstract class GATKSparkTool extends SparkCommandLineProgram {
         return userIntervals;
     }
 
+    /**
+     * Returns whether this tool can run on the local engine, rather than on Spark, when {@link #useLocalEngine} is set.
+     * Tools that return {@code true} must implement the local processing method of their traversal type
+     * (e.g. {@link ReadWalkerSpark#processReadsLocally}), or override {@link #runToolLocally}.
+     */
+    protected boolean supportsLocalEngine() {
+        return false;
+    }
+
+    @Override
+    protected Object doWork() {
+        if ( !useLocalEngine ) {
+            return super.doWork();
+        }
+        if ( !supportsLocalEngine() ) {
+            throw new UserException(getClass().getSimpleName() + " does not support the --" + USE_LOCAL_ENGINE_LONG_NAME + " argument.");
+        }
+        final int numThreads = localEngineThreads == 0 ? Runtime.getRuntime().availableProcessors() : localEngineThreads;
+        logger.info("Running on the local engine with " + numThreads + " threads");
+        localEngineExecutor = new ForkJoinPool(numThreads);
+        localEngineResources = Collections.synchronizedList(new ArrayList<>());
+        try {
+            runLocalPipeline();
+            return null;
+        } finally {
+            shutdownLocalEngine();
+        }
+    }
+
+    private void shutdownLocalEngine() {
+        localEngineExecutor.shutdownNow();
+        try {
+            localEngineExecutor.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (final AutoCloseable resource : localEngineResources) {
+            try {
+                resource.close();
+            } catch (final Exception e) {
+                logger.warn("Failed to close local engine resource " + resource, e);
+            }
+        }
+        localEngineExecutor = null;
+        localEngineResources = null;
+    }
+
+    /**
+     * Runs the pipeline on the local engine: the counterpart of {@link #runPipeline} for when {@link #useLocalEngine} is set.
+     */
+    protected void runLocalPipeline() {
+        initializeToolInputs(null);
+        validateSequenceDictionaries();
+        runToolLocally();
+    }
+
+    /**
+     * Runs the tool itself on the local engine, after initializing and validating inputs.
+     * Must be implemented by tools (or traversal types) that {@link #supportsLocalEngine}.
+     */
+    protected void runToolLocally() {
+        throw new GATKException.ShouldNeverReachHereException(getClass().getSimpleName() + " does not implement runToolLocally");
+    }
+
+    /**
+     * Returns a collection of partitions that are computed on the local engine's threads.
+     * @param partitions a supplier of the elements of each partition, in order
+     */
+    protected <T> LocalPartitions<T> createLocalPartitions(final List<Supplier<Stream<T>>> partitions) {
+        Utils.validate(localEngineExecutor != null, "The local engine is not running.");
+        return new LocalPartitions<>(localEngineExecutor, LOCAL_ENGINE_PARTITIONS_IN_FLIGHT_PER_THREAD * localEngineExecutor.getParallelism(), partitions);
+    }
+
+    /**
+     * Returns a resource, such as a data source, to be used by the partitions computed by one local engine thread.
+     * Each thread creates its own instance on first use, so that instances need not be thread-safe, and all instances
+     * are closed once the tool has run.
+     * @param factory creates an instance; may return {@code null}
+     */
+    protected <T extends AutoCloseable> ThreadLocal<T> createLocalEngineResource(final Supplier<T> factory) {
+        Utils.validate(localEngineResources != null, "The local engine is not running.");
+        final List<AutoCloseable> resources = localEngineResources;
+        return ThreadLocal.withInitial(() -> {
+            final T resource = factory.get();
+            if (resource != null) {
+                resources.add(resource);
+            }
+            return resource;
+        });
+    }
+
+    /**
+     * @return a new data source over all the reads inputs, for use on the local engine
+     */
+    ReadsDataSource createLocalReadsDataSource() {
+        return new ReadsDataSource(readArguments.getReadPaths(), getLocalSamReaderFactory());
+    }
+
+    /**
+     * @return a new data source for the reference, or {@code null} if there is none, for use on the local engine
+     */
+    ReferenceDataSource createLocalReferenceDataSource() {
+        return hasReference() ? ReferenceDataSource.of(referenceArguments.getReferencePath()) : null;
+    }
+
+    /**
+     * @return a new feature manager for the feature inputs of this tool, or {@code null} if there are none,
+     * for use on the local engine
+     * @param featureQueryLookahead the number of bases to cache beyond each query
+     */
+    FeatureManager createLocalFeatureManager(final int featureQueryLookahead) {
+        if ( features == null ) {
+            return null;
+        }
+        // the feature manager discovers the feature inputs by introspecting this tool
+        synchronized (this) {
+            return new FeatureManager(this, featureQueryLookahead);
+        }
+    }
+
+    /**
+     * @return whether all the reads inputs are indexed, so that the local engine can query them by interval
+     */
+    boolean localReadsIndexed() {
+        try (final ReadsDataSource readsDataSource = createLocalReadsDataSource()) {
+            return readsDataSource.indicesAvailable();
+        }
+    }
+
+    private SamReaderFactory getLocalSamReaderFactory() {
+        final SamReaderFactory factory = SamReaderFactory.makeDefault().validationStringency(readArguments.getReadValidationStringency());
+        return hasReference() ? factory.referenceSequence(referenceArguments.getReferencePath()) : factory;
+    }
+
+    /**
+     * Returns the shards, in coordinate order, into which the intervals to traverse (or the whole reference, if there are
+     * no user-specified intervals) are divided on the local engine.
+     * @param shardSize the maximum size of each shard, in bases
+     */
+    List<SimpleInterval> getLocalTraversalShards(final int shardSize) {
+        final SAMSequenceDictionary sequenceDictionary = getBestAvailableSequenceDictionary();
+        final List<SimpleInterval> intervals = hasUserSuppliedIntervals() ? getIntervals() : IntervalUtils.getAllIntervalsForReference(sequenceDictionary);
+        return intervals.stream()
+                .flatMap(interval -> Shard.divideIntervalIntoShards(interval, shardSize, 0, sequenceDictionary).stream())
+                .map(ShardBoundary::getInterval)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Returns the partitions of reads that {@link #getReads} would load, for the local engine: one per shard returned by
+     * {@link #getLocalTraversalShards}, followed by one for the unplaced unmapped reads if these are traversed.
+     * Each read is in the partition of the first shard it overlaps.
+     * If the reads are not indexed and no intervals are specified, all the reads are in a single partition.
+     * This is safe however large the partitions are, as {@link LocalPartitions} streams them rather than holding them in memory.
+     * @param shardSize the maximum size of each shard, in bases
+     */
+    List<Supplier<Stream<GATKRead>>> getLocalReadPartitions(final int shardSize) {
+        final ThreadLocal<ReadsDataSource> readsDataSource = createLocalEngineResource(this::createLocalReadsDataSource);
+        final List<Supplier<Stream<GATKRead>>> partitions = new ArrayList<>();
+        if ( !localReadsIndexed() ) {
+            if ( hasUserSuppliedIntervals() ) {
+                throw new UserException("The reads must be indexed to be traversed by interval on the local engine.");
+            }
+            final ReadFilter readFilter = makeReadFilter();
+            partitions.add(() -> Utils.stream(readsDataSource.get()).filter(readFilter));
+            return partitions;
+        }
+
+        String previousContig = null;
+        int previousShardEnd = 0;
+        for ( final SimpleInterval shard : getLocalTraversalShards(shardSize) ) {
+            // reads overlapping more than one shard are in the partition of the first one
+            final int minReadStart = (shard.getContig().equals(previousContig) ? previousShardEnd : 0) + 1;
+            final ReadFilter readFilter = makeReadFilter();
+            partitions.add(() -> Utils.stream(readsDataSource.get().query(shard))
+                    .filter(read -> read.getAssignedStart() >= minReadStart)
+                    .filter(readFilter));
+            previousContig = shard.getContig();
+            previousShardEnd = shard.getEnd();
+        }
+        final boolean traverseUnmapped = !intervalArgumentCollection.intervalsSpecified() ||
+                intervalArgumentCollection.getTraversalParameters(getHeaderForReads().getSequenceDictionary()).traverseUnmappedReads();
+        if ( traverseUnmapped ) {
+            final ReadFilter readFilter = makeReadFilter();
+            partitions.add(() -> Utils.stream(readsDataSource.get().queryUnmapped()).filter(readFilter));
+        }
+        return partitions;
+    }
+
     @Override
     protected void runPipeline( JavaSparkContext sparkContext ) {
         initializeToolInputs(sparkContext);
@@ -541,6 +774,7 @@ public abstract class GATKSparkTool extends SparkCommandLineProgram {
     /**
      * Initializes our reads source (but does not yet load the reads into a {@link JavaRDD}).
      * Does nothing if no reads inputs are present.
+     * When running on the local engine, {@code sparkContext} is {@code null}, and only the headers are loaded.
      */
     private void initializeReads(final JavaSparkContext sparkContext) {
         if ( readArguments.getReadFilesNames().isEmpty() ) {
@@ -552,10 +786,18 @@ public abstract class GATKSparkTool extends SparkCommandLineProgram {
         }
 
         readInputs = new LinkedHashMap<>();
-        readsSource = new ReadsSparkSource(sparkContext, readArguments.getReadValidationStringency());
-        for (String input : readArguments.getReadFilesNames()) {
-            readInputs.put(input, readsSource.getHeader(
-                    input, hasReference() ?  referenceArguments.getReferenceFileName() : null));
+        if (sparkContext == null) {
+            for (String input : readArguments.getReadFilesNames()) {
+                try (ReadsDataSource readsDataSource = new ReadsDataSource(IOUtils.getPath(input), getLocalSamReaderFactory())) {
+                    readInputs.put(input, readsDataSource.getHeader());
+                }
+            }
+        } else {
+            readsSource = new ReadsSparkSource(sparkContext, readArguments.getReadValidationStringency());
+            for (String input : readArguments.getReadFilesNames()) {
+                readInputs.put(input, readsSource.getHeader(
+                        input, hasReference() ?  referenceArguments.getReferenceFileName() : null));
+            }
         }
         readsHeader = createHeaderMerger().getMergedHeader();
     }
@@ -0,0 +1,417 @@
+package org.broadinstitute.hellbender.engine.spark;
+
+import org.apache.spark.api.java.function.FlatMapFunction;
+import org.apache.spark.api.java.function.Function;
+import org.broadinstitute.hellbender.exceptions.GATKException;
+import org.broadinstitute.hellbender.exceptions.UserException;
+import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.gcs.BucketUtils;
+import org.broadinstitute.hellbender.utils.param.ParamUtils;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * A partitioned collection of elements processed on a local thread pool, which stands in for a {@link org.apache.spark.api.java.JavaRDD}
+ * when a {@link GATKSparkTool} runs on the local engine (see {@link GATKSparkTool#USE_LOCAL_ENGINE_LONG_NAME}).
+ *
+ * <p>
+ *     Transformations take the same Spark function types as the corresponding {@code JavaRDD} methods, so that tools
+ *     can apply the same per-element and per-partition functions in both modes. They are lazy: each partition is
+ *     computed by a single task on the pool, in memory and without any serialization, when the results are requested.
+ *     Results are returned in partition order. To bound memory use, only a limited number of partitions are computed
+ *     ahead of the one being consumed, and each of them only runs a few thousand elements ahead of the consumer, so
+ *     that no partition is ever held in memory in full; the next partition is submitted to the pool as each one is
+ *     handed over.
+ * </p>
+ *
+ * <p>
+ *     Each partition is backed by a {@link Stream}, which is closed once the partition has been computed,
+ *     so that data sources opened for a partition can be closed via {@link Stream#onClose}.
+ * </p>
+ *
+ * @param <T> type of the elements
+ */
+public final class LocalPartitions<T> {
+    private final ExecutorService executor;
+    private final int maxPartitionsInFlight;
+    private final List<Supplier<Stream<T>>> partitions;
+
+    /**
+     * @param executor the pool on which partitions are computed
+     * @param maxPartitionsInFlight the maximum number of partitions that are computed, or held once computed, ahead of
+     *                              the partition being consumed; should be a small multiple of the number of threads of the pool
+     * @param partitions a supplier of the elements of each partition, in order
+     */
+    public LocalPartitions(final ExecutorService executor, final int maxPartitionsInFlight, final List<Supplier<Stream<T>>> partitions) {
+        this.executor = Utils.nonNull(executor);
+        this.maxPartitionsInFlight = ParamUtils.isPositive(maxPartitionsInFlight, "maxPartitionsInFlight must be > 0");
+        this.partitions = Collections.unmodifiableList(new ArrayList<>(Utils.nonNull(partitions)));
+    }
+
+    public int getNumPartitions() {
+        return partitions.size();
+    }
+
+    /**
+     * @see org.apache.spark.api.java.JavaRDD#mapPartitions(FlatMapFunction)
+     */
+    public <R> LocalPartitions<R> mapPartitions(final FlatMapFunction<Iterator<T>, R> function) {
+        Utils.nonNull(function);
+        final List<Supplier<Stream<R>>> mappedPartitions = new ArrayList<>(partitions.size());
+        for (final Supplier<Stream<T>> partition : partitions) {
+            mappedPartitions.add(() -> {
+                final Stream<T> elements = partition.get();
+                final Iterator<R> mappedElements;
+                try {
+                    mappedElements = function.call(elements.iterator());
+                } catch (final Exception e) {
+                    elements.close();
+                    throw toRuntimeException(e);
+                }
+                return StreamSupport.stream(Spliterators.spliteratorUnknownSize(mappedElements, Spliterator.ORDERED), false)
+                        .onClose(elements::close);
+            });
+        }
+        return new LocalPartitions<>(executor, maxPartitionsInFlight, mappedPartitions);
+    }
+
+    /**
+     * @see org.apache.spark.api.java.JavaRDD#map(Function)
+     */
+    public <R> LocalPartitions<R> map(final Function<T, R> function) {
+        Utils.nonNull(function);
+        return mapPartitions(elements -> new Iterator<R>() {
+            @Override
+            public boolean hasNext() {
+                return elements.hasNext();
+            }
+
+            @Override
+            public R next() {
+                try {
+                    return function.call(elements.next());
+                } catch (final Exception e) {
+                    throw toRuntimeException(e);
+                }
+            }
+        });
+    }
+
+    /**
+     * @see org.apache.spark.api.java.JavaRDD#filter(Function)
+     */
+    public LocalPartitions<T> filter(final Function<T, Boolean> predicate) {
+        Utils.nonNull(predicate);
+        return mapPartitions(elements -> StreamSupport.stream(Spliterators.spliteratorUnknownSize(elements, Spliterator.ORDERED), false)
+                .filter(element -> {
+                    try {
+                        return predicate.call(element);
+                    } catch (final Exception e) {
+                        throw toRuntimeException(e);
+                    }
+                })
+                .iterator());
+    }
+
+    /**
+     * Computes the partitions in parallel, and returns their elements in order.
+     * The elements of each partition are handed over as they are computed, once all the partitions before it have been
+     * consumed, and at most {@code maxPartitionsInFlight} partitions are being computed or waiting to be consumed at any time.
+     */
+    public Iterator<T> iterator() {
+        return new OrderedPartitionsIterator();
+    }
+
+    /**
+     * @see org.apache.spark.api.java.JavaRDD#collect()
+     */
+    public List<T> collect() {
+        final List<T> elements = new ArrayList<>();
+        iterator().forEachRemaining(elements::add);
+        return elements;
+    }
+
+    /**
+     * @see org.apache.spark.api.java.JavaRDD#count()
+     */
+    public long count() {
+        return mapPartitions(elements -> {
+            long count = 0;
+            for ( ; elements.hasNext(); elements.next()) {
+                count++;
+            }
+            return Collections.singletonList(count).iterator();
+        }).collect().stream().mapToLong(Long::longValue).sum();
+    }
+
+    /**
+     * Writes the elements to a directory of text files, one per line, laid out as {@link org.apache.spark.api.java.JavaRDD#saveAsTextFile}
+     * lays them out: a part file per partition, named part-00000, part-00001 and so on, and an empty _SUCCESS file
+     * once they have all been written. The partitions are written in parallel.
+     * @param path the output directory, which must not exist
+     */
+    public void saveAsTextFile(final String path) {
+        Utils.nonNull(path);
+        if (BucketUtils.fileExists(path)) {
+            throw new UserException.CouldNotCreateOutputFile(path, "the output directory already exists");
+        }
+        if (!BucketUtils.isRemoteStorageUrl(path) && !new File(path).mkdirs()) {
+            throw new UserException.CouldNotCreateOutputFile(path, "could not create the output directory");
+        }
+        final List<Supplier<Stream<Void>>> writtenPartitions = new ArrayList<>(partitions.size());
+        for (int i = 0; i < partitions.size(); i++) {
+            final Supplier<Stream<T>> partition = partitions.get(i);
+            final String partPath = String.format("%s/part-%05d", path, i);
+            writtenPartitions.add(() -> {
+                try (final Stream<T> elements = partition.get();
+                     final PrintStream out = new PrintStream(new BufferedOutputStream(BucketUtils.createFile(partPath)))) {
+                    elements.forEachOrdered(out::println);
+                    if (out.checkError()) {
+                        throw new UserException.CouldNotCreateOutputFile(partPath, "writing failed");
+                    }
+                }
+                return Stream.empty();
+            });
+        }
+        new LocalPartitions<>(executor, maxPartitionsInFlight, writtenPartitions).iterator().forEachRemaining(v -> {});
+        // an empty marker, as written by Hadoop output committers
+        try {
+            BucketUtils.createFile(path + "/_SUCCESS").close();
+        } catch (final IOException e) {
+            throw new UserException.CouldNotCreateOutputFile(path + "/_SUCCESS", "writing failed", e);
+        }
+    }
+
+    /**
+     * Iterates over the elements of the partitions in order, keeping a bounded window of partitions submitted to the pool
+     */
+    private final class OrderedPartitionsIterator implements Iterator<T> {
+        private final Deque<PartitionProducer<T>> partitionsInFlight = new ArrayDeque<>(maxPartitionsInFlight);
+        private int nextPartitionToSubmit = 0;
+        private Iterator<T> currentPartition = Collections.emptyIterator();
+
+        @Override
+        public boolean hasNext() {
+            try {
+                while (!currentPartition.hasNext()) {
+                    submitPartitions();
+                    if (partitionsInFlight.isEmpty()) {
+                        return false;
+                    }
+                    currentPartition = partitionsInFlight.poll().consume();
+                }
+                return true;
+            } catch (final RuntimeException | Error e) {
+                cancelPartitionsInFlight();
+                throw e;
+            }
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            try {
+                return currentPartition.next();
+            } catch (final RuntimeException | Error e) {
+                cancelPartitionsInFlight();
+                throw e;
+            }
+        }
+
+        private void submitPartitions() {
+            while (partitionsInFlight.size() < maxPartitionsInFlight && nextPartitionToSubmit < partitions.size()) {
+                final PartitionProducer<T> producer = new PartitionProducer<>(partitions.get(nextPartitionToSubmit++));
+                producer.submit(executor);
+                partitionsInFlight.add(producer);
+            }
+        }
+
+        private void cancelPartitionsInFlight() {
+            partitionsInFlight.forEach(PartitionProducer::cancel);
+            partitionsInFlight.clear();
+            nextPartitionToSubmit = partitions.size();
+        }
+    }
+
+    /**
+     * Computes a partition on the pool and hands its elements over in chunks through a bounded queue, so that a
+     * partition is never held in memory in full, however large it is (e.g. all the reads of an unindexed input).
+     * If the partition hasn't started on the pool by the time it is consumed, it is computed by the consumer instead,
+     * so that it can't be stuck behind the later partitions whose queues are full.
+     */
+    private static final class PartitionProducer<T> implements Runnable {
+        private static final int CHUNK_SIZE = 1024;
+        private static final int MAX_CHUNKS_QUEUED = 4;
+        private static final long OFFER_TIMEOUT_MILLIS = 100;
+        private static final List<Object> END_OF_PARTITION = new ArrayList<>(0);
+
+        private final Supplier<Stream<T>> partition;
+        private final BlockingQueue<List<?>> chunks = new ArrayBlockingQueue<>(MAX_CHUNKS_QUEUED);
+        private final AtomicBoolean started = new AtomicBoolean(false);
+        private volatile boolean cancelled = false;
+        private volatile Throwable failure = null;
+        private Future<?> task;
+
+        PartitionProducer(final Supplier<Stream<T>> partition) {
+            this.partition = partition;
+        }
+
+        void submit(final ExecutorService executor) {
+            task = executor.submit(this);
+        }
+
+        void cancel() {
+            cancelled = true;
+            task.cancel(true);
+        }
+
+        @Override
+        public void run() {
+            if (!started.compareAndSet(false, true)) {
+                return;
+            }
+            try (final Stream<T> elements = partition.get()) {
+                final Iterator<T> iterator = elements.iterator();
+                List<T> chunk = new ArrayList<>(CHUNK_SIZE);
+                while (iterator.hasNext()) {
+                    chunk.add(iterator.next());
+                    if (chunk.size() == CHUNK_SIZE) {
+                        if (!offer(chunk)) {
+                            return;
+                        }
+                        chunk = new ArrayList<>(CHUNK_SIZE);
+                    }
+                }
+                if (!chunk.isEmpty() && !offer(chunk)) {
+                    return;
+                }
+            } catch (final Throwable e) {
+                failure = e;
+            }
+            offer(END_OF_PARTITION);
+        }
+
+        // waits for room in the queue, unless the partition is cancelled, in which case it returns false
+        private boolean offer(final List<?> chunk) {
+            try {
+                while (!cancelled) {
+                    if (chunks.offer(chunk, OFFER_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                        return true;
+                    }
+                }
+                return false;
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+
+        /**
+         * @return the elements of the partition, in order
+         */
+        Iterator<T> consume() {
+            if (started.compareAndSet(false, true)) {
+                task.cancel(false);
+                return new ClosingIterator<>(partition.get());
+            }
+            return new Iterator<T>() {
+                private Iterator<?> chunk = Collections.emptyIterator();
+                private boolean ended = false;
+
+                @Override
+                public boolean hasNext() {
+                    while (!chunk.hasNext() && !ended) {
+                        final List<?> nextChunk = take();
+                        if (nextChunk == END_OF_PARTITION) {
+                            ended = true;
+                            if (failure != null) {
+                                throw toRuntimeException(failure);
+                            }
+                        } else {
+                            chunk = nextChunk.iterator();
+                        }
+                    }
+                    return chunk.hasNext();
+                }
+
+                @Override
+                @SuppressWarnings("unchecked")
+                public T next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    return (T) chunk.next();
+                }
+            };
+        }
+
+        private List<?> take() {
+            try {
+                return chunks.take();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new GATKException("Interrupted while waiting for a partition to be computed", e);
+            }
+        }
+    }
+
+    /**
+     * Iterates over a stream, and closes it once it is exhausted
+     */
+    private static final class ClosingIterator<T> implements Iterator<T> {
+        private final Stream<T> elements;
+        private final Iterator<T> iterator;
+        private boolean closed = false;
+
+        ClosingIterator(final Stream<T> elements) {
+            this.elements = elements;
+            this.iterator = elements.iterator();
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (closed) {
+                return false;
+            }
+            if (!iterator.hasNext()) {
+                closed = true;
+                elements.close();
+                return false;
+            }
+            return true;
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return iterator.next();
+        }
+    }
+
+    private static RuntimeException toRuntimeException(final Throwable e) {
+        if (e instanceof RuntimeException) {
+            return (RuntimeException) e;
+        } else if (e instanceof Error) {
+            throw (Error) e;
+        } else {
+            return new GATKException("Failed to compute partition", e);
+        }
+    }
+}
@@ -10,9 +10,13 @@ import org.apache.spark.broadcast.Broadcast;
 import org.broadinstitute.barclay.argparser.Argument;
 import org.broadinstitute.barclay.argparser.CommandLineException;
 import org.broadinstitute.hellbender.engine.*;
+import org.broadinstitute.hellbender.engine.filters.ReadFilter;
 import org.broadinstitute.hellbender.engine.spark.datasources.ReferenceMultiSparkSource;
+import org.broadinstitute.hellbender.exceptions.GATKException;
+import org.broadinstitute.hellbender.exceptions.UserException;
 import org.broadinstitute.hellbender.utils.IntervalUtils;
 import org.broadinstitute.hellbender.utils.SimpleInterval;
+import org.broadinstitute.hellbender.utils.Utils;
 import org.broadinstitute.hellbender.utils.io.IOUtils;
 import org.broadinstitute.hellbender.utils.locusiterator.AlignmentContextIteratorBuilder;
 import org.broadinstitute.hellbender.utils.locusiterator.LIBSDownsamplingInfo;
@@ -20,7 +24,9 @@ import org.broadinstitute.hellbender.utils.locusiterator.LocusIteratorByState;
 import org.broadinstitute.hellbender.utils.read.GATKRead;
 
 import java.util.*;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
 /**
@@ -110,34 +116,76 @@ public abstract class LocusWalkerSpark extends GATKSparkTool {
             String referenceFileName, Broadcast<FeatureManager> bFeatureManager,
             SAMSequenceDictionary sequenceDictionary, SAMFileHeader header, LIBSDownsamplingInfo downsamplingInfo, boolean isEmitEmptyLoci) {
         return (FlatMapFunction<Shard<GATKRead>, LocusWalkerContext>) shardedRead -> {
-            SimpleInterval interval = shardedRead.getInterval();
-            Iterator<GATKRead> readIterator = shardedRead.iterator();
             ReferenceDataSource reference = referenceFileName == null ? null : new ReferenceFileSource(IOUtils.getPath(SparkFiles.get(referenceFileName)));
             FeatureManager fm = bFeatureManager == null ? null : bFeatureManager.getValue();
-
-            final AlignmentContextIteratorBuilder alignmentContextIteratorBuilder = new AlignmentContextIteratorBuilder();
-            alignmentContextIteratorBuilder.setDownsamplingInfo(downsamplingInfo);
-            alignmentContextIteratorBuilder.setEmitEmptyLoci(isEmitEmptyLoci);
-            alignmentContextIteratorBuilder.setIncludeDeletions(true);
-            alignmentContextIteratorBuilder.setKeepUniqueReadListInLibs(false);
-            alignmentContextIteratorBuilder.setIncludeNs(false);
-
-            final Iterator<AlignmentContext> alignmentContextIterator = alignmentContextIteratorBuilder.build(
-                    readIterator, header, Collections.singletonList(interval), sequenceDictionary, true);
-
-            return StreamSupport.stream(Spliterators.spliteratorUnknownSize(alignmentContextIterator, 0), false).map(alignmentContext -> {
-                final SimpleInterval alignmentInterval = new SimpleInterval(alignmentContext);
-                return new LocusWalkerContext(alignmentContext, new ReferenceContext(reference, alignmentInterval), new FeatureContext(fm, alignmentInterval));
-            }).iterator();
+            return getAlignmentContexts(shardedRead.iterator(), shardedRead.getInterval(), reference, fm, sequenceDictionary, header, downsamplingInfo, isEmitEmptyLoci);
         };
     }
 
+    /**
+     * Returns the alignments for an interval, with their corresponding reference and features.
+     * @param readIterator the reads that overlap the interval
+     */
+    private static Iterator<LocusWalkerContext> getAlignmentContexts(
+            Iterator<GATKRead> readIterator, SimpleInterval interval, ReferenceDataSource reference, FeatureManager fm,
+            SAMSequenceDictionary sequenceDictionary, SAMFileHeader header, LIBSDownsamplingInfo downsamplingInfo, boolean isEmitEmptyLoci) {
+        final AlignmentContextIteratorBuilder alignmentContextIteratorBuilder = new AlignmentContextIteratorBuilder();
+        alignmentContextIteratorBuilder.setDownsamplingInfo(downsamplingInfo);
+        alignmentContextIteratorBuilder.setEmitEmptyLoci(isEmitEmptyLoci);
+        alignmentContextIteratorBuilder.setIncludeDeletions(true);
+        alignmentContextIteratorBuilder.setKeepUniqueReadListInLibs(false);
+        alignmentContextIteratorBuilder.setIncludeNs(false);
+
+        final Iterator<AlignmentContext> alignmentContextIterator = alignmentContextIteratorBuilder.build(
+                readIterator, header, Collections.singletonList(interval), sequenceDictionary, true);
+
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(alignmentContextIterator, 0), false).map(alignmentContext -> {
+            final SimpleInterval alignmentInterval = new SimpleInterval(alignmentContext);
+            return new LocusWalkerContext(alignmentContext, new ReferenceContext(reference, alignmentInterval), new FeatureContext(fm, alignmentInterval));
+        }).iterator();
+    }
+
     @Override
     protected void runTool(JavaSparkContext ctx) {
         referenceFileName = addReferenceFilesForSpark(ctx, referenceArguments.getReferenceFileName());
         processAlignments(getAlignments(ctx), ctx);
     }
 
+    @Override
+    protected void runToolLocally() {
+        if ( !localReadsIndexed() ) {
+            throw new UserException("The reads must be indexed to be traversed by locus on the local engine.");
+        }
+        final SAMSequenceDictionary sequenceDictionary = getBestAvailableSequenceDictionary();
+        final SAMFileHeader header = getHeaderForReads();
+        final LIBSDownsamplingInfo downsamplingInfo = getDownsamplingInfo();
+        final boolean isEmitEmptyLoci = emitEmptyLoci();
+        final ThreadLocal<ReadsDataSource> reads = createLocalEngineResource(this::createLocalReadsDataSource);
+        final ThreadLocal<ReferenceDataSource> reference = createLocalEngineResource(this::createLocalReferenceDataSource);
+        final ThreadLocal<FeatureManager> featureManager = createLocalEngineResource(() -> createLocalFeatureManager(FeatureDataSource.DEFAULT_QUERY_LOOKAHEAD_BASES));
+
+        final List<Supplier<Stream<LocusWalkerContext>>> partitions = new ArrayList<>();
+        for ( final SimpleInterval shard : getLocalTraversalShards(readShardSize) ) {
+            final ReadFilter readFilter = makeReadFilter();
+            partitions.add(() -> {
+                final Iterator<GATKRead> shardReads = Utils.stream(reads.get().query(shard)).filter(readFilter).iterator();
+                return Utils.stream(getAlignmentContexts(shardReads, shard, reference.get(), featureManager.get(),
+                        sequenceDictionary, header, downsamplingInfo, isEmitEmptyLoci));
+            });
+        }
+        processAlignmentsLocally(createLocalPartitions(partitions));
+    }
+
+    /**
+     * Process the alignments and write output on the local engine. Must be implemented by subclasses that
+     * {@link #supportsLocalEngine()}, typically by applying the same functions as {@link #processAlignments}.
+     *
+     * @param partitions the alignments with their {@link LocusWalkerContext}, partitioned by genomic shard
+     */
+    protected void processAlignmentsLocally(final LocalPartitions<LocusWalkerContext> partitions) {
+        throw new GATKException.ShouldNeverReachHereException(getClass().getSimpleName() + " does not implement processAlignmentsLocally");
+    }
+
     /**
      * Process the alignments and write output. Must be implemented by subclasses.
      *
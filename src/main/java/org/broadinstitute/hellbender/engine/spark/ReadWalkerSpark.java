@@ -8,6 +8,7 @@ import org.apache.spark.api.java.JavaSparkContext;
 import org.apache.spark.api.java.function.FlatMapFunction;
 import org.apache.spark.broadcast.Broadcast;
 import org.broadinstitute.hellbender.engine.*;
+import org.broadinstitute.hellbender.exceptions.GATKException;
 import org.broadinstitute.hellbender.utils.SimpleInterval;
 import org.broadinstitute.hellbender.utils.io.IOUtils;
 import org.broadinstitute.hellbender.utils.read.GATKRead;
@@ -35,6 +36,11 @@ public abstract class ReadWalkerSpark extends GATKSparkTool {
      */
     public static final int FEATURE_CACHE_LOOKAHEAD = 1_000;
 
+    /**
+     * The size of the shards, in bases, into which the reads are partitioned on the local engine.
+     */
+    public static final int LOCAL_ENGINE_SHARD_SIZE = 1_000_000;
+
     private String referenceFileName;
 
     void initializeFeatures() {
@@ -87,6 +93,27 @@ public abstract class ReadWalkerSpark extends GATKSparkTool {
         processReads(getReads(ctx), ctx);
     }
 
+    @Override
+    protected void runToolLocally() {
+        final ThreadLocal<ReferenceDataSource> reference = createLocalEngineResource(this::createLocalReferenceDataSource);
+        final ThreadLocal<FeatureManager> featureManager = createLocalEngineResource(() -> createLocalFeatureManager(FEATURE_CACHE_LOOKAHEAD));
+        final LocalPartitions<GATKRead> reads = createLocalPartitions(getLocalReadPartitions(LOCAL_ENGINE_SHARD_SIZE));
+        processReadsLocally(reads.map(read -> {
+            final SimpleInterval readInterval = getReadInterval(read);
+            return new ReadWalkerContext(read, new ReferenceContext(reference.get(), readInterval), new FeatureContext(featureManager.get(), readInterval));
+        }));
+    }
+
+    /**
+     * Process the reads and write output on the local engine. Must be implemented by subclasses that
+     * {@link #supportsLocalEngine()}, typically by applying the same functions as {@link #processReads}.
+     *
+     * @param partitions the reads with their {@link ReadWalkerContext}, partitioned by genomic shard
+     */
+    protected void processReadsLocally(final LocalPartitions<ReadWalkerContext> partitions) {
+        throw new GATKException.ShouldNeverReachHereException(getClass().getSimpleName() + " does not implement processReadsLocally");
+    }
+
     /**
      * Process the reads and write output. Must be implemented by subclasses.
      *
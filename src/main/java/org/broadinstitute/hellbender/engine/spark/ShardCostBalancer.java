@@ -0,0 +1,336 @@
+package org.broadinstitute.hellbender.engine.spark;
+
+import htsjdk.samtools.SAMSequenceDictionary;
+import htsjdk.samtools.util.Locatable;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.spark.Partitioner;
+import org.apache.spark.api.java.JavaRDD;
+import org.apache.spark.api.java.JavaSparkContext;
+import org.apache.spark.api.java.function.FlatMapFunction;
+import org.apache.spark.broadcast.Broadcast;
+import org.broadinstitute.hellbender.engine.Shard;
+import org.broadinstitute.hellbender.engine.ShardBoundary;
+import org.broadinstitute.hellbender.utils.IntervalUtils;
+import org.broadinstitute.hellbender.utils.SerializableFunction;
+import org.broadinstitute.hellbender.utils.SimpleInterval;
+import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.param.ParamUtils;
+import scala.Tuple2;
+
+import java.io.Serializable;
+import java.util.*;
+
+/**
+ * Balances the work done on each Spark partition when processing {@link Shard}s whose cost varies widely, such as read
+ * shards over centromeres, the HLA or high-coverage repeats, which would otherwise dominate the running time of a stage.
+ *
+ * <p>
+ *     The cost of each {@link ShardBoundary} is estimated by a sampling pre-pass over the locatables
+ *     (see {@link #estimate}). Shards whose estimated cost is much larger than the mean may then be split into smaller
+ *     shards (see {@link #splitHotShards}), and the sharded locatables repartitioned so that each Spark partition
+ *     has a similar estimated cost (see {@link #repartition}): hot shards end up in partitions of their own, and runs
+ *     of cold shards are coalesced into a single partition. Shards are assigned to partitions contiguously, so the
+ *     coordinate order of shards is preserved across partitions.
+ * </p>
+ *
+ * <p>
+ *     Instances are immutable.
+ * </p>
+ */
+public final class ShardCostBalancer implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private static final Logger logger = LogManager.getLogger(ShardCostBalancer.class);
+
+    private final List<ShardBoundary> shardBoundaries;
+    private final double[] costs;
+
+    /**
+     * @param shardBoundaries   shard boundaries, must be coordinate sorted
+     * @param costs             estimated cost of each shard, in the same order
+     */
+    public ShardCostBalancer(final List<ShardBoundary> shardBoundaries, final double[] costs) {
+        Utils.nonNull(shardBoundaries);
+        Utils.nonNull(costs);
+        Utils.validateArg(shardBoundaries.size() == costs.length, "Number of shard boundaries and costs must be equal.");
+        Utils.validateArg(Arrays.stream(costs).allMatch(c -> c >= 0. && Double.isFinite(c)), "Costs must be finite and non-negative.");
+        this.shardBoundaries = Collections.unmodifiableList(new ArrayList<>(shardBoundaries));
+        this.costs = costs.clone();
+    }
+
+    /**
+     * Estimates the cost of each shard by sampling the locatables. Each sampled locatable contributes its cost
+     * to the shard it starts in (or, if it starts outside all shards, to the shard whose padding it overlaps, if any),
+     * and costs are scaled by the inverse of the sampling fraction.
+     *
+     * @param locatables            the locatables that will be sharded, must be coordinate sorted
+     * @param shardBoundaries       shard boundaries, must be coordinate sorted
+     * @param sequenceDictionary    the sequence dictionary for the locatables and shard boundaries
+     * @param sampleFraction        fraction of locatables to sample, in (0, 1]
+     * @param seed                  random seed for sampling
+     * @param locatableCost         the cost of processing each locatable
+     */
+    public static <L extends Locatable> ShardCostBalancer estimate(final JavaSparkContext ctx,
+                                                                  final JavaRDD<L> locatables,
+                                                                  final List<ShardBoundary> shardBoundaries,
+                                                                  final SAMSequenceDictionary sequenceDictionary,
+                                                                  final double sampleFraction,
+                                                                  final long seed,
+                                                                  final SerializableFunction<L, Double> locatableCost) {
+        Utils.nonNull(locatables);
+        Utils.nonNull(shardBoundaries);
+        Utils.nonNull(sequenceDictionary);
+        Utils.nonNull(locatableCost);
+        Utils.validateArg(sampleFraction > 0. && sampleFraction <= 1., "Sample fraction must be in (0, 1].");
+        final int numShards = shardBoundaries.size();
+        final Broadcast<ShardIndex> shardIndexBroadcast = ctx.broadcast(new ShardIndex(shardBoundaries, sequenceDictionary));
+        final JavaRDD<L> sampledLocatables = sampleFraction == 1. ? locatables : locatables.sample(false, sampleFraction, seed);
+        final double[] sampledCosts = sampledLocatables
+                .mapPartitions((FlatMapFunction<Iterator<L>, double[]>) locatablesIterator -> {
+                    final ShardIndex shardIndex = shardIndexBroadcast.getValue();
+                    final double[] partitionCosts = new double[numShards];
+                    while (locatablesIterator.hasNext()) {
+                        final L locatable = locatablesIterator.next();
+                        final int index = shardIndex.getShardIndex(locatable);
+                        if (index >= 0) {
+                            partitionCosts[index] += locatableCost.apply(locatable);
+                        }
+                    }
+                    return Collections.singletonList(partitionCosts).iterator();
+                })
+                .treeReduce((costs1, costs2) -> {
+                    for (int i = 0; i < numShards; i++) {
+                        costs1[i] += costs2[i];
+                    }
+                    return costs1;
+                });
+        shardIndexBroadcast.destroy();
+        for (int i = 0; i < numShards; i++) {
+            sampledCosts[i] /= sampleFraction;
+        }
+        return new ShardCostBalancer(shardBoundaries, sampledCosts);
+    }
+
+    /**
+     * Splits each shard whose cost exceeds {@code maxCostMultiple} times the mean shard cost into the smallest number of
+     * shards of equal size (but no smaller than {@code minShardSize} bases) whose cost does not exceed this threshold,
+     * assuming that the cost of a shard is uniformly distributed across it.
+     * The padded interval of each new shard is its interval expanded by {@code padding} bases within its contig,
+     * as is the case for shards created by {@code Shard.divideIntervalIntoShards}.
+     * Only plain {@link ShardBoundary} shards are split; shards of subclasses are left as they are.
+     *
+     * @return a new balancer with the split shards, coordinate sorted
+     */
+    public ShardCostBalancer splitHotShards(final double maxCostMultiple,
+                                            final int minShardSize,
+                                            final int padding,
+                                            final SAMSequenceDictionary sequenceDictionary) {
+        Utils.validateArg(maxCostMultiple >= 1., "Maximum cost multiple must be at least 1.");
+        ParamUtils.isPositive(minShardSize, "Minimum shard size must be positive.");
+        ParamUtils.isPositiveOrZero(padding, "Padding must be non-negative.");
+        Utils.nonNull(sequenceDictionary);
+        if (shardBoundaries.isEmpty()) {
+            return this;
+        }
+        final double maxCost = maxCostMultiple * getTotalCost() / shardBoundaries.size();
+
+        final List<ShardBoundary> splitShardBoundaries = new ArrayList<>(shardBoundaries.size());
+        final List<Double> splitCosts = new ArrayList<>(shardBoundaries.size());
+        int numHotShards = 0;
+        for (int i = 0; i < shardBoundaries.size(); i++) {
+            final ShardBoundary shardBoundary = shardBoundaries.get(i);
+            final SimpleInterval interval = shardBoundary.getInterval();
+            final int numSplits = costs[i] > maxCost && shardBoundary.getClass() == ShardBoundary.class
+                    ? (int) Math.min(Math.ceil(costs[i] / maxCost), Math.max(1, interval.size() / minShardSize))
+                    : 1;
+            if (numSplits == 1) {
+                splitShardBoundaries.add(shardBoundary);
+                splitCosts.add(costs[i]);
+                continue;
+            }
+            numHotShards++;
+            for (int split = 0; split < numSplits; split++) {
+                final int start = interval.getStart() + (int) ((long) interval.size() * split / numSplits);
+                final int end = interval.getStart() + (int) ((long) interval.size() * (split + 1) / numSplits) - 1;
+                final SimpleInterval splitInterval = new SimpleInterval(interval.getContig(), start, end);
+                splitShardBoundaries.add(new ShardBoundary(splitInterval, splitInterval.expandWithinContig(padding, sequenceDictionary)));
+                splitCosts.add(costs[i] / numSplits);
+            }
+        }
+        logger.info(String.format("Split %d of %d shards with estimated cost greater than %.1f into %d shards.",
+                numHotShards, shardBoundaries.size(), maxCost, numHotShards + splitShardBoundaries.size() - shardBoundaries.size()));
+        return new ShardCostBalancer(splitShardBoundaries, splitCosts.stream().mapToDouble(Double::doubleValue).toArray());
+    }
+
+    /**
+     * Assigns shards to partitions contiguously, so that the estimated cost of each partition is as close as possible
+     * to the mean. If no shard has a positive cost, shards are spread evenly across the partitions.
+     *
+     * @return the index of the partition assigned to each shard, in non-decreasing order
+     */
+    public int[] assignPartitions(final int numPartitions) {
+        ParamUtils.isPositive(numPartitions, "Number of partitions must be positive.");
+        final int numShards = shardBoundaries.size();
+        final int[] partitionIndexes = new int[numShards];
+        final double totalCost = getTotalCost();
+        if (totalCost == 0.) {
+            for (int i = 0; i < numShards; i++) {
+                partitionIndexes[i] = (int) ((long) i * numPartitions / numShards);
+            }
+            return partitionIndexes;
+        }
+        final double costPerPartition = totalCost / numPartitions;
+        double cumulativeCost = 0.;
+        for (int i = 0; i < numShards; i++) {
+            //assign each shard to the partition containing its midpoint along the cumulative cost
+            partitionIndexes[i] = Math.min(numPartitions - 1, (int) ((cumulativeCost + costs[i] / 2.) / costPerPartition));
+            cumulativeCost += costs[i];
+        }
+        return partitionIndexes;
+    }
+
+    /**
+     * Repartitions shards (which must have been created from the shard boundaries of this balancer) according to
+     * {@link #assignPartitions}. This requires a shuffle of the shards. Within each partition, shards are coordinate sorted.
+     */
+    public <L> JavaRDD<Shard<L>> repartition(final JavaRDD<Shard<L>> shards,
+                                             final int numPartitions,
+                                             final SAMSequenceDictionary sequenceDictionary) {
+        Utils.nonNull(shards);
+        Utils.nonNull(sequenceDictionary);
+        final int[] partitionIndexes = assignPartitions(numPartitions);
+        final Map<SimpleInterval, Integer> shardIntervalToPartitionIndex = new HashMap<>(2 * shardBoundaries.size());
+        for (int i = 0; i < shardBoundaries.size(); i++) {
+            shardIntervalToPartitionIndex.put(shardBoundaries.get(i).getInterval(), partitionIndexes[i]);
+        }
+        return shards
+                .mapToPair(shard -> new Tuple2<>(shard.getInterval(), shard))
+                .repartitionAndSortWithinPartitions(
+                        new ShardIntervalPartitioner(shardIntervalToPartitionIndex, numPartitions),
+                        new IntervalComparator(sequenceDictionary))
+                .values();
+    }
+
+    public List<ShardBoundary> getShardBoundaries() {
+        return shardBoundaries;
+    }
+
+    public double[] getCosts() {
+        return costs.clone();
+    }
+
+    public double getTotalCost() {
+        return Arrays.stream(costs).sum();
+    }
+
+    /**
+     * Finds the shard to which a locatable is assigned when estimating costs.
+     */
+    private static final class ShardIndex implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final SAMSequenceDictionary sequenceDictionary;
+        private final int[] contigIndexes;
+        private final int[] starts;
+        private final int[] paddedStarts;
+        private final int[] paddedEnds;
+
+        private ShardIndex(final List<ShardBoundary> shardBoundaries, final SAMSequenceDictionary sequenceDictionary) {
+            this.sequenceDictionary = sequenceDictionary;
+            final int numShards = shardBoundaries.size();
+            contigIndexes = new int[numShards];
+            starts = new int[numShards];
+            paddedStarts = new int[numShards];
+            paddedEnds = new int[numShards];
+            for (int i = 0; i < numShards; i++) {
+                final ShardBoundary shardBoundary = shardBoundaries.get(i);
+                contigIndexes[i] = sequenceDictionary.getSequenceIndex(shardBoundary.getInterval().getContig());
+                Utils.validateArg(contigIndexes[i] != -1, "Contig not found in sequence dictionary: " + shardBoundary.getInterval().getContig());
+                starts[i] = shardBoundary.getInterval().getStart();
+                paddedStarts[i] = shardBoundary.getPaddedInterval().getStart();
+                paddedEnds[i] = shardBoundary.getPaddedInterval().getEnd();
+                Utils.validateArg(i == 0 || contigIndexes[i] > contigIndexes[i - 1] ||
+                        (contigIndexes[i] == contigIndexes[i - 1] && starts[i] >= starts[i - 1]), "Shard boundaries must be coordinate sorted.");
+            }
+        }
+
+        /**
+         * @return index of the shard the locatable is assigned to, or -1 if none
+         */
+        private int getShardIndex(final Locatable locatable) {
+            if (locatable.getContig() == null) {
+                return -1;
+            }
+            final int contigIndex = sequenceDictionary.getSequenceIndex(locatable.getContig());
+            if (contigIndex == -1) {
+                return -1;
+            }
+            final int position = locatable.getStart();
+            //find the last shard starting at or before the start of the locatable
+            int low = 0;
+            int high = contigIndexes.length;
+            while (low < high) {
+                final int mid = (low + high) >>> 1;
+                if (contigIndexes[mid] < contigIndex || (contigIndexes[mid] == contigIndex && starts[mid] <= position)) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            //assign it to that shard if it starts in the shard or its padding, otherwise to the next shard if it overlaps its padding
+            final int previous = low - 1;
+            if (previous >= 0 && contigIndexes[previous] == contigIndex && position <= paddedEnds[previous]) {
+                return previous;
+            }
+            if (low < contigIndexes.length && contigIndexes[low] == contigIndex && locatable.getEnd() >= paddedStarts[low]) {
+                return low;
+            }
+            return -1;
+        }
+    }
+
+    /**
+     * Assigns shards, keyed by their interval, to precomputed partitions.
+     */
+    private static final class ShardIntervalPartitioner extends Partitioner {
+        private static final long serialVersionUID = 1L;
+
+        private final Map<SimpleInterval, Integer> shardIntervalToPartitionIndex;
+        private final int numPartitions;
+
+        private ShardIntervalPartitioner(final Map<SimpleInterval, Integer> shardIntervalToPartitionIndex, final int numPartitions) {
+            this.shardIntervalToPartitionIndex = shardIntervalToPartitionIndex;
+            this.numPartitions = numPartitions;
+        }
+
+        @Override
+        public int numPartitions() {
+            return numPartitions;
+        }
+
+        @Override
+        public int getPartition(final Object key) {
+            final Integer partitionIndex = shardIntervalToPartitionIndex.get(key);
+            Utils.validate(partitionIndex != null, () -> "Shard does not correspond to a known shard boundary: " + key);
+            return partitionIndex;
+        }
+    }
+
+    /**
+     * Compares intervals using a {@link SAMSequenceDictionary} sequence ordering.
+     */
+    private static final class IntervalComparator implements Comparator<SimpleInterval>, Serializable {
+        private static final long serialVersionUID = 1L;
+        private final SAMSequenceDictionary sequenceDictionary;
+
+        private IntervalComparator(final SAMSequenceDictionary sequenceDictionary) {
+            this.sequenceDictionary = sequenceDictionary;
+        }
+
+        @Override
+        public int compare(final SimpleInterval interval1, final SimpleInterval interval2) {
+            return IntervalUtils.compareLocatables(interval1, interval2, sequenceDictionary);
+        }
+    }
+}
@@ -14,13 +14,20 @@ import org.broadinstitute.hellbender.engine.*;
 import org.broadinstitute.hellbender.engine.filters.VariantFilter;
 import org.broadinstitute.hellbender.engine.filters.VariantFilterLibrary;
 import org.broadinstitute.hellbender.engine.spark.datasources.VariantsSparkSource;
+import org.broadinstitute.hellbender.exceptions.GATKException;
+import org.broadinstitute.hellbender.exceptions.UserException;
+import org.broadinstitute.hellbender.tools.IndexFeatureFile;
 import org.broadinstitute.hellbender.utils.IndexUtils;
 import org.broadinstitute.hellbender.utils.IntervalUtils;
 import org.broadinstitute.hellbender.utils.SimpleInterval;
+import org.broadinstitute.hellbender.utils.Utils;
 import org.broadinstitute.hellbender.utils.io.IOUtils;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
 /**
@@ -154,6 +161,47 @@ public abstract class VariantWalkerSpark extends GATKSparkTool {
         processVariants(getVariants(ctx), ctx);
     }
 
+    @Override
+    protected void runToolLocally() {
+        // each partition queries its shard, so check for an index here rather than fail in the first partition
+        try (final FeatureDataSource<VariantContext> variants = new FeatureDataSource<>(drivingVariantFile, drivingVariantFile, 0, VariantContext.class)) {
+            if (!variants.supportsRandomAccess()) {
+                throw new UserException.MissingIndex(drivingVariantFile, "The driving variants must be indexed to be traversed on the local engine. " +
+                        "Please index them using the bundled tool " + IndexFeatureFile.class.getSimpleName());
+            }
+        }
+        final ThreadLocal<FeatureDataSource<VariantContext>> drivingVariants = createLocalEngineResource(() ->
+                new FeatureDataSource<>(drivingVariantFile, drivingVariantFile, FEATURE_CACHE_LOOKAHEAD, VariantContext.class));
+        final ThreadLocal<ReferenceDataSource> reference = createLocalEngineResource(this::createLocalReferenceDataSource);
+        final ThreadLocal<FeatureManager> featureManager = createLocalEngineResource(() -> createLocalFeatureManager(FEATURE_CACHE_LOOKAHEAD));
+
+        final List<Supplier<Stream<VariantWalkerContext>>> partitions = new ArrayList<>();
+        for ( final SimpleInterval shard : getLocalTraversalShards(variantShardSize) ) {
+            final VariantFilter variantFilter = makeVariantFilter();
+            partitions.add(() -> Utils.stream(drivingVariants.get().query(shard))
+                    .filter(v -> v.getStart() >= shard.getStart() && v.getStart() <= shard.getEnd()) // only include variants that start in the shard
+                    .filter(variantFilter)
+                    .map(v -> {
+                        final SimpleInterval variantInterval = new SimpleInterval(v);
+                        return new VariantWalkerContext(v,
+                                new ReadsContext(), // empty
+                                new ReferenceContext(reference.get(), variantInterval),
+                                new FeatureContext(featureManager.get(), variantInterval));
+                    }));
+        }
+        processVariantsLocally(createLocalPartitions(partitions));
+    }
+
+    /**
+     * Process the variants and write output on the local engine. Must be implemented by subclasses that
+     * {@link #supportsLocalEngine()}, typically by applying the same functions as {@link #processVariants}.
+     *
+     * @param partitions the variants with their {@link VariantWalkerContext}, partitioned by genomic shard
+     */
+    protected void processVariantsLocally(final LocalPartitions<VariantWalkerContext> partitions) {
+        throw new GATKException.ShouldNeverReachHereException(getClass().getSimpleName() + " does not implement processVariantsLocally");
+    }
+
     /**
      * Process the variants and write output. Must be implemented by subclasses.
      *
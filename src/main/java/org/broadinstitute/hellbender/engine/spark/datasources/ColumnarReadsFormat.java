@@ -0,0 +1,316 @@
+package org.broadinstitute.hellbender.engine.spark.datasources;
+
+import htsjdk.samtools.*;
+import htsjdk.samtools.util.BinaryCodec;
+import htsjdk.samtools.util.BufferedLineReader;
+import org.apache.avro.Schema;
+import org.apache.avro.SchemaBuilder;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.mapreduce.JobContext;
+import org.apache.parquet.avro.AvroParquetInputFormat;
+import org.apache.parquet.filter2.predicate.FilterApi;
+import org.apache.parquet.filter2.predicate.FilterPredicate;
+import org.apache.parquet.filter2.predicate.Operators;
+import org.apache.parquet.io.api.Binary;
+import org.broadinstitute.hellbender.engine.TraversalParameters;
+import org.broadinstitute.hellbender.exceptions.UserException;
+import org.broadinstitute.hellbender.utils.SimpleInterval;
+import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.gcs.BucketUtils;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * A columnar, splittable format for reads, intended as an intermediate format between chained Spark pipelines.
+ *
+ * <p>
+ *     Reads are stored as Parquet files (with row groups of {@link #ROW_GROUP_SIZE_BYTES}) in a directory whose name ends in
+ *     {@link #COLUMNAR_READS_EXTENSION}, with one column for each SAM field (contig, position, flags, mapping quality,
+ *     CIGAR, name, bases, base qualities, mate position, insert size and the BAM-encoded attributes), along with
+ *     a derived column holding the alignment end that is used for filtering by interval.
+ *     The SAM header is stored as text in the file {@link #HEADER_FILE_NAME} in the same directory.
+ * </p>
+ *
+ * <p>
+ *     Compared to BAM, reading this format requires neither BGZF decompression nor decoding of whole records.
+ *     Queries by interval are pushed down to Parquet (see {@link #getFilterPredicate}), so that row groups whose
+ *     statistics show they cannot contain overlapping reads are skipped entirely, and the {@link OptionalColumn}s that
+ *     are not needed by a tool need not be read (see {@link #getReadSchema}).
+ * </p>
+ */
+public final class ColumnarReadsFormat {
+    public static final String COLUMNAR_READS_EXTENSION = ".reads.parquet";
+    public static final String HEADER_FILE_NAME = "_header.sam";
+    public static final int ROW_GROUP_SIZE_BYTES = 32 * 1024 * 1024;
+
+    //beyond this number of traversal intervals, a single (coarser) predicate is pushed down for each contig
+    static final int MAX_PUSHED_DOWN_INTERVALS = 100;
+
+    static final String CONTIG = "contig";
+    static final String START = "start";
+    static final String END = "end";
+    static final String FLAGS = "flags";
+    static final String MAPPING_QUALITY = "mappingQuality";
+    static final String CIGAR = "cigar";
+    static final String MATE_CONTIG = "mateContig";
+    static final String MATE_START = "mateStart";
+    static final String INFERRED_INSERT_SIZE = "inferredInsertSize";
+
+    /**
+     * Columns that tools that do not need them may choose not to read.
+     * Reads loaded without a column have no name, no bases, no base qualities, or no attributes, respectively.
+     */
+    public enum OptionalColumn {
+        NAME("name"),
+        BASES("bases"),
+        BASE_QUALITIES("baseQualities"),
+        ATTRIBUTES("attributes");
+
+        private final String fieldName;
+
+        OptionalColumn(final String fieldName) {
+            this.fieldName = fieldName;
+        }
+
+        String getFieldName() {
+            return fieldName;
+        }
+    }
+
+    private static final Schema SCHEMA = createSchema(EnumSet.allOf(OptionalColumn.class));
+
+    /**
+     * Input format that reads the part files in order of their names, so that reads written in sorted order
+     * are loaded in that order.
+     */
+    public static final class SortedPartsInputFormat extends AvroParquetInputFormat<GenericRecord> {
+        @Override
+        protected List<FileStatus> listStatus(final JobContext jobContext) throws IOException {
+            final List<FileStatus> fileStatuses = new ArrayList<>(super.listStatus(jobContext));
+            fileStatuses.sort((a, b) -> a.getPath().compareTo(b.getPath()));
+            return fileStatuses;
+        }
+    }
+
+    private ColumnarReadsFormat() {
+    }
+
+    /**
+     * @return whether the given path is a directory of reads in the columnar format, based on its name
+     */
+    public static boolean isColumnarReadsPath(final String path) {
+        return path != null && (path.endsWith(COLUMNAR_READS_EXTENSION) || path.endsWith(COLUMNAR_READS_EXTENSION + "/"));
+    }
+
+    /**
+     * @return the Avro schema used to write reads
+     */
+    public static Schema getSchema() {
+        return SCHEMA;
+    }
+
+    /**
+     * @return the Avro schema used to read reads, including only the given optional columns
+     */
+    public static Schema getReadSchema(final Set<OptionalColumn> optionalColumns) {
+        Utils.nonNull(optionalColumns);
+        return optionalColumns.size() == OptionalColumn.values().length ? SCHEMA : createSchema(optionalColumns);
+    }
+
+    private static Schema createSchema(final Set<OptionalColumn> optionalColumns) {
+        SchemaBuilder.FieldAssembler<Schema> fields = SchemaBuilder.record("ColumnarRead")
+                .namespace("org.broadinstitute.hellbender")
+                .fields()
+                .optionalString(CONTIG)
+                .requiredInt(START)
+                .requiredInt(END)
+                .requiredInt(FLAGS)
+                .requiredInt(MAPPING_QUALITY)
+                .requiredString(CIGAR)
+                .optionalString(MATE_CONTIG)
+                .requiredInt(MATE_START)
+                .requiredInt(INFERRED_INSERT_SIZE);
+        if (optionalColumns.contains(OptionalColumn.NAME)) {
+            fields = fields.optionalString(OptionalColumn.NAME.getFieldName());
+        }
+        if (optionalColumns.contains(OptionalColumn.BASES)) {
+            fields = fields.requiredBytes(OptionalColumn.BASES.getFieldName());
+        }
+        if (optionalColumns.contains(OptionalColumn.BASE_QUALITIES)) {
+            fields = fields.requiredBytes(OptionalColumn.BASE_QUALITIES.getFieldName());
+        }
+        if (optionalColumns.contains(OptionalColumn.ATTRIBUTES)) {
+            fields = fields.requiredBytes(OptionalColumn.ATTRIBUTES.getFieldName());
+        }
+        return fields.endRecord();
+    }
+
+    /**
+     * Converts a (possibly headerless) {@link SAMRecord} to a record with the schema returned by {@link #getSchema}.
+     */
+    public static GenericRecord toColumnarRecord(final SAMRecord read) {
+        Utils.nonNull(read);
+        final GenericRecord record = new GenericData.Record(SCHEMA);
+        final int start = read.getAlignmentStart();
+        record.put(CONTIG, toNullableName(read.getReferenceName()));
+        record.put(START, start);
+        //unmapped reads with a position are considered to overlap only that position
+        record.put(END, read.getReadUnmappedFlag() ? start : Math.max(start, read.getAlignmentEnd()));
+        record.put(FLAGS, read.getFlags());
+        record.put(MAPPING_QUALITY, read.getMappingQuality());
+        record.put(CIGAR, read.getCigarString());
+        record.put(MATE_CONTIG, toNullableName(read.getMateReferenceName()));
+        record.put(MATE_START, read.getMateAlignmentStart());
+        record.put(INFERRED_INSERT_SIZE, read.getInferredInsertSize());
+        record.put(OptionalColumn.NAME.getFieldName(), read.getReadName());
+        record.put(OptionalColumn.BASES.getFieldName(), ByteBuffer.wrap(read.getReadBases()));
+        record.put(OptionalColumn.BASE_QUALITIES.getFieldName(), ByteBuffer.wrap(read.getBaseQualities()));
+        record.put(OptionalColumn.ATTRIBUTES.getFieldName(), ByteBuffer.wrap(encodeAttributes(read)));
+        return record;
+    }
+
+    /**
+     * Converts a record read with a schema returned by {@link #getReadSchema} back to a {@link SAMRecord}.
+     * Fields for columns that were not read are left unset.
+     */
+    public static SAMRecord toSAMRecord(final GenericRecord record, final SAMFileHeader header) {
+        Utils.nonNull(record);
+        final SAMRecord read = new SAMRecord(header);
+        read.setReferenceName(toSAMName(record.get(CONTIG)));
+        read.setAlignmentStart((Integer) record.get(START));
+        read.setFlags((Integer) record.get(FLAGS));
+        read.setMappingQuality((Integer) record.get(MAPPING_QUALITY));
+        read.setCigarString(record.get(CIGAR).toString());
+        read.setMateReferenceName(toSAMName(record.get(MATE_CONTIG)));
+        read.setMateAlignmentStart((Integer) record.get(MATE_START));
+        read.setInferredInsertSize((Integer) record.get(INFERRED_INSERT_SIZE));
+
+        final Schema schema = record.getSchema();
+        if (schema.getField(OptionalColumn.NAME.getFieldName()) != null) {
+            final Object name = record.get(OptionalColumn.NAME.getFieldName());
+            read.setReadName(name == null ? null : name.toString());
+        }
+        if (schema.getField(OptionalColumn.BASES.getFieldName()) != null) {
+            read.setReadBases(toByteArray(record.get(OptionalColumn.BASES.getFieldName())));
+        }
+        if (schema.getField(OptionalColumn.BASE_QUALITIES.getFieldName()) != null) {
+            read.setBaseQualities(toByteArray(record.get(OptionalColumn.BASE_QUALITIES.getFieldName())));
+        }
+        if (schema.getField(OptionalColumn.ATTRIBUTES.getFieldName()) != null) {
+            decodeAttributes(toByteArray(record.get(OptionalColumn.ATTRIBUTES.getFieldName())), read);
+        }
+        return read;
+    }
+
+    /**
+     * Returns a predicate that selects reads that may overlap the traversal intervals (or that are unplaced and unmapped,
+     * if those are to be traversed), for pushing down to Parquet. The predicate may select additional reads, so that
+     * reads must still be filtered exactly.
+     *
+     * @return the predicate, or {@code null} if all reads should be read
+     */
+    public static FilterPredicate getFilterPredicate(final TraversalParameters traversalParameters) {
+        if (traversalParameters == null) {
+            return null;
+        }
+        final Operators.BinaryColumn contigColumn = FilterApi.binaryColumn(CONTIG);
+        final Operators.IntColumn startColumn = FilterApi.intColumn(START);
+        final Operators.IntColumn endColumn = FilterApi.intColumn(END);
+
+        final List<SimpleInterval> intervals = traversalParameters.getIntervalsForTraversal() == null
+                ? Collections.emptyList()
+                : traversalParameters.getIntervalsForTraversal();
+        final Collection<SimpleInterval> pushedDownIntervals = intervals.size() <= MAX_PUSHED_DOWN_INTERVALS
+                ? intervals
+                : getContigSpans(intervals);
+
+        FilterPredicate predicate = traversalParameters.traverseUnmappedReads()
+                ? FilterApi.eq(contigColumn, null)
+                : null;
+        for (final SimpleInterval interval : pushedDownIntervals) {
+            final FilterPredicate intervalPredicate = FilterApi.and(
+                    FilterApi.eq(contigColumn, Binary.fromString(interval.getContig())),
+                    FilterApi.and(FilterApi.ltEq(startColumn, interval.getEnd()), FilterApi.gtEq(endColumn, interval.getStart())));
+            predicate = predicate == null ? intervalPredicate : FilterApi.or(predicate, intervalPredicate);
+        }
+        //no intervals and no unmapped reads means no reads; as Parquet requires a predicate, select an impossible start
+        return predicate == null ? FilterApi.lt(startColumn, Integer.MIN_VALUE + 1) : predicate;
+    }
+
+    private static Collection<SimpleInterval> getContigSpans(final List<SimpleInterval> intervals) {
+        final Map<String, SimpleInterval> spans = new LinkedHashMap<>();
+        for (final SimpleInterval interval : intervals) {
+            spans.merge(interval.getContig(), interval, SimpleInterval::spanWith);
+        }
+        return spans.values();
+    }
+
+    /**
+     * Writes the header to {@link #HEADER_FILE_NAME} in the given reads directory.
+     */
+    public static void writeHeader(final String readsDirectory, final SAMFileHeader header) {
+        final String headerPath = getHeaderPath(readsDirectory);
+        try (final Writer writer = new OutputStreamWriter(BucketUtils.createFile(headerPath), StandardCharsets.UTF_8)) {
+            new SAMTextHeaderCodec().encode(writer, header);
+        } catch (final IOException e) {
+            throw new UserException.CouldNotCreateOutputFile(headerPath, "writing failed", e);
+        }
+    }
+
+    /**
+     * Reads the header from {@link #HEADER_FILE_NAME} in the given reads directory.
+     */
+    public static SAMFileHeader readHeader(final String readsDirectory) {
+        final String headerPath = getHeaderPath(readsDirectory);
+        try (final InputStream inputStream = BucketUtils.openFile(headerPath)) {
+            return new SAMTextHeaderCodec().decode(new BufferedLineReader(inputStream), headerPath);
+        } catch (final IOException e) {
+            throw new UserException.CouldNotReadInputFile(headerPath, e);
+        }
+    }
+
+    private static String getHeaderPath(final String readsDirectory) {
+        return (readsDirectory.endsWith("/") ? readsDirectory : readsDirectory + "/") + HEADER_FILE_NAME;
+    }
+
+    private static String toNullableName(final String samName) {
+        return SAMRecord.NO_ALIGNMENT_REFERENCE_NAME.equals(samName) ? null : samName;
+    }
+
+    private static String toSAMName(final Object name) {
+        return name == null ? SAMRecord.NO_ALIGNMENT_REFERENCE_NAME : name.toString();
+    }
+
+    private static byte[] toByteArray(final Object bytes) {
+        final ByteBuffer buffer = ((ByteBuffer) bytes).duplicate();
+        final byte[] array = new byte[buffer.remaining()];
+        buffer.get(array);
+        return array;
+    }
+
+    private static byte[] encodeAttributes(final SAMRecord read) {
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream(read.getAttributesBinarySize());
+        final BinaryTagCodec tagCodec = new BinaryTagCodec(new BinaryCodec(outputStream));
+        for (final SAMRecord.SAMTagAndValue attribute : read.getAttributes()) {
+            tagCodec.writeTag(SAMTag.makeBinaryTag(attribute.tag), attribute.value, read.isUnsignedArrayAttribute(attribute.tag));
+        }
+        return outputStream.toByteArray();
+    }
+
+    private static void decodeAttributes(final byte[] encodedAttributes, final SAMRecord read) {
+        for (SAMBinaryTagAndValue attribute = BinaryTagCodec.readTags(encodedAttributes, 0, encodedAttributes.length, ValidationStringency.STRICT);
+             attribute != null; attribute = attribute.getNext()) {
+            final String tag = SAMTag.makeStringTag(attribute.tag);
+            if (attribute.isUnsignedArray()) {
+                read.setUnsignedArrayAttribute(tag, attribute.value);
+            } else {
+                read.setAttribute(tag, attribute.value);
+            }
+        }
+    }
+}
@@ -5,12 +5,14 @@ import htsjdk.samtools.SAMFileHeader;
 import htsjdk.samtools.SAMRecord;
 import htsjdk.samtools.cram.build.CramIO;
 import htsjdk.samtools.util.IOUtil;
+import org.apache.avro.generic.GenericRecord;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.mapreduce.Job;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.apache.parquet.avro.AvroParquetOutputFormat;
+import org.apache.parquet.hadoop.ParquetOutputFormat;
 import org.apache.spark.api.java.JavaPairRDD;
 import org.apache.spark.api.java.JavaRDD;
 import org.apache.spark.api.java.JavaSparkContext;
@@ -134,6 +136,11 @@ public final class ReadsSparkSink {
                 throw new  GATKException(String.format("You specified the bam output parts directory %s, but requested an ADAM output format which does not use this option",outputPartsDir));
             }
             writeReadsADAM(ctx, absoluteOutputFile, samReads, header);
+        } else if (format == ReadsWriteFormat.COLUMNAR) {
+            if (outputPartsDir!=null) {
+                throw new  GATKException(String.format("You specified the bam output parts directory %s, but requested a columnar output format which does not use this option",outputPartsDir));
+            }
+            writeReadsColumnar(ctx, absoluteOutputFile, samReads, header, numReducers);
         }
     }
 
@@ -176,6 +183,23 @@ public final class ReadsSparkSink {
                 outputFile, Void.class, AlignmentRecord.class, AvroParquetOutputFormat.class, job.getConfiguration());
     }
 
+    private static void writeReadsColumnar(
+            final JavaSparkContext ctx, final String outputFile, final JavaRDD<SAMRecord> reads,
+            final SAMFileHeader header, final int numReducers) throws IOException {
+        // sorting makes the start and end column statistics of each row group selective, so that queries by
+        // interval can skip most row groups
+        final JavaPairRDD<Void, GenericRecord> records = sortSamRecordsToMatchHeader(reads, header, numReducers)
+                .map(ColumnarReadsFormat::toColumnarRecord)
+                .mapToPair(record -> new Tuple2<>(null, record));
+        final Job job = Job.getInstance(ctx.hadoopConfiguration());
+        AvroParquetOutputFormat.setSchema(job, ColumnarReadsFormat.getSchema());
+        ParquetOutputFormat.setBlockSize(job, ColumnarReadsFormat.ROW_GROUP_SIZE_BYTES);
+        deleteHadoopFile(outputFile, ctx.hadoopConfiguration());
+        records.saveAsNewAPIHadoopFile(
+                outputFile, Void.class, GenericRecord.class, AvroParquetOutputFormat.class, job.getConfiguration());
+        ColumnarReadsFormat.writeHeader(outputFile, header);
+    }
+
     private static void deleteHadoopFile(String fileToObliterate, Configuration conf) throws IOException {
         final Path pathToDelete = new Path(fileToObliterate);
         pathToDelete.getFileSystem(conf).delete(pathToDelete, true);
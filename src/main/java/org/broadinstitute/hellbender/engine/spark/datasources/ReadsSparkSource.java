@@ -3,11 +3,15 @@ package org.broadinstitute.hellbender.engine.spark.datasources;
 import htsjdk.samtools.SAMFileHeader;
 import htsjdk.samtools.SAMRecord;
 import htsjdk.samtools.ValidationStringency;
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericRecord;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.mapreduce.Job;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.apache.parquet.avro.AvroParquetInputFormat;
+import org.apache.parquet.filter2.predicate.FilterPredicate;
+import org.apache.parquet.hadoop.ParquetInputFormat;
 import org.apache.spark.api.java.JavaRDD;
 import org.apache.spark.api.java.JavaSparkContext;
 import org.apache.spark.broadcast.Broadcast;
@@ -26,8 +30,10 @@ import org.disq_bio.disq.HtsjdkReadsTraversalParameters;
 
 import java.io.IOException;
 import java.io.Serializable;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Objects;
+import java.util.Set;
 
 /** Loads the reads from disk either serially (using samReaderFactory) or in parallel using Hadoop-BAM.
  * The parallel code is a modified version of the example writing code from Hadoop-BAM.
@@ -146,6 +152,49 @@ public final class ReadsSparkSource implements Serializable {
         return fixPartitionsIfQueryGrouped(ctx, header, filteredRdd);
     }
 
+    /**
+     * Loads reads stored in the columnar format written by {@link ReadsWriteFormat#COLUMNAR}, with all columns.
+     * @param inputPath path to the directory of Parquet data
+     * @return RDD of GATKReads from the directory.
+     */
+    public JavaRDD<GATKRead> getColumnarReads(final String inputPath, final TraversalParameters traversalParameters, final SAMFileHeader header) throws IOException {
+        return getColumnarReads(inputPath, traversalParameters, header, EnumSet.allOf(ColumnarReadsFormat.OptionalColumn.class));
+    }
+
+    /**
+     * Loads reads stored in the columnar format written by {@link ReadsWriteFormat#COLUMNAR}.
+     *
+     * The traversal intervals are pushed down to Parquet, so that row groups that cannot contain overlapping reads are
+     * not read, and only the requested optional columns are read.
+     *
+     * @param inputPath path to the directory of Parquet data
+     * @param optionalColumns the optional columns to read; reads will lack the corresponding fields for any others
+     * @return RDD of GATKReads from the directory.
+     */
+    public JavaRDD<GATKRead> getColumnarReads(final String inputPath, final TraversalParameters traversalParameters, final SAMFileHeader header,
+                                              final Set<ColumnarReadsFormat.OptionalColumn> optionalColumns) throws IOException {
+        final Job job = Job.getInstance(ctx.hadoopConfiguration());
+        final Schema readSchema = ColumnarReadsFormat.getReadSchema(optionalColumns);
+        AvroParquetInputFormat.setRequestedProjection(job, readSchema);
+        AvroParquetInputFormat.setAvroReadSchema(job, readSchema);
+        final FilterPredicate filterPredicate = ColumnarReadsFormat.getFilterPredicate(traversalParameters);
+        if (filterPredicate != null) {
+            ParquetInputFormat.setFilterPredicate(job.getConfiguration(), filterPredicate);
+        }
+        final Broadcast<SAMFileHeader> bHeader = ctx.broadcast(header);
+        @SuppressWarnings("unchecked")
+        final JavaRDD<GenericRecord> recordsRdd = ctx.newAPIHadoopFile(
+                inputPath, ColumnarReadsFormat.SortedPartsInputFormat.class, Void.class, GenericRecord.class, job.getConfiguration())
+                .values();
+        // the pushed down predicate is evaluated on whole row groups, so overlap must still be checked for each read
+        final JavaRDD<GATKRead> readsRdd = recordsRdd
+                .map(record -> ColumnarReadsFormat.toSAMRecord(record, bHeader.getValue()))
+                .filter(record -> samRecordOverlaps(record, traversalParameters))
+                .map(SAMRecordToGATKReadAdapter::new);
+
+        return fixPartitionsIfQueryGrouped(ctx, header, readsRdd);
+    }
+
     /**
      * Loads the header using Hadoop-BAM.
      * @param filePath path to the bam.
@@ -153,6 +202,10 @@ public final class ReadsSparkSource implements Serializable {
      * @return the header for the bam.
      */
     public SAMFileHeader getHeader(final String filePath, final String referencePath) {
+        if (ColumnarReadsFormat.isColumnarReadsPath(filePath)) {
+            return ColumnarReadsFormat.readHeader(filePath);
+        }
+
         // GCS case
         if (BucketUtils.isCloudStorageUrl(filePath)) {
             try (ReadsDataSource readsDataSource = new ReadsDataSource(IOUtils.getPath(filePath))) {
@@ -215,7 +268,9 @@ public final class ReadsSparkSource implements Serializable {
                 // This follows the behavior of htsjdk's SamReader which states that "an unmapped read will be returned
                 // by this call if it has a coordinate for the purpose of sorting that is in the query region".
                 int start = record.getAlignmentStart();
-                return interval.getStart() <= start && interval.getEnd() >= start;
+                if (interval.getContig().equals(record.getReferenceName()) && interval.getStart() <= start && interval.getEnd() >= start) {
+                    return true;
+                }
             } else  if (interval.overlaps(record)) {
                 return true;
             }
@@ -1,10 +1,7 @@
 package org.broadinstitute.hellbender.tools.copynumber;
 
-import com.google.common.collect.HashMultiset;
-import com.google.common.collect.Multiset;
 import htsjdk.samtools.SAMSequenceDictionary;
-import htsjdk.samtools.util.Locatable;
-import htsjdk.samtools.util.OverlapDetector;
+import htsjdk.samtools.SamReaderFactory;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.broadinstitute.barclay.argparser.Argument;
@@ -15,29 +12,31 @@ import org.broadinstitute.hellbender.cmdline.StandardArgumentDefinitions;
 import org.broadinstitute.hellbender.cmdline.programgroups.CoverageAnalysisProgramGroup;
 import org.broadinstitute.hellbender.engine.FeatureContext;
 import org.broadinstitute.hellbender.engine.ReadWalker;
+import org.broadinstitute.hellbender.engine.ReadsDataSource;
 import org.broadinstitute.hellbender.engine.ReferenceContext;
+import org.broadinstitute.hellbender.engine.filters.CountingReadFilter;
 import org.broadinstitute.hellbender.engine.filters.MappingQualityReadFilter;
 import org.broadinstitute.hellbender.engine.filters.ReadFilter;
 import org.broadinstitute.hellbender.engine.filters.ReadFilterLibrary;
 import org.broadinstitute.hellbender.exceptions.GATKException;
+import org.broadinstitute.hellbender.exceptions.UserException;
 import org.broadinstitute.hellbender.tools.copynumber.arguments.CopyNumberArgumentValidationUtils;
+import org.broadinstitute.hellbender.tools.copynumber.datacollection.ReadCountCollector;
 import org.broadinstitute.hellbender.tools.copynumber.formats.collections.HDF5SimpleCountCollection;
 import org.broadinstitute.hellbender.tools.copynumber.formats.collections.SimpleCountCollection;
 import org.broadinstitute.hellbender.tools.copynumber.formats.metadata.Metadata;
 import org.broadinstitute.hellbender.tools.copynumber.formats.metadata.MetadataUtils;
 import org.broadinstitute.hellbender.tools.copynumber.formats.metadata.SampleLocatableMetadata;
-import org.broadinstitute.hellbender.tools.copynumber.formats.records.SimpleCount;
+import org.broadinstitute.hellbender.transformers.ReadTransformer;
 import org.broadinstitute.hellbender.utils.IntervalMergingRule;
-import org.broadinstitute.hellbender.utils.IntervalUtils;
-import org.broadinstitute.hellbender.utils.SimpleInterval;
 import org.broadinstitute.hellbender.utils.Utils;
 import org.broadinstitute.hellbender.utils.read.GATKRead;
 
 import java.io.File;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * Collects read counts at specified intervals.  The count for each interval is calculated by counting
@@ -57,6 +56,10 @@ import java.util.stream.Collectors;
  *     <li>
  *         Output file format.  This can be used to select TSV or HDF5 output.
  *     </li>
+ *     <li>
+ *         (Optional) Number of counting threads.  If greater than 1, contigs are counted in parallel,
+ *         each using an independent reader; this requires indexed read inputs.
+ *     </li>
  * </ul>
  *
  * <h3>Output</h3>
@@ -104,6 +107,7 @@ public final class CollectReadCounts extends ReadWalker {
     }
 
     public static final String FORMAT_LONG_NAME = "format";
+    public static final String NUMBER_OF_COUNTING_THREADS_LONG_NAME = "counting-threads";
 
     @Argument(
             doc = "Output file for read counts.",
@@ -119,17 +123,24 @@ public final class CollectReadCounts extends ReadWalker {
     )
     private Format format = Format.HDF5;
 
+    @Argument(
+            doc = "Number of threads used to count reads.  If greater than 1, reads on different contigs are " +
+                    "counted in parallel using independent readers, which requires indexed read inputs.",
+            fullName = NUMBER_OF_COUNTING_THREADS_LONG_NAME,
+            optional = true,
+            minValue = 1
+    )
+    private int numCountingThreads = 1;
+
     /**
      * Metadata contained in the BAM file.
      */
     private SampleLocatableMetadata metadata;
 
     /**
-     * Overlap detector used to determine when read starts overlap with input intervals.
+     * Holds per-contig primitive bin arrays used to determine which input interval (if any) contains each read start.
      */
-    private CachedOverlapDetector<SimpleInterval> intervalCachedOverlapDetector;
-
-    private Multiset<SimpleInterval> intervalMultiset = HashMultiset.create();
+    private ReadCountCollector readCountCollector;
 
     @Override
     public List<ReadFilter> getDefaultReadFilters() {
@@ -159,36 +170,73 @@ public final class CollectReadCounts extends ReadWalker {
         CopyNumberArgumentValidationUtils.validateIntervalArgumentCollection(intervalArgumentCollection);
 
         logger.info("Initializing and validating intervals...");
-        final List<SimpleInterval> intervals = intervalArgumentCollection.getIntervals(sequenceDictionary);
-        intervalCachedOverlapDetector = new CachedOverlapDetector<>(intervals);
-
-        //verify again that intervals do not overlap
-        Utils.validateArg(intervals.stream().noneMatch(i -> intervalCachedOverlapDetector.overlapDetector.getOverlaps(i).size() > 1),
-                "Input intervals may not be overlapping.");
+        //this also verifies again that intervals do not overlap
+        readCountCollector = new ReadCountCollector(metadata, intervalArgumentCollection.getIntervals(sequenceDictionary));
 
         logger.info("Collecting read counts...");
     }
 
+    /**
+     * If a single counting thread is requested, performs the standard read traversal.  Otherwise, each contig
+     * containing intervals is traversed in parallel by an independent {@link ReadsDataSource} and its counts are
+     * accumulated in the corresponding {@link ReadCountCollector.ContigCounter}.
+     */
     @Override
-    public void apply(GATKRead read, ReferenceContext referenceContext, FeatureContext featureContext) {
-        final SimpleInterval overlappingInterval = intervalCachedOverlapDetector.getOverlap(
-                new SimpleInterval(read.getContig(), read.getStart(), read.getStart()));
-
-        //if read doesn't overlap any of the provided intervals, do nothing
-        if (overlappingInterval == null) {
+    public void traverse() {
+        if (numCountingThreads == 1) {
+            super.traverse();
             return;
         }
-        intervalMultiset.add(overlappingInterval);
+        SamReaderFactory factory = SamReaderFactory.makeDefault().validationStringency(readArguments.getReadValidationStringency());
+        if (hasReference()) {
+            factory = factory.referenceSequence(referenceArguments.getReferencePath());
+        }
+        final SamReaderFactory samReaderFactory = factory;
+        final ForkJoinPool pool = new ForkJoinPool(numCountingThreads);
+        try {
+            pool.submit(() -> readCountCollector.getContigs().parallelStream()
+                    .forEach(contig -> countContig(readCountCollector.getContigCounter(contig), samReaderFactory)))
+                    .get();
+        } catch (final InterruptedException | ExecutionException e) {
+            throw new GATKException("Exception encountered while counting reads in parallel.", e);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private void countContig(final ReadCountCollector.ContigCounter contigCounter,
+                             final SamReaderFactory samReaderFactory) {
+        final CountingReadFilter countedFilter = makeReadFilter();
+        final ReadTransformer preTransformer = makePreReadFilterTransformer();
+        final ReadTransformer postTransformer = makePostReadFilterTransformer();
+        try (final ReadsDataSource contigReads = new ReadsDataSource(
+                readArguments.getReadPaths(), readArguments.getReadIndexPaths(), samReaderFactory,
+                cloudPrefetchBuffer, cloudIndexPrefetchBuffer < 0 ? cloudPrefetchBuffer : cloudIndexPrefetchBuffer)) {
+            if (!contigReads.indicesAvailable()) {
+                throw new UserException(String.format("Indexed read inputs are required when %s is greater than 1.",
+                        NUMBER_OF_COUNTING_THREADS_LONG_NAME));
+            }
+            contigReads.setTraversalBounds(contigCounter.getIntervals());
+            Utils.stream(contigReads)
+                    .map(preTransformer)
+                    .filter(countedFilter)
+                    .map(postTransformer)
+                    .forEach(read -> contigCounter.addReadStart(read.getStart()));
+        }
+        logger.debug(String.format("Finished counting reads on contig %s: %s",
+                contigCounter.getContig(), countedFilter.getSummaryLine()));
+    }
+
+    @Override
+    public void apply(GATKRead read, ReferenceContext referenceContext, FeatureContext featureContext) {
+        //if read doesn't overlap any of the provided intervals, it is not counted
+        readCountCollector.addReadStart(read.getContig(), read.getStart());
     }
 
     @Override
     public Object onTraversalSuccess() {
         logger.info("Writing read counts to " + outputCountsFile);
-        final SimpleCountCollection readCounts = new SimpleCountCollection(
-                metadata,
-                intervalCachedOverlapDetector.overlapDetector.getAll().stream()
-                        .map(i -> new SimpleCount(i, intervalMultiset.count(i)))
-                        .collect(Collectors.toList()));
+        final SimpleCountCollection readCounts = readCountCollector.getReadCounts();
 
         if (format == Format.HDF5) {
             readCounts.writeHDF5(outputCountsFile);
@@ -198,42 +246,4 @@ public final class CollectReadCounts extends ReadWalker {
 
         return "SUCCESS";
     }
-
-    /**
-     * A simple wrapper around {@link OverlapDetector} to provide naive caching and ensure that overlap sets
-     * only contain a single interval.
-     */
-    private final class CachedOverlapDetector<T extends Locatable> {
-        private final OverlapDetector<T> overlapDetector;
-        private T cachedResult;
-
-        CachedOverlapDetector(final List<T> intervals) {
-            Utils.nonEmpty(intervals);
-            this.overlapDetector = OverlapDetector.create(intervals);
-            cachedResult = intervals.get(0);
-        }
-
-        /**
-         * We check the previously cached result first.  Assuming that queries will be made in sorted order,
-         * this may slightly save on lookup time.
-         * @return {@code null} if no interval overlaps {@code locatable}
-         */
-        T getOverlap(final Locatable locatable) {
-            if (IntervalUtils.overlaps(cachedResult, locatable)) {
-                return cachedResult;
-            }
-            final Set<T> overlaps = overlapDetector.getOverlaps(locatable);
-            if (overlaps.size() > 1) {
-                //should not reach here since intervals are checked for overlaps;
-                //performing a redundant check to protect against future code changes
-                throw new GATKException.ShouldNeverReachHereException("Intervals should be non-overlapping, " +
-                        "so at most one interval should intersect with the start of a read.");
-            }
-            final T firstOverlap = overlaps.stream().findFirst().orElse(null);
-            if (firstOverlap != null) {
-                cachedResult = firstOverlap;
-            }
-            return firstOverlap;
-        }
-    }
-}
\ No newline at end of file
+}
@@ -30,9 +30,11 @@ import org.broadinstitute.hellbender.utils.io.IOUtils;
 import java.io.File;
 import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.ListIterator;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 /**
  * Creates a panel of normals (PoN) for read-count denoising given the read counts for samples in the panel.
@@ -68,6 +70,14 @@ import java.util.stream.Collectors;
  *     a probabilistic model for systematic bias and calling rare and common germline CNVs for samples in the panel.)
  * </p>
  *
+ * <p>
+ *     By default, the read counts for all samples are held in memory.  For large panels, the {@code streaming}
+ *     option can instead be used to read samples one at a time and to perform preprocessing in multiple passes
+ *     over a temporary file, using streaming estimates of medians across samples and a randomized SVD.
+ *     Memory usage then scales with the number of intervals times the number of eigensamples, rather than
+ *     with the number of intervals times the number of samples.
+ * </p>
+ *
  * <h3>Inputs</h3>
  *
  * <ul>
@@ -110,6 +120,15 @@ import java.util.stream.Collectors;
  *          -O cnv.pon.hdf5
  * </pre>
  *
+ * <pre>
+ *     gatk CreateReadCountPanelOfNormals \
+ *          -I sample_1.counts.hdf5 \
+ *          -I sample_2.counts.hdf5 \
+ *          ... \
+ *          --streaming \
+ *          -O cnv.pon.hdf5
+ * </pre>
+ *
  * @author Samuel Lee &lt;slee@broadinstitute.org&gt;
  */
 @CommandLineProgramProperties(
@@ -129,6 +148,7 @@ public final class CreateReadCountPanelOfNormals extends SparkCommandLineProgram
     public static final String IMPUTE_ZEROS_LONG_NAME = "do-impute-zeros";
     public static final String EXTREME_OUTLIER_TRUNCATION_PERCENTILE_LONG_NAME = "extreme-outlier-truncation-percentile";
     public static final String MAXIMUM_CHUNK_SIZE = "maximum-chunk-size";
+    public static final String STREAMING_LONG_NAME = "streaming";
 
     //default values for filtering
     private static final double DEFAULT_MINIMUM_INTERVAL_MEDIAN_PERCENTILE = 10.0;
@@ -251,6 +271,18 @@ public final class CreateReadCountPanelOfNormals extends SparkCommandLineProgram
     )
     private int maximumChunkSize = DEFAULT_MAXIMUM_CHUNK_SIZE;
 
+    @Argument(
+            doc = "If true, build the panel without holding the read counts for all samples in memory.  " +
+                    "Samples are read one at a time and preprocessed in multiple passes over a temporary file, " +
+                    "medians across samples are estimated using a streaming sketch, " +
+                    "and a randomized SVD is performed without Spark.  " +
+                    "Results are approximate for large panels but typically close to those from the default in-memory method.  " +
+                    "Recommended for large panels (e.g., hundreds of WGS samples with small bins) that do not fit in memory.",
+            fullName = STREAMING_LONG_NAME,
+            optional = true
+    )
+    private boolean doStreaming = false;
+
     @Override
     protected void runPipeline(final JavaSparkContext ctx) {
         if (!new HDF5Library().load(null)) {  //Note: passing null means using the default temp dir.
@@ -284,17 +316,34 @@ public final class CreateReadCountPanelOfNormals extends SparkCommandLineProgram
                     .mapToDouble(i -> i.getAnnotationMap().getValue(CopyNumberAnnotations.GC_CONTENT))
                     .toArray();
 
-        //validate input read-counts files (i.e., check intervals and that only integer counts are contained)
-        //and aggregate as a RealMatrix with dimensions numIntervals x numSamples
-        final RealMatrix readCountMatrix = constructReadCountMatrix(logger, inputReadCountFiles, sequenceDictionary, intervals);
+        if (doStreaming) {
+            //validate input read-counts files (i.e., check intervals and that only integer counts are contained)
+            //lazily, so that only a single sample is held in memory at a time
+            final int numSamples = inputReadCountFiles.size();
+            final Iterator<double[]> readCountsIterator = IntStream.range(0, numSamples)
+                    .mapToObj(sampleIndex -> readAndValidateReadCounts(logger, inputReadCountFiles.get(sampleIndex), sampleIndex, numSamples, sequenceDictionary, intervals))
+                    .iterator();
 
-        //create the PoN
-        logger.info("Creating the panel of normals...");
-        HDF5SVDReadCountPanelOfNormals.create(outputPanelOfNormalsFile, getCommandLine(),
-                sequenceDictionary, readCountMatrix, sampleFilenames, intervals, intervalGCContent,
-                minimumIntervalMedianPercentile, maximumZerosInSamplePercentage, maximumZerosInIntervalPercentage,
-                extremeSampleMedianPercentile, doImputeZeros, extremeOutlierTruncationPercentile, numEigensamplesRequested,
-                maximumChunkSize, ctx);
+            //create the PoN
+            logger.info("Creating the panel of normals using streaming preprocessing and randomized SVD...");
+            HDF5SVDReadCountPanelOfNormals.createStreaming(outputPanelOfNormalsFile, getCommandLine(),
+                    sequenceDictionary, readCountsIterator, sampleFilenames, intervals, intervalGCContent,
+                    minimumIntervalMedianPercentile, maximumZerosInSamplePercentage, maximumZerosInIntervalPercentage,
+                    extremeSampleMedianPercentile, doImputeZeros, extremeOutlierTruncationPercentile, numEigensamplesRequested,
+                    maximumChunkSize);
+        } else {
+            //validate input read-counts files (i.e., check intervals and that only integer counts are contained)
+            //and aggregate as a RealMatrix with dimensions numIntervals x numSamples
+            final RealMatrix readCountMatrix = constructReadCountMatrix(logger, inputReadCountFiles, sequenceDictionary, intervals);
+
+            //create the PoN
+            logger.info("Creating the panel of normals...");
+            HDF5SVDReadCountPanelOfNormals.create(outputPanelOfNormalsFile, getCommandLine(),
+                    sequenceDictionary, readCountMatrix, sampleFilenames, intervals, intervalGCContent,
+                    minimumIntervalMedianPercentile, maximumZerosInSamplePercentage, maximumZerosInIntervalPercentage,
+                    extremeSampleMedianPercentile, doImputeZeros, extremeOutlierTruncationPercentile, numEigensamplesRequested,
+                    maximumChunkSize, ctx);
+        }
 
         logger.info("Panel of normals successfully created.");
     }
@@ -322,15 +371,25 @@ public final class CreateReadCountPanelOfNormals extends SparkCommandLineProgram
         while (inputReadCountFilesIterator.hasNext()) {
             final int sampleIndex = inputReadCountFilesIterator.nextIndex();
             final File inputReadCountFile = inputReadCountFilesIterator.next();
-            logger.info(String.format("Aggregating read-counts file %s (%d / %d)", inputReadCountFile, sampleIndex + 1, numSamples));
-            final SimpleCountCollection readCounts = SimpleCountCollection.read(inputReadCountFile);
-            if (!CopyNumberArgumentValidationUtils.isSameDictionary(readCounts.getMetadata().getSequenceDictionary(), sequenceDictionary)) {
-                logger.warn(String.format("Sequence dictionary for read-counts file %s does not match those in other read-counts files.", inputReadCountFile));
-            }
-            Utils.validateArg(readCounts.getIntervals().equals(intervals),
-                    String.format("Intervals for read-counts file %s do not match those in other read-counts files.", inputReadCountFile));
-            readCountMatrix.setRow(sampleIndex, readCounts.getCounts());
+            readCountMatrix.setRow(sampleIndex,
+                    readAndValidateReadCounts(logger, inputReadCountFile, sampleIndex, numSamples, sequenceDictionary, intervals));
         }
         return readCountMatrix;
     }
-}
+
+    private static double[] readAndValidateReadCounts(final Logger logger,
+                                                      final File inputReadCountFile,
+                                                      final int sampleIndex,
+                                                      final int numSamples,
+                                                      final SAMSequenceDictionary sequenceDictionary,
+                                                      final List<SimpleInterval> intervals) {
+        logger.info(String.format("Aggregating read-counts file %s (%d / %d)", inputReadCountFile, sampleIndex + 1, numSamples));
+        final SimpleCountCollection readCounts = SimpleCountCollection.read(inputReadCountFile);
+        if (!CopyNumberArgumentValidationUtils.isSameDictionary(readCounts.getMetadata().getSequenceDictionary(), sequenceDictionary)) {
+            logger.warn(String.format("Sequence dictionary for read-counts file %s does not match those in other read-counts files.", inputReadCountFile));
+        }
+        Utils.validateArg(readCounts.getIntervals().equals(intervals),
+                String.format("Intervals for read-counts file %s do not match those in other read-counts files.", inputReadCountFile));
+        return readCounts.getCounts();
+    }
+}
\ No newline at end of file
@@ -18,9 +18,15 @@ import org.broadinstitute.hellbender.tools.copynumber.formats.collections.Annota
 import org.broadinstitute.hellbender.tools.copynumber.formats.collections.CopyRatioCollection;
 import org.broadinstitute.hellbender.tools.copynumber.formats.collections.SimpleCountCollection;
 import org.broadinstitute.hellbender.tools.copynumber.formats.records.annotation.CopyNumberAnnotations;
+import org.broadinstitute.hellbender.utils.Utils;
 import org.broadinstitute.hellbender.utils.io.IOUtils;
 
 import java.io.File;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 /**
  * Denoises read counts to produce denoised copy ratios.
@@ -57,6 +63,14 @@ import java.io.File;
  *     denoised only with panels containing only individuals of the same sex as the case samples.
  * </p>
  *
+ * <p>
+ *     Multiple case samples may be denoised in a single run by specifying the input and output arguments
+ *     the same number of times.  The panel of normals is then read only once, and samples are denoised together
+ *     in batches of size {@code batch-size} (see {@link SVDBatchDenoiser}), which avoids the overhead of repeatedly
+ *     launching the tool and loading the panel for large cohorts.  Results are identical to those obtained by
+ *     denoising each sample separately.
+ * </p>
+ *
  * <h3>Inputs</h3>
  *
  * <ul>
@@ -103,6 +117,17 @@ import java.io.File;
  *
  * <pre>
  *     gatk DenoiseReadCounts \
+ *          -I sample_1.counts.hdf5 \
+ *          -I sample_2.counts.hdf5 \
+ *          --count-panel-of-normals panel_of_normals.pon.hdf5 \
+ *          --standardized-copy-ratios sample_1.standardizedCR.tsv \
+ *          --standardized-copy-ratios sample_2.standardizedCR.tsv \
+ *          --denoised-copy-ratios sample_1.denoisedCR.tsv \
+ *          --denoised-copy-ratios sample_2.denoisedCR.tsv
+ * </pre>
+ *
+ * <pre>
+ *     gatk DenoiseReadCounts \
  *          -I sample.counts.hdf5 \
  *          --annotated-intervals annotated_intervals.tsv \
  *          --standardized-copy-ratios sample.standardizedCR.tsv \
@@ -125,12 +150,18 @@ import java.io.File;
 )
 @DocumentedFeature
 public final class DenoiseReadCounts extends CommandLineProgram {
+    public static final String BATCH_SIZE_LONG_NAME = "batch-size";
+    static final int DEFAULT_BATCH_SIZE = 100;
+
     @Argument(
-            doc = "Input TSV or HDF5 file containing integer read counts in genomic intervals for a single case sample (output of CollectReadCounts).",
+            doc = "Input TSV or HDF5 file containing integer read counts in genomic intervals for a single case sample (output of CollectReadCounts).  " +
+                    "May be specified multiple times to denoise multiple case samples in a single run, in which case " +
+                    "the output arguments must be specified the same number of times and in the corresponding order.",
             fullName = StandardArgumentDefinitions.INPUT_LONG_NAME,
-            shortName = StandardArgumentDefinitions.INPUT_SHORT_NAME
+            shortName = StandardArgumentDefinitions.INPUT_SHORT_NAME,
+            minElements = 1
     )
-    private File inputReadCountFile;
+    private List<File> inputReadCountFiles = new ArrayList<>();
 
     @Argument(
             doc = "Input HDF5 file containing the panel of normals (output of CreateReadCountPanelOfNormals).",
@@ -150,15 +181,17 @@ public final class DenoiseReadCounts extends CommandLineProgram {
 
     @Argument(
             doc = "Output file for standardized copy ratios.  GC-bias correction will be performed if annotations for GC content are provided.",
-            fullName = CopyNumberStandardArgument.STANDARDIZED_COPY_RATIOS_FILE_LONG_NAME
+            fullName = CopyNumberStandardArgument.STANDARDIZED_COPY_RATIOS_FILE_LONG_NAME,
+            minElements = 1
     )
-    private File outputStandardizedCopyRatiosFile;
+    private List<File> outputStandardizedCopyRatiosFiles = new ArrayList<>();
 
     @Argument(
             doc = "Output file for denoised copy ratios.",
-            fullName = CopyNumberStandardArgument.DENOISED_COPY_RATIOS_FILE_LONG_NAME
+            fullName = CopyNumberStandardArgument.DENOISED_COPY_RATIOS_FILE_LONG_NAME,
+            minElements = 1
     )
-    private File outputDenoisedCopyRatiosFile;
+    private List<File> outputDenoisedCopyRatiosFiles = new ArrayList<>();
 
     @Argument(
             doc = "Number of eigensamples to use for denoising.  " +
@@ -170,6 +203,16 @@ public final class DenoiseReadCounts extends CommandLineProgram {
     )
     private Integer numEigensamplesRequested = null;
 
+    @Argument(
+            doc = "Maximum number of case samples to hold in memory and denoise together when multiple inputs are provided.  " +
+                    "Samples in a batch are standardized in parallel and the projection onto the eigensamples in the " +
+                    "panel of normals is subtracted from all of them with a single matrix multiplication.",
+            fullName = BATCH_SIZE_LONG_NAME,
+            minValue = 1,
+            optional = true
+    )
+    private int batchSize = DEFAULT_BATCH_SIZE;
+
     @Override
     protected Object doWork() {
         if (!new HDF5Library().load(null)) { //Note: passing null means using the default temp dir.
@@ -177,9 +220,7 @@ public final class DenoiseReadCounts extends CommandLineProgram {
                     "HDF5 is currently supported on x86-64 architecture and Linux or OSX systems.");
         }
 
-        IOUtils.canReadFile(inputReadCountFile);
-        logger.info(String.format("Reading read-counts file (%s)...", inputReadCountFile));
-        final SimpleCountCollection readCounts = SimpleCountCollection.read(inputReadCountFile);
+        validateArguments();
 
         if (inputPanelOfNormalsFile != null) {  //denoise using panel of normals
             IOUtils.canReadFile(inputPanelOfNormalsFile);
@@ -190,7 +231,6 @@ public final class DenoiseReadCounts extends CommandLineProgram {
                     logger.warn("Panel of normals was provided; ignoring input GC-content annotations...");
                 }
 
-                //perform denoising and write result
                 final int numEigensamples =
                         numEigensamplesRequested == null ?
                                 panelOfNormals.getNumEigensamples() :
@@ -199,38 +239,86 @@ public final class DenoiseReadCounts extends CommandLineProgram {
                     logger.warn(String.format("%d eigensamples were requested but only %d are available in the panel of normals...",
                             numEigensamplesRequested, numEigensamples));
                 }
-                final SVDDenoisedCopyRatioResult denoisedCopyRatioResult = panelOfNormals.denoise(readCounts, numEigensamples);
 
-                logger.info("Writing standardized and denoised copy ratios...");
-                denoisedCopyRatioResult.write(outputStandardizedCopyRatiosFile, outputDenoisedCopyRatiosFile);
+                //read the required quantities from the panel once and reuse them for all batches
+                final SVDBatchDenoiser denoiser = new SVDBatchDenoiser(panelOfNormals, numEigensamples);
+
+                //perform denoising and write results for each batch
+                final int numSamples = inputReadCountFiles.size();
+                for (int batchStart = 0; batchStart < numSamples; batchStart += batchSize) {
+                    final int batchEnd = Math.min(batchStart + batchSize, numSamples);
+                    if (numSamples > 1) {
+                        logger.info(String.format("Denoising samples %d to %d out of %d...", batchStart + 1, batchEnd, numSamples));
+                    }
+                    final List<SimpleCountCollection> batchReadCounts = IntStream.range(batchStart, batchEnd)
+                            .mapToObj(sampleIndex -> readReadCounts(inputReadCountFiles.get(sampleIndex)))
+                            .collect(Collectors.toList());
+                    final List<SVDDenoisedCopyRatioResult> batchResults = denoiser.denoise(batchReadCounts);
+
+                    logger.info("Writing standardized and denoised copy ratios...");
+                    for (int sampleIndex = batchStart; sampleIndex < batchEnd; sampleIndex++) {
+                        batchResults.get(sampleIndex - batchStart).write(
+                                outputStandardizedCopyRatiosFiles.get(sampleIndex), outputDenoisedCopyRatiosFiles.get(sampleIndex));
+                    }
+                }
             }
         } else {    //standardize and perform optional GC-bias correction
-            //get GC content (null if not provided)
-            final AnnotatedIntervalCollection annotatedIntervals = CopyNumberArgumentValidationUtils.validateAnnotatedIntervals(
-                    inputAnnotatedIntervalsFile, readCounts, logger);
-            final double[] intervalGCContent = annotatedIntervals == null
-                    ? null
-                    : annotatedIntervals.getRecords().stream()
-                    .mapToDouble(i -> i.getAnnotationMap().getValue(CopyNumberAnnotations.GC_CONTENT))
-                    .toArray();
-
-            if (intervalGCContent == null) {
+            if (inputAnnotatedIntervalsFile == null) {
                 logger.warn("Neither a panel of normals nor GC-content annotations were provided, so only standardization will be performed...");
             }
 
-            final RealMatrix standardizedCopyRatioValues = SVDDenoisingUtils.preprocessAndStandardizeSample(readCounts.getCounts(), intervalGCContent);
+            //get GC content (null if not provided), validating against the first sample
+            AnnotatedIntervalCollection annotatedIntervals = null;
+            double[] intervalGCContent = null;
+            for (int sampleIndex = 0; sampleIndex < inputReadCountFiles.size(); sampleIndex++) {
+                final SimpleCountCollection readCounts = readReadCounts(inputReadCountFiles.get(sampleIndex));
+                if (sampleIndex == 0) {
+                    annotatedIntervals = CopyNumberArgumentValidationUtils.validateAnnotatedIntervals(
+                            inputAnnotatedIntervalsFile, readCounts, logger);
+                    intervalGCContent = annotatedIntervals == null
+                            ? null
+                            : annotatedIntervals.getRecords().stream()
+                            .mapToDouble(i -> i.getAnnotationMap().getValue(CopyNumberAnnotations.GC_CONTENT))
+                            .toArray();
+                } else if (annotatedIntervals != null) {
+                    Utils.validateArg(annotatedIntervals.getIntervals().equals(readCounts.getIntervals()),
+                            String.format("Intervals in read-counts file (%s) must be identical to those in the annotated-intervals file.",
+                                    inputReadCountFiles.get(sampleIndex)));
+                }
+
+                final RealMatrix standardizedCopyRatioValues = SVDDenoisingUtils.preprocessAndStandardizeSample(readCounts.getCounts(), intervalGCContent);
 
-            //construct a result with denoised result identical to standardized result
-            final SVDDenoisedCopyRatioResult standardizedResult = new SVDDenoisedCopyRatioResult(
-                    readCounts.getMetadata(),
-                    readCounts.getIntervals(),
-                    standardizedCopyRatioValues,
-                    standardizedCopyRatioValues);
-            standardizedResult.write(outputStandardizedCopyRatiosFile, outputDenoisedCopyRatiosFile);
+                //construct a result with denoised result identical to standardized result
+                final SVDDenoisedCopyRatioResult standardizedResult = new SVDDenoisedCopyRatioResult(
+                        readCounts.getMetadata(),
+                        readCounts.getIntervals(),
+                        standardizedCopyRatioValues,
+                        standardizedCopyRatioValues);
+                standardizedResult.write(outputStandardizedCopyRatiosFiles.get(sampleIndex), outputDenoisedCopyRatiosFiles.get(sampleIndex));
+            }
         }
 
         logger.info("Read counts successfully denoised.");
 
         return "SUCCESS";
     }
+
+    private void validateArguments() {
+        Utils.validateArg(outputStandardizedCopyRatiosFiles.size() == inputReadCountFiles.size(),
+                "Number of standardized-copy-ratio output files must match the number of input read-counts files.");
+        Utils.validateArg(outputDenoisedCopyRatiosFiles.size() == inputReadCountFiles.size(),
+                "Number of denoised-copy-ratio output files must match the number of input read-counts files.");
+        Utils.validateArg(new HashSet<>(inputReadCountFiles).size() == inputReadCountFiles.size(),
+                "List of input read-counts files cannot contain duplicates.");
+        final List<File> outputFiles = new ArrayList<>(outputStandardizedCopyRatiosFiles);
+        outputFiles.addAll(outputDenoisedCopyRatiosFiles);
+        Utils.validateArg(new HashSet<>(outputFiles).size() == outputFiles.size(),
+                "Output files must all be distinct.");
+        inputReadCountFiles.forEach(IOUtils::canReadFile);
+    }
+
+    private SimpleCountCollection readReadCounts(final File inputReadCountFile) {
+        logger.info(String.format("Reading read-counts file (%s)...", inputReadCountFile));
+        return SimpleCountCollection.read(inputReadCountFile);
+    }
 }
@@ -0,0 +1,196 @@
+package org.broadinstitute.hellbender.tools.copynumber.datacollection;
+
+import htsjdk.samtools.SAMSequenceDictionary;
+import org.broadinstitute.hellbender.tools.copynumber.formats.collections.SimpleCountCollection;
+import org.broadinstitute.hellbender.tools.copynumber.formats.metadata.SampleLocatableMetadata;
+import org.broadinstitute.hellbender.tools.copynumber.formats.records.SimpleCount;
+import org.broadinstitute.hellbender.utils.IntervalUtils;
+import org.broadinstitute.hellbender.utils.SimpleInterval;
+import org.broadinstitute.hellbender.utils.Utils;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Collects read-start counts in a set of non-overlapping intervals (bins).  Bins are stored per contig in primitive
+ * arrays sorted by start position, so that resolving the bin containing a read start requires no object allocation.
+ * If the bins on a contig have starts that are evenly spaced (as is the case for bins produced by
+ * {@link org.broadinstitute.hellbender.tools.copynumber.PreprocessIntervals} over whole contigs), the bin index is
+ * computed directly from the position; otherwise, it is found by binary search.
+ *
+ * <p>
+ *     Counts for different contigs are held in independent {@link ContigCounter}s, so that reads from different
+ *     contigs may be counted concurrently using {@link #getContigCounter}.  Counting reads from the same contig on
+ *     multiple threads is not supported.
+ * </p>
+ */
+public final class ReadCountCollector {
+    private final SampleLocatableMetadata metadata;
+    private final Map<String, ContigCounter> contigCounters = new LinkedHashMap<>();
+
+    //the counter for the contig of the last read start counted by addReadStart, to avoid a map lookup per read
+    private ContigCounter lastContigCounter = null;
+
+    /**
+     * @param metadata  metadata used for the resulting {@link SimpleCountCollection}; the contained sequence dictionary
+     *                  is used to validate and sort the intervals
+     * @param intervals non-empty list of non-overlapping intervals; need not be sorted
+     * @throws IllegalArgumentException if intervals overlap or are not contained in the sequence dictionary
+     */
+    public ReadCountCollector(final SampleLocatableMetadata metadata,
+                              final List<SimpleInterval> intervals) {
+        this.metadata = Utils.nonNull(metadata);
+        Utils.nonEmpty(intervals);
+        final SAMSequenceDictionary sequenceDictionary = metadata.getSequenceDictionary();
+        Utils.validateArg(intervals.stream().allMatch(i -> sequenceDictionary.getSequence(i.getContig()) != null),
+                "All intervals must be contained in the sequence dictionary.");
+        final List<SimpleInterval> sortedIntervals = intervals.stream()
+                .sorted(IntervalUtils.getDictionaryOrderComparator(sequenceDictionary))
+                .collect(Collectors.toList());
+        int contigStartIndex = 0;
+        for (int i = 1; i <= sortedIntervals.size(); i++) {
+            if (i == sortedIntervals.size() || !sortedIntervals.get(i).getContig().equals(sortedIntervals.get(contigStartIndex).getContig())) {
+                final List<SimpleInterval> contigIntervals = sortedIntervals.subList(contigStartIndex, i);
+                contigCounters.put(contigIntervals.get(0).getContig(), new ContigCounter(contigIntervals));
+                contigStartIndex = i;
+            }
+        }
+    }
+
+    /**
+     * @return contigs containing at least one interval, in sequence-dictionary order
+     */
+    public List<String> getContigs() {
+        return new ArrayList<>(contigCounters.keySet());
+    }
+
+    /**
+     * @return the counter for {@code contig}, or {@code null} if there are no intervals on {@code contig}
+     */
+    public ContigCounter getContigCounter(final String contig) {
+        return contigCounters.get(Utils.nonNull(contig));
+    }
+
+    /**
+     * Increments the count of the interval containing the read start, if any.
+     * Calls are assumed to be made for reads sorted by contig, although this is not required.
+     * @return {@code true} if the read start was contained in an interval
+     */
+    public boolean addReadStart(final String contig,
+                                final int start) {
+        if (lastContigCounter == null || !lastContigCounter.contig.equals(contig)) {
+            lastContigCounter = contigCounters.get(contig);
+            if (lastContigCounter == null) {
+                return false;
+            }
+        }
+        return lastContigCounter.addReadStart(start);
+    }
+
+    /**
+     * @return counts for all intervals, sorted according to the sequence dictionary
+     */
+    public SimpleCountCollection getReadCounts() {
+        final List<SimpleCount> counts = new ArrayList<>();
+        for (final ContigCounter contigCounter : contigCounters.values()) {
+            final List<SimpleInterval> contigIntervals = contigCounter.getIntervals();
+            for (int binIndex = 0; binIndex < contigIntervals.size(); binIndex++) {
+                counts.add(new SimpleCount(contigIntervals.get(binIndex), contigCounter.counts[binIndex]));
+            }
+        }
+        return new SimpleCountCollection(metadata, counts);
+    }
+
+    /**
+     * Holds bin boundaries and counts for the intervals on a single contig.
+     */
+    public static final class ContigCounter {
+        private final String contig;
+        private final int[] starts;
+        private final int[] ends;
+        private final int[] counts;
+
+        //if bin starts are evenly spaced, stride is the spacing; otherwise, it is zero and binary search is used
+        private final int stride;
+
+        private ContigCounter(final List<SimpleInterval> sortedContigIntervals) {
+            contig = sortedContigIntervals.get(0).getContig();
+            final int numBins = sortedContigIntervals.size();
+            starts = new int[numBins];
+            ends = new int[numBins];
+            counts = new int[numBins];
+            for (int binIndex = 0; binIndex < numBins; binIndex++) {
+                starts[binIndex] = sortedContigIntervals.get(binIndex).getStart();
+                ends[binIndex] = sortedContigIntervals.get(binIndex).getEnd();
+                Utils.validateArg(binIndex == 0 || starts[binIndex] > ends[binIndex - 1],
+                        "Input intervals may not be overlapping.");
+            }
+            stride = calculateStride(starts);
+        }
+
+        private static int calculateStride(final int[] starts) {
+            if (starts.length < 2) {
+                return 0;
+            }
+            final int stride = starts[1] - starts[0];
+            for (int binIndex = 2; binIndex < starts.length; binIndex++) {
+                if (starts[binIndex] - starts[binIndex - 1] != stride) {
+                    return 0;
+                }
+            }
+            return stride;
+        }
+
+        public String getContig() {
+            return contig;
+        }
+
+        /**
+         * @return bins on this contig, sorted by start position
+         */
+        public List<SimpleInterval> getIntervals() {
+            final List<SimpleInterval> intervals = new ArrayList<>(starts.length);
+            for (int binIndex = 0; binIndex < starts.length; binIndex++) {
+                intervals.add(new SimpleInterval(contig, starts[binIndex], ends[binIndex]));
+            }
+            return intervals;
+        }
+
+        /**
+         * @return index of the bin containing {@code position}, or -1 if no bin contains it
+         */
+        int findBin(final int position) {
+            final int binIndex;
+            if (stride > 0) {
+                if (position < starts[0]) {
+                    return -1;
+                }
+                binIndex = (position - starts[0]) / stride;
+                if (binIndex >= starts.length) {
+                    return -1;
+                }
+            } else {
+                final int searchResult = Arrays.binarySearch(starts, position);
+                //if position is not a bin start, take the bin with the largest start less than position
+                binIndex = searchResult >= 0 ? searchResult : -(searchResult + 1) - 1;
+                if (binIndex < 0) {
+                    return -1;
+                }
+            }
+            return position <= ends[binIndex] ? binIndex : -1;
+        }
+
+        /**
+         * Increments the count of the bin containing the read start, if any.
+         * @return {@code true} if the read start was contained in a bin
+         */
+        public boolean addReadStart(final int start) {
+            final int binIndex = findBin(start);
+            if (binIndex < 0) {
+                return false;
+            }
+            counts[binIndex]++;
+            return true;
+        }
+    }
+}
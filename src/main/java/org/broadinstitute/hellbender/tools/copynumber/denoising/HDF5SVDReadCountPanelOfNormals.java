@@ -27,6 +27,7 @@ import org.broadinstitute.hellbender.utils.spark.SparkConverter;
 import java.io.File;
 import java.io.StringWriter;
 import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
@@ -260,29 +261,13 @@ public final class HDF5SVDReadCountPanelOfNormals implements SVDReadCountPanelOf
             logger.info("Creating " + outFile.getAbsolutePath() + "...");
             final HDF5SVDReadCountPanelOfNormals pon = new HDF5SVDReadCountPanelOfNormals(file);
 
-            logger.info(String.format("Writing version number (" + PON_VERSION_STRING_FORMAT + ")...", CURRENT_PON_VERSION));
-            pon.writeVersion(CURRENT_PON_VERSION);
-
-            logger.info("Writing command line...");
-            pon.writeCommandLine(commandLine);
-
-            logger.info("Writing sequence dictionary...");
-            pon.writeSequenceDictionary(sequenceDictionary);
+            pon.writeHeader(commandLine, sequenceDictionary);
 
             logger.info(String.format("Writing original read counts (%d x %d)...",
                     originalReadCounts.getColumnDimension(), originalReadCounts.getRowDimension()));
             pon.writeOriginalReadCountsPath(originalReadCounts, maximumChunkSize);
 
-            logger.info(String.format("Writing original sample filenames (%d)...", originalSampleFilenames.size()));
-            pon.writeOriginalSampleFilenames(originalSampleFilenames);
-
-            logger.info(String.format("Writing original intervals (%d)...", originalIntervals.size()));
-            pon.writeOriginalIntervals(originalIntervals);
-
-            if (intervalGCContent != null) {
-                logger.info(String.format("Writing GC-content annotations for original intervals (%d)...", intervalGCContent.length));
-                pon.writeOriginalIntervalGCContent(intervalGCContent);
-            }
+            pon.writeOriginalAttributes(originalSampleFilenames, originalIntervals, intervalGCContent);
 
             //preprocess and standardize read counts and determine filters
             //(originalReadCounts is modified in place and a filtered submatrix is returned)
@@ -292,35 +277,15 @@ public final class HDF5SVDReadCountPanelOfNormals implements SVDReadCountPanelOf
                             minimumIntervalMedianPercentile, maximumZerosInSamplePercentage, maximumZerosInIntervalPercentage,
                             extremeSampleMedianPercentile, doImputeZeros, extremeOutlierTruncationPercentile);
 
-            //filter samples and intervals
-            final List<String> panelSampleFilenames = IntStream.range(0, originalSampleFilenames.size())
-                    .filter(sampleIndex -> !preprocessedStandardizedResult.filterSamples[sampleIndex])
-                    .mapToObj(originalSampleFilenames::get).collect(Collectors.toList());
-            final List<SimpleInterval> panelIntervals = IntStream.range(0, originalIntervals.size())
-                    .filter(intervalIndex -> !preprocessedStandardizedResult.filterIntervals[intervalIndex])
-                    .mapToObj(originalIntervals::get).collect(Collectors.toList());
-
-            logger.info(String.format("Writing panel sample filenames (%d)...", panelSampleFilenames.size()));
-            pon.writePanelSampleFilenames(panelSampleFilenames);
-
-            logger.info(String.format("Writing panel intervals (%d)...", panelIntervals.size()));
-            pon.writePanelIntervals(panelIntervals);
-
-            //get panel interval fractional medians (calculated as an intermediate result during preprocessing)
-            final double[] panelIntervalFractionalMedians = preprocessedStandardizedResult.panelIntervalFractionalMedians;
-
-            logger.info(String.format("Writing panel interval fractional medians (%d)...", panelIntervalFractionalMedians.length));
-            pon.writePanelIntervalFractionalMedians(panelIntervalFractionalMedians);
+            pon.writePanelAttributes(originalSampleFilenames, originalIntervals,
+                    preprocessedStandardizedResult.filterSamples, preprocessedStandardizedResult.filterIntervals,
+                    preprocessedStandardizedResult.panelIntervalFractionalMedians);
 
             final int numPanelSamples = preprocessedStandardizedResult.preprocessedStandardizedValues.getRowDimension();
             final int numPanelIntervals = preprocessedStandardizedResult.preprocessedStandardizedValues.getColumnDimension();
 
             //perform SVD, handling number of eigensamples requested vs. that available in filtered panel vs. that available from actual decomposition
-            final int numEigensamples = Math.min(numEigensamplesRequested, numPanelSamples);
-            if (numEigensamples < numEigensamplesRequested) {
-                logger.warn(String.format("%d eigensamples were requested but only %d are available in the panel of normals...",
-                        numEigensamplesRequested, numEigensamples));
-            }
+            final int numEigensamples = calculateNumEigensamples(numEigensamplesRequested, numPanelSamples);
             logger.info(String.format("Performing SVD (truncated at %d eigensamples) of standardized counts (transposed to %d x %d)...",
                     numEigensamples, numPanelIntervals, numPanelSamples));
             if (numPanelSamples > 1 && numEigensamples > 0) {
@@ -328,15 +293,7 @@ public final class HDF5SVDReadCountPanelOfNormals implements SVDReadCountPanelOf
                         ctx, preprocessedStandardizedResult.preprocessedStandardizedValues.transpose(), NUM_SLICES_FOR_SPARK_MATRIX_CONVERSION)
                         .computeSVD(numEigensamples, true, EPSILON);
                 final double[] singularValues = svd.s().toArray();    //should be in decreasing order (with corresponding matrices below)
-                if (singularValues.length == 0 || Arrays.stream(singularValues).noneMatch(s -> s > EPSILON)) {
-                    //if the panel contains more than one sample, we require that at least one non-negligible singular value is found
-                    throw new UserException(String.format("No non-zero singular values were found.  It may be necessary to use stricter parameters for filtering.  " +
-                            "For example, use a larger value of %s.", CreateReadCountPanelOfNormals.MINIMUM_INTERVAL_MEDIAN_PERCENTILE_LONG_NAME));
-                }
-                if (singularValues.length < numEigensamples) {
-                    logger.warn(String.format("Attempted to truncate at %d eigensamples, but only %d non-zero singular values were found...",
-                            numEigensamples, singularValues.length));
-                }
+                validateSingularValues(singularValues, numEigensamples);
                 final double[][] eigensampleVectors = SparkConverter.convertSparkRowMatrixToRealMatrix(svd.U(), numPanelIntervals).getData();
 
                 logger.info(String.format("Writing singular values (%d)...", singularValues.length));
@@ -350,16 +307,185 @@ public final class HDF5SVDReadCountPanelOfNormals implements SVDReadCountPanelOf
                 logger.info("No eigensamples could be computed because only a single sample was provided or no eigensamples were requested.");
             }
         } catch (final RuntimeException exception) {
-            //if any exceptions encountered, delete partial output and rethrow
-            logger.warn(String.format("Exception encountered during creation of panel of normals (%s).  Attempting to delete partial output in %s...",
-                    exception, outFile.getAbsolutePath()));
-            IOUtils.tryDelete(outFile);
-            throw new GATKException(String.format("Could not create panel of normals.  It may be necessary to use stricter parameters for filtering.  " +
-                    "For example, use a larger value of %s.", CreateReadCountPanelOfNormals.MINIMUM_INTERVAL_MEDIAN_PERCENTILE_LONG_NAME),  exception);
+            handleCreationException(outFile, exception);
         }
         logger.info(String.format("Read-count panel of normals written to %s.", outFile));
     }
 
+    /**
+     * Create the panel of normals and write it to an HDF5 file without holding the full matrix of read counts in memory.
+     * Read counts for each sample (in the same order as {@code originalSampleFilenames}) are consumed from
+     * {@code originalReadCountsIterator} one at a time and are written to the file as they are consumed.
+     * Preprocessing and standardization are then performed by reading the samples back from a temporary file,
+     * using streaming estimates of medians, and SVD is performed using a randomized algorithm;
+     * see {@link StreamingSVDDenoisingUtils} for details.  The resulting panel has the same format as that
+     * produced by {@link #create}.  All inputs are assumed to be valid.
+     * If {@code intervalGCContent} is null, GC-bias correction will not be performed.
+     */
+    public static void createStreaming(final File outFile,
+                                       final String commandLine,
+                                       final SAMSequenceDictionary sequenceDictionary,
+                                       final Iterator<double[]> originalReadCountsIterator,
+                                       final List<String> originalSampleFilenames,
+                                       final List<SimpleInterval> originalIntervals,
+                                       final double[] intervalGCContent,
+                                       final double minimumIntervalMedianPercentile,
+                                       final double maximumZerosInSamplePercentage,
+                                       final double maximumZerosInIntervalPercentage,
+                                       final double extremeSampleMedianPercentile,
+                                       final boolean doImputeZeros,
+                                       final double extremeOutlierTruncationPercentile,
+                                       final int numEigensamplesRequested,
+                                       final int maximumChunkSize) {
+        try (final HDF5File file = new HDF5File(outFile, HDF5File.OpenMode.CREATE)) {
+            logger.info("Creating " + outFile.getAbsolutePath() + "...");
+            final HDF5SVDReadCountPanelOfNormals pon = new HDF5SVDReadCountPanelOfNormals(file);
+
+            pon.writeHeader(commandLine, sequenceDictionary);
+
+            final StreamingSVDDenoisingUtils.StreamingPreprocessedStandardizedResult preprocessedStandardizedResultToClose;
+            try (final StreamingSVDDenoisingUtils.StreamingPanel streamingPanel =
+                         new StreamingSVDDenoisingUtils.StreamingPanel(originalIntervals.size(), intervalGCContent)) {
+                logger.info(String.format("Writing original read counts (%d x %d) and accumulating panel...",
+                        originalIntervals.size(), originalSampleFilenames.size()));
+                try (final HDF5Utils.ChunkedDoubleMatrixWriter originalReadCountsWriter =
+                             new HDF5Utils.ChunkedDoubleMatrixWriter(file, ORIGINAL_READ_COUNTS_PATH, originalIntervals.size(), maximumChunkSize)) {
+                    while (originalReadCountsIterator.hasNext()) {
+                        final double[] readCounts = originalReadCountsIterator.next();
+                        originalReadCountsWriter.addRow(readCounts);
+                        streamingPanel.addSample(readCounts);
+                    }
+                }
+                Utils.validateArg(streamingPanel.getNumSamples() == originalSampleFilenames.size(),
+                        "Number of samples read does not match the number of sample filenames.");
+
+                pon.writeOriginalAttributes(originalSampleFilenames, originalIntervals, intervalGCContent);
+
+                logger.info("Preprocessing and standardizing read counts...");
+                preprocessedStandardizedResultToClose = streamingPanel.preprocessAndStandardize(
+                        minimumIntervalMedianPercentile, maximumZerosInSamplePercentage, maximumZerosInIntervalPercentage,
+                        extremeSampleMedianPercentile, doImputeZeros, extremeOutlierTruncationPercentile);
+            }   //the fractional coverages are no longer needed, so the streaming panel is closed here
+
+            try (final StreamingSVDDenoisingUtils.StreamingPreprocessedStandardizedResult preprocessedStandardizedResult =
+                         preprocessedStandardizedResultToClose) {
+                pon.writePanelAttributes(originalSampleFilenames, originalIntervals,
+                        preprocessedStandardizedResult.filterSamples, preprocessedStandardizedResult.filterIntervals,
+                        preprocessedStandardizedResult.panelIntervalFractionalMedians);
+
+                final int numPanelSamples = preprocessedStandardizedResult.getNumPanelSamples();
+                final int numPanelIntervals = preprocessedStandardizedResult.getNumPanelIntervals();
+
+                final int numEigensamples = calculateNumEigensamples(numEigensamplesRequested, numPanelSamples);
+                logger.info(String.format("Performing randomized SVD (truncated at %d eigensamples) of standardized counts (transposed to %d x %d)...",
+                        numEigensamples, numPanelIntervals, numPanelSamples));
+                if (numPanelSamples > 1 && numEigensamples > 0) {
+                    final StreamingSVDDenoisingUtils.RandomizedSVDResult svd =
+                            StreamingSVDDenoisingUtils.calculateRandomizedSVD(preprocessedStandardizedResult, numEigensamples);
+                    validateSingularValues(svd.singularValues, numEigensamples);
+
+                    logger.info(String.format("Writing singular values (%d)...", svd.singularValues.length));
+                    pon.writeSingularValues(svd.singularValues);
+
+                    logger.info(String.format("Writing eigensample vectors (transposed to %d x %d)...",
+                            svd.transposedEigensampleVectors.length, numPanelIntervals));
+                    pon.writeTransposedEigensampleVectors(svd.transposedEigensampleVectors, maximumChunkSize);
+                } else {
+                    //if the panel only contains a single sample or zero eigensamples were requested,
+                    //we do not store singular values or eigenvectors in the panel
+                    logger.info("No eigensamples could be computed because only a single sample was provided or no eigensamples were requested.");
+                }
+            }
+        } catch (final RuntimeException exception) {
+            handleCreationException(outFile, exception);
+        }
+        logger.info(String.format("Read-count panel of normals written to %s.", outFile));
+    }
+
+    private static int calculateNumEigensamples(final int numEigensamplesRequested,
+                                                final int numPanelSamples) {
+        final int numEigensamples = Math.min(numEigensamplesRequested, numPanelSamples);
+        if (numEigensamples < numEigensamplesRequested) {
+            logger.warn(String.format("%d eigensamples were requested but only %d are available in the panel of normals...",
+                    numEigensamplesRequested, numEigensamples));
+        }
+        return numEigensamples;
+    }
+
+    private static void validateSingularValues(final double[] singularValues,
+                                               final int numEigensamples) {
+        if (singularValues.length == 0 || Arrays.stream(singularValues).noneMatch(s -> s > EPSILON)) {
+            //if the panel contains more than one sample, we require that at least one non-negligible singular value is found
+            throw new UserException(String.format("No non-zero singular values were found.  It may be necessary to use stricter parameters for filtering.  " +
+                    "For example, use a larger value of %s.", CreateReadCountPanelOfNormals.MINIMUM_INTERVAL_MEDIAN_PERCENTILE_LONG_NAME));
+        }
+        if (singularValues.length < numEigensamples) {
+            logger.warn(String.format("Attempted to truncate at %d eigensamples, but only %d non-zero singular values were found...",
+                    numEigensamples, singularValues.length));
+        }
+    }
+
+    private static void handleCreationException(final File outFile,
+                                                final RuntimeException exception) {
+        //if any exceptions encountered, delete partial output and rethrow
+        logger.warn(String.format("Exception encountered during creation of panel of normals (%s).  Attempting to delete partial output in %s...",
+                exception, outFile.getAbsolutePath()));
+        IOUtils.tryDelete(outFile);
+        throw new GATKException(String.format("Could not create panel of normals.  It may be necessary to use stricter parameters for filtering.  " +
+                "For example, use a larger value of %s.", CreateReadCountPanelOfNormals.MINIMUM_INTERVAL_MEDIAN_PERCENTILE_LONG_NAME),  exception);
+    }
+
+    private void writeHeader(final String commandLine,
+                             final SAMSequenceDictionary sequenceDictionary) {
+        logger.info(String.format("Writing version number (" + PON_VERSION_STRING_FORMAT + ")...", CURRENT_PON_VERSION));
+        writeVersion(CURRENT_PON_VERSION);
+
+        logger.info("Writing command line...");
+        writeCommandLine(commandLine);
+
+        logger.info("Writing sequence dictionary...");
+        writeSequenceDictionary(sequenceDictionary);
+    }
+
+    private void writeOriginalAttributes(final List<String> originalSampleFilenames,
+                                         final List<SimpleInterval> originalIntervals,
+                                         final double[] intervalGCContent) {
+        logger.info(String.format("Writing original sample filenames (%d)...", originalSampleFilenames.size()));
+        writeOriginalSampleFilenames(originalSampleFilenames);
+
+        logger.info(String.format("Writing original intervals (%d)...", originalIntervals.size()));
+        writeOriginalIntervals(originalIntervals);
+
+        if (intervalGCContent != null) {
+            logger.info(String.format("Writing GC-content annotations for original intervals (%d)...", intervalGCContent.length));
+            writeOriginalIntervalGCContent(intervalGCContent);
+        }
+    }
+
+    private void writePanelAttributes(final List<String> originalSampleFilenames,
+                                      final List<SimpleInterval> originalIntervals,
+                                      final boolean[] filterSamples,
+                                      final boolean[] filterIntervals,
+                                      final double[] panelIntervalFractionalMedians) {
+        //filter samples and intervals
+        final List<String> panelSampleFilenames = IntStream.range(0, originalSampleFilenames.size())
+                .filter(sampleIndex -> !filterSamples[sampleIndex])
+                .mapToObj(originalSampleFilenames::get).collect(Collectors.toList());
+        final List<SimpleInterval> panelIntervals = IntStream.range(0, originalIntervals.size())
+                .filter(intervalIndex -> !filterIntervals[intervalIndex])
+                .mapToObj(originalIntervals::get).collect(Collectors.toList());
+
+        logger.info(String.format("Writing panel sample filenames (%d)...", panelSampleFilenames.size()));
+        writePanelSampleFilenames(panelSampleFilenames);
+
+        logger.info(String.format("Writing panel intervals (%d)...", panelIntervals.size()));
+        writePanelIntervals(panelIntervals);
+
+        //panel interval fractional medians are calculated as an intermediate result during preprocessing
+        logger.info(String.format("Writing panel interval fractional medians (%d)...", panelIntervalFractionalMedians.length));
+        writePanelIntervalFractionalMedians(panelIntervalFractionalMedians);
+    }
+
     //PRIVATE WRITERS (write values to HDF5 file)
     //these are private to prevent fields from being written individually, which could leave the file in a bad state
 
@@ -415,4 +541,9 @@ public final class HDF5SVDReadCountPanelOfNormals implements SVDReadCountPanelOf
         HDF5Utils.writeChunkedDoubleMatrix(file, PANEL_EIGENSAMPLE_VECTORS_PATH,
                 new Array2DRowRealMatrix(eigensampleVectors, false).transpose().getData(), maximumChunkSize);
     }
+
+    private void writeTransposedEigensampleVectors(final double[][] transposedEigensampleVectors,
+                                                   final int maximumChunkSize) {
+        HDF5Utils.writeChunkedDoubleMatrix(file, PANEL_EIGENSAMPLE_VECTORS_PATH, transposedEigensampleVectors, maximumChunkSize);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,140 @@
+package org.broadinstitute.hellbender.tools.copynumber.denoising;
+
+import org.apache.commons.math3.linear.Array2DRowRealMatrix;
+import org.apache.commons.math3.linear.RealMatrix;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.broadinstitute.hellbender.tools.copynumber.arguments.CopyNumberArgumentValidationUtils;
+import org.broadinstitute.hellbender.tools.copynumber.formats.collections.SimpleCountCollection;
+import org.broadinstitute.hellbender.utils.SimpleInterval;
+import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.param.ParamUtils;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Performs SVD-based denoising of integer read counts for batches of samples using a panel of normals.
+ *
+ * <p>
+ *     All quantities required from the panel of normals (the original intervals and their GC content,
+ *     the indices of the panel intervals within the original intervals, the interval fractional medians,
+ *     and the truncated eigensample matrix U<sub>k</sub> and its transpose) are read and computed once upon construction,
+ *     so that they may be reused to denoise any number of samples without accessing the panel again.
+ * </p>
+ *
+ * <p>
+ *     Samples in a batch are standardized in parallel and stacked into a single {@code N x M} matrix S,
+ *     where {@code N} is the number of samples and {@code M} is the number of panel intervals.  The projection
+ *     onto the space spanned by the eigensamples is then subtracted from all samples at once by computing
+ *     S - S U<sub>k</sub> U<sub>k</sub><sup>T</sup> with dense matrix multiplications.  Each row of the result is
+ *     identical to that obtained by denoising the corresponding sample on its own.
+ * </p>
+ */
+public final class SVDBatchDenoiser {
+    private static final Logger logger = LogManager.getLogger(SVDBatchDenoiser.class);
+
+    private final SVDReadCountPanelOfNormals panelOfNormals;
+    private final int numEigensamples;
+    private final List<SimpleInterval> originalIntervals;
+    private final double[] originalIntervalGCContent;
+    private final List<SimpleInterval> panelIntervals;
+    private final int[] subsetIntervalIndices;
+    private final double[] panelIntervalFractionalMedians;
+    private final RealMatrix eigensampleTruncatedMatrix;            //M x k, null if no denoising is performed
+    private final RealMatrix eigensampleTruncatedMatrixTranspose;   //k x M, null if no denoising is performed
+
+    /**
+     * @param panelOfNormals    panel of normals; no further access to the panel is made after construction
+     * @param numEigensamples   number of eigensamples (which are sorted by singular value in decreasing order) to use for denoising
+     */
+    public SVDBatchDenoiser(final SVDReadCountPanelOfNormals panelOfNormals,
+                            final int numEigensamples) {
+        this.panelOfNormals = Utils.nonNull(panelOfNormals);
+        ParamUtils.isPositiveOrZero(numEigensamples, "Number of eigensamples to use for denoising must be non-negative.");
+        Utils.validateArg(numEigensamples <= panelOfNormals.getNumEigensamples(),
+                "Number of eigensamples to use for denoising is greater than the number available in the panel of normals.");
+        this.numEigensamples = numEigensamples;
+
+        logger.info("Reading intervals and interval medians from the panel of normals...");
+        originalIntervals = panelOfNormals.getOriginalIntervals();
+        originalIntervalGCContent = panelOfNormals.getOriginalIntervalGCContent();
+        panelIntervals = panelOfNormals.getPanelIntervals();
+        final Set<SimpleInterval> panelIntervalsSet = new HashSet<>(panelIntervals);
+        subsetIntervalIndices = IntStream.range(0, originalIntervals.size())
+                .filter(i -> panelIntervalsSet.contains(originalIntervals.get(i)))
+                .toArray();
+        panelIntervalFractionalMedians = panelOfNormals.getPanelIntervalFractionalMedians();
+
+        if (numEigensamples == 0 || panelOfNormals.getNumEigensamples() == 0) {
+            logger.warn("A zero number of eigensamples was specified or no eigensamples were available to perform denoising; " +
+                    "denoised copy ratios will be identical to the standardized copy ratios...");
+            eigensampleTruncatedMatrix = null;
+            eigensampleTruncatedMatrixTranspose = null;
+        } else {
+            logger.info(String.format("Using %d out of %d eigensamples to denoise...", numEigensamples, panelOfNormals.getNumEigensamples()));
+            logger.info("Composing eigensample matrix for the requested number of eigensamples and transposing them...");
+            final double[][] eigensampleVectors = panelOfNormals.getEigensampleVectors();
+            final int numIntervals = eigensampleVectors.length;
+            final int numAllEigensamples = eigensampleVectors[0].length;
+            eigensampleTruncatedMatrix = numEigensamples == numAllEigensamples
+                    ? new Array2DRowRealMatrix(eigensampleVectors, false)
+                    : new Array2DRowRealMatrix(eigensampleVectors, false).getSubMatrix(0, numIntervals - 1, 0, numEigensamples - 1);
+            eigensampleTruncatedMatrixTranspose = eigensampleTruncatedMatrix.transpose();
+        }
+    }
+
+    public int getNumEigensamples() {
+        return numEigensamples;
+    }
+
+    /**
+     * Standardizes and denoises each of the {@code readCounts}.
+     * @return  results in the same order as {@code readCounts}
+     */
+    public List<SVDDenoisedCopyRatioResult> denoise(final List<SimpleCountCollection> readCounts) {
+        Utils.nonEmpty(readCounts);
+        final int numSamples = readCounts.size();
+
+        logger.info(String.format("Validating intervals for %d sample(s) against original intervals used to build panel of normals...", numSamples));
+        for (final SimpleCountCollection sampleReadCounts : readCounts) {
+            Utils.nonNull(sampleReadCounts);
+            if (!CopyNumberArgumentValidationUtils.isSameDictionary(panelOfNormals.getSequenceDictionary(), sampleReadCounts.getMetadata().getSequenceDictionary())) {
+                logger.warn(String.format("Sequence dictionaries in panel and case sample %s do not match.",
+                        sampleReadCounts.getMetadata().getSampleName()));
+            }
+            Utils.validateArg(originalIntervals.equals(sampleReadCounts.getIntervals()),
+                    "Sample intervals must be identical to the original intervals used to build the panel of normals.");
+        }
+
+        logger.info(String.format("Preprocessing and standardizing read counts for %d sample(s)...", numSamples));
+        final double[][] standardizedValues = new double[numSamples][];
+        IntStream.range(0, numSamples).parallel().forEach(sampleIndex ->
+                standardizedValues[sampleIndex] = SVDDenoisingUtils.preprocessAndStandardizeSample(
+                        readCounts.get(sampleIndex).getCounts(), originalIntervalGCContent,
+                        subsetIntervalIndices, panelIntervalFractionalMedians));
+        final RealMatrix standardizedMatrix = new Array2DRowRealMatrix(standardizedValues, false);
+
+        final RealMatrix denoisedMatrix;
+        if (eigensampleTruncatedMatrix == null) {
+            denoisedMatrix = standardizedMatrix;
+        } else {
+            logger.info("Subtracting projection onto space spanned by eigensamples...");
+            denoisedMatrix = SVDDenoisingUtils.subtractProjection(
+                    standardizedMatrix, eigensampleTruncatedMatrix, eigensampleTruncatedMatrixTranspose);
+        }
+        logger.info(String.format("%d sample(s) denoised.", numSamples));
+
+        //construct the results
+        return IntStream.range(0, numSamples)
+                .mapToObj(sampleIndex -> new SVDDenoisedCopyRatioResult(
+                        readCounts.get(sampleIndex).getMetadata(),
+                        panelIntervals,
+                        standardizedMatrix.getRowMatrix(sampleIndex),
+                        denoisedMatrix.getRowMatrix(sampleIndex)))
+                .collect(Collectors.toList());
+    }
+}
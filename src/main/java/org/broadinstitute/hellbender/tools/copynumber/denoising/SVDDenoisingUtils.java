@@ -10,17 +10,14 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.broadinstitute.hellbender.exceptions.UserException;
 import org.broadinstitute.hellbender.tools.copynumber.CreateReadCountPanelOfNormals;
-import org.broadinstitute.hellbender.tools.copynumber.arguments.CopyNumberArgumentValidationUtils;
 import org.broadinstitute.hellbender.tools.copynumber.formats.collections.SimpleCountCollection;
 import org.broadinstitute.hellbender.utils.MathUtils;
 import org.broadinstitute.hellbender.utils.MatrixSummaryUtils;
-import org.broadinstitute.hellbender.utils.SimpleInterval;
 import org.broadinstitute.hellbender.utils.Utils;
 import org.broadinstitute.hellbender.utils.param.ParamUtils;
 
 import java.util.Arrays;
-import java.util.HashSet;
-import java.util.Set;
+import java.util.Collections;
 import java.util.stream.IntStream;
 
 /**
@@ -103,45 +100,14 @@ public final class SVDDenoisingUtils {
     /**
      * Perform SVD-based denoising of integer read counts for a single sample using a panel of normals.
      * Only the eigensamples (which are sorted by singular value in decreasing order) specified by
-     * {@code numEigensamples} are used to denoise.
+     * {@code numEigensamples} are used to denoise.  To denoise many samples with the same panel,
+     * use a single {@link SVDBatchDenoiser} instead.
      */
     static SVDDenoisedCopyRatioResult denoise(final SVDReadCountPanelOfNormals panelOfNormals,
                                               final SimpleCountCollection readCounts,
                                               final int numEigensamples) {
-        Utils.nonNull(panelOfNormals);
-        if (!CopyNumberArgumentValidationUtils.isSameDictionary(panelOfNormals.getSequenceDictionary(), readCounts.getMetadata().getSequenceDictionary())) {
-            logger.warn("Sequence dictionaries in panel and case sample do not match.");
-        }
-        ParamUtils.isPositiveOrZero(numEigensamples, "Number of eigensamples to use for denoising must be non-negative.");
-        Utils.validateArg(numEigensamples <= panelOfNormals.getNumEigensamples(),
-                "Number of eigensamples to use for denoising is greater than the number available in the panel of normals.");
-
-        logger.info("Validating sample intervals against original intervals used to build panel of normals...");
-        Utils.validateArg(panelOfNormals.getOriginalIntervals().equals(readCounts.getIntervals()),
-                "Sample intervals must be identical to the original intervals used to build the panel of normals.");
-
-        logger.info("Preprocessing and standardizing sample read counts...");
-        final RealMatrix standardizedCopyRatioValues = preprocessAndStandardizeSample(panelOfNormals, readCounts.getCounts());
-
-        final RealMatrix denoisedCopyRatioValues;
-        if (numEigensamples == 0 || panelOfNormals.getNumEigensamples() == 0) {
-            logger.warn("A zero number of eigensamples was specified or no eigensamples were available to perform denoising; " +
-                    "denoised copy ratios will be identical to the standardized copy ratios...");
-            denoisedCopyRatioValues = standardizedCopyRatioValues;
-        } else {
-            logger.info(String.format("Using %d out of %d eigensamples to denoise...", numEigensamples, panelOfNormals.getNumEigensamples()));
-            logger.info("Subtracting projection onto space spanned by eigensamples...");
-            denoisedCopyRatioValues = subtractProjection(standardizedCopyRatioValues, panelOfNormals.getEigensampleVectors(), numEigensamples);
-        }
-
-        logger.info("Sample denoised.");
-
-        //construct the result
-        return new SVDDenoisedCopyRatioResult(
-                readCounts.getMetadata(),
-                panelOfNormals.getPanelIntervals(),
-                standardizedCopyRatioValues,
-                denoisedCopyRatioValues);
+        Utils.nonNull(readCounts);
+        return new SVDBatchDenoiser(panelOfNormals, numEigensamples).denoise(Collections.singletonList(readCounts)).get(0);
     }
 
     /**
@@ -370,39 +336,29 @@ public final class SVDDenoisingUtils {
 
     /**
      * Preprocess (i.e., transform to fractional coverage, correct GC bias, subset, divide by fractional medians)
-     * and standardize read counts for samples, using interval fractional medians from a panel of normals.
-     * The original {@code readCounts} has dimensions 1 x intervals and is not modified.
+     * and standardize read counts for a sample, using quantities from a panel of normals.
+     * The original {@code readCounts} has length {@code M_original} and is not modified;
+     * the returned array has length {@code M}.  This method may be called for many samples concurrently.
      */
-    private static RealMatrix preprocessAndStandardizeSample(final SVDReadCountPanelOfNormals panelOfNormals,
-                                                             final double[] readCounts) {
+    static double[] preprocessAndStandardizeSample(final double[] readCounts,
+                                                   final double[] originalIntervalGCContent,
+                                                   final int[] subsetIntervalIndices,
+                                                   final double[] panelIntervalFractionalMedians) {
         RealMatrix result = new Array2DRowRealMatrix(new double[][]{readCounts});
 
         //preprocess (transform to fractional coverage, correct GC bias, subset, divide by fractional medians) copy in place
-        logger.info("Preprocessing read counts...");
         transformToFractionalCoverage(result);
-        performOptionalGCBiasCorrection(result, panelOfNormals.getOriginalIntervalGCContent());
-
-        logger.info("Subsetting sample intervals to post-filter panel intervals...");
-        final Set<SimpleInterval> panelIntervals = new HashSet<>(panelOfNormals.getPanelIntervals());
-        final int[] subsetIntervalIndices = IntStream.range(0, panelOfNormals.getOriginalIntervals().size())
-                .filter(i -> panelIntervals.contains(panelOfNormals.getOriginalIntervals().get(i)))
-                .toArray();
+        performOptionalGCBiasCorrection(result, originalIntervalGCContent);
         result = result.getSubMatrix(new int[]{0}, subsetIntervalIndices);
-
-        logger.info("Dividing by interval medians from the panel of normals...");
-        final double[] intervalMedians = panelOfNormals.getPanelIntervalFractionalMedians();
         result.walkInOptimizedOrder(new DefaultRealMatrixChangingVisitor() {
             @Override
             public double visit(int sampleIndex, int intervalIndex, double value) {
-                return value / intervalMedians[intervalIndex];
+                return value / panelIntervalFractionalMedians[intervalIndex];
             }
         });
-        logger.info("Sample read counts preprocessed.");
 
         //standardize copy in place
-        logger.info("Standardizing read counts...");
         divideBySampleMedianAndTransformToLog2(result);
-        logger.info("Subtracting sample median...");
         final double[] sampleLog2Medians = MatrixSummaryUtils.getRowMedians(result);
         result.walkInOptimizedOrder(new DefaultRealMatrixChangingVisitor() {
             @Override
@@ -410,44 +366,25 @@ public final class SVDDenoisingUtils {
                 return value - sampleLog2Medians[sampleIndex];
             }
         });
-        logger.info("Sample read counts standardized.");
 
-        return result;
+        return result.getRow(0);
     }
 
     /**
-     * Given standardized read counts specified by a row vector S (dimensions {@code 1 x M})
-     * and all eigensample vectors U (dimensions {@code M x K}),
-     * returns s - s U<sub>k</sub> U<sub>k</sub><sup>T</sup>,
-     * where U<sub>k</sub> contains the first {@code numEigensamples}.
+     * Given standardized read counts specified by a matrix S (dimensions {@code N x M}, with one row per sample),
+     * the truncated eigensample matrix U<sub>k</sub> (dimensions {@code M x k}), and its transpose,
+     * returns S - S U<sub>k</sub> U<sub>k</sub><sup>T</sup>.
      */
-    private static RealMatrix subtractProjection(final RealMatrix standardizedValues,
-                                                 final double[][] eigensampleVectors,
-                                                 final int numEigensamples) {
-        if (numEigensamples == 0) {
-            return standardizedValues.copy();
-        }
-
-        final int numIntervals = eigensampleVectors.length;
-        final int numAllEigensamples = eigensampleVectors[0].length;
-
-        logger.info("Distributing the standardized read counts...");
-
-        logger.info("Composing eigensample matrix for the requested number of eigensamples and transposing them...");
-        final RealMatrix eigensampleTruncatedMatrix = numEigensamples == numAllEigensamples
-                ? new Array2DRowRealMatrix(eigensampleVectors, false)
-                : new Array2DRowRealMatrix(eigensampleVectors, false).getSubMatrix(0, numIntervals - 1, 0, numEigensamples - 1);
-
-        logger.info("Computing projection...");
+    static RealMatrix subtractProjection(final RealMatrix standardizedValues,
+                                         final RealMatrix eigensampleTruncatedMatrix,
+                                         final RealMatrix eigensampleTruncatedMatrixTranspose) {
         final RealMatrix projection = standardizedValues
                 .multiply(eigensampleTruncatedMatrix)
-                .multiply(eigensampleTruncatedMatrix.transpose());
-
-        logger.info("Subtracting projection...");
+                .multiply(eigensampleTruncatedMatrixTranspose);
         return standardizedValues.subtract(projection);
     }
 
-    private static int countNumberPassingFilter(final boolean[] filter) {
+    static int countNumberPassingFilter(final boolean[] filter) {
         final int numPassingFilter = (int) IntStream.range(0, filter.length).filter(i -> !filter[i]).count();
         if (numPassingFilter == 0) {
             throw new UserException.BadInput("Filtering removed all samples or intervals.  Select less strict filtering criteria.");
@@ -490,12 +427,12 @@ public final class SVDDenoisingUtils {
         });
     }
 
-    private static int calculateMaximumZerosCount(final int numTotalCounts,
+    static int calculateMaximumZerosCount(final int numTotalCounts,
                                                   final double percentage) {
         return (int) Math.ceil(numTotalCounts * percentage / 100.0);
     }
 
-    private static double safeLog2(final double x) {
+    static double safeLog2(final double x) {
         return x < EPSILON ? LN2_EPSILON : Math.log(x) * INV_LN2;
     }
 }
\ No newline at end of file
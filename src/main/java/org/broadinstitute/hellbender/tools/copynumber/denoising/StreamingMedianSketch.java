@@ -0,0 +1,115 @@
+package org.broadinstitute.hellbender.tools.copynumber.denoising;
+
+import org.apache.commons.math3.stat.descriptive.rank.Median;
+import org.broadinstitute.hellbender.utils.param.ParamUtils;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Estimates the medians of a fixed number of independent streams of values (e.g., one stream of values across samples
+ * per genomic interval) using the P-square algorithm of Jain and Chlamtac (Communications of the ACM, 1985).
+ * Only five markers are kept per stream, and the markers for all streams are held in primitive arrays, so that the
+ * memory required is independent of the number of values added.  The median of each stream is exact (and identical
+ * to that given by {@link Median}) while five or fewer values have been added to it.
+ */
+final class StreamingMedianSketch {
+    private static final int NUM_MARKERS = 5;
+    private static final int MIDDLE_MARKER_INDEX = 2;
+    //fractions of (count - 1) giving the desired (zero-based) positions of the markers for the median
+    private static final double[] DESIRED_POSITION_FRACTIONS = {0., 0.25, 0.5, 0.75, 1.};
+
+    private final int numStreams;
+    private final double[] heights;     //marker heights for stream i are at indices [NUM_MARKERS * i, NUM_MARKERS * (i + 1))
+    private final int[] positions;      //zero-based marker positions, indexed as above
+    private final int[] counts;
+
+    StreamingMedianSketch(final int numStreams) {
+        ParamUtils.isPositive(numStreams, "Number of streams must be positive.");
+        this.numStreams = numStreams;
+        heights = new double[NUM_MARKERS * numStreams];
+        positions = new int[NUM_MARKERS * numStreams];
+        counts = new int[numStreams];
+    }
+
+    void add(final int streamIndex,
+             final double value) {
+        final int offset = NUM_MARKERS * streamIndex;
+        final int count = counts[streamIndex];
+        if (count < NUM_MARKERS) {
+            //store the first values directly and sort them once the markers are filled
+            heights[offset + count] = value;
+            counts[streamIndex]++;
+            if (counts[streamIndex] == NUM_MARKERS) {
+                Arrays.sort(heights, offset, offset + NUM_MARKERS);
+                for (int i = 0; i < NUM_MARKERS; i++) {
+                    positions[offset + i] = i;
+                }
+            }
+            return;
+        }
+
+        //find the cell containing the value, adjusting the extreme markers if necessary
+        final int cellIndex;
+        if (value < heights[offset]) {
+            heights[offset] = value;
+            cellIndex = 0;
+        } else if (value >= heights[offset + NUM_MARKERS - 1]) {
+            heights[offset + NUM_MARKERS - 1] = value;
+            cellIndex = NUM_MARKERS - 2;
+        } else {
+            int i = 1;
+            while (value >= heights[offset + i]) {
+                i++;
+            }
+            cellIndex = i - 1;
+        }
+        for (int i = cellIndex + 1; i < NUM_MARKERS; i++) {
+            positions[offset + i]++;
+        }
+        counts[streamIndex]++;
+
+        //adjust the heights of the interior markers if they are too far from their desired positions
+        final int lastPosition = counts[streamIndex] - 1;
+        for (int i = 1; i < NUM_MARKERS - 1; i++) {
+            final int j = offset + i;
+            final double delta = DESIRED_POSITION_FRACTIONS[i] * lastPosition - positions[j];
+            if ((delta >= 1. && positions[j + 1] - positions[j] > 1) || (delta <= -1. && positions[j - 1] - positions[j] < -1)) {
+                final int sign = delta > 0. ? 1 : -1;
+                final double parabolicHeight = calculateParabolicHeight(j, sign);
+                if (heights[j - 1] < parabolicHeight && parabolicHeight < heights[j + 1]) {
+                    heights[j] = parabolicHeight;
+                } else {
+                    heights[j] += sign * (heights[j + sign] - heights[j]) / (positions[j + sign] - positions[j]);
+                }
+                positions[j] += sign;
+            }
+        }
+    }
+
+    private double calculateParabolicHeight(final int j,
+                                            final int sign) {
+        final double positionPrevious = positions[j - 1];
+        final double position = positions[j];
+        final double positionNext = positions[j + 1];
+        return heights[j] + sign / (positionNext - positionPrevious) * (
+                (position - positionPrevious + sign) * (heights[j + 1] - heights[j]) / (positionNext - position) +
+                (positionNext - position - sign) * (heights[j] - heights[j - 1]) / (position - positionPrevious));
+    }
+
+    /**
+     * @return  estimate of the median of the values added to the stream, or {@link Double#NaN} if no values were added
+     */
+    double getMedian(final int streamIndex) {
+        final int offset = NUM_MARKERS * streamIndex;
+        final int count = counts[streamIndex];
+        if (count < NUM_MARKERS) {
+            return new Median().evaluate(Arrays.copyOfRange(heights, offset, offset + count));
+        }
+        return heights[offset + MIDDLE_MARKER_INDEX];
+    }
+
+    double[] getMedians() {
+        return IntStream.range(0, numStreams).mapToDouble(this::getMedian).toArray();
+    }
+}
@@ -0,0 +1,629 @@
+package org.broadinstitute.hellbender.tools.copynumber.denoising;
+
+import org.apache.commons.math3.linear.Array2DRowRealMatrix;
+import org.apache.commons.math3.linear.RealMatrix;
+import org.apache.commons.math3.linear.SingularValueDecomposition;
+import org.apache.commons.math3.stat.descriptive.rank.Median;
+import org.apache.commons.math3.stat.descriptive.rank.PSquarePercentile;
+import org.apache.commons.math3.stat.descriptive.rank.Percentile;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.broadinstitute.hellbender.exceptions.GATKException;
+import org.broadinstitute.hellbender.tools.copynumber.CreateReadCountPanelOfNormals;
+import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.io.IOUtils;
+import org.broadinstitute.hellbender.utils.param.ParamUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.function.ObjIntConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * Utility class for package-private methods for creating an SVD panel of normals without holding the full
+ * samples x intervals matrix of read counts in memory.  This is used by {@link CreateReadCountPanelOfNormals}
+ * when there are too many samples or intervals for the in-memory methods in {@link SVDDenoisingUtils}.
+ *
+ * <p>
+ *     Samples are added one at a time and their fractional coverages are stored in a temporary file, which is
+ *     then read sample by sample in a fixed number of passes to apply the same filtering, imputation, truncation, and
+ *     standardization steps as {@link SVDDenoisingUtils#preprocessAndStandardizePanel}.  Medians across samples are
+ *     estimated using {@link StreamingMedianSketch} and the outlier-truncation percentiles are estimated using
+ *     {@link PSquarePercentile}, so results are approximate for large panels.  Singular value decomposition
+ *     of the standardized panel is performed using a randomized algorithm (Halko, Martinsson, and Tropp, SIAM Review, 2011)
+ *     that also reads the standardized panel sample by sample.
+ * </p>
+ *
+ * <p>
+ *     Memory usage scales with the number of intervals times the number of eigensamples requested,
+ *     rather than with the number of intervals times the number of samples.
+ * </p>
+ */
+final class StreamingSVDDenoisingUtils {
+    private static final Logger logger = LogManager.getLogger(StreamingSVDDenoisingUtils.class);
+
+    private static final double EPSILON = 1E-9;
+    private static final int NUM_OVERSAMPLES = 10;
+    private static final int NUM_POWER_ITERATIONS = 2;
+    private static final int RANDOM_SEED = 1;
+
+    private StreamingSVDDenoisingUtils() {}
+
+    /**
+     * Accumulates the read counts for the samples in a panel of normals, one sample at a time.
+     * Fractional coverages (optionally corrected for GC bias) are stored in a temporary file
+     * and interval medians across samples are estimated on the fly.
+     */
+    static final class StreamingPanel implements AutoCloseable {
+        private final int numOriginalIntervals;
+        private final double[] intervalGCContent;
+        private final DoubleRowFile fractionalCoverages;
+        private final StreamingMedianSketch intervalMedianSketch;
+
+        /**
+         * @param intervalGCContent if null, GC-bias correction will not be performed
+         */
+        StreamingPanel(final int numOriginalIntervals,
+                       final double[] intervalGCContent) {
+            ParamUtils.isPositive(numOriginalIntervals, "Number of intervals must be positive.");
+            Utils.validateArg(intervalGCContent == null || intervalGCContent.length == numOriginalIntervals,
+                    "Number of intervals for read counts must match those for GC-content annotations.");
+            this.numOriginalIntervals = numOriginalIntervals;
+            this.intervalGCContent = intervalGCContent;
+            fractionalCoverages = new DoubleRowFile(numOriginalIntervals);
+            intervalMedianSketch = new StreamingMedianSketch(numOriginalIntervals);
+        }
+
+        int getNumSamples() {
+            return fractionalCoverages.getNumRows();
+        }
+
+        /**
+         * Transforms the read counts for a sample to fractional coverage, corrects GC bias (if GC content was provided),
+         * and stores the result.  {@code readCounts} is not modified.
+         */
+        void addSample(final double[] readCounts) {
+            Utils.nonNull(readCounts);
+            Utils.validateArg(readCounts.length == numOriginalIntervals,
+                    String.format("Number of read counts must match the number of intervals (%d).", numOriginalIntervals));
+            final double sampleSum = Arrays.stream(readCounts).sum();
+            final double[] fractionalCoverage = Arrays.stream(readCounts).map(c -> c / sampleSum).toArray();
+            if (intervalGCContent != null) {
+                GCBiasCorrector.correctGCBias(new Array2DRowRealMatrix(new double[][]{fractionalCoverage}, false), intervalGCContent);
+            }
+            for (int intervalIndex = 0; intervalIndex < numOriginalIntervals; intervalIndex++) {
+                intervalMedianSketch.add(intervalIndex, fractionalCoverage[intervalIndex]);
+            }
+            fractionalCoverages.addRow(fractionalCoverage);
+        }
+
+        /**
+         * Preprocess (i.e., filter, impute, and truncate) and standardize the fractional coverages of all samples added.
+         * The steps and their order are identical to those in {@link SVDDenoisingUtils#preprocessAndStandardizePanel};
+         * each step that requires a statistic across samples is performed in a separate pass over the stored samples.
+         */
+        StreamingPreprocessedStandardizedResult preprocessAndStandardize(final double minimumIntervalMedianPercentile,
+                                                                         final double maximumZerosInSamplePercentage,
+                                                                         final double maximumZerosInIntervalPercentage,
+                                                                         final double extremeSampleMedianPercentile,
+                                                                         final boolean doImputeZeros,
+                                                                         final double extremeOutlierTruncationPercentile) {
+            final int numOriginalSamples = getNumSamples();
+            Utils.validateArg(numOriginalSamples > 0, "At least one sample must be added to the panel.");
+
+            final boolean[] filterSamples = new boolean[numOriginalSamples];
+            final boolean[] filterIntervals = new boolean[numOriginalIntervals];
+
+            //filter intervals by fractional median
+            final double[] originalIntervalMedians = intervalMedianSketch.getMedians();
+            if (minimumIntervalMedianPercentile == 0.) {
+                logger.info(String.format("A value of 0 was provided for argument %s, so the corresponding filtering step will be skipped...",
+                        CreateReadCountPanelOfNormals.MINIMUM_INTERVAL_MEDIAN_PERCENTILE_LONG_NAME));
+            } else {
+                logger.info(String.format("Filtering intervals with median (across samples) less than or equal to the %.2f percentile...", minimumIntervalMedianPercentile));
+                final double minimumIntervalMedianThreshold = new Percentile(minimumIntervalMedianPercentile).evaluate(originalIntervalMedians);
+                IntStream.range(0, numOriginalIntervals)
+                        .filter(intervalIndex -> originalIntervalMedians[intervalIndex] <= minimumIntervalMedianThreshold)
+                        .forEach(intervalIndex -> filterIntervals[intervalIndex] = true);
+                logger.info(String.format("After filtering, %d out of %d intervals remain...", SVDDenoisingUtils.countNumberPassingFilter(filterIntervals), numOriginalIntervals));
+            }
+
+            //filter samples by percentage of zero-coverage intervals not already filtered
+            //and count zero-coverage samples in each interval in the same pass
+            final boolean doFilterZerosInSample = maximumZerosInSamplePercentage != 100.;
+            if (!doFilterZerosInSample) {
+                logger.info(String.format("A value of 100 was provided for argument %s, so the corresponding filtering step will be skipped...",
+                        CreateReadCountPanelOfNormals.MAXIMUM_ZEROS_IN_SAMPLE_PERCENTAGE_LONG_NAME));
+            } else {
+                logger.info(String.format("Filtering samples with a fraction of zero-coverage intervals above %.2f percent...", maximumZerosInSamplePercentage));
+            }
+            final int maxZerosInSample = SVDDenoisingUtils.calculateMaximumZerosCount(
+                    SVDDenoisingUtils.countNumberPassingFilter(filterIntervals), maximumZerosInSamplePercentage);
+            final int[] numZerosInIntervals = new int[numOriginalIntervals];
+            fractionalCoverages.forEachRow((values, sampleIndex) -> {
+                divideByIntervalMedians(values, originalIntervalMedians, filterIntervals);
+                if (doFilterZerosInSample) {
+                    final int numZerosInSample = (int) IntStream.range(0, numOriginalIntervals)
+                            .filter(intervalIndex -> !filterIntervals[intervalIndex] && values[intervalIndex] == 0.)
+                            .count();
+                    if (numZerosInSample > maxZerosInSample) {
+                        filterSamples[sampleIndex] = true;
+                        return;
+                    }
+                }
+                IntStream.range(0, numOriginalIntervals)
+                        .filter(intervalIndex -> !filterIntervals[intervalIndex] && values[intervalIndex] == 0.)
+                        .forEach(intervalIndex -> numZerosInIntervals[intervalIndex]++);
+            });
+            if (doFilterZerosInSample) {
+                logger.info(String.format("After filtering, %d out of %d samples remain...", SVDDenoisingUtils.countNumberPassingFilter(filterSamples), numOriginalSamples));
+            }
+
+            //filter intervals by percentage of zero-coverage samples not already filtered
+            if (maximumZerosInIntervalPercentage == 100.) {
+                logger.info(String.format("A value of 100 was provided for argument %s, so the corresponding filtering step will be skipped...",
+                        CreateReadCountPanelOfNormals.MAXIMUM_ZEROS_IN_INTERVAL_PERCENTAGE_LONG_NAME));
+            } else {
+                logger.info(String.format("Filtering intervals with a fraction of zero-coverage samples above %.2f percent...", maximumZerosInIntervalPercentage));
+                final int maxZerosInInterval = SVDDenoisingUtils.calculateMaximumZerosCount(
+                        SVDDenoisingUtils.countNumberPassingFilter(filterSamples), maximumZerosInIntervalPercentage);
+                IntStream.range(0, numOriginalIntervals)
+                        .filter(intervalIndex -> !filterIntervals[intervalIndex] && numZerosInIntervals[intervalIndex] > maxZerosInInterval)
+                        .forEach(intervalIndex -> filterIntervals[intervalIndex] = true);
+                logger.info(String.format("After filtering, %d out of %d intervals remain...", SVDDenoisingUtils.countNumberPassingFilter(filterIntervals), numOriginalIntervals));
+            }
+
+            //filter samples with extreme medians
+            if (extremeSampleMedianPercentile == 0.) {
+                logger.info(String.format("A value of 0 was provided for argument %s, so the corresponding filtering step will be skipped...",
+                        CreateReadCountPanelOfNormals.EXTREME_SAMPLE_MEDIAN_PERCENTILE_LONG_NAME));
+            } else {
+                logger.info(String.format("Filtering samples with a median (across intervals) below the %.2f percentile or above the %.2f percentile...",
+                        extremeSampleMedianPercentile, 100. - extremeSampleMedianPercentile));
+                //calculate the medians for all samples across intervals not already filtered
+                final double[] sampleMedians = new double[numOriginalSamples];
+                fractionalCoverages.forEachRow((values, sampleIndex) -> {
+                    divideByIntervalMedians(values, originalIntervalMedians, filterIntervals);
+                    sampleMedians[sampleIndex] = new Median().evaluate(IntStream.range(0, numOriginalIntervals)
+                            .filter(intervalIndex -> !filterIntervals[intervalIndex])
+                            .mapToDouble(intervalIndex -> values[intervalIndex])
+                            .toArray());
+                });
+                final double minimumSampleMedianThreshold = new Percentile(extremeSampleMedianPercentile).evaluate(sampleMedians);
+                final double maximumSampleMedianThreshold = new Percentile(100. - extremeSampleMedianPercentile).evaluate(sampleMedians);
+                IntStream.range(0, numOriginalSamples)
+                        .filter(sampleIndex -> sampleMedians[sampleIndex] < minimumSampleMedianThreshold || sampleMedians[sampleIndex] > maximumSampleMedianThreshold)
+                        .forEach(sampleIndex -> filterSamples[sampleIndex] = true);
+                logger.info(String.format("After filtering, %d out of %d samples remain...", SVDDenoisingUtils.countNumberPassingFilter(filterSamples), numOriginalSamples));
+            }
+
+            final int[] panelIntervalIndices = IntStream.range(0, numOriginalIntervals).filter(intervalIndex -> !filterIntervals[intervalIndex]).toArray();
+            final int numPanelIntervals = panelIntervalIndices.length;
+            final double[] panelIntervalFractionalMedians = Arrays.stream(panelIntervalIndices)
+                    .mapToDouble(intervalIndex -> originalIntervalMedians[intervalIndex]).toArray();
+            final double[] panelValues = new double[numPanelIntervals];
+
+            //impute zeros as median of non-zero values in interval
+            final double[] intervalNonZeroMedians;
+            if (!doImputeZeros) {
+                logger.info("Skipping imputation of zero-coverage values...");
+                intervalNonZeroMedians = null;
+            } else {
+                final StreamingMedianSketch intervalNonZeroMedianSketch = new StreamingMedianSketch(numPanelIntervals);
+                fractionalCoverages.forEachRow((values, sampleIndex) -> {
+                    if (!filterSamples[sampleIndex]) {
+                        subsetPanelValues(values, originalIntervalMedians, panelIntervalIndices, panelValues);
+                        for (int panelIntervalIndex = 0; panelIntervalIndex < numPanelIntervals; panelIntervalIndex++) {
+                            if (panelValues[panelIntervalIndex] > 0.) {
+                                intervalNonZeroMedianSketch.add(panelIntervalIndex, panelValues[panelIntervalIndex]);
+                            }
+                        }
+                    }
+                });
+                intervalNonZeroMedians = intervalNonZeroMedianSketch.getMedians();
+            }
+
+            //determine thresholds for truncating extreme values to the corresponding percentile
+            final boolean doTruncateOutliers = extremeOutlierTruncationPercentile != 0.;
+            final double minimumOutlierTruncationThreshold;
+            final double maximumOutlierTruncationThreshold;
+            if (!doTruncateOutliers) {
+                logger.info(String.format("A value of 0 was provided for argument %s, so the corresponding truncation step will be skipped...",
+                        CreateReadCountPanelOfNormals.EXTREME_OUTLIER_TRUNCATION_PERCENTILE_LONG_NAME));
+                minimumOutlierTruncationThreshold = Double.NEGATIVE_INFINITY;
+                maximumOutlierTruncationThreshold = Double.POSITIVE_INFINITY;
+            } else {
+                final PSquarePercentile minimumOutlierTruncationPercentile = new PSquarePercentile(extremeOutlierTruncationPercentile);
+                final PSquarePercentile maximumOutlierTruncationPercentile = new PSquarePercentile(100. - extremeOutlierTruncationPercentile);
+                fractionalCoverages.forEachRow((values, sampleIndex) -> {
+                    if (!filterSamples[sampleIndex]) {
+                        subsetPanelValues(values, originalIntervalMedians, panelIntervalIndices, panelValues);
+                        imputeZeros(panelValues, intervalNonZeroMedians);
+                        for (final double value : panelValues) {
+                            minimumOutlierTruncationPercentile.increment(value);
+                            maximumOutlierTruncationPercentile.increment(value);
+                        }
+                    }
+                });
+                minimumOutlierTruncationThreshold = minimumOutlierTruncationPercentile.getResult();
+                maximumOutlierTruncationThreshold = maximumOutlierTruncationPercentile.getResult();
+            }
+
+            //impute, truncate, and standardize each panel sample, storing the results in a new file
+            logger.info("Standardizing read counts...");
+            final int numPanelSamples = SVDDenoisingUtils.countNumberPassingFilter(filterSamples);
+            final double[] sampleLog2Medians = new double[numPanelSamples];
+            final int[] numImputedAndTruncated = {0, 0};  //needs to be effectively final to be used inside lambda
+            final DoubleRowFile preprocessedStandardizedValues = new DoubleRowFile(numPanelIntervals);
+            try {
+                fractionalCoverages.forEachRow((values, sampleIndex) -> {
+                    if (!filterSamples[sampleIndex]) {
+                        subsetPanelValues(values, originalIntervalMedians, panelIntervalIndices, panelValues);
+                        numImputedAndTruncated[0] += imputeZeros(panelValues, intervalNonZeroMedians);
+                        for (int panelIntervalIndex = 0; panelIntervalIndex < numPanelIntervals; panelIntervalIndex++) {
+                            final double value = panelValues[panelIntervalIndex];
+                            if (value < minimumOutlierTruncationThreshold) {
+                                numImputedAndTruncated[1]++;
+                                panelValues[panelIntervalIndex] = minimumOutlierTruncationThreshold;
+                            } else if (value > maximumOutlierTruncationThreshold) {
+                                numImputedAndTruncated[1]++;
+                                panelValues[panelIntervalIndex] = maximumOutlierTruncationThreshold;
+                            }
+                        }
+                        final int panelSampleIndex = preprocessedStandardizedValues.getNumRows();
+                        final double sampleMedian = new Median().evaluate(panelValues);
+                        ParamUtils.isPositive(sampleMedian,
+                                String.format("Sample at index %s does not have a non-negative sample median.", panelSampleIndex));
+                        for (int panelIntervalIndex = 0; panelIntervalIndex < numPanelIntervals; panelIntervalIndex++) {
+                            panelValues[panelIntervalIndex] = SVDDenoisingUtils.safeLog2(panelValues[panelIntervalIndex] / sampleMedian);
+                        }
+                        sampleLog2Medians[panelSampleIndex] = new Median().evaluate(panelValues);
+                        preprocessedStandardizedValues.addRow(panelValues);
+                    }
+                });
+            } catch (final RuntimeException exception) {
+                preprocessedStandardizedValues.close();
+                throw exception;
+            }
+            if (doImputeZeros) {
+                logger.info(String.format("%d zero-coverage values were imputed to the median of the non-zero values in the corresponding interval...",
+                        numImputedAndTruncated[0]));
+            }
+            if (doTruncateOutliers) {
+                logger.info(String.format("%d values below the %.2f percentile or above the %.2f percentile were truncated to the corresponding value...",
+                        numImputedAndTruncated[1], extremeOutlierTruncationPercentile, 100. - extremeOutlierTruncationPercentile));
+            }
+
+            //the median of sample medians is subtracted when the standardized values are read
+            logger.info("Subtracting median of sample medians...");
+            final double medianOfSampleMedians = new Median().evaluate(sampleLog2Medians);
+            logger.info("Panel read counts standardized.");
+
+            return new StreamingPreprocessedStandardizedResult(
+                    preprocessedStandardizedValues, medianOfSampleMedians, panelIntervalFractionalMedians, filterSamples, filterIntervals);
+        }
+
+        @Override
+        public void close() {
+            fractionalCoverages.close();
+        }
+    }
+
+    /**
+     * Analogous to {@link SVDDenoisingUtils.PreprocessedStandardizedResult}, but with the preprocessed and
+     * standardized values held in a temporary file, which is deleted when this result is closed.
+     */
+    static final class StreamingPreprocessedStandardizedResult implements AutoCloseable {
+        private final DoubleRowFile preprocessedStandardizedValues;
+        private final double medianOfSampleMedians;
+        final double[] panelIntervalFractionalMedians;
+        final boolean[] filterSamples;
+        final boolean[] filterIntervals;
+
+        private StreamingPreprocessedStandardizedResult(final DoubleRowFile preprocessedStandardizedValues,
+                                                        final double medianOfSampleMedians,
+                                                        final double[] panelIntervalFractionalMedians,
+                                                        final boolean[] filterSamples,
+                                                        final boolean[] filterIntervals) {
+            this.preprocessedStandardizedValues = preprocessedStandardizedValues;
+            this.medianOfSampleMedians = medianOfSampleMedians;
+            this.panelIntervalFractionalMedians = panelIntervalFractionalMedians;
+            this.filterSamples = filterSamples;
+            this.filterIntervals = filterIntervals;
+        }
+
+        int getNumPanelSamples() {
+            return preprocessedStandardizedValues.getNumRows();
+        }
+
+        int getNumPanelIntervals() {
+            return preprocessedStandardizedValues.getNumColumns();
+        }
+
+        /**
+         * Passes the standardized values for each panel sample (and the index of the sample) to {@code action}.
+         * The array passed is reused for all samples.
+         */
+        void forEachPanelSample(final ObjIntConsumer<double[]> action) {
+            preprocessedStandardizedValues.forEachRow((values, panelSampleIndex) -> {
+                for (int panelIntervalIndex = 0; panelIntervalIndex < values.length; panelIntervalIndex++) {
+                    values[panelIntervalIndex] -= medianOfSampleMedians;
+                }
+                action.accept(values, panelSampleIndex);
+            });
+        }
+
+        @Override
+        public void close() {
+            preprocessedStandardizedValues.close();
+        }
+    }
+
+    static final class RandomizedSVDResult {
+        final double[] singularValues;
+        final double[][] transposedEigensampleVectors;   //eigensamples x intervals
+
+        private RandomizedSVDResult(final double[] singularValues,
+                                    final double[][] transposedEigensampleVectors) {
+            this.singularValues = singularValues;
+            this.transposedEigensampleVectors = transposedEigensampleVectors;
+        }
+    }
+
+    /**
+     * Performs a truncated SVD of the standardized panel (transposed to intervals x samples) using a randomized
+     * range finder with power iterations, reading the panel once per iteration.  If the number of panel samples
+     * does not exceed the number of eigensamples plus a fixed oversampling, the range of the panel is found exactly
+     * and the result is identical (up to numerical precision and signs) to a deterministic truncated SVD.
+     * As with the Spark implementation of SVD, singular values less than a small multiple of the largest singular value
+     * (and the corresponding eigensample vectors) are discarded.
+     */
+    static RandomizedSVDResult calculateRandomizedSVD(final StreamingPreprocessedStandardizedResult panel,
+                                                      final int numEigensamples) {
+        Utils.nonNull(panel);
+        ParamUtils.isPositive(numEigensamples, "Number of eigensamples must be positive.");
+        final int numPanelSamples = panel.getNumPanelSamples();
+        final int numPanelIntervals = panel.getNumPanelIntervals();
+        final int numBasisVectors = Math.min(numEigensamples + NUM_OVERSAMPLES, numPanelSamples);
+
+        //sample the range of the transposed panel (intervals x samples) by multiplying with a random Gaussian matrix
+        logger.info(String.format("Sampling range of standardized panel using %d random vectors...", numBasisVectors));
+        final Random rng = new Random(RANDOM_SEED);
+        final double[][] randomMatrix = new double[numPanelSamples][numBasisVectors];
+        for (final double[] row : randomMatrix) {
+            for (int j = 0; j < numBasisVectors; j++) {
+                row[j] = rng.nextGaussian();
+            }
+        }
+        double[][] basis = new double[numBasisVectors][numPanelIntervals];  //basis vectors are stored as rows
+        final double[][] initialBasis = basis;
+        panel.forEachPanelSample((values, panelSampleIndex) -> {
+            for (int j = 0; j < numBasisVectors; j++) {
+                addScaled(initialBasis[j], randomMatrix[panelSampleIndex][j], values);
+            }
+        });
+
+        //refine the basis using power iterations, each of which multiplies by the panel and its transpose in a single pass
+        for (int iteration = 0; iteration < NUM_POWER_ITERATIONS; iteration++) {
+            logger.info(String.format("Performing power iteration %d / %d...", iteration + 1, NUM_POWER_ITERATIONS));
+            orthonormalizeRows(basis);
+            final double[][] previousBasis = basis;
+            final double[][] nextBasis = new double[numBasisVectors][numPanelIntervals];
+            panel.forEachPanelSample((values, panelSampleIndex) -> {
+                for (int j = 0; j < numBasisVectors; j++) {
+                    addScaled(nextBasis[j], dot(previousBasis[j], values), values);
+                }
+            });
+            basis = nextBasis;
+        }
+        orthonormalizeRows(basis);
+
+        //project the panel onto the basis and perform SVD of the resulting small matrix (basis vectors x samples)
+        logger.info("Projecting standardized panel onto basis...");
+        final double[][] finalBasis = basis;
+        final double[][] projectedPanel = new double[numBasisVectors][numPanelSamples];
+        panel.forEachPanelSample((values, panelSampleIndex) -> {
+            for (int j = 0; j < numBasisVectors; j++) {
+                projectedPanel[j][panelSampleIndex] = dot(finalBasis[j], values);
+            }
+        });
+        final SingularValueDecomposition svd = new SingularValueDecomposition(new Array2DRowRealMatrix(projectedPanel, false));
+        final double[] allSingularValues = svd.getSingularValues();     //in decreasing order
+        final int numNonZeroSingularValues = (int) Math.min(numEigensamples,
+                Arrays.stream(allSingularValues).filter(s -> s > EPSILON * allSingularValues[0]).count());
+        final double[] singularValues = Arrays.copyOf(allSingularValues, numNonZeroSingularValues);
+
+        //rotate the basis to obtain the eigensample vectors
+        final RealMatrix projectedU = svd.getU();
+        final double[][] transposedEigensampleVectors = new double[numNonZeroSingularValues][numPanelIntervals];
+        for (int eigensampleIndex = 0; eigensampleIndex < numNonZeroSingularValues; eigensampleIndex++) {
+            for (int j = 0; j < numBasisVectors; j++) {
+                addScaled(transposedEigensampleVectors[eigensampleIndex], projectedU.getEntry(j, eigensampleIndex), basis[j]);
+            }
+        }
+        return new RandomizedSVDResult(singularValues, transposedEigensampleVectors);
+    }
+
+    private static void divideByIntervalMedians(final double[] values,
+                                                final double[] intervalMedians,
+                                                final boolean[] filterIntervals) {
+        for (int intervalIndex = 0; intervalIndex < values.length; intervalIndex++) {
+            if (!filterIntervals[intervalIndex]) {
+                values[intervalIndex] /= intervalMedians[intervalIndex];
+            }
+        }
+    }
+
+    /**
+     * Divides the fractional coverages in panel intervals by the corresponding interval medians
+     * and stores the results in {@code panelValues}.
+     */
+    private static void subsetPanelValues(final double[] values,
+                                          final double[] intervalMedians,
+                                          final int[] panelIntervalIndices,
+                                          final double[] panelValues) {
+        for (int panelIntervalIndex = 0; panelIntervalIndex < panelIntervalIndices.length; panelIntervalIndex++) {
+            final int intervalIndex = panelIntervalIndices[panelIntervalIndex];
+            panelValues[panelIntervalIndex] = values[intervalIndex] / intervalMedians[intervalIndex];
+        }
+    }
+
+    /**
+     * @param intervalNonZeroMedians    if null, no values are imputed
+     * @return number of values imputed
+     */
+    private static int imputeZeros(final double[] panelValues,
+                                   final double[] intervalNonZeroMedians) {
+        if (intervalNonZeroMedians == null) {
+            return 0;
+        }
+        int numImputed = 0;
+        for (int panelIntervalIndex = 0; panelIntervalIndex < panelValues.length; panelIntervalIndex++) {
+            if (panelValues[panelIntervalIndex] == 0.) {
+                numImputed++;
+                panelValues[panelIntervalIndex] = intervalNonZeroMedians[panelIntervalIndex];
+            }
+        }
+        return numImputed;
+    }
+
+    private static double dot(final double[] x,
+                              final double[] y) {
+        double result = 0.;
+        for (int i = 0; i < x.length; i++) {
+            result += x[i] * y[i];
+        }
+        return result;
+    }
+
+    /**
+     * Sets {@code y} to {@code y + a * x}.
+     */
+    private static void addScaled(final double[] y,
+                                  final double a,
+                                  final double[] x) {
+        for (int i = 0; i < y.length; i++) {
+            y[i] += a * x[i];
+        }
+    }
+
+    /**
+     * Orthonormalizes the rows of {@code matrix} in place using modified Gram-Schmidt with reorthogonalization.
+     * Rows that are numerically linearly dependent on previous rows are set to zero.
+     */
+    private static void orthonormalizeRows(final double[][] matrix) {
+        for (int i = 0; i < matrix.length; i++) {
+            final double[] row = matrix[i];
+            final double originalNorm = Math.sqrt(dot(row, row));
+            for (int pass = 0; pass < 2; pass++) {
+                for (int j = 0; j < i; j++) {
+                    addScaled(row, -dot(matrix[j], row), matrix[j]);
+                }
+            }
+            final double norm = Math.sqrt(dot(row, row));
+            if (norm <= EPSILON * originalNorm || norm == 0.) {
+                Arrays.fill(row, 0.);
+            } else {
+                for (int k = 0; k < row.length; k++) {
+                    row[k] /= norm;
+                }
+            }
+        }
+    }
+
+    /**
+     * Rows of doubles with a fixed number of columns stored in a temporary file, which is deleted when closed.
+     * Rows can only be appended and are read back sequentially.
+     */
+    private static final class DoubleRowFile implements AutoCloseable {
+        private final File file;
+        private final int numColumns;
+        private final RandomAccessFile randomAccessFile;
+        private final FileChannel channel;
+        private final ByteBuffer buffer;
+        private final double[] row;
+        private int numRows = 0;
+        private boolean isClosed = false;
+
+        DoubleRowFile(final int numColumns) {
+            this.numColumns = numColumns;
+            file = IOUtils.createTempFile("streaming-panel-of-normals", ".bin");
+            try {
+                randomAccessFile = new RandomAccessFile(file, "rw");
+            } catch (final IOException e) {
+                throw new GATKException(String.format("Could not create temporary file %s.", file), e);
+            }
+            channel = randomAccessFile.getChannel();
+            buffer = ByteBuffer.allocateDirect(numColumns * Double.BYTES);
+            row = new double[numColumns];
+        }
+
+        int getNumRows() {
+            return numRows;
+        }
+
+        int getNumColumns() {
+            return numColumns;
+        }
+
+        void addRow(final double[] values) {
+            buffer.clear();
+            buffer.asDoubleBuffer().put(values, 0, numColumns);
+            try {
+                channel.position((long) numRows * buffer.capacity());
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            } catch (final IOException e) {
+                throw new GATKException(String.format("Could not write to temporary file %s.", file), e);
+            }
+            numRows++;
+        }
+
+        /**
+         * Passes each row (and its index) to {@code action}.  The array passed is reused for all rows,
+         * but may be modified by {@code action} without affecting the stored rows.
+         */
+        void forEachRow(final ObjIntConsumer<double[]> action) {
+            final int numRowsToRead = numRows;
+            final ByteBuffer readBuffer = ByteBuffer.allocateDirect(buffer.capacity());
+            try {
+                for (int rowIndex = 0; rowIndex < numRowsToRead; rowIndex++) {
+                    readBuffer.clear();
+                    long position = (long) rowIndex * readBuffer.capacity();
+                    while (readBuffer.hasRemaining()) {
+                        final int numBytesRead = channel.read(readBuffer, position);
+                        if (numBytesRead < 0) {
+                            throw new GATKException(String.format("Unexpected end of temporary file %s.", file));
+                        }
+                        position += numBytesRead;
+                    }
+                    readBuffer.flip();
+                    readBuffer.asDoubleBuffer().get(row, 0, numColumns);
+                    action.accept(row, rowIndex);
+                }
+            } catch (final IOException e) {
+                throw new GATKException(String.format("Could not read from temporary file %s.", file), e);
+            }
+        }
+
+        @Override
+        public void close() {
+            if (isClosed) {
+                return;
+            }
+            isClosed = true;
+            try {
+                randomAccessFile.close();
+            } catch (final IOException e) {
+                logger.warn(String.format("Could not close temporary file %s.", file));
+            }
+            IOUtils.tryDelete(file);
+        }
+    }
+}
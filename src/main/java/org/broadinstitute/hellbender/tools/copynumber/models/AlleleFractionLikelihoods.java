@@ -43,8 +43,9 @@ import static org.broadinstitute.hellbender.utils.MathUtils.log10ToLog;
 final class AlleleFractionLikelihoods {
     private static final double EPSILON = 1E-10;
 
-    private static final FunctionCache<Double> logGammaCache = new FunctionCache<>(Gamma::logGamma);
-    private static final FunctionCache<Double> logCache = new FunctionCache<>(AlleleFractionLikelihoods::log);
+    //the terms that depend only on the parameters are kept from the previous call, since the samplers evaluate many sites
+    //in a row at the same parameter values; they are thread-local so that independent Markov chains may be run concurrently
+    private static final ThreadLocal<ParameterTerms> parameterTerms = ThreadLocal.withInitial(ParameterTerms::new);
 
     private AlleleFractionLikelihoods() {}
 
@@ -55,13 +56,14 @@ final class AlleleFractionLikelihoods {
         final double beta = parameters.getBeta();
         final double pi = parameters.getOutlierProbability();
 
-        //we cache some quantities that will be reused
-        final double logPi = logCache.computeIfAbsent(pi);
-        final double logNotPi = logCache.computeIfAbsent((1 - pi) / 2);
-        final double logcCommon = alpha * logCache.computeIfAbsent(beta) - logGammaCache.computeIfAbsent(alpha);
+        final ParameterTerms terms = parameterTerms.get();
+        terms.update(alpha, beta, pi, minorFraction);
+        final double logPi = terms.logPi;
+        final double logNotPi = terms.logNotPi;
+        final double logcCommon = terms.logcCommon;
         final double majorFraction = 1 - minorFraction;
-        final double logMinorFraction = logCache.computeIfAbsent(minorFraction);
-        final double logMajorFraction = logCache.computeIfAbsent(majorFraction);
+        final double logMinorFraction = terms.logMinorFraction;
+        final double logMajorFraction = terms.logMajorFraction;
 
         final int a = allelicCount.getAltReadCount();
         final int r = allelicCount.getRefReadCount();
@@ -165,4 +167,39 @@ final class AlleleFractionLikelihoods {
     private static double log(final double x) {
         return FastMath.log(Math.max(EPSILON, x));
     }
+
+    /**
+     * The terms of {@link #hetLogLikelihood} that depend only on the global parameters or only on the minor fraction,
+     * recomputed only when those change.
+     */
+    private static final class ParameterTerms {
+        private double alpha = Double.NaN;
+        private double beta = Double.NaN;
+        private double pi = Double.NaN;
+        private double minorFraction = Double.NaN;
+
+        private double logPi;
+        private double logNotPi;
+        private double logcCommon;
+        private double logMinorFraction;
+        private double logMajorFraction;
+
+        private void update(final double alpha, final double beta, final double pi, final double minorFraction) {
+            if (alpha != this.alpha || beta != this.beta) {
+                this.alpha = alpha;
+                this.beta = beta;
+                logcCommon = alpha * log(beta) - Gamma.logGamma(alpha);
+            }
+            if (pi != this.pi) {
+                this.pi = pi;
+                logPi = log(pi);
+                logNotPi = log((1 - pi) / 2);
+            }
+            if (minorFraction != this.minorFraction) {
+                this.minorFraction = minorFraction;
+                logMinorFraction = log(minorFraction);
+                logMajorFraction = log(1 - minorFraction);
+            }
+        }
+    }
 }
\ No newline at end of file
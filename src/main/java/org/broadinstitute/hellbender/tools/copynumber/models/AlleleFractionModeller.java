@@ -11,6 +11,7 @@ import org.broadinstitute.hellbender.utils.mcmc.DecileCollection;
 import org.broadinstitute.hellbender.utils.mcmc.GibbsSampler;
 import org.broadinstitute.hellbender.utils.mcmc.ParameterSampler;
 import org.broadinstitute.hellbender.utils.mcmc.ParameterizedModel;
+import org.broadinstitute.hellbender.utils.param.ParamUtils;
 
 import java.util.*;
 import java.util.function.Function;
@@ -60,7 +61,15 @@ public final class AlleleFractionModeller {
     private static final double MIN_MINOR_FRACTION_SAMPLING_WIDTH = 1E-3;
 
     private final SampleLocatableMetadata metadata;
-    private final ParameterizedModel<AlleleFractionParameter, AlleleFractionState, AlleleFractionSegmentedData> model;
+    private final AlleleFractionSegmentedData data;
+    private final AlleleFractionState initialState;
+    private final ParameterSampler<Double, AlleleFractionParameter, AlleleFractionState, AlleleFractionSegmentedData> meanBiasSampler;
+    private final ParameterSampler<Double, AlleleFractionParameter, AlleleFractionState, AlleleFractionSegmentedData> biasVarianceSampler;
+    private final ParameterSampler<Double, AlleleFractionParameter, AlleleFractionState, AlleleFractionSegmentedData> outlierProbabilitySampler;
+    private final ParameterSampler<AlleleFractionState.MinorFractions, AlleleFractionParameter, AlleleFractionState, AlleleFractionSegmentedData> minorFractionsSampler;
+
+    //models for each Markov chain; the state of each model is retained between calls to fitMCMC
+    private final List<ParameterizedModel<AlleleFractionParameter, AlleleFractionState, AlleleFractionSegmentedData>> chainModels = new ArrayList<>();
 
     private final List<Double> meanBiasSamples = new ArrayList<>();
     private final List<Double> biasVarianceSamples = new ArrayList<>();
@@ -81,10 +90,10 @@ public final class AlleleFractionModeller {
         Utils.nonNull(prior);
 
         metadata = allelicCounts.getMetadata();
-        final AlleleFractionSegmentedData data = new AlleleFractionSegmentedData(allelicCounts, segments);
+        data = new AlleleFractionSegmentedData(allelicCounts, segments);
 
         //initialization gets us to the mode of the likelihood
-        final AlleleFractionState initialState = new AlleleFractionInitializer(data).getInitializedState();
+        initialState = new AlleleFractionInitializer(data).getInitializedState();
         final AlleleFractionGlobalParameters initialParameters = initialState.globalParameters();
         final AlleleFractionState.MinorFractions initialMinorFractions = initialState.minorFractions();
 
@@ -102,21 +111,10 @@ public final class AlleleFractionModeller {
                 .map(w -> Math.max(w, MIN_MINOR_FRACTION_SAMPLING_WIDTH))
                 .collect(Collectors.toList());
 
-        final ParameterSampler<Double, AlleleFractionParameter, AlleleFractionState, AlleleFractionSegmentedData> meanBiasSampler =
-                new AlleleFractionSamplers.MeanBiasSampler(MAX_REASONABLE_MEAN_BIAS, meanBiasSamplingWidths);
-        final ParameterSampler<Double, AlleleFractionParameter, AlleleFractionState, AlleleFractionSegmentedData> biasVarianceSampler =
-                new AlleleFractionSamplers.BiasVarianceSampler(MAX_REASONABLE_BIAS_VARIANCE, biasVarianceSamplingWidths);
-        final ParameterSampler<Double, AlleleFractionParameter, AlleleFractionState, AlleleFractionSegmentedData> outlierProbabilitySampler =
-                new AlleleFractionSamplers.OutlierProbabilitySampler(MAX_REASONABLE_OUTLIER_PROBABILITY, outlierProbabilitySamplingWidths);
-        final ParameterSampler<AlleleFractionState.MinorFractions, AlleleFractionParameter, AlleleFractionState, AlleleFractionSegmentedData> minorFractionsSampler =
-                new AlleleFractionSamplers.MinorFractionsSampler(prior, minorFractionsSliceSamplingWidths);
-
-        model = new ParameterizedModel.GibbsBuilder<>(initialState, data)
-                .addParameterSampler(AlleleFractionParameter.MEAN_BIAS, meanBiasSampler, Double.class)
-                .addParameterSampler(AlleleFractionParameter.BIAS_VARIANCE, biasVarianceSampler, Double.class)
-                .addParameterSampler(AlleleFractionParameter.OUTLIER_PROBABILITY, outlierProbabilitySampler, Double.class)
-                .addParameterSampler(AlleleFractionParameter.MINOR_ALLELE_FRACTIONS, minorFractionsSampler, AlleleFractionState.MinorFractions.class)
-                .build();
+        meanBiasSampler = new AlleleFractionSamplers.MeanBiasSampler(MAX_REASONABLE_MEAN_BIAS, meanBiasSamplingWidths);
+        biasVarianceSampler = new AlleleFractionSamplers.BiasVarianceSampler(MAX_REASONABLE_BIAS_VARIANCE, biasVarianceSamplingWidths);
+        outlierProbabilitySampler = new AlleleFractionSamplers.OutlierProbabilitySampler(MAX_REASONABLE_OUTLIER_PROBABILITY, outlierProbabilitySamplingWidths);
+        minorFractionsSampler = new AlleleFractionSamplers.MinorFractionsSampler(prior, minorFractionsSliceSamplingWidths);
     }
 
     /**
@@ -127,15 +125,49 @@ public final class AlleleFractionModeller {
      * @param numBurnIn     number of burn-in samples to discard
      */
     void fitMCMC(final int numSamples, final int numBurnIn) {
+        fitMCMC(numSamples, numBurnIn, 1);
+    }
+
+    /**
+     * Runs {@code numChains} independent Markov chains in parallel and adds {@code numSamples - numBurnIn}
+     * Markov-Chain Monte-Carlo samples of the parameter posteriors from each chain to the collections held internally,
+     * so that posterior summaries are computed from the pooled samples.  Each chain is seeded differently and is
+     * initialized using its current {@link AlleleFractionState} (or the initial state, if the chain has not yet been run).
+     * The first chain is identical to that run by {@link #fitMCMC(int, int)}.
+     * @param numSamples    total number of samples per posterior per chain
+     * @param numBurnIn     number of burn-in samples to discard from each chain
+     * @param numChains     number of independent chains
+     */
+    void fitMCMC(final int numSamples, final int numBurnIn, final int numChains) {
+        ParamUtils.isPositive(numChains, "Number of chains must be positive.");
+
+        while (chainModels.size() < numChains) {
+            chainModels.add(new ParameterizedModel.GibbsBuilder<>(new AlleleFractionState(initialState), data)
+                    .addParameterSampler(AlleleFractionParameter.MEAN_BIAS, meanBiasSampler, Double.class)
+                    .addParameterSampler(AlleleFractionParameter.BIAS_VARIANCE, biasVarianceSampler, Double.class)
+                    .addParameterSampler(AlleleFractionParameter.OUTLIER_PROBABILITY, outlierProbabilitySampler, Double.class)
+                    .addParameterSampler(AlleleFractionParameter.MINOR_ALLELE_FRACTIONS, minorFractionsSampler, AlleleFractionState.MinorFractions.class)
+                    .build());
+        }
+
         //run MCMC
-        final GibbsSampler<AlleleFractionParameter, AlleleFractionState, AlleleFractionSegmentedData> gibbsSampler = new GibbsSampler<>(numSamples, model);
-        gibbsSampler.runMCMC();
-
-        //update posterior samples
-        meanBiasSamples.addAll(gibbsSampler.getSamples(AlleleFractionParameter.MEAN_BIAS, Double.class, numBurnIn));
-        biasVarianceSamples.addAll(gibbsSampler.getSamples(AlleleFractionParameter.BIAS_VARIANCE, Double.class, numBurnIn));
-        outlierProbabilitySamples.addAll(gibbsSampler.getSamples(AlleleFractionParameter.OUTLIER_PROBABILITY, Double.class, numBurnIn));
-        minorFractionsSamples.addAll(gibbsSampler.getSamples(AlleleFractionParameter.MINOR_ALLELE_FRACTIONS, AlleleFractionState.MinorFractions.class, numBurnIn));
+        final List<GibbsSampler<AlleleFractionParameter, AlleleFractionState, AlleleFractionSegmentedData>> gibbsSamplers =
+                IntStream.range(0, numChains).parallel()
+                        .mapToObj(chainIndex -> {
+                            final GibbsSampler<AlleleFractionParameter, AlleleFractionState, AlleleFractionSegmentedData> gibbsSampler =
+                                    new GibbsSampler<>(numSamples, chainModels.get(chainIndex), GibbsSampler.DEFAULT_RANDOM_SEED + chainIndex);
+                            gibbsSampler.runMCMC();
+                            return gibbsSampler;
+                        })
+                        .collect(Collectors.toList());
+
+        //update posterior samples, pooling over chains in order
+        for (final GibbsSampler<AlleleFractionParameter, AlleleFractionState, AlleleFractionSegmentedData> gibbsSampler : gibbsSamplers) {
+            meanBiasSamples.addAll(gibbsSampler.getSamples(AlleleFractionParameter.MEAN_BIAS, Double.class, numBurnIn));
+            biasVarianceSamples.addAll(gibbsSampler.getSamples(AlleleFractionParameter.BIAS_VARIANCE, Double.class, numBurnIn));
+            outlierProbabilitySamples.addAll(gibbsSampler.getSamples(AlleleFractionParameter.OUTLIER_PROBABILITY, Double.class, numBurnIn));
+            minorFractionsSamples.addAll(gibbsSampler.getSamples(AlleleFractionParameter.MINOR_ALLELE_FRACTIONS, AlleleFractionState.MinorFractions.class, numBurnIn));
+        }
     }
 
     List<Double> getMeanBiasSamples() {
@@ -43,6 +43,10 @@ final class AlleleFractionState extends ParameterizedState<AlleleFractionParamet
                 new Parameter<>(AlleleFractionParameter.MINOR_ALLELE_FRACTIONS, minorFractions)));
     }
 
+    AlleleFractionState(final AlleleFractionState state) {
+        super(state);
+    }
+
     double meanBias() {
         return get(AlleleFractionParameter.MEAN_BIAS, Double.class);
     }
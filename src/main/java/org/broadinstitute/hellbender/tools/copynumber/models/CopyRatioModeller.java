@@ -15,6 +15,7 @@ import org.broadinstitute.hellbender.utils.param.ParamUtils;
 
 import java.util.*;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 /**
  * Represents a segmented model for copy ratio fit to denoised log2 copy-ratio data.
@@ -39,7 +40,15 @@ public final class CopyRatioModeller {
     private static final double OUTLIER_PROBABILITY_PRIOR_BETA = 95.;
 
     private final SampleLocatableMetadata metadata;
-    private final ParameterizedModel<CopyRatioParameter, CopyRatioState, CopyRatioSegmentedData> model;
+    private final CopyRatioSegmentedData data;
+    private final CopyRatioState initialState;
+    private final ParameterSampler<Double, CopyRatioParameter, CopyRatioState, CopyRatioSegmentedData> varianceSampler;
+    private final ParameterSampler<Double, CopyRatioParameter, CopyRatioState, CopyRatioSegmentedData> outlierProbabilitySampler;
+    private final ParameterSampler<CopyRatioState.SegmentMeans, CopyRatioParameter, CopyRatioState, CopyRatioSegmentedData> segmentMeansSampler;
+    private final ParameterSampler<CopyRatioState.OutlierIndicators, CopyRatioParameter, CopyRatioState, CopyRatioSegmentedData> outlierIndicatorsSampler;
+
+    //models for each Markov chain; the state of each model is retained between calls to fitMCMC
+    private final List<ParameterizedModel<CopyRatioParameter, CopyRatioState, CopyRatioSegmentedData>> chainModels = new ArrayList<>();
 
     private final List<Double> varianceSamples = new ArrayList<>();
     private final List<Double> outlierProbabilitySamples = new ArrayList<>();
@@ -58,7 +67,7 @@ public final class CopyRatioModeller {
         Utils.nonEmpty(segments.getRecords());
 
         metadata = copyRatios.getMetadata();
-        final CopyRatioSegmentedData data = new CopyRatioSegmentedData(copyRatios, segments);
+        data = new CopyRatioSegmentedData(copyRatios, segments);
 
         //set widths for slice sampling of variance and segment-mean posteriors using empirical variance estimate.
         //variance posterior is inverse chi-squared, segment-mean posteriors are Gaussian; the below expressions
@@ -80,25 +89,14 @@ public final class CopyRatioModeller {
         final double outlierUniformLogLikelihood = -Math.log(dataRange);
 
         //use empirical segment means and empirical average variance across segments to initialize CopyRatioState
-        final CopyRatioState initialState = new CopyRatioState(varianceEstimate, CopyRatioModeller.OUTLIER_PROBABILITY_INITIAL,
+        initialState = new CopyRatioState(varianceEstimate, CopyRatioModeller.OUTLIER_PROBABILITY_INITIAL,
                 new CopyRatioState.SegmentMeans(segmentMeans), new CopyRatioState.OutlierIndicators(Collections.nCopies(data.getNumPoints(), false)));
 
         //define ParameterSamplers
-        final ParameterSampler<Double, CopyRatioParameter, CopyRatioState, CopyRatioSegmentedData> varianceSampler =
-                new CopyRatioSamplers.VarianceSampler(VARIANCE_MIN, varianceMax, varianceSliceSamplingWidth);
-        final ParameterSampler<Double, CopyRatioParameter, CopyRatioState, CopyRatioSegmentedData> outlierProbabilitySampler =
-                new CopyRatioSamplers.OutlierProbabilitySampler(OUTLIER_PROBABILITY_PRIOR_ALPHA, OUTLIER_PROBABILITY_PRIOR_BETA);
-        final ParameterSampler<CopyRatioState.SegmentMeans, CopyRatioParameter, CopyRatioState, CopyRatioSegmentedData> segmentMeansSampler =
-                new CopyRatioSamplers.SegmentMeansSampler(LOG2_COPY_RATIO_MIN, LOG2_COPY_RATIO_MAX, meanSliceSamplingWidth);
-        final ParameterSampler<CopyRatioState.OutlierIndicators, CopyRatioParameter, CopyRatioState, CopyRatioSegmentedData> outlierIndicatorsSampler =
-                new CopyRatioSamplers.OutlierIndicatorsSampler(outlierUniformLogLikelihood);
-
-        model = new ParameterizedModel.GibbsBuilder<>(initialState, data)
-                .addParameterSampler(CopyRatioParameter.VARIANCE, varianceSampler, Double.class)
-                .addParameterSampler(CopyRatioParameter.OUTLIER_PROBABILITY, outlierProbabilitySampler, Double.class)
-                .addParameterSampler(CopyRatioParameter.SEGMENT_MEANS, segmentMeansSampler, CopyRatioState.SegmentMeans.class)
-                .addParameterSampler(CopyRatioParameter.OUTLIER_INDICATORS, outlierIndicatorsSampler, CopyRatioState.OutlierIndicators.class)
-                .build();
+        varianceSampler = new CopyRatioSamplers.VarianceSampler(VARIANCE_MIN, varianceMax, varianceSliceSamplingWidth);
+        outlierProbabilitySampler = new CopyRatioSamplers.OutlierProbabilitySampler(OUTLIER_PROBABILITY_PRIOR_ALPHA, OUTLIER_PROBABILITY_PRIOR_BETA);
+        segmentMeansSampler = new CopyRatioSamplers.SegmentMeansSampler(LOG2_COPY_RATIO_MIN, LOG2_COPY_RATIO_MAX, meanSliceSamplingWidth);
+        outlierIndicatorsSampler = new CopyRatioSamplers.OutlierIndicatorsSampler(outlierUniformLogLikelihood);
     }
 
     /**
@@ -109,18 +107,53 @@ public final class CopyRatioModeller {
      * @param numBurnIn     number of burn-in samples to discard
      */
     void fitMCMC(final int numSamples,
-                        final int numBurnIn) {
+                 final int numBurnIn) {
+        fitMCMC(numSamples, numBurnIn, 1);
+    }
+
+    /**
+     * Runs {@code numChains} independent Markov chains in parallel and adds {@code numSamples - numBurnIn}
+     * Markov-Chain Monte-Carlo samples of the parameter posteriors from each chain to the collections held internally,
+     * so that posterior summaries are computed from the pooled samples.  Each chain is seeded differently and is
+     * initialized using its current {@link CopyRatioState} (or the initial state, if the chain has not yet been run).
+     * The first chain is identical to that run by {@link #fitMCMC(int, int)}.
+     * @param numSamples    total number of samples per posterior per chain
+     * @param numBurnIn     number of burn-in samples to discard from each chain
+     * @param numChains     number of independent chains
+     */
+    void fitMCMC(final int numSamples,
+                 final int numBurnIn,
+                 final int numChains) {
         ParamUtils.isPositiveOrZero(numBurnIn, "Number of burn-in samples must be non-negative.");
         Utils.validateArg(numBurnIn < numSamples, "Number of samples must be greater than number of burn-in samples.");
+        ParamUtils.isPositive(numChains, "Number of chains must be positive.");
+
+        while (chainModels.size() < numChains) {
+            chainModels.add(new ParameterizedModel.GibbsBuilder<>(new CopyRatioState(initialState), data)
+                    .addParameterSampler(CopyRatioParameter.VARIANCE, varianceSampler, Double.class)
+                    .addParameterSampler(CopyRatioParameter.OUTLIER_PROBABILITY, outlierProbabilitySampler, Double.class)
+                    .addParameterSampler(CopyRatioParameter.SEGMENT_MEANS, segmentMeansSampler, CopyRatioState.SegmentMeans.class)
+                    .addParameterSampler(CopyRatioParameter.OUTLIER_INDICATORS, outlierIndicatorsSampler, CopyRatioState.OutlierIndicators.class)
+                    .build());
+        }
 
         //run MCMC
-        final GibbsSampler<CopyRatioParameter, CopyRatioState, CopyRatioSegmentedData> gibbsSampler = new GibbsSampler<>(numSamples, model);
-        gibbsSampler.runMCMC();
-
-        //update posterior samples
-        varianceSamples.addAll(gibbsSampler.getSamples(CopyRatioParameter.VARIANCE, Double.class, numBurnIn));
-        outlierProbabilitySamples.addAll(gibbsSampler.getSamples(CopyRatioParameter.OUTLIER_PROBABILITY, Double.class, numBurnIn));
-        segmentMeansSamples.addAll(gibbsSampler.getSamples(CopyRatioParameter.SEGMENT_MEANS, CopyRatioState.SegmentMeans.class, numBurnIn));
+        final List<GibbsSampler<CopyRatioParameter, CopyRatioState, CopyRatioSegmentedData>> gibbsSamplers =
+                IntStream.range(0, numChains).parallel()
+                        .mapToObj(chainIndex -> {
+                            final GibbsSampler<CopyRatioParameter, CopyRatioState, CopyRatioSegmentedData> gibbsSampler =
+                                    new GibbsSampler<>(numSamples, chainModels.get(chainIndex), GibbsSampler.DEFAULT_RANDOM_SEED + chainIndex);
+                            gibbsSampler.runMCMC();
+                            return gibbsSampler;
+                        })
+                        .collect(Collectors.toList());
+
+        //update posterior samples, pooling over chains in order
+        for (final GibbsSampler<CopyRatioParameter, CopyRatioState, CopyRatioSegmentedData> gibbsSampler : gibbsSamplers) {
+            varianceSamples.addAll(gibbsSampler.getSamples(CopyRatioParameter.VARIANCE, Double.class, numBurnIn));
+            outlierProbabilitySamples.addAll(gibbsSampler.getSamples(CopyRatioParameter.OUTLIER_PROBABILITY, Double.class, numBurnIn));
+            segmentMeansSamples.addAll(gibbsSampler.getSamples(CopyRatioParameter.SEGMENT_MEANS, CopyRatioState.SegmentMeans.class, numBurnIn));
+        }
     }
 
     List<Double> getVarianceSamples() {
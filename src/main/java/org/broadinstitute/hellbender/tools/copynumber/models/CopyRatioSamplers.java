@@ -5,6 +5,7 @@ import org.apache.commons.math3.random.RandomGenerator;
 import org.apache.commons.math3.util.FastMath;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.broadinstitute.hellbender.utils.IndexRange;
 import org.broadinstitute.hellbender.utils.MathUtils;
 import org.broadinstitute.hellbender.utils.mcmc.MinibatchSliceSampler;
 import org.broadinstitute.hellbender.utils.mcmc.ParameterSampler;
@@ -14,7 +15,6 @@ import java.util.List;
 import java.util.function.BiFunction;
 import java.util.function.Function;
 import java.util.stream.Collectors;
-import java.util.stream.IntStream;
 
 /**
  * @author Samuel Lee &lt;slee@broadinstitute.org&gt;
@@ -22,8 +22,6 @@ import java.util.stream.IntStream;
 final class CopyRatioSamplers {
     private static final Logger logger = LogManager.getLogger(CopyRatioSamplers.class);
 
-    private static final FunctionCache<Double> logCache = new FunctionCache<>(FastMath::log);
-
     private static final Function<Double, Double> UNIFORM_LOG_PRIOR = x -> 0.;
     private static final int GLOBAL_MINIBATCH_SIZE = 1000;
     private static final int SEGMENT_MINIBATCH_SIZE = 100;
@@ -65,7 +63,7 @@ final class CopyRatioSamplers {
                             .filter(icr -> !state.outlierIndicator(icr.getIndex()))
                             .collect(Collectors.toList());
             final BiFunction<CopyRatioSegmentedData.IndexedCopyRatio, Double, Double> logConditionalPDF = (icr, newVariance) ->
-                    -0.5 * logCache.computeIfAbsent(newVariance)
+                    -0.5 * FastMath.log(newVariance)
                             - normalTerm(icr.getLog2CopyRatioValue(), state.segmentMean(icr.getSegmentIndex()), newVariance);
             return new MinibatchSliceSampler<>(
                     rng, nonOutlierIndexedCopyRatios, UNIFORM_LOG_PRIOR, logConditionalPDF,
@@ -92,7 +90,7 @@ final class CopyRatioSamplers {
                              final CopyRatioState state, 
                              final CopyRatioSegmentedData data) {
             logger.debug("Sampling outlier probability...");
-            final int numOutliers = (int) IntStream.range(0, data.getNumPoints()).filter(state::outlierIndicator).count();
+            final int numOutliers = state.numOutliers();
             return new BetaDistribution(rng,
                     outlierProbabilityPriorAlpha + numOutliers,
                     outlierProbabilityPriorBeta + data.getNumPoints() - numOutliers).sample();
@@ -167,20 +165,26 @@ final class CopyRatioSamplers {
 //                    FastMath.log(1. - state.outlierProbability()) - 0.5 * FastMath.log(2 * Math.PI * state.variance());
             final double notOutlierUnnormalizedLogProbabilityPrefactor =
                     FastMath.log((1. - state.outlierProbability()) / FastMath.sqrt(2 * Math.PI * state.variance()));
-            final List<Boolean> indicators = new ArrayList<>(data.getNumPoints());
+            //iterate over primitive arrays in index order (which is grouped by segment) to avoid boxing
+            final double[] log2CopyRatioValues = data.getIndexedLog2CopyRatioValues();
+            final double variance = state.variance();
+            final CopyRatioState.OutlierIndicators indicators = new CopyRatioState.OutlierIndicators(data.getNumPoints());
             for (int segmentIndex = 0; segmentIndex < data.getNumSegments(); segmentIndex++) {
-                final List<CopyRatioSegmentedData.IndexedCopyRatio> indexedCopyRatiosInSegment = data.getIndexedCopyRatiosInSegment(segmentIndex);
-                for (final CopyRatioSegmentedData.IndexedCopyRatio indexedCopyRatio : indexedCopyRatiosInSegment) {
+                final IndexRange indexRange = data.getIndexRangeInSegment(segmentIndex);
+                final double segmentMean = state.segmentMean(segmentIndex);
+                for (int index = indexRange.from; index < indexRange.to; index++) {
                     final double notOutlierUnnormalizedLogProbability =
                             notOutlierUnnormalizedLogProbabilityPrefactor
-                                    - normalTerm(indexedCopyRatio.getLog2CopyRatioValue(), state.segmentMean(segmentIndex), state.variance());
+                                    - normalTerm(log2CopyRatioValues[index], segmentMean, variance);
                     final double conditionalProbability =
                             FastMath.exp(outlierUnnormalizedLogProbability -
                                     MathUtils.logSumLog(outlierUnnormalizedLogProbability, notOutlierUnnormalizedLogProbability));
-                    indicators.add(rng.nextDouble() < conditionalProbability);
+                    if (rng.nextDouble() < conditionalProbability) {
+                        indicators.set(index);
+                    }
                 }
             }
-            return new CopyRatioState.OutlierIndicators(indicators);
+            return indicators;
         }
     }
 }
\ No newline at end of file
@@ -34,6 +34,9 @@ final class CopyRatioSegmentedData implements DataCollection {
     private final List<IndexedCopyRatio> indexedCopyRatios;
     private final List<IndexRange> indexRangesPerSegment;
 
+    //primitive view of the indexed copy ratios (in index order) for use in likelihood kernels
+    private final double[] indexedLog2CopyRatioValues;
+
     CopyRatioSegmentedData(final CopyRatioCollection copyRatios,
                            final SimpleIntervalCollection segments) {
         this.copyRatios = Utils.nonNull(copyRatios);
@@ -67,6 +70,7 @@ final class CopyRatioSegmentedData implements DataCollection {
 
         this.indexedCopyRatios = Collections.unmodifiableList(indexedCopyRatios);
         this.indexRangesPerSegment = Collections.unmodifiableList(indexRangesPerSegment);
+        indexedLog2CopyRatioValues = indexedCopyRatios.stream().mapToDouble(IndexedCopyRatio::getLog2CopyRatioValue).toArray();
     }
 
     CopyRatioCollection getCopyRatios() {
@@ -102,6 +106,17 @@ final class CopyRatioSegmentedData implements DataCollection {
                 indexRangesPerSegment.get(segmentIndex).from, indexRangesPerSegment.get(segmentIndex).to);
     }
 
+    IndexRange getIndexRangeInSegment(final int segmentIndex) {
+        return indexRangesPerSegment.get(segmentIndex);
+    }
+
+    /**
+     * Returns log2 copy-ratio values in index order.  The returned array is shared and should not be modified.
+     */
+    double[] getIndexedLog2CopyRatioValues() {
+        return indexedLog2CopyRatioValues;
+    }
+
     //estimate global variance empirically by taking average of all per-segment variances
     double estimateVariance() {
         return IntStream.range(0, segments.size())
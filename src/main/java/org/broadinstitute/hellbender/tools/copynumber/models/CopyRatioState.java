@@ -36,6 +36,11 @@ final class CopyRatioState extends ParameterizedState<CopyRatioParameter> {
             super(outlierIndicators.size());
             IntStream.range(0, outlierIndicators.size()).filter(outlierIndicators::get).forEach(this::set);
         }
+
+        //all indicators are initially false
+        OutlierIndicators(final int numPoints) {
+            super(numPoints);
+        }
     }
 
     CopyRatioState(final double variance,
@@ -49,6 +54,10 @@ final class CopyRatioState extends ParameterizedState<CopyRatioParameter> {
                 new Parameter<>(CopyRatioParameter.OUTLIER_INDICATORS, outlierIndicators)));
     }
 
+    CopyRatioState(final CopyRatioState state) {
+        super(state);
+    }
+
     double variance() {
         return get(CopyRatioParameter.VARIANCE, Double.class);
     }
@@ -64,4 +73,8 @@ final class CopyRatioState extends ParameterizedState<CopyRatioParameter> {
     boolean outlierIndicator(final int copyRatioIndex) {
         return get(CopyRatioParameter.OUTLIER_INDICATORS, CopyRatioState.OutlierIndicators.class).get(copyRatioIndex);
     }
+
+    int numOutliers() {
+        return get(CopyRatioParameter.OUTLIER_INDICATORS, CopyRatioState.OutlierIndicators.class).cardinality();
+    }
 }
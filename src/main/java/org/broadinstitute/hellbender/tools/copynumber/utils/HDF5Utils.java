@@ -9,6 +9,7 @@ import org.broadinstitute.hellbender.utils.Utils;
 import org.broadinstitute.hellbender.utils.io.IOUtils;
 import org.broadinstitute.hellbender.utils.param.ParamUtils;
 
+import java.util.Arrays;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -194,4 +195,86 @@ public final class HDF5Utils {
             file.makeDoubleMatrix(path + CHUNK_INDEX_PATH_SUFFIX + numFilledChunks, matrixChunk);    //write final partially filled chunk
         }
     }
+
+    /**
+     * Writes a large matrix row by row, using the same chunks, sub-paths, and conventions as
+     * {@link #writeChunkedDoubleMatrix}, so that the full matrix need not be held in memory.
+     * Rows are buffered until a chunk is filled and then written; at most one chunk is held in memory at any time.
+     * {@link #close} must be called after all rows have been added to write the final partially filled chunk
+     * (if necessary) and the matrix dimensions.  The resulting matrix can be read by {@link #readChunkedDoubleMatrix}.
+     */
+    public static final class ChunkedDoubleMatrixWriter implements AutoCloseable {
+        private final HDF5File file;
+        private final String path;
+        private final int numColumns;
+        private final double[][] chunkBuffer;
+
+        private int numRowsInChunkBuffer = 0;
+        private int numChunksWritten = 0;
+        private long numRowsWritten = 0;
+        private boolean isClosed = false;
+
+        /**
+         * @param maxChunkSize  The maximum number of values in each chunk.  See {@link #writeChunkedDoubleMatrix}.
+         */
+        public ChunkedDoubleMatrixWriter(final HDF5File file,
+                                         final String path,
+                                         final int numColumns,
+                                         final int maxChunkSize) {
+            Utils.nonNull(file);
+            IOUtils.canReadFile(file.getFile());
+            Utils.nonNull(path);
+            ParamUtils.isPositive(numColumns, "Matrix must contain at least one column.");
+            ParamUtils.inRange(maxChunkSize, 1 , MAX_NUMBER_OF_VALUES_PER_HDF5_MATRIX,
+                    String.format("Maximum chunk size must be in [1, %d].", MAX_NUMBER_OF_VALUES_PER_HDF5_MATRIX));
+            Utils.validateArg(numColumns <= maxChunkSize,
+                    String.format("Number of columns (%d) exceeds the maximum number of values allowed per chunk (%d).",
+                            numColumns, maxChunkSize));
+            this.file = file;
+            this.path = path;
+            this.numColumns = numColumns;
+            chunkBuffer = new double[maxChunkSize / numColumns][];
+        }
+
+        /**
+         * Adds a row to the matrix.  The row is copied, so the array may be reused by the caller.
+         */
+        public void addRow(final double[] row) {
+            Utils.nonNull(row);
+            Utils.validate(!isClosed, "Cannot add rows to a closed writer.");
+            Utils.validateArg(row.length == numColumns,
+                    String.format("Row does not contain expected number of columns (%d).", numColumns));
+            chunkBuffer[numRowsInChunkBuffer++] = Arrays.copyOf(row, numColumns);
+            numRowsWritten++;
+            if (numRowsInChunkBuffer == chunkBuffer.length) {
+                writeChunk();
+            }
+        }
+
+        private void writeChunk() {
+            final double[][] matrixChunk = numRowsInChunkBuffer == chunkBuffer.length
+                    ? chunkBuffer
+                    : Arrays.copyOf(chunkBuffer, numRowsInChunkBuffer);
+            file.makeDoubleMatrix(path + CHUNK_INDEX_PATH_SUFFIX + numChunksWritten, matrixChunk);
+            Arrays.fill(chunkBuffer, null);
+            numRowsInChunkBuffer = 0;
+            numChunksWritten++;
+        }
+
+        @Override
+        public void close() {
+            if (isClosed) {
+                return;
+            }
+            isClosed = true;
+            Utils.validate(numRowsWritten > 0, "Matrix must contain at least one row.");
+            if (numRowsInChunkBuffer > 0) {
+                logger.debug("Number of rows in partial chunk: " + numRowsInChunkBuffer);
+                writeChunk();   //write final partially filled chunk
+            }
+            file.makeDouble(path + NUMBER_OF_ROWS_SUB_PATH, numRowsWritten);
+            file.makeDouble(path + NUMBER_OF_COLUMNS_SUB_PATH, numColumns);
+            file.makeDouble(path + NUMBER_OF_CHUNKS_SUB_PATH, numChunksWritten);
+        }
+    }
 }
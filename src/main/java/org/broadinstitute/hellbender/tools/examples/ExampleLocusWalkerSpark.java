@@ -12,6 +12,7 @@ import org.broadinstitute.hellbender.engine.AlignmentContext;
 import org.broadinstitute.hellbender.engine.FeatureContext;
 import org.broadinstitute.hellbender.engine.FeatureInput;
 import org.broadinstitute.hellbender.engine.ReferenceContext;
+import org.broadinstitute.hellbender.engine.spark.LocalPartitions;
 import org.broadinstitute.hellbender.engine.spark.LocusWalkerContext;
 import org.broadinstitute.hellbender.engine.spark.LocusWalkerSpark;
 import org.broadinstitute.hellbender.utils.pileup.ReadPileup;
@@ -41,6 +42,16 @@ public final class ExampleLocusWalkerSpark extends LocusWalkerSpark {
     private PrintStream outputStream = null;
 
 
+    @Override
+    protected boolean supportsLocalEngine() {
+        return true;
+    }
+
+    @Override
+    protected void processAlignmentsLocally(LocalPartitions<LocusWalkerContext> partitions) {
+        partitions.map(intervalFunction(variants)).saveAsTextFile(outputFile);
+    }
+
     @Override
     protected void processAlignments(JavaRDD<LocusWalkerContext> rdd, JavaSparkContext ctx) {
         rdd.map(intervalFunction(variants)).saveAsTextFile(outputFile);
@@ -8,6 +8,7 @@ import org.broadinstitute.barclay.argparser.CommandLineProgramProperties;
 import org.broadinstitute.hellbender.cmdline.StandardArgumentDefinitions;
 import org.broadinstitute.hellbender.cmdline.programgroups.ExampleProgramGroup;
 import org.broadinstitute.hellbender.engine.ReferenceContext;
+import org.broadinstitute.hellbender.engine.spark.LocalPartitions;
 import org.broadinstitute.hellbender.engine.spark.ReadWalkerContext;
 import org.broadinstitute.hellbender.engine.spark.ReadWalkerSpark;
 import org.broadinstitute.hellbender.utils.read.GATKRead;
@@ -33,6 +34,16 @@ public final class ExampleReadWalkerWithReferenceSpark extends ReadWalkerSpark {
         return true;
     }
 
+    @Override
+    protected boolean supportsLocalEngine() {
+        return true;
+    }
+
+    @Override
+    protected void processReadsLocally(LocalPartitions<ReadWalkerContext> partitions) {
+        partitions.map(readFunction()).saveAsTextFile(outputFile);
+    }
+
     @Override
     protected void processReads(JavaRDD<ReadWalkerContext> rdd, JavaSparkContext ctx) {
         rdd.map(readFunction()).saveAsTextFile(outputFile);
@@ -9,6 +9,7 @@ import org.broadinstitute.barclay.argparser.CommandLineProgramProperties;
 import org.broadinstitute.hellbender.cmdline.StandardArgumentDefinitions;
 import org.broadinstitute.hellbender.cmdline.programgroups.ExampleProgramGroup;
 import org.broadinstitute.hellbender.engine.*;
+import org.broadinstitute.hellbender.engine.spark.LocalPartitions;
 import org.broadinstitute.hellbender.engine.spark.VariantWalkerContext;
 import org.broadinstitute.hellbender.utils.read.GATKRead;
 import org.broadinstitute.hellbender.engine.spark.VariantWalkerSpark;
@@ -34,6 +35,16 @@ public final class ExampleVariantWalkerSpark extends VariantWalkerSpark {
     @Argument(fullName="auxiliaryVariants", shortName="av", doc="Auxiliary set of variants", optional=true)
     private FeatureInput<VariantContext> auxiliaryVariants;
 
+    @Override
+    protected boolean supportsLocalEngine() {
+        return true;
+    }
+
+    @Override
+    protected void processVariantsLocally(LocalPartitions<VariantWalkerContext> partitions) {
+        partitions.map(variantFunction(auxiliaryVariants)).saveAsTextFile(outputFile);
+    }
+
     @Override
     protected void processVariants(JavaRDD<VariantWalkerContext> rdd, JavaSparkContext ctx) {
         rdd.map(variantFunction(auxiliaryVariants)).saveAsTextFile(outputFile);
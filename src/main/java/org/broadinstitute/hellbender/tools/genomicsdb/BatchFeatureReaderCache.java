@@ -0,0 +1,201 @@
+package org.broadinstitute.hellbender.tools.genomicsdb;
+
+import htsjdk.samtools.util.Locatable;
+import htsjdk.tribble.CloseableTribbleIterator;
+import htsjdk.tribble.FeatureReader;
+import htsjdk.variant.variantcontext.VariantContext;
+import org.broadinstitute.hellbender.exceptions.GATKException;
+import org.broadinstitute.hellbender.utils.Utils;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Caches the {@link FeatureReader}s opened for the samples in the current import batch, so that they (and the indices
+ * they have loaded) can be reused across the intervals of that batch rather than reopened for every interval.
+ *
+ * <p>
+ *     GenomicsDB requests a map of readers for every (batch, interval) pair and closes all of them once the interval
+ *     has been imported.  The readers returned by {@link #getReaders} are leases on cached readers: closing a lease
+ *     closes any iterators obtained from it and returns the underlying reader to the cache instead of closing it.
+ *     A cached reader is leased to at most one interval at a time, so intervals of the same batch may be imported
+ *     concurrently; in that case, at most one reader per sample is opened for each interval imported in parallel.
+ * </p>
+ *
+ * <p>
+ *     Batches are assumed to be imported one at a time, as they are by GenomicsDB.  All cached readers are closed when
+ *     readers for a new batch are requested, upon {@link #closeCachedReaders}, and upon {@link #close}.
+ * </p>
+ */
+final class BatchFeatureReaderCache implements AutoCloseable {
+    private final Function<String, FeatureReader<VariantContext>> readerOpener;
+
+    //idle readers for each sample in the current batch
+    private final Map<String, Deque<FeatureReader<VariantContext>>> idleReaders = new ConcurrentHashMap<>();
+    private int currentBatchLowerSampleIndex = -1;
+
+    private final AtomicInteger numReadersOpened = new AtomicInteger();
+    private final AtomicInteger numReadersReused = new AtomicInteger();
+
+    /**
+     * @param readerOpener  opens a new reader given the name of a sample
+     */
+    BatchFeatureReaderCache(final Function<String, FeatureReader<VariantContext>> readerOpener) {
+        this.readerOpener = Utils.nonNull(readerOpener);
+    }
+
+    /**
+     * Returns leased readers for the samples in a batch, reusing cached readers where possible.
+     *
+     * @param sampleNames       names of the samples in the batch
+     * @param lowerSampleIndex  0-based index of the first sample in the batch, used to identify the batch
+     * @return  leased readers, sorted by sample name
+     */
+    SortedMap<String, FeatureReader<VariantContext>> getReaders(final List<String> sampleNames,
+                                                                final int lowerSampleIndex) {
+        Utils.nonNull(sampleNames);
+        synchronized (this) {
+            if (lowerSampleIndex != currentBatchLowerSampleIndex) {
+                closeCachedReaders();
+                currentBatchLowerSampleIndex = lowerSampleIndex;
+            }
+        }
+        final SortedMap<String, FeatureReader<VariantContext>> sampleToReaderMap = new TreeMap<>();
+        for (final String sampleName : sampleNames) {
+            final FeatureReader<VariantContext> cachedReader = idleReaders
+                    .computeIfAbsent(sampleName, s -> new ConcurrentLinkedDeque<>())
+                    .pollFirst();
+            final FeatureReader<VariantContext> reader;
+            if (cachedReader != null) {
+                numReadersReused.incrementAndGet();
+                reader = cachedReader;
+            } else {
+                numReadersOpened.incrementAndGet();
+                reader = readerOpener.apply(sampleName);
+            }
+            sampleToReaderMap.put(sampleName, new LeasedFeatureReader(sampleName, reader, lowerSampleIndex));
+        }
+        return sampleToReaderMap;
+    }
+
+    /**
+     * Closes all cached readers that are not currently leased.  Readers that are leased are closed when the lease is.
+     */
+    synchronized void closeCachedReaders() {
+        currentBatchLowerSampleIndex = -1;
+        idleReaders.values().forEach(readers -> {
+            FeatureReader<VariantContext> reader;
+            while ((reader = readers.pollFirst()) != null) {
+                closeReader(reader);
+            }
+        });
+        idleReaders.clear();
+    }
+
+    /**
+     * @return  number of readers opened since construction
+     */
+    int getNumReadersOpened() {
+        return numReadersOpened.get();
+    }
+
+    /**
+     * @return  number of times a cached reader was leased instead of opening a new reader since construction
+     */
+    int getNumReadersReused() {
+        return numReadersReused.get();
+    }
+
+    @Override
+    public void close() {
+        closeCachedReaders();
+    }
+
+    private synchronized void release(final String sampleName,
+                                      final FeatureReader<VariantContext> reader,
+                                      final int lowerSampleIndex) {
+        if (lowerSampleIndex == currentBatchLowerSampleIndex) {
+            idleReaders.computeIfAbsent(sampleName, s -> new ConcurrentLinkedDeque<>()).addFirst(reader);
+        } else {
+            closeReader(reader);
+        }
+    }
+
+    private static void closeReader(final FeatureReader<VariantContext> reader) {
+        try {
+            reader.close();
+        } catch (final IOException e) {
+            throw new GATKException("Error closing feature reader.", e);
+        }
+    }
+
+    /**
+     * Lease on a cached reader.  Closing the lease closes all iterators obtained from it and returns the reader to the cache.
+     */
+    private final class LeasedFeatureReader implements FeatureReader<VariantContext> {
+        private final String sampleName;
+        private final FeatureReader<VariantContext> reader;
+        private final int lowerSampleIndex;
+        private final List<CloseableTribbleIterator<VariantContext>> iterators = new ArrayList<>();
+        private boolean isClosed = false;
+
+        private LeasedFeatureReader(final String sampleName,
+                                    final FeatureReader<VariantContext> reader,
+                                    final int lowerSampleIndex) {
+            this.sampleName = sampleName;
+            this.reader = reader;
+            this.lowerSampleIndex = lowerSampleIndex;
+        }
+
+        private CloseableTribbleIterator<VariantContext> track(final CloseableTribbleIterator<VariantContext> iterator) {
+            Utils.validate(!isClosed, "Cannot query a closed reader.");
+            iterators.add(iterator);
+            return iterator;
+        }
+
+        @Override
+        public CloseableTribbleIterator<VariantContext> query(final Locatable locus) throws IOException {
+            return track(reader.query(locus));
+        }
+
+        @Override
+        public CloseableTribbleIterator<VariantContext> query(final String chr, final int start, final int end) throws IOException {
+            return track(reader.query(chr, start, end));
+        }
+
+        @Override
+        public CloseableTribbleIterator<VariantContext> iterator() throws IOException {
+            return track(reader.iterator());
+        }
+
+        @Override
+        public void close() {
+            if (isClosed) {
+                return;
+            }
+            isClosed = true;
+            iterators.forEach(CloseableTribbleIterator::close);
+            iterators.clear();
+            release(sampleName, reader, lowerSampleIndex);
+        }
+
+        @Override
+        public List<String> getSequenceNames() {
+            return reader.getSequenceNames();
+        }
+
+        @Override
+        public Object getHeader() {
+            return reader.getHeader();
+        }
+
+        @Override
+        public boolean isQueryable() {
+            return reader.isQueryable();
+        }
+    }
+}
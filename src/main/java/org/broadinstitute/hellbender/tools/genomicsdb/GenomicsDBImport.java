@@ -155,6 +155,8 @@ public final class GenomicsDBImport extends GATKTool {
     public static final String MERGE_INPUT_INTERVALS_LONG_NAME = "merge-input-intervals";
     public static final String VCF_INITIALIZER_THREADS_LONG_NAME = "reader-threads";
     public static final String MAX_NUM_INTERVALS_TO_IMPORT_IN_PARALLEL = "max-num-intervals-to-import-in-parallel";
+    public static final String ADAPTIVE_SCHEDULING_LONG_NAME = "adaptive-scheduling";
+    public static final String BATCH_METRICS_OUTPUT_LONG_NAME = "batch-metrics-output";
     public static final int INTERVAL_LIST_SIZE_WARNING_THRESHOLD = 100;
 
     @Argument(fullName = WORKSPACE_ARG_LONG_NAME,
@@ -260,6 +262,20 @@ public final class GenomicsDBImport extends GATKTool {
             minValue = 1)
     private int maxNumIntervalsToImportInParallel = 1;
 
+    @Advanced
+    @Argument(fullName = ADAPTIVE_SCHEDULING_LONG_NAME,
+            doc = "Boolean flag to choose the batch size and the number of intervals to import in parallel from the available " +
+                    "heap, the file-descriptor limit of the process and the number of available processors. " +
+                    "If enabled, " + MAX_NUM_INTERVALS_TO_IMPORT_IN_PARALLEL + " is ignored and a non-zero " +
+                    BATCHSIZE_ARG_LONG_NAME + " is used as an upper bound on the batch size.",
+            optional = true)
+    private boolean doAdaptiveScheduling = false;
+
+    @Argument(fullName = BATCH_METRICS_OUTPUT_LONG_NAME,
+            doc = "Output file for per-batch timing and memory metrics.",
+            optional = true)
+    private String batchMetricsOutput = null;
+
     //executor service used when vcfInitializerThreads > 1
     private ExecutorService inputPreloadExecutorService;
 
@@ -321,6 +337,16 @@ public final class GenomicsDBImport extends GATKTool {
     //in-progress batchCount
     private int batchCount = 1;
 
+    // Batch size and number of intervals to import in parallel, as specified or chosen by adaptive scheduling
+    private int effectiveBatchSize;
+    private int effectiveNumIntervalsToImportInParallel;
+
+    // Records per-batch metrics
+    private GenomicsDBImportScheduler scheduler;
+
+    // Reuses readers across the intervals of a batch when readers are opened serially
+    private BatchFeatureReaderCache featureReaderCache;
+
     /**
      * Before traversal starts, create the feature readers
      * for all the input GVCFs, create the merged header and
@@ -493,9 +519,30 @@ public final class GenomicsDBImport extends GATKTool {
         logger.info("Complete VCF Header will be written to " + vcfHeaderFile);
         logger.info("Importing to array - " + workspaceDir + "/" + GenomicsDBConstants.DEFAULT_ARRAY_NAME);
 
+        initializeSchedule();
         initializeInputPreloadExecutorService();
     }
 
+    private void initializeSchedule() {
+        final int sampleCount = sampleNameToVcfPath.size();
+        if (doAdaptiveScheduling) {
+            final long bytesPerReader = vcfBufferSizePerSample + GenomicsDBImportScheduler.ESTIMATED_READER_OVERHEAD_BYTES +
+                    (Math.max(0, cloudPrefetchBuffer) + Math.max(0, cloudIndexPrefetchBuffer)) * 1024L * 1024L;
+            final GenomicsDBImportScheduler.Schedule schedule = GenomicsDBImportScheduler.plan(sampleCount, intervals.size(), batchSize,
+                    bytesPerReader, GenomicsDBImportScheduler.getHeapBudgetBytes(), GenomicsDBImportScheduler.getFileDescriptorBudget(),
+                    Runtime.getRuntime().availableProcessors());
+            logger.info("Adaptive scheduling chose " + schedule);
+            effectiveBatchSize = schedule.getBatchSize();
+            effectiveNumIntervalsToImportInParallel = schedule.getNumIntervalsInParallel();
+        } else {
+            effectiveBatchSize = (batchSize == DEFAULT_ZERO_BATCH_SIZE) ? sampleCount : batchSize;
+            effectiveNumIntervalsToImportInParallel = maxNumIntervalsToImportInParallel;
+        }
+        scheduler = new GenomicsDBImportScheduler(intervals.size());
+        featureReaderCache = new BatchFeatureReaderCache(
+                sampleName -> getReaderFromPath(IOUtils.getPath(sampleNameToVcfPath.get(sampleName).toString())));
+    }
+
     private void initializeInputPreloadExecutorService() {
         if( vcfInitializerThreads > 1) {
             if( intervals.size() == 1) {
@@ -517,6 +564,8 @@ public final class GenomicsDBImport extends GATKTool {
 
     private Map<String, FeatureReader<VariantContext>> createSampleToReaderMap(
             final Map<String, URI> sampleNameToVcfPath, final int batchSize, final int index) {
+        scheduler.onBatchStart(Math.min(batchSize, sampleNameToVcfPath.size() - index),
+                inputPreloadExecutorService != null ? null : featureReaderCache);
         // TODO: fix casting since it's really ugly
         return inputPreloadExecutorService != null ?
                 getFeatureReadersInParallel((SortedMap<String, URI>) sampleNameToVcfPath, batchSize, index)
@@ -526,6 +575,8 @@ public final class GenomicsDBImport extends GATKTool {
     private Void logMessageOnBatchCompletion(final BatchCompletionCallbackFunctionArgument arg) {
         progressMeter.update(intervals.get(0));
         logger.info("Done importing batch " + arg.batchCount + "/" + arg.totalBatchCount);
+        featureReaderCache.closeCachedReaders();
+        scheduler.onBatchCompletion(arg.batchCount, inputPreloadExecutorService != null ? null : featureReaderCache);
         this.batchCount = arg.batchCount + 1;
         return null;
     }
@@ -577,14 +628,12 @@ public final class GenomicsDBImport extends GATKTool {
         // Force the progress meter to update after every batch
         progressMeter.setRecordsBetweenTimeChecks(1L);
 
-        final int sampleCount = sampleNameToVcfPath.size();
-        final int updatedBatchSize = (batchSize == DEFAULT_ZERO_BATCH_SIZE) ? sampleCount : batchSize;
-        final ImportConfig importConfig = createImportConfig(updatedBatchSize);
+        final ImportConfig importConfig = createImportConfig(effectiveBatchSize);
 
         GenomicsDBImporter importer;
         try {
             importer = new GenomicsDBImporter(importConfig);
-            importer.executeImport(maxNumIntervalsToImportInParallel);
+            importer.executeImport(effectiveNumIntervalsToImportInParallel);
         } catch (final IOException e) {
             throw new UserException("Error initializing GenomicsDBImporter", e);
         } catch (final IllegalArgumentException iae) {
@@ -601,6 +650,9 @@ public final class GenomicsDBImport extends GATKTool {
         } else {
             logger.info("Import of all batches to GenomicsDB completed!");
         }
+        if (batchMetricsOutput != null) {
+            scheduler.writeBatchMetrics(getMetricsFile(), batchMetricsOutput);
+        }
         return true;
     }
 
@@ -645,15 +697,20 @@ public final class GenomicsDBImport extends GATKTool {
         return sampleToReaderMap;
     }
 
+    /**
+     * Method to create feature readers for input files in the current batch, reusing readers
+     * opened for previous intervals of the same batch
+     *
+     * @param sampleNameToPath  Sample name to file name mapping
+     * @param batchSize  Current batch size
+     * @param lowerSampleIndex  0-based Lower bound of sample index -- inclusive
+     * @return  Feature readers to be imported in the current batch, sorted by sample name
+     */
     private SortedMap<String, FeatureReader<VariantContext>> getFeatureReadersSerially(final Map<String, URI> sampleNameToPath,
                                                                                  final int batchSize, final int lowerSampleIndex){
-        final SortedMap<String, FeatureReader<VariantContext>> sampleToReaderMap = new TreeMap<>();
         final List<String> sampleNames = new ArrayList<>(sampleNameToPath.keySet());
-        for(int i = lowerSampleIndex; i < sampleNameToPath.size() && i < lowerSampleIndex+batchSize; ++i) {
-            final String sampleName = sampleNames.get(i);
-            final FeatureReader<VariantContext> reader = getReaderFromPath(IOUtils.getPath(sampleNameToPath.get(sampleName).toString()));
-            sampleToReaderMap.put(sampleName, reader);
-        }
+        final List<String> batchSampleNames = sampleNames.subList(lowerSampleIndex, Math.min(sampleNames.size(), lowerSampleIndex + batchSize));
+        final SortedMap<String, FeatureReader<VariantContext>> sampleToReaderMap = featureReaderCache.getReaders(batchSampleNames, lowerSampleIndex);
         logger.info("Importing batch " + this.batchCount + " with " + sampleToReaderMap.size() + " samples");
         return sampleToReaderMap;
     }
@@ -788,6 +845,9 @@ public final class GenomicsDBImport extends GATKTool {
         if(inputPreloadExecutorService != null) {
             inputPreloadExecutorService.shutdownNow();
         }
+        if(featureReaderCache != null) {
+            featureReaderCache.close();
+        }
     }
 
     /**
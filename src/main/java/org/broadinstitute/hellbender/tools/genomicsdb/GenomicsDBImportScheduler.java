@@ -0,0 +1,254 @@
+package org.broadinstitute.hellbender.tools.genomicsdb;
+
+import htsjdk.samtools.metrics.MetricBase;
+import htsjdk.samtools.metrics.MetricsFile;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.broadinstitute.hellbender.metrics.MetricsUtils;
+import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.param.ParamUtils;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Chooses the batch size and the number of intervals to import in parallel for {@link GenomicsDBImport},
+ * and records timing and memory metrics for each imported batch.
+ *
+ * <p>
+ *     Every interval imported in parallel holds an open reader (a data file and an index) and a VCF buffer of
+ *     {@code genomicsdb-vcf-buffer-size} bytes for every sample in the current batch.  The schedule is therefore chosen
+ *     so that (batch size) x (intervals in parallel) readers fit within a fraction of the available heap and of the
+ *     available file descriptors.  Intervals are imported in parallel up to the number of available processors and
+ *     the batch size is then made as large as the remaining budget allows, since fewer batches result in fewer
+ *     GenomicsDB fragments and fewer passes over the input files.
+ * </p>
+ *
+ * <p>
+ *     GenomicsDB fixes the batch size and interval concurrency for the duration of an import, so the schedule is
+ *     chosen before the import starts.  Throughput and heap usage observed for each batch are logged and collected
+ *     as {@link BatchMetrics}, so that they can be used to choose the schedule for subsequent imports; a warning is
+ *     emitted if the heap usage observed after a batch approaches the maximum heap size.
+ * </p>
+ */
+final class GenomicsDBImportScheduler {
+    private static final Logger logger = LogManager.getLogger(GenomicsDBImportScheduler.class);
+
+    //fractions of the available heap and file descriptors that may be used by readers and VCF buffers
+    static final double HEAP_FRACTION = 0.5;
+    static final double FILE_DESCRIPTOR_FRACTION = 0.8;
+
+    //a reader holds open both the data file and its index
+    static final int FILE_DESCRIPTORS_PER_READER = 2;
+
+    //estimated heap required by a reader (excluding the VCF buffer), dominated by the in-memory index
+    static final long ESTIMATED_READER_OVERHEAD_BYTES = 4L * 1024 * 1024;
+
+    static final long UNKNOWN_FILE_DESCRIPTOR_LIMIT = -1;
+
+    //fraction of the maximum heap size above which a warning is emitted after a batch
+    private static final double HEAP_WARNING_FRACTION = 0.9;
+
+    private static final long MB = 1024L * 1024L;
+
+    private final int numIntervals;
+    private final List<BatchMetrics> batchMetrics = new ArrayList<>();
+
+    //state of the batch currently being imported
+    private int currentBatchNumSamples = 0;
+    private long currentBatchStartTimeNanos = -1;
+    private int currentBatchStartNumReadersOpened;
+    private int currentBatchStartNumReadersReused;
+
+    /**
+     * Batch size and number of intervals to import in parallel.
+     */
+    static final class Schedule {
+        private final int batchSize;
+        private final int numIntervalsInParallel;
+
+        Schedule(final int batchSize,
+                 final int numIntervalsInParallel) {
+            this.batchSize = ParamUtils.isPositive(batchSize, "Batch size must be positive.");
+            this.numIntervalsInParallel = ParamUtils.isPositive(numIntervalsInParallel, "Number of intervals to import in parallel must be positive.");
+        }
+
+        int getBatchSize() {
+            return batchSize;
+        }
+
+        int getNumIntervalsInParallel() {
+            return numIntervalsInParallel;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("batch size = %d, intervals imported in parallel = %d", batchSize, numIntervalsInParallel);
+        }
+    }
+
+    /**
+     * Timing and memory metrics for a single imported batch.
+     */
+    public static final class BatchMetrics extends MetricBase {
+        /** 1-based index of the batch */
+        public int BATCH;
+        /** Number of samples in the batch */
+        public int SAMPLES;
+        /** Number of intervals imported for the batch */
+        public int INTERVALS;
+        /** Wall-clock time taken to import the batch, including opening readers */
+        public double ELAPSED_SECONDS;
+        /** Number of (sample, interval) pairs imported per second */
+        public double SAMPLE_INTERVALS_PER_SECOND;
+        /** Number of readers opened for the batch */
+        public int READERS_OPENED;
+        /** Number of times a reader opened for a previous interval of the batch was reused */
+        public int READERS_REUSED;
+        /** Heap in use upon completion of the batch, in megabytes */
+        public long HEAP_USED_MB;
+        /** Maximum heap size, in megabytes */
+        public long HEAP_MAX_MB;
+    }
+
+    /**
+     * @param numIntervals  number of intervals imported for each batch
+     */
+    GenomicsDBImportScheduler(final int numIntervals) {
+        this.numIntervals = ParamUtils.isPositive(numIntervals, "Number of intervals must be positive.");
+    }
+
+    /**
+     * Chooses a schedule such that (batch size) x (intervals in parallel) readers fit within the given budgets.
+     *
+     * @param numSamples                total number of samples to import
+     * @param numIntervals              number of intervals to import
+     * @param maxBatchSize              upper bound on the batch size, or 0 for no bound other than {@code numSamples}
+     * @param bytesPerReader            estimated heap required per open reader, including its VCF buffer
+     * @param heapBudgetBytes           heap available to readers
+     * @param fileDescriptorBudget      file descriptors available to readers, or {@link #UNKNOWN_FILE_DESCRIPTOR_LIMIT}
+     * @param numProcessors             number of available processors
+     */
+    static Schedule plan(final int numSamples,
+                         final int numIntervals,
+                         final int maxBatchSize,
+                         final long bytesPerReader,
+                         final long heapBudgetBytes,
+                         final long fileDescriptorBudget,
+                         final int numProcessors) {
+        ParamUtils.isPositive(numSamples, "Number of samples must be positive.");
+        ParamUtils.isPositive(numIntervals, "Number of intervals must be positive.");
+        ParamUtils.isPositiveOrZero(maxBatchSize, "Maximum batch size must be non-negative.");
+        ParamUtils.isPositive(bytesPerReader, "Bytes per reader must be positive.");
+        ParamUtils.isPositive(numProcessors, "Number of processors must be positive.");
+        Utils.validateArg(fileDescriptorBudget >= 0 || fileDescriptorBudget == UNKNOWN_FILE_DESCRIPTOR_LIMIT,
+                "File-descriptor budget must be non-negative or unknown.");
+
+        //total number of readers that may be open at once
+        long maxNumReaders = Math.max(1, heapBudgetBytes / bytesPerReader);
+        if (fileDescriptorBudget != UNKNOWN_FILE_DESCRIPTOR_LIMIT) {
+            maxNumReaders = Math.min(maxNumReaders, Math.max(1, fileDescriptorBudget / FILE_DESCRIPTORS_PER_READER));
+        }
+
+        final int numIntervalsInParallel = (int) Math.max(1, Math.min(Math.min(numIntervals, numProcessors), maxNumReaders));
+        final int batchSizeBound = maxBatchSize == 0 ? numSamples : Math.min(maxBatchSize, numSamples);
+        final int batchSize = (int) Math.max(1, Math.min(batchSizeBound, maxNumReaders / numIntervalsInParallel));
+        return new Schedule(batchSize, numIntervalsInParallel);
+    }
+
+    /**
+     * @return  heap that may be used by readers, given the current heap usage of this JVM
+     */
+    static long getHeapBudgetBytes() {
+        final Runtime runtime = Runtime.getRuntime();
+        final long availableHeapBytes = runtime.maxMemory() - (runtime.totalMemory() - runtime.freeMemory());
+        return (long) (HEAP_FRACTION * availableHeapBytes);
+    }
+
+    /**
+     * @return  file descriptors that may be used by readers, given the limit and current usage of this process,
+     *          or {@link #UNKNOWN_FILE_DESCRIPTOR_LIMIT} if they cannot be determined on this platform
+     */
+    static long getFileDescriptorBudget() {
+        final OperatingSystemMXBean operatingSystemMXBean = ManagementFactory.getOperatingSystemMXBean();
+        if (operatingSystemMXBean instanceof com.sun.management.UnixOperatingSystemMXBean) {
+            final com.sun.management.UnixOperatingSystemMXBean unixOperatingSystemMXBean =
+                    (com.sun.management.UnixOperatingSystemMXBean) operatingSystemMXBean;
+            final long availableFileDescriptors = unixOperatingSystemMXBean.getMaxFileDescriptorCount() - unixOperatingSystemMXBean.getOpenFileDescriptorCount();
+            return (long) (FILE_DESCRIPTOR_FRACTION * Math.max(0, availableFileDescriptors));
+        }
+        return UNKNOWN_FILE_DESCRIPTOR_LIMIT;
+    }
+
+    /**
+     * Marks the start of a batch, if it has not already been started.  Should be called whenever readers are requested.
+     */
+    synchronized void onBatchStart(final int numSamples,
+                                   final BatchFeatureReaderCache readerCache) {
+        if (currentBatchStartTimeNanos < 0) {
+            currentBatchNumSamples = numSamples;
+            currentBatchStartTimeNanos = System.nanoTime();
+            currentBatchStartNumReadersOpened = readerCache == null ? 0 : readerCache.getNumReadersOpened();
+            currentBatchStartNumReadersReused = readerCache == null ? 0 : readerCache.getNumReadersReused();
+        }
+    }
+
+    /**
+     * Records and logs metrics for the batch started by the last call to {@link #onBatchStart}.
+     *
+     * @param batch         1-based index of the completed batch
+     * @param readerCache   cache used to open readers for the batch, or null if readers were not cached
+     * @return  metrics for the completed batch
+     */
+    synchronized BatchMetrics onBatchCompletion(final int batch,
+                                                final BatchFeatureReaderCache readerCache) {
+        final double elapsedSeconds = currentBatchStartTimeNanos < 0 ? 0. : (System.nanoTime() - currentBatchStartTimeNanos) / 1E9;
+        final Runtime runtime = Runtime.getRuntime();
+        final long heapUsedBytes = runtime.totalMemory() - runtime.freeMemory();
+
+        final BatchMetrics metrics = new BatchMetrics();
+        metrics.BATCH = batch;
+        metrics.SAMPLES = currentBatchNumSamples;
+        metrics.INTERVALS = numIntervals;
+        metrics.ELAPSED_SECONDS = elapsedSeconds;
+        metrics.SAMPLE_INTERVALS_PER_SECOND = elapsedSeconds > 0. ? (double) currentBatchNumSamples * numIntervals / elapsedSeconds : 0.;
+        metrics.READERS_OPENED = readerCache == null ? currentBatchNumSamples * numIntervals : readerCache.getNumReadersOpened() - currentBatchStartNumReadersOpened;
+        metrics.READERS_REUSED = readerCache == null ? 0 : readerCache.getNumReadersReused() - currentBatchStartNumReadersReused;
+        metrics.HEAP_USED_MB = heapUsedBytes / MB;
+        metrics.HEAP_MAX_MB = runtime.maxMemory() / MB;
+        batchMetrics.add(metrics);
+
+        logger.info(String.format("Batch %d: imported %d samples in %d intervals in %.1f seconds (%.1f sample-intervals/second); " +
+                        "%d readers opened, %d reused; heap used %d MB of %d MB.",
+                metrics.BATCH, metrics.SAMPLES, metrics.INTERVALS, metrics.ELAPSED_SECONDS, metrics.SAMPLE_INTERVALS_PER_SECOND,
+                metrics.READERS_OPENED, metrics.READERS_REUSED, metrics.HEAP_USED_MB, metrics.HEAP_MAX_MB));
+        if (heapUsedBytes > HEAP_WARNING_FRACTION * runtime.maxMemory()) {
+            logger.warn(String.format("Heap usage after batch %d (%d MB) is close to the maximum heap size; " +
+                    "consider reducing the batch size or increasing the maximum heap size.", batch, metrics.HEAP_USED_MB));
+        }
+
+        currentBatchStartTimeNanos = -1;
+        return metrics;
+    }
+
+    /**
+     * @return  metrics for all completed batches, in order of completion
+     */
+    synchronized List<BatchMetrics> getBatchMetrics() {
+        return Collections.unmodifiableList(new ArrayList<>(batchMetrics));
+    }
+
+    /**
+     * Writes metrics for all completed batches to {@code metricsOutputPath}.
+     */
+    synchronized void writeBatchMetrics(final MetricsFile<BatchMetrics, Integer> metricsFile,
+                                        final String metricsOutputPath) {
+        Utils.nonNull(metricsFile);
+        Utils.nonNull(metricsOutputPath);
+        metricsFile.addAllMetrics(batchMetrics);
+        MetricsUtils.saveMetrics(metricsFile, metricsOutputPath);
+    }
+}
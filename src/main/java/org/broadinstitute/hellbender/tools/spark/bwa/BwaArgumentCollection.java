@@ -15,6 +15,8 @@ public class BwaArgumentCollection implements Serializable {
     public static final String SINGLE_END_ALIGNMENT_SHORT_NAME = "se";
     public static final String BWA_MEM_INDEX_IMAGE_FULL_NAME = "bwa-mem-index-image";
     public static final String BWA_MEM_INDEX_IMAGE_SHORT_NAME = "image";
+    public static final String BWA_MEM_INDEX_SHARED_DIRECTORY_FULL_NAME = "bwa-mem-index-shared-directory";
+    public static final String WARM_UP_BWA_MEM_INDEX_FULL_NAME = "warm-up-bwa-mem-index";
 
     /**
      * The BWA-MEM index image file name that you've distributed to each executor. The image file can be generated using
@@ -35,4 +37,24 @@ public class BwaArgumentCollection implements Serializable {
             shortName = SINGLE_END_ALIGNMENT_SHORT_NAME,
             optional = true)
     public boolean singleEndAlignment = false;
+
+    /**
+     * A directory on the local disk of each node in which the BWA-MEM index image is shared by all the executors on
+     * the node. The index is memory-mapped, so executors that open the same image file share a single physical copy
+     * of the index; without this, each executor maps the copy of the image distributed to it. This has no effect
+     * when the image is specified with --{@value #BWA_MEM_INDEX_IMAGE_FULL_NAME}, as executors then all open that file.
+     */
+    @Argument(doc = "Local directory in which to share the distributed BWA-MEM index image between all executors on a node",
+            fullName = BWA_MEM_INDEX_SHARED_DIRECTORY_FULL_NAME,
+            optional = true)
+    public String sharedIndexDirectory;
+
+    /**
+     * Load the BWA-MEM index image into memory on all executors before alignment starts, rather than on demand
+     * as the first reads are aligned.
+     */
+    @Argument(doc = "Load the BWA-MEM index image on all executors before alignment starts",
+            fullName = WARM_UP_BWA_MEM_INDEX_FULL_NAME,
+            optional = true)
+    public boolean warmUpIndex = false;
 }
@@ -33,6 +33,7 @@ public final class BwaSparkEngine implements AutoCloseable {
     private final JavaSparkContext ctx;
     private final String indexFileName;
     private final boolean resolveIndexFileName;
+    private final String sharedIndexDirectory;
     private final Broadcast<SAMFileHeader> broadcastHeader;
 
     /**
@@ -48,6 +49,28 @@ public final class BwaSparkEngine implements AutoCloseable {
                           final String indexFileName,
                           SAMFileHeader inputHeader,
                           final SAMSequenceDictionary refDictionary) {
+        this(ctx, referenceFile, indexFileName, inputHeader, refDictionary, null, false);
+    }
+
+    /**
+     * @param ctx           the Spark context
+     * @param referenceFile the path to the reference file named <i>_prefix_.fa</i>, which is used to find the image file with name <i>_prefix_.fa.img</i>.
+     *                      Can be <code>null</code> if the indexFileName is provided.
+     * @param indexFileName the index image file name that already exists, or <code>null</code> to have the image file automatically distributed.
+     * @param inputHeader   the SAM file header to use for reads
+     * @param refDictionary the sequence dictionary to use for reads if the SAM file header doesn't have one (or it's empty)
+     * @param sharedIndexDirectory a directory on the local disk of each node in which an automatically distributed image file
+     *                             is shared by all executors on the node (see {@link BwaMemIndexCache#getNodeLocalImage}),
+     *                             or <code>null</code> to have each executor use its own copy.
+     * @param warmUpIndex   whether to load the index on all executors before any reads are aligned
+     */
+    public BwaSparkEngine(final JavaSparkContext ctx,
+                          final String referenceFile,
+                          final String indexFileName,
+                          SAMFileHeader inputHeader,
+                          final SAMSequenceDictionary refDictionary,
+                          final String sharedIndexDirectory,
+                          final boolean warmUpIndex) {
         Utils.nonNull(referenceFile);
         Utils.nonNull(inputHeader);
         this.ctx = ctx;
@@ -60,6 +83,7 @@ public final class BwaSparkEngine implements AutoCloseable {
             this.indexFileName = IOUtils.getPath(indexFile).getFileName().toString();
             this.resolveIndexFileName = true;
         }
+        this.sharedIndexDirectory = resolveIndexFileName ? sharedIndexDirectory : null;
 
         if (inputHeader.getSequenceDictionary() == null || inputHeader.getSequenceDictionary().isEmpty()) {
             Utils.nonNull(refDictionary);
@@ -67,6 +91,32 @@ public final class BwaSparkEngine implements AutoCloseable {
             inputHeader.setSequenceDictionary(refDictionary);
         }
         broadcastHeader = ctx.broadcast(inputHeader);
+
+        if (warmUpIndex) {
+            warmUpDistributedInstances();
+        }
+    }
+
+    /**
+     * Loads the index in all the VMs involved in the spark context, so that alignment tasks don't wait on it.
+     */
+    private void warmUpDistributedInstances() {
+        final String indexFileName = this.indexFileName;
+        final boolean resolveIndexFileName = this.resolveIndexFileName;
+        final String sharedIndexDirectory = this.sharedIndexDirectory;
+        final int nJobs = ctx.defaultParallelism();
+        final List<Integer> jobList = new ArrayList<>(nJobs);
+        for ( int idx = 0; idx != nJobs; ++idx ) jobList.add(idx);
+        ctx.parallelize(jobList, nJobs).foreach(idx ->
+                BwaMemIndexCache.warmUp(getLocalIndexFileName(indexFileName, resolveIndexFileName, sharedIndexDirectory)));
+    }
+
+    private static String getLocalIndexFileName(final String indexFileName, final boolean resolveIndexFileName, final String sharedIndexDirectory) {
+        if ( !resolveIndexFileName ) {
+            return indexFileName;
+        }
+        final String localIndexFileName = SparkFiles.get(indexFileName);
+        return sharedIndexDirectory == null ? localIndexFileName : BwaMemIndexCache.getNodeLocalImage(localIndexFileName, sharedIndexDirectory);
     }
 
     public SAMFileHeader getHeader() { return broadcastHeader.getValue(); }
@@ -100,8 +150,9 @@ public final class BwaSparkEngine implements AutoCloseable {
         final Broadcast<SAMFileHeader> broadcastHeader = this.broadcastHeader;
         final String indexFileName = this.indexFileName;
         final boolean resolveIndexFileName = this.resolveIndexFileName;
+        final String sharedIndexDirectory = this.sharedIndexDirectory;
         return unalignedReads.mapPartitions(itr ->
-                new ReadAligner(resolveIndexFileName ? SparkFiles.get(indexFileName) : indexFileName, broadcastHeader.value(), pairedAlignment).apply(itr));
+                new ReadAligner(getLocalIndexFileName(indexFileName, resolveIndexFileName, sharedIndexDirectory), broadcastHeader.value(), pairedAlignment).apply(itr));
     }
 
     @Override
@@ -111,6 +162,7 @@ public final class BwaSparkEngine implements AutoCloseable {
     }
 
     private static final class ReadAligner {
+        private final String indexFileName;
         private final BwaMemIndex bwaMemIndex;
         private final SAMFileHeader readsHeader;
         private final boolean alignsPairs;
@@ -119,15 +171,24 @@ public final class BwaSparkEngine implements AutoCloseable {
         private static final int READS_PER_PARTITION_GUESS = 1500000;
 
         ReadAligner( final String indexFileName, final SAMFileHeader readsHeader, final boolean alignsPairs) {
-            this.bwaMemIndex = BwaMemIndexCache.getInstance(indexFileName);
-            this.readsHeader = readsHeader;
-            this.alignsPairs = alignsPairs;
             if ( alignsPairs && readsHeader.getSortOrder() != SAMFileHeader.SortOrder.queryname ) {
                 throw new UserException("Input must be queryname sorted unless you use single-ended alignment mode.");
             }
+            this.indexFileName = indexFileName;
+            this.bwaMemIndex = BwaMemIndexCache.acquireInstance(indexFileName);
+            this.readsHeader = readsHeader;
+            this.alignsPairs = alignsPairs;
         }
 
         Iterator<GATKRead> apply( final Iterator<GATKRead> readItr ) {
+            try {
+                return align(readItr);
+            } finally {
+                BwaMemIndexCache.releaseInstance(indexFileName);
+            }
+        }
+
+        private Iterator<GATKRead> align( final Iterator<GATKRead> readItr ) {
             final List<GATKRead> inputReads = new ArrayList<>(READS_PER_PARTITION_GUESS);
             while ( readItr.hasNext() ) {
                 inputReads.add(readItr.next());
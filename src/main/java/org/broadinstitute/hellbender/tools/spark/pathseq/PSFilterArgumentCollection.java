@@ -67,6 +67,10 @@ public final class PSFilterArgumentCollection implements Serializable {
             optional = true)
     public boolean alignedInput = false;
 
+    /**
+     * Files written by PathSeqBuildKmers with --memory-mapped-output are memory-mapped rather than loaded onto the heap,
+     * and must be on a local or shared file system that every executor can see.
+     */
     @Argument(doc = "Path to host k-mer file generated with PathSeqBuildKmers. K-mer filtering is skipped if this is not specified.",
             fullName = KMER_FILE_PATH_LONG_NAME,
             shortName = KMER_FILE_PATH_SHORT_NAME,
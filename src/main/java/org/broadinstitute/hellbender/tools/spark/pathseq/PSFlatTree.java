@@ -0,0 +1,117 @@
+package org.broadinstitute.hellbender.tools.spark.pathseq;
+
+import org.broadinstitute.hellbender.utils.Utils;
+
+import java.io.Serializable;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A compact, read-only copy of the structure of a {@link PSTree}, for scoring.
+ * <p>
+ * Nodes reachable from the root are numbered by their order in a depth-first traversal, so that the descendents of a
+ * node are the contiguous run of ordinals that follows it, and every node comes after its parent. Sums over subtrees can
+ * then be computed for the whole tree in one pass over arrays indexed by ordinal, from the last ordinal to the first,
+ * instead of walking the path to the root from each node.
+ */
+final class PSFlatTree implements Serializable {
+    private static final long serialVersionUID = 1L;
+    static final int NO_NODE = -1;
+
+    private final int[] taxIds;
+    private final Map<Integer, Integer> ordinals;
+    private final int[] parents;
+    private final int[] depths;
+    private final long[] lengths;
+    private final int[] kingdoms; // the nearest kingdom, superkingdom, or root ancestor (or self) of each node
+
+    PSFlatTree(final PSTree tree) {
+        Utils.nonNull(tree);
+        final int size = tree.getNodeIDs().size();
+        final int[] ids = new int[size];
+        final int[] parentOrdinals = new int[size];
+        ordinals = new HashMap<>(size * 2);
+
+        // pre-order traversal from the root
+        int nNodes = 0;
+        final Deque<int[]> stack = new ArrayDeque<>(); // pairs of tax ID and parent ordinal
+        stack.push(new int[]{tree.getRoot(), NO_NODE});
+        while (!stack.isEmpty()) {
+            final int[] entry = stack.pop();
+            final int taxId = entry[0];
+            ids[nNodes] = taxId;
+            parentOrdinals[nNodes] = entry[1];
+            ordinals.put(taxId, nNodes);
+            for (final int child : tree.getChildrenOf(taxId)) {
+                stack.push(new int[]{child, nNodes});
+            }
+            nNodes += 1;
+        }
+
+        taxIds = new int[nNodes];
+        System.arraycopy(ids, 0, taxIds, 0, nNodes);
+        parents = new int[nNodes];
+        System.arraycopy(parentOrdinals, 0, parents, 0, nNodes);
+        depths = new int[nNodes];
+        lengths = new long[nNodes];
+        kingdoms = new int[nNodes];
+        for (int ordinal = 0; ordinal != nNodes; ++ordinal) {
+            final int parent = parents[ordinal];
+            final String rank = tree.getRankOf(taxIds[ordinal]);
+            depths[ordinal] = parent == NO_NODE ? 0 : depths[parent] + 1;
+            lengths[ordinal] = tree.getLengthOf(taxIds[ordinal]);
+            kingdoms[ordinal] = parent == NO_NODE || taxIds[ordinal] == PSTaxonomyConstants.ROOT_ID ||
+                    PSTaxonomyConstants.KINGDOM_RANK_NAME.equals(rank) ||
+                    PSTaxonomyConstants.SUPERKINGDOM_RANK_NAME.equals(rank) ? ordinal : kingdoms[parent];
+        }
+    }
+
+    public int size() {
+        return taxIds.length;
+    }
+
+    /**
+     * Returns the ordinal of a node, or {@link #NO_NODE} if it isn't in the tree or can't be reached from the root
+     */
+    public int getOrdinal(final int taxId) {
+        final Integer ordinal = ordinals.get(taxId);
+        return ordinal == null ? NO_NODE : ordinal;
+    }
+
+    public int getTaxId(final int ordinal) {
+        return taxIds[ordinal];
+    }
+
+    /**
+     * Returns the ordinal of a node's parent, or {@link #NO_NODE} for the root
+     */
+    public int getParent(final int ordinal) {
+        return parents[ordinal];
+    }
+
+    public long getLength(final int ordinal) {
+        return lengths[ordinal];
+    }
+
+    /**
+     * Returns the ordinal of the node itself or its nearest ancestor that is a kingdom, superkingdom, or the root
+     */
+    public int getKingdom(final int ordinal) {
+        return kingdoms[ordinal];
+    }
+
+    /**
+     * Returns the ordinal of the lowest common ancestor of two nodes
+     */
+    public int getLCA(int ordinal1, int ordinal2) {
+        while (depths[ordinal1] > depths[ordinal2]) ordinal1 = parents[ordinal1];
+        while (depths[ordinal2] > depths[ordinal1]) ordinal2 = parents[ordinal2];
+        while (ordinal1 != ordinal2) {
+            ordinal1 = parents[ordinal1];
+            ordinal2 = parents[ordinal2];
+        }
+        return ordinal1;
+    }
+}
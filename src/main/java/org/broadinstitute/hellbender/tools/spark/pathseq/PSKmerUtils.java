@@ -12,10 +12,18 @@ import org.broadinstitute.hellbender.tools.spark.sv.utils.SVKmerShort;
 import org.broadinstitute.hellbender.tools.spark.sv.utils.SVKmerizer;
 import org.broadinstitute.hellbender.tools.spark.utils.LargeLongHopscotchSet;
 import org.broadinstitute.hellbender.tools.spark.utils.LongBloomFilter;
+import org.broadinstitute.hellbender.tools.spark.utils.MappedLongBloomFilter;
+import org.broadinstitute.hellbender.tools.spark.utils.MappedLongSet;
 import org.broadinstitute.hellbender.utils.gcs.BucketUtils;
+import org.broadinstitute.hellbender.utils.io.IOUtils;
 import org.broadinstitute.hellbender.utils.reference.ReferenceBases;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Map;
@@ -27,6 +35,10 @@ public class PSKmerUtils {
 
     public static final String HOPSCOTCH_SET_EXTENSION = ".hss";
     public static final String BLOOM_FILTER_EXTENSION = ".bfi";
+    public static final String MAPPED_HOPSCOTCH_SET_EXTENSION = ".mks";
+    public static final String MAPPED_BLOOM_FILTER_EXTENSION = ".mbf";
+    // the header of memory-mappable kmer files: a magic number, kmer size, kmer mask, and false positive probability
+    static final int MAPPED_HEADER_BYTES = 4 * Long.BYTES;
     private static final Logger logger = LogManager.getLogger(PSKmerUtils.class);
 
     /**
@@ -127,7 +139,80 @@ public class PSKmerUtils {
         writeKryoObject(bloomFilter, filePath);
     }
 
+    public static void writeMappedKmerSet(final String uri, final LargeLongHopscotchSet maskedKmerSet,
+                                          final int kmerSize, final SVKmerShort kmerMask) {
+        final String filePath = addExtension(uri, MAPPED_HOPSCOTCH_SET_EXTENSION);
+        try (final FileChannel channel = openMappedKmerFileForWriting(filePath)) {
+            writeMappedHeader(channel, PSMappedKmerSet.MAGIC, kmerSize, kmerMask, 0);
+            MappedLongSet.write(channel, MAPPED_HEADER_BYTES, maskedKmerSet.iterator(), maskedKmerSet.size());
+        } catch (final IOException e) {
+            throw new UserException.CouldNotCreateOutputFile(filePath, "failed to write memory-mapped kmer set", e);
+        }
+    }
+
+    public static void writeMappedKmerBloomFilter(final String uri, final LongBloomFilter maskedKmerBloomFilter,
+                                                  final int kmerSize, final SVKmerShort kmerMask,
+                                                  final double falsePositiveProbability) {
+        final String filePath = addExtension(uri, MAPPED_BLOOM_FILTER_EXTENSION);
+        try (final FileChannel channel = openMappedKmerFileForWriting(filePath)) {
+            writeMappedHeader(channel, PSMappedKmerBloomFilter.MAGIC, kmerSize, kmerMask, falsePositiveProbability);
+            MappedLongBloomFilter.write(channel, MAPPED_HEADER_BYTES, maskedKmerBloomFilter);
+        } catch (final IOException e) {
+            throw new UserException.CouldNotCreateOutputFile(filePath, "failed to write memory-mapped Bloom filter", e);
+        }
+    }
+
+    private static String addExtension(final String uri, final String extension) {
+        return uri.toLowerCase().endsWith(extension.toLowerCase()) ? uri : uri + extension;
+    }
+
+    private static FileChannel openMappedKmerFileForWriting(final String filePath) throws IOException {
+        return FileChannel.open(getMappablePath(filePath), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    /**
+     * Files can only be memory-mapped if they're on a file system that the OS can see, which may be a shared one.
+     */
+    static Path getMappablePath(final String uri) {
+        final Path path = IOUtils.getPath(uri);
+        if (path.getFileSystem() != FileSystems.getDefault()) {
+            throw new UserException.BadInput("Memory-mapped kmer files must be on a local or shared file system: " + uri);
+        }
+        return path;
+    }
+
+    private static void writeMappedHeader(final FileChannel channel, final long magic, final int kmerSize,
+                                          final SVKmerShort kmerMask, final double falsePositiveProbability) throws IOException {
+        final ByteBuffer header = ByteBuffer.allocate(MAPPED_HEADER_BYTES);
+        header.putLong(magic).putLong(kmerSize).putLong(kmerMask.getLong())
+                .putLong(Double.doubleToLongBits(falsePositiveProbability)).flip();
+        while (header.hasRemaining()) {
+            channel.write(header, header.position());
+        }
+    }
+
+    /**
+     * Reads the header of a memory-mappable kmer file, checking its magic number
+     * @return the kmer size, kmer mask, and bits of the false positive probability
+     */
+    static long[] readMappedHeader(final FileChannel channel, final long magic, final String uri) throws IOException {
+        final ByteBuffer header = ByteBuffer.allocate(MAPPED_HEADER_BYTES);
+        while (header.hasRemaining() && channel.read(header, header.position()) >= 0) {
+        }
+        header.flip();
+        if (header.remaining() != MAPPED_HEADER_BYTES || header.getLong() != magic) {
+            throw new UserException.BadInput("Not a memory-mapped kmer file of the expected type: " + uri);
+        }
+        return new long[]{header.getLong(), header.getLong(), header.getLong()};
+    }
+
     public static PSKmerCollection readKmerFilter(final String uri) {
+        if (uri.endsWith(MAPPED_HOPSCOTCH_SET_EXTENSION)) {
+            return PSMappedKmerSet.open(uri);
+        } else if (uri.endsWith(MAPPED_BLOOM_FILTER_EXTENSION)) {
+            return PSMappedKmerBloomFilter.open(uri);
+        }
         final Input input = new Input(BucketUtils.openFile(uri));
         final Kryo kryo = new Kryo();
         if (uri.endsWith(HOPSCOTCH_SET_EXTENSION)) {
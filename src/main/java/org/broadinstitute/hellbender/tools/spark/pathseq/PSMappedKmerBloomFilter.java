@@ -0,0 +1,66 @@
+package org.broadinstitute.hellbender.tools.spark.pathseq;
+
+import org.broadinstitute.hellbender.exceptions.UserException;
+import org.broadinstitute.hellbender.tools.spark.sv.utils.SVKmerShort;
+import org.broadinstitute.hellbender.tools.spark.utils.MappedLongBloomFilter;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Kmer Bloom filter that is memory-mapped from a file written by {@link PSKmerUtils#writeMappedKmerBloomFilter},
+ * rather than deserialized as a {@link PSKmerBloomFilter} is.  It opens in constant time, and executors on the same
+ * machine share it.
+ */
+public final class PSMappedKmerBloomFilter extends PSKmerCollection {
+
+    static final long MAGIC = 0x50534b6d65724231L; // "PSKmerB1"
+
+    private final MappedLongBloomFilter kmerSet;
+    private final int kmerSize;
+    private final SVKmerShort kmerMask;
+    private final double falsePositiveProbability;
+
+    private PSMappedKmerBloomFilter(final MappedLongBloomFilter kmerSet, final int kmerSize, final SVKmerShort kmerMask,
+                                    final double falsePositiveProbability) {
+        this.kmerSet = kmerSet;
+        this.kmerSize = kmerSize;
+        this.kmerMask = kmerMask;
+        this.falsePositiveProbability = falsePositiveProbability;
+    }
+
+    public static PSMappedKmerBloomFilter open(final String uri) {
+        try (final FileChannel channel = FileChannel.open(PSKmerUtils.getMappablePath(uri), StandardOpenOption.READ)) {
+            final long[] header = PSKmerUtils.readMappedHeader(channel, MAGIC, uri);
+            final MappedLongBloomFilter kmerSet = MappedLongBloomFilter.map(channel, PSKmerUtils.MAPPED_HEADER_BYTES);
+            return new PSMappedKmerBloomFilter(kmerSet, (int) header[0], new SVKmerShort(header[1]),
+                    Double.longBitsToDouble(header[2]));
+        } catch (final IOException e) {
+            throw new UserException.CouldNotReadInputFile("Could not map kmer Bloom filter " + uri, e);
+        }
+    }
+
+    /**
+     * Input should not be canonicalized/masked
+     */
+    @Override
+    public boolean contains(final SVKmerShort rawKmer) {
+        return kmerSet.contains(canonicalizeAndMask(rawKmer, kmerSize, kmerMask));
+    }
+
+    @Override
+    public int kmerSize() {
+        return kmerSize;
+    }
+
+    @Override
+    public SVKmerShort getMask() {
+        return kmerMask;
+    }
+
+    @Override
+    public double getFalsePositiveProbability() {
+        return falsePositiveProbability;
+    }
+}
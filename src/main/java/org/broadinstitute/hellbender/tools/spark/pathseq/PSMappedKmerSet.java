@@ -0,0 +1,70 @@
+package org.broadinstitute.hellbender.tools.spark.pathseq;
+
+import org.broadinstitute.hellbender.exceptions.UserException;
+import org.broadinstitute.hellbender.tools.spark.sv.utils.SVKmerShort;
+import org.broadinstitute.hellbender.tools.spark.utils.LongIterator;
+import org.broadinstitute.hellbender.tools.spark.utils.MappedLongSet;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Kmer hash set that is memory-mapped from a file written by {@link PSKmerUtils#writeMappedKmerSet}, rather than
+ * deserialized as a {@link PSKmerSet} is.  It opens in constant time, and executors on the same machine share it.
+ */
+public final class PSMappedKmerSet extends PSKmerCollection {
+
+    static final long MAGIC = 0x50534b6d65725331L; // "PSKmerS1"
+
+    private final MappedLongSet kmerSet;
+    private final int kmerSize;
+    private final SVKmerShort kmerMask;
+
+    private PSMappedKmerSet(final MappedLongSet kmerSet, final int kmerSize, final SVKmerShort kmerMask) {
+        this.kmerSet = kmerSet;
+        this.kmerSize = kmerSize;
+        this.kmerMask = kmerMask;
+    }
+
+    public static PSMappedKmerSet open(final String uri) {
+        try (final FileChannel channel = FileChannel.open(PSKmerUtils.getMappablePath(uri), StandardOpenOption.READ)) {
+            final long[] header = PSKmerUtils.readMappedHeader(channel, MAGIC, uri);
+            final MappedLongSet kmerSet = MappedLongSet.map(channel, PSKmerUtils.MAPPED_HEADER_BYTES);
+            return new PSMappedKmerSet(kmerSet, (int) header[0], new SVKmerShort(header[1]));
+        } catch (final IOException e) {
+            throw new UserException.CouldNotReadInputFile("Could not map kmer set " + uri, e);
+        }
+    }
+
+    /**
+     * Input should not be canonicalized/masked
+     */
+    @Override
+    public boolean contains(final SVKmerShort rawKmer) {
+        return kmerSet.contains(canonicalizeAndMask(rawKmer, kmerSize, kmerMask));
+    }
+
+    public LongIterator iterator() {
+        return kmerSet.iterator();
+    }
+
+    @Override
+    public int kmerSize() {
+        return kmerSize;
+    }
+
+    @Override
+    public SVKmerShort getMask() {
+        return kmerMask;
+    }
+
+    @Override
+    public double getFalsePositiveProbability() {
+        return 0;
+    }
+
+    public long setSize() {
+        return kmerSet.size();
+    }
+}
@@ -5,12 +5,10 @@ import com.esotericsoftware.kryo.io.Input;
 import htsjdk.samtools.*;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.apache.spark.api.java.JavaPairRDD;
 import org.apache.spark.api.java.JavaRDD;
 import org.apache.spark.api.java.JavaSparkContext;
 import org.apache.spark.broadcast.Broadcast;
 import org.broadinstitute.hellbender.exceptions.UserException;
-import org.broadinstitute.hellbender.tools.spark.sv.utils.SVUtils;
 import org.broadinstitute.hellbender.utils.Utils;
 import org.broadinstitute.hellbender.utils.gcs.BucketUtils;
 import org.broadinstitute.hellbender.utils.read.GATKRead;
@@ -45,6 +43,8 @@ public final class PSScorer {
                 unpairedReads, scoreArgs.readsPerPartitionEstimate);
 
         //Load taxonomy database, created by running PathSeqBuildReferenceTaxonomy with this reference
+        //Unlike the kmer libraries (see PathSeqBuildKmers --memory-mapped-output), there is no memory-mapped layout
+        //for the database, so every executor deserializes the whole broadcast copy onto its heap
         final PSTaxonomyDatabase taxDB = readTaxonomyDatabase(scoreArgs.taxonomyDatabasePath);
         final Broadcast<PSTaxonomyDatabase> taxonomyDatabaseBroadcast = ctx.broadcast(taxDB);
 
@@ -62,14 +62,19 @@ public final class PSScorer {
         final JavaRDD<GATKRead> readsFinal = flattenIterableKeys(readHits);
 
         //Compute taxonomic scores from the alignment hits
+        //Each partition sums scores over the hit taxa only, and the sums are propagated to ancestors once on the driver
         final JavaRDD<PSPathogenAlignmentHit> alignmentHits = readHits.map(Tuple2::_2);
         final boolean divideByGenomeLength = scoreArgs.divideByGenomeLength; //To prevent serialization of PSScorer
-        final JavaPairRDD<Integer, PSPathogenTaxonScore> taxScoresRdd = alignmentHits
-                .mapPartitionsToPair(iter -> computeTaxScores(iter, taxonomyDatabaseBroadcast.value(), divideByGenomeLength));
+        final PSFlatTree flatTree = new PSFlatTree(taxDB.tree);
+        final Broadcast<PSFlatTree> flatTreeBroadcast = ctx.broadcast(flatTree);
+        final PSTaxonScoreSums scoreSums = alignmentHits.treeAggregate(new PSTaxonScoreSums(),
+                (sums, hit) -> sums.add(hit, flatTreeBroadcast.value(), divideByGenomeLength),
+                PSTaxonScoreSums::merge);
+        logInvalidIds(scoreSums.getInvalidIds());
 
-        //Reduce scores by taxon and compute normalized scores
-        Map<Integer, PSPathogenTaxonScore> taxScoresMap = new HashMap<>(taxScoresRdd.reduceByKey(PSPathogenTaxonScore::add).collectAsMap());
-        taxScoresMap = computeNormalizedScores(taxScoresMap, taxDB.tree, scoreArgs.notNormalizedByKingdom);
+        //Compute normalized scores
+        final Map<Integer, PSPathogenTaxonScore> taxScoresMap = computeNormalizedScores(scoreSums.getTaxonScores(flatTree),
+                flatTree, scoreArgs.notNormalizedByKingdom);
 
         //Write scores to file
         writeScoresFile(taxScoresMap, taxDB.tree, scoreArgs.scoresPath);
@@ -280,61 +285,21 @@ public final class PSScorer {
     /**
      * Computes abundance scores and returns key-values of taxonomic id and scores
      */
-    public static Iterator<Tuple2<Integer, PSPathogenTaxonScore>> computeTaxScores(final Iterator<PSPathogenAlignmentHit> taxonHits,
-                                                                                  final PSTaxonomyDatabase taxonomyDatabase,
-                                                                                  final boolean divideByGenomeLength) {
-        final PSTree tree = taxonomyDatabase.tree;
-        final Map<Integer, PSPathogenTaxonScore> taxIdsToScores = new HashMap<>();
-        final Set<Integer> invalidIds = new HashSet<>();
+    static Iterator<Tuple2<Integer, PSPathogenTaxonScore>> computeTaxScores(final Iterator<PSPathogenAlignmentHit> taxonHits,
+                                                                           final PSFlatTree tree,
+                                                                           final boolean divideByGenomeLength) {
+        final PSTaxonScoreSums scoreSums = new PSTaxonScoreSums();
         while (taxonHits.hasNext()) {
-            final PSPathogenAlignmentHit hit = taxonHits.next();
-            final Set<Integer> hitTaxIds = new HashSet<>(hit.taxIDs);
-            final Set<Integer> hitInvalidTaxIds = new HashSet<>(SVUtils.hashMapCapacity(hitTaxIds.size()));
-            for (final int taxId : hitTaxIds) {
-                if (!tree.hasNode(taxId) || tree.getLengthOf(taxId) == 0) hitInvalidTaxIds.add(taxId);
-            }
-            hitTaxIds.removeAll(hitInvalidTaxIds);
-            invalidIds.addAll(hitInvalidTaxIds);
-
-            //Number of genomes hit by this read and number of mates in the tuple (1 for single, 2 for pair)
-            final int numHits = hitTaxIds.size();
-            if (numHits == 0) continue;
-
-            //Unambiguous read scores for the lowest common ancestor and its ancestors
-            final int lowestCommonAncestor = tree.getLCA(hitTaxIds);
-            final List<Integer> lcaPath = tree.getPathOf(lowestCommonAncestor);
-            for (final int taxId : lcaPath) {
-                getOrAddScoreInfo(taxId, taxIdsToScores, tree).addUnambiguousReads(hit.numMates);
-            }
-
-            //Scores normalized by genome length and degree of ambiguity (number of hits)
-            final Set<Integer> hitPathNodes = new HashSet<>(); //Set of all unique hits and ancestors
-            for (final int taxId : hitTaxIds) {
-                double score = hit.numMates / (double) numHits;
-                if (divideByGenomeLength) score *= SCORE_GENOME_LENGTH_UNITS / tree.getLengthOf(taxId);
-                //Get list containing this node and its ancestors
-                final List<Integer> path = tree.getPathOf(taxId);
-                hitPathNodes.addAll(path);
-                for (final int pathTaxId : path) {
-                    final PSPathogenTaxonScore info = getOrAddScoreInfo(pathTaxId, taxIdsToScores, tree);
-                    if (pathTaxId == taxId) {
-                        info.addSelfScore(score);
-                    } else {
-                        info.addDescendentScore(score);
-                    }
-                    taxIdsToScores.put(pathTaxId, info);
-                }
-            }
-
-            //"reads" score is the number of reads that COULD belong to each node i.e. an upper-bound
-            for (final int taxId : hitPathNodes) {
-                getOrAddScoreInfo(taxId, taxIdsToScores, tree).addTotalReads(hit.numMates);
-            }
+            scoreSums.add(taxonHits.next(), tree, divideByGenomeLength);
         }
+        logInvalidIds(scoreSums.getInvalidIds());
+        return scoreSums.getTaxonScores(tree).entrySet().stream().map(entry -> new Tuple2<>(entry.getKey(), entry.getValue())).iterator();
+    }
+
+    private static void logInvalidIds(final Set<Integer> invalidIds) {
         PSUtils.logItemizedWarning(logger, invalidIds, "The following taxonomic ID hits were ignored because " +
                 "they either could not be found in the tree or had a reference length of 0 (this may happen when " +
                 "the catalog file, taxdump file, and/or pathogen reference are inconsistent)");
-        return taxIdsToScores.entrySet().stream().map(entry -> new Tuple2<>(entry.getKey(), entry.getValue())).iterator();
     }
 
     /**
@@ -342,77 +307,33 @@ public final class PSScorer {
      * over all scores, plus the sum of its childrens' normalized scores. If normalizeByKingdom is true,
      * each taxon score is normalized by only the scores in its kingdom if it has one, otherwise superkingdom.
      */
-    static final Map<Integer, PSPathogenTaxonScore> computeNormalizedScores(final Map<Integer, PSPathogenTaxonScore> taxIdsToScores,
-                                                                           final PSTree tree, boolean notNormalizedByKingdom) {
-        //Get sum of all scores assigned under each superkingdom or the root node
-        final Map<Integer, Double> normalizationSums = new HashMap<>();
-        assignKingdoms(taxIdsToScores, normalizationSums, tree, notNormalizedByKingdom);
-
-        //Gets normalized selfScores and adds it to all ancestors
+    static Map<Integer, PSPathogenTaxonScore> computeNormalizedScores(final Map<Integer, PSPathogenTaxonScore> taxIdsToScores,
+                                                                     final PSFlatTree tree, boolean notNormalizedByKingdom) {
+        //Get sum of all scores assigned under each (super)kingdom or the root node
+        final double[] normalizationSums = new double[tree.size()];
         for (final Map.Entry<Integer, PSPathogenTaxonScore> entry : taxIdsToScores.entrySet()) {
-            final int taxId = entry.getKey();
-            final double selfScore = entry.getValue().getSelfScore();
-            final int kingdomTaxonId = entry.getValue().getKingdomTaxonId();
-            final double kingdomSum = normalizationSums.get(kingdomTaxonId);
-            final double normalizedScore;
-            if (kingdomSum == 0) {
-                normalizedScore = 0;
-            } else {
-                normalizedScore = 100.0 * selfScore / kingdomSum;
-            }
-            final List<Integer> path = tree.getPathOf(taxId);
-            for (final int pathTaxId : path) {
-                taxIdsToScores.get(pathTaxId).addScoreNormalized(normalizedScore);
-            }
+            final int ordinal = tree.getOrdinal(entry.getKey());
+            final int kingdom = notNormalizedByKingdom ? tree.getOrdinal(PSTaxonomyConstants.ROOT_ID) : tree.getKingdom(ordinal);
+            normalizationSums[kingdom] += entry.getValue().getSelfScore();
+            entry.getValue().setKingdomTaxonId(tree.getTaxId(kingdom));
         }
-        return taxIdsToScores;
-    }
 
-    /**
-     * Adds each node's score to its (super)kingdom's total in normalizationSums and assigns the node's PSPathogenTaxonScore
-     *  kingdom in taxIdsToScores. If the node does not have a kingdom, it is assigned to the root by default, which
-     *  is tallied as its own kingdom.
-     */
-    private static void assignKingdoms(final Map<Integer, PSPathogenTaxonScore> taxIdsToScores,
-                                      final Map<Integer, Double> normalizationSums,
-                                      final PSTree tree, final boolean notNormalizedByKingdom) {
+        //Gets normalized selfScores and adds them up the tree, visiting each subtree before its root
+        final double[] normalizedScores = new double[tree.size()];
         for (final Map.Entry<Integer, PSPathogenTaxonScore> entry : taxIdsToScores.entrySet()) {
-            final int taxonId = entry.getKey();
-            final PSPathogenTaxonScore score = entry.getValue();
-            if (!notNormalizedByKingdom) {
-                final List<Integer> path = tree.getPathOf(taxonId);
-                for (final int nodeId : path) {
-                    if (tree.getRankOf(nodeId).equals(PSTaxonomyConstants.KINGDOM_RANK_NAME) || tree.getRankOf(nodeId).equals(PSTaxonomyConstants.SUPERKINGDOM_RANK_NAME)
-                            || nodeId == PSTaxonomyConstants.ROOT_ID) {
-                        final double sum = normalizationSums.getOrDefault(nodeId, 0.);
-                        normalizationSums.put(nodeId, sum + score.getSelfScore());
-                        score.setKingdomTaxonId(nodeId);
-                        break;
-                    }
-                }
-            } else {
-                final double sum = normalizationSums.getOrDefault(PSTaxonomyConstants.ROOT_ID, 0.);
-                normalizationSums.put(PSTaxonomyConstants.ROOT_ID, sum + score.getSelfScore());
-                score.setKingdomTaxonId(PSTaxonomyConstants.ROOT_ID);
+            final double kingdomSum = normalizationSums[tree.getOrdinal(entry.getValue().getKingdomTaxonId())];
+            if (kingdomSum != 0) {
+                normalizedScores[tree.getOrdinal(entry.getKey())] = 100.0 * entry.getValue().getSelfScore() / kingdomSum;
             }
         }
-    }
-
-    /**
-     * Helper function for handling PSPathogenTaxonScore retrieval from the taxScores map
-     */
-    private static PSPathogenTaxonScore getOrAddScoreInfo(final int taxId,
-                                                          final Map<Integer, PSPathogenTaxonScore> taxScores,
-                                                          final PSTree tree) {
-        final PSPathogenTaxonScore score;
-        if (taxScores.containsKey(taxId)) {
-            score = taxScores.get(taxId);
-        } else {
-            score = new PSPathogenTaxonScore();
-            score.setReferenceLength(tree.getLengthOf(taxId));
-            taxScores.put(taxId, score);
+        for (int ordinal = tree.size() - 1; ordinal > 0; --ordinal) {
+            final int parent = tree.getParent(ordinal);
+            if (parent != PSFlatTree.NO_NODE) normalizedScores[parent] += normalizedScores[ordinal];
         }
-        return score;
+        for (final Map.Entry<Integer, PSPathogenTaxonScore> entry : taxIdsToScores.entrySet()) {
+            entry.getValue().addScoreNormalized(normalizedScores[tree.getOrdinal(entry.getKey())]);
+        }
+        return taxIdsToScores;
     }
 
     /**
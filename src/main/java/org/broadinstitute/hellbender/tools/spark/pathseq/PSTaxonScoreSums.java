@@ -0,0 +1,142 @@
+package org.broadinstitute.hellbender.tools.spark.pathseq;
+
+import org.broadinstitute.hellbender.utils.Utils;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Partial sums of the scores of a set of alignment hits, from which the {@link PSPathogenTaxonScore}s of every taxon can
+ * be computed.  Only the hit taxa (and a few of their common ancestors) are stored here, keyed by their ordinal in a
+ * {@link PSFlatTree}, so these are small enough to be combined by a tree-aggregation; propagation of the scores to the
+ * ancestors is deferred to {@link #getTaxonScores}, which does it once for all taxa.
+ * <p>
+ * A taxon's total reads is the number of reads with a hit in its subtree.  To count each read once for each taxon on the
+ * union of the paths from its hits to the root, the read is added to each hit and subtracted from the lowest common
+ * ancestor of each pair of hits that are adjacent in the tree's ordering: the sum over any subtree is then exactly the
+ * read's count if the subtree contains a hit, and 0 otherwise.
+ */
+final class PSTaxonScoreSums implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final Map<Integer, Sums> sumsByOrdinal = new HashMap<>();
+    private final Set<Integer> invalidIds = new HashSet<>();
+
+    static final class Sums implements Serializable {
+        private static final long serialVersionUID = 1L;
+        double selfScore;
+        int totalReads;
+        int unambiguousReads;
+    }
+
+    /**
+     * Adds the scores of a hit.  Hits on taxa that aren't in the tree, or that have a reference length of 0, are ignored
+     * and remembered in {@link #getInvalidIds}.
+     */
+    PSTaxonScoreSums add(final PSPathogenAlignmentHit hit, final PSFlatTree tree, final boolean divideByGenomeLength) {
+        Utils.nonNull(hit);
+        Utils.nonNull(tree);
+        final int[] ordinals = new int[hit.taxIDs.size()];
+        int numHits = 0;
+        for (final int taxId : hit.taxIDs) {
+            final int ordinal = tree.getOrdinal(taxId);
+            if (ordinal == PSFlatTree.NO_NODE || tree.getLength(ordinal) == 0) {
+                invalidIds.add(taxId);
+            } else {
+                ordinals[numHits++] = ordinal;
+            }
+        }
+        if (numHits == 0) return this;
+
+        //Sort and remove duplicates
+        Arrays.sort(ordinals, 0, numHits);
+        int numDistinct = 1;
+        for (int i = 1; i < numHits; i++) {
+            if (ordinals[i] != ordinals[numDistinct - 1]) ordinals[numDistinct++] = ordinals[i];
+        }
+        numHits = numDistinct;
+
+        int lowestCommonAncestor = ordinals[0];
+        for (int i = 0; i < numHits; i++) {
+            final int ordinal = ordinals[i];
+            double score = hit.numMates / (double) numHits;
+            if (divideByGenomeLength) score *= PSScorer.SCORE_GENOME_LENGTH_UNITS / tree.getLength(ordinal);
+            final Sums sums = getOrAddSums(ordinal);
+            sums.selfScore += score;
+            sums.totalReads += hit.numMates;
+            if (i > 0) {
+                getOrAddSums(tree.getLCA(ordinals[i - 1], ordinal)).totalReads -= hit.numMates;
+                lowestCommonAncestor = tree.getLCA(lowestCommonAncestor, ordinal);
+            }
+        }
+        getOrAddSums(lowestCommonAncestor).unambiguousReads += hit.numMates;
+        return this;
+    }
+
+    /**
+     * Adds other's sums to this, and returns this.
+     */
+    PSTaxonScoreSums merge(final PSTaxonScoreSums other) {
+        Utils.nonNull(other);
+        for (final Map.Entry<Integer, Sums> entry : other.sumsByOrdinal.entrySet()) {
+            final Sums sums = getOrAddSums(entry.getKey());
+            sums.selfScore += entry.getValue().selfScore;
+            sums.totalReads += entry.getValue().totalReads;
+            sums.unambiguousReads += entry.getValue().unambiguousReads;
+        }
+        invalidIds.addAll(other.invalidIds);
+        return this;
+    }
+
+    Set<Integer> getInvalidIds() {
+        return invalidIds;
+    }
+
+    /**
+     * Propagates the sums up the tree and returns the scores of every taxon with at least one read, by tax ID.
+     * Normalized scores and kingdoms are not assigned.
+     */
+    Map<Integer, PSPathogenTaxonScore> getTaxonScores(final PSFlatTree tree) {
+        Utils.nonNull(tree);
+        final int size = tree.size();
+        final double[] selfScores = new double[size];
+        final double[] descendentScores = new double[size];
+        final int[] totalReads = new int[size];
+        final int[] unambiguousReads = new int[size];
+        for (final Map.Entry<Integer, Sums> entry : sumsByOrdinal.entrySet()) {
+            final int ordinal = entry.getKey();
+            selfScores[ordinal] = entry.getValue().selfScore;
+            totalReads[ordinal] = entry.getValue().totalReads;
+            unambiguousReads[ordinal] = entry.getValue().unambiguousReads;
+        }
+
+        //Children always come after their parents, so a reverse pass visits each subtree before its root
+        final Map<Integer, PSPathogenTaxonScore> taxIdsToScores = new HashMap<>();
+        for (int ordinal = size - 1; ordinal >= 0; --ordinal) {
+            final int parent = tree.getParent(ordinal);
+            if (parent != PSFlatTree.NO_NODE) {
+                descendentScores[parent] += selfScores[ordinal] + descendentScores[ordinal];
+                totalReads[parent] += totalReads[ordinal];
+                unambiguousReads[parent] += unambiguousReads[ordinal];
+            }
+            if (totalReads[ordinal] > 0) {
+                final PSPathogenTaxonScore score = new PSPathogenTaxonScore();
+                score.addSelfScore(selfScores[ordinal]);
+                score.addDescendentScore(descendentScores[ordinal]);
+                score.addTotalReads(totalReads[ordinal]);
+                score.addUnambiguousReads(unambiguousReads[ordinal]);
+                score.setReferenceLength(tree.getLength(ordinal));
+                taxIdsToScores.put(tree.getTaxId(ordinal), score);
+            }
+        }
+        return taxIdsToScores;
+    }
+
+    private Sums getOrAddSums(final int ordinal) {
+        return sumsByOrdinal.computeIfAbsent(ordinal, key -> new Sums());
+    }
+}
@@ -202,6 +202,10 @@ public class PSTree {
         return tree.get(id).getChildren();
     }
 
+    public int getRoot() {
+        return root;
+    }
+
     public Set<Integer> getNodeIDs() {
         return tree.keySet();
     }
@@ -31,6 +31,12 @@ import java.util.Collection;
  *
  * <p>Note that the file formats used for storing these k-mer data structures are only readable by the PathSeq tools.</p>
  *
+ * <p>With --memory-mapped-output, the hash table or Bloom filter is instead written in a form that the PathSeq tools
+ * memory-map rather than load onto the Java heap. The file is then opened almost instantly, and all executors on a
+ * machine share a single copy of it through the OS page cache, instead of each deserializing its own. The file must be
+ * on a local or shared file system visible to every executor. A memory-mapped hash table is somewhat larger on disk
+ * than the default one.</p>
+ *
  * <h3>Input</h3>
  * <ul>
  *     <li>An indexed host reference in FASTA format</li>
@@ -86,10 +92,13 @@ public final class PathSeqBuildKmers extends CommandLineProgram {
     public static final String KMER_MASK_SHORT_NAME = "M";
     public static final String KMER_SPACING_LONG_NAME = "kmer-spacing";
     public static final String KMER_SPACING_SHORT_NAME = "SP";
+    public static final String MEMORY_MAPPED_OUTPUT_LONG_NAME = "memory-mapped-output";
 
     @Argument(doc = "File for k-mer set output. Extension will be automatically added if not present ("
             + PSKmerUtils.HOPSCOTCH_SET_EXTENSION + " for hash set or "
-            + PSKmerUtils.BLOOM_FILTER_EXTENSION + " for Bloom filter)",
+            + PSKmerUtils.BLOOM_FILTER_EXTENSION + " for Bloom filter, or "
+            + PSKmerUtils.MAPPED_HOPSCOTCH_SET_EXTENSION + " and " + PSKmerUtils.MAPPED_BLOOM_FILTER_EXTENSION
+            + " with --" + MEMORY_MAPPED_OUTPUT_LONG_NAME + ")",
             shortName = StandardArgumentDefinitions.OUTPUT_SHORT_NAME,
             fullName = StandardArgumentDefinitions.OUTPUT_LONG_NAME)
     public String outputFile;
@@ -146,6 +155,11 @@ public final class PathSeqBuildKmers extends CommandLineProgram {
             optional = true)
     public int kmerSpacing = 1;
 
+    @Argument(doc = "Write the k-mers in a form that is memory-mapped rather than loaded onto the heap when it is read",
+            fullName = MEMORY_MAPPED_OUTPUT_LONG_NAME,
+            optional = true)
+    public boolean memoryMappedOutput = false;
+
     /**
      * Get the list of distinct kmers in the reference, and write them to a file as a HopScotch set or Bloom filter.
      */
@@ -165,12 +179,20 @@ public final class PathSeqBuildKmers extends CommandLineProgram {
             final LongBloomFilter bloomFilter = PSKmerUtils.longArrayCollectionToBloomFilter(maskedKmerCollection, numLongs, bloomFpp);
             final PSKmerBloomFilter kmerBloomFilter = new PSKmerBloomFilter(bloomFilter, kmerSize, kmerMask, numLongs);
             logger.info("Theoretical Bloom filter false positive probability: " + kmerBloomFilter.getFalsePositiveProbability());
-            PSKmerUtils.writeKmerBloomFilter(outputFile, kmerBloomFilter);
+            if (memoryMappedOutput) {
+                PSKmerUtils.writeMappedKmerBloomFilter(outputFile, bloomFilter, kmerSize, kmerMask,
+                        kmerBloomFilter.getFalsePositiveProbability());
+            } else {
+                PSKmerUtils.writeKmerBloomFilter(outputFile, kmerBloomFilter);
+            }
         } else {
             logger.info("Building kmer hash set...");
             final LargeLongHopscotchSet kmerHopscotchSet = PSKmerUtils.longArrayCollectionToSet(maskedKmerCollection, numLongs);
-            final PSKmerSet kmerSet = new PSKmerSet(kmerHopscotchSet, kmerSize, kmerMask);
-            PSKmerUtils.writeKmerSet(outputFile, kmerSet);
+            if (memoryMappedOutput) {
+                PSKmerUtils.writeMappedKmerSet(outputFile, kmerHopscotchSet, kmerSize, kmerMask);
+            } else {
+                PSKmerUtils.writeKmerSet(outputFile, new PSKmerSet(kmerHopscotchSet, kmerSize, kmerMask));
+            }
         }
         return null;
     }
@@ -1,5 +1,8 @@
 package org.broadinstitute.hellbender.tools.spark.pipelines;
 
+import htsjdk.samtools.SAMSequenceDictionary;
+import htsjdk.variant.variantcontext.writer.Options;
+import htsjdk.variant.variantcontext.writer.VariantContextWriter;
 import org.apache.spark.api.java.JavaRDD;
 import org.apache.spark.api.java.JavaSparkContext;
 import org.broadinstitute.barclay.argparser.Argument;
@@ -8,10 +11,13 @@ import org.broadinstitute.barclay.argparser.CommandLineProgramProperties;
 import org.broadinstitute.barclay.help.DocumentedFeature;
 import org.broadinstitute.hellbender.cmdline.StandardArgumentDefinitions;
 import picard.cmdline.programgroups.VariantManipulationProgramGroup;
+import org.broadinstitute.hellbender.engine.spark.LocalPartitions;
 import org.broadinstitute.hellbender.engine.spark.VariantWalkerContext;
 import org.broadinstitute.hellbender.engine.spark.VariantWalkerSpark;
 import org.broadinstitute.hellbender.engine.spark.datasources.VariantsSparkSink;
 import org.broadinstitute.hellbender.exceptions.UserException;
+import org.broadinstitute.hellbender.utils.io.IOUtils;
+import org.broadinstitute.hellbender.utils.variant.GATKVariantContextUtils;
 
 import java.io.IOException;
 
@@ -54,6 +60,21 @@ public final class PrintVariantsSpark extends VariantWalkerSpark {
             optional = false)
     public String output;
 
+    @Override
+    protected boolean supportsLocalEngine() {
+        return true;
+    }
+
+    @Override
+    protected void processVariantsLocally(LocalPartitions<VariantWalkerContext> partitions) {
+        final SAMSequenceDictionary sequenceDictionary = getBestAvailableSequenceDictionary();
+        final Options[] options = createOutputVariantIndex && sequenceDictionary != null ? new Options[]{Options.INDEX_ON_THE_FLY} : new Options[0];
+        try (final VariantContextWriter writer = GATKVariantContextUtils.createVCFWriter(IOUtils.getPath(output), sequenceDictionary, false, options)) {
+            writer.writeHeader(getHeaderForVariants());
+            partitions.map(VariantWalkerContext::getVariant).iterator().forEachRemaining(writer::add);
+        }
+    }
+
     @Override
     protected void processVariants(JavaRDD<VariantWalkerContext> rdd, JavaSparkContext ctx) {
         try {
@@ -13,6 +13,7 @@ import org.broadinstitute.hellbender.cmdline.programgroups.StructuralVariantDisc
 import org.broadinstitute.hellbender.engine.spark.GATKSparkTool;
 import org.broadinstitute.hellbender.tools.spark.sv.StructuralVariationDiscoveryArgumentCollection;
 import org.broadinstitute.hellbender.tools.spark.sv.utils.SVInterval;
+import org.broadinstitute.hellbender.tools.spark.sv.utils.SVIntervalIndex;
 import org.broadinstitute.hellbender.tools.spark.sv.utils.SVIntervalTree;
 import org.broadinstitute.hellbender.tools.spark.utils.FlatMapGluer;
 import org.broadinstitute.hellbender.utils.read.GATKRead;
@@ -91,7 +92,8 @@ public final class ExtractSVEvidenceSpark extends GATKSparkTool {
 
         final SVIntervalTree<SVInterval> highCoverageSubintervalTree = findGenomewideHighCoverageIntervalsToIgnore(params,
                 readMetadata, ctx, getHeaderForReads(), unfilteredReads, filter, logger, broadcastMetadata);
-        final Broadcast<SVIntervalTree<SVInterval>> broadcastHighCoverageSubIntervals = ctx.broadcast(highCoverageSubintervalTree);
+        final Broadcast<SVIntervalIndex<SVInterval>> broadcastHighCoverageSubIntervals =
+                ctx.broadcast(new SVIntervalIndex<>(highCoverageSubintervalTree));
 
         unfilteredReads
             .mapPartitions(readItr -> {
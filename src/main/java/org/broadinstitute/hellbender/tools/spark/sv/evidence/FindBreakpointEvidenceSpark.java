@@ -28,6 +28,7 @@ import org.broadinstitute.hellbender.tools.spark.sv.evidence.BreakpointEvidence.
 import org.broadinstitute.hellbender.tools.spark.sv.utils.*;
 import org.broadinstitute.hellbender.tools.spark.utils.FlatMapGluer;
 import org.broadinstitute.hellbender.tools.spark.utils.HopscotchUniqueMultiMap;
+import org.broadinstitute.hellbender.tools.spark.utils.LongHopscotchSet;
 import org.broadinstitute.hellbender.utils.Utils;
 import org.broadinstitute.hellbender.utils.bwa.BwaMemIndexCache;
 import org.broadinstitute.hellbender.utils.gcs.BucketUtils;
@@ -288,7 +289,8 @@ public final class FindBreakpointEvidenceSpark extends GATKSparkTool {
         final SVIntervalTree<SVInterval> highCoverageSubintervalTree =
                 findGenomewideHighCoverageIntervalsToIgnore(params, readMetadata, ctx, header, unfilteredReads, filter, logger, broadcastMetadata);
 
-        final Broadcast<SVIntervalTree<SVInterval>> broadcastHighCoverageSubIntervals = ctx.broadcast(highCoverageSubintervalTree);
+        final SVIntervalIndex<SVInterval> highCoverageSubintervalIndex = new SVIntervalIndex<>(highCoverageSubintervalTree);
+        final Broadcast<SVIntervalIndex<SVInterval>> broadcastHighCoverageSubIntervals = ctx.broadcast(highCoverageSubintervalIndex);
 
         final Broadcast<List<List<BreakpointEvidence>>> broadcastExternalEvidence = ctx.broadcast(externalEvidence);
         final Tuple2<List<SVInterval>, List<EvidenceTargetLink>> intervalsAndEvidenceTargetLinks =
@@ -311,18 +313,7 @@ public final class FindBreakpointEvidenceSpark extends GATKSparkTool {
         final int nIntervalsAfterGapRemoval = intervals.size();
 
         // remove any intervals that happen to be completely contained in a high-depth region
-        final Iterator<SVInterval> intervalIterator = intervals.iterator();
-        while (intervalIterator.hasNext()) {
-            final SVInterval interval = intervalIterator.next();
-            final Iterator<SVIntervalTree.Entry<SVInterval>> overlappers = highCoverageSubintervalTree.overlappers(interval);
-            while (overlappers.hasNext()) {
-                final SVIntervalTree.Entry<SVInterval> next = overlappers.next();
-                if (next.getInterval().overlapLen(interval) == interval.getLength()) {
-                    intervalIterator.remove();
-                    break;
-                }
-            }
-        }
+        intervals.removeIf(interval -> filter.containedInRegionToIgnore(interval, highCoverageSubintervalIndex));
 
         final int nIntervalsAfterDepthCleaning = intervals.size();
         log("Removed " + (nIntervalsAfterGapRemoval - nIntervalsAfterDepthCleaning) + " intervals that were entirely high-depth.", logger);
@@ -630,6 +621,7 @@ public final class FindBreakpointEvidenceSpark extends GATKSparkTool {
             final Logger logger ) {
         final Broadcast<HopscotchUniqueMultiMap<SVKmer, Integer, KmerAndInterval>> broadcastKmersAndIntervals =
                 ctx.broadcast(kmersAndIntervals);
+        final Broadcast<LongHopscotchSet> broadcastKmerFingerprints = ctx.broadcast(getKmerFingerprints(kmersAndIntervals));
 
         final int kmersPerPartition = kmersAndIntervals.size();
         final int kSize = params.kSize;
@@ -649,7 +641,8 @@ public final class FindBreakpointEvidenceSpark extends GATKSparkTool {
                         .filter(filter::notJunk)
                         .filter(filter::isPrimaryLine)
                         .mapPartitions(readItr ->
-                            new KmerCounter(kSize,kmersPerPartition,broadcastKmersAndIntervals.getValue()).apply(readItr))
+                            new KmerCounter(kSize,kmersPerPartition,broadcastKmersAndIntervals.getValue(),
+                                            broadcastKmerFingerprints.getValue()).apply(readItr))
                         .mapToPair(kmerAndCount -> new Tuple2<>(kmerAndCount.getKey(), new IntPair(1, kmerAndCount.getValue())))
                         .reduceByKey(IntPair::reduce)
                         .filter(pair -> {
@@ -668,6 +661,7 @@ public final class FindBreakpointEvidenceSpark extends GATKSparkTool {
         }
 
         SparkUtils.destroyBroadcast(broadcastKmersAndIntervals, "kmers and intervals");
+        SparkUtils.destroyBroadcast(broadcastKmerFingerprints, "kmer fingerprints");
 
         log("Removed "+ubiquitousKmers.size()+" ubiquitous kmers.", logger);
 
@@ -685,6 +679,7 @@ public final class FindBreakpointEvidenceSpark extends GATKSparkTool {
             final SVReadFilter filter ) {
         final Broadcast<HopscotchUniqueMultiMap<SVKmer, Integer, KmerAndInterval>> broadcastKmersAndIntervals =
                 ctx.broadcast(kmerMultiMap);
+        final Broadcast<LongHopscotchSet> broadcastKmerFingerprints = ctx.broadcast(getKmerFingerprints(kmerMultiMap));
 
         final int kSize = params.kSize;
         final List<QNameAndInterval> qNamesAndIntervals =
@@ -692,14 +687,29 @@ public final class FindBreakpointEvidenceSpark extends GATKSparkTool {
                 .filter(filter::notJunk)
                 .filter(filter::isPrimaryLine)
                 .mapPartitions(readItr ->
-                        new FlatMapGluer<>(new QNameIntervalFinder(kSize,broadcastKmersAndIntervals.getValue()), readItr))
+                        new FlatMapGluer<>(new QNameIntervalFinder(kSize,broadcastKmersAndIntervals.getValue(),
+                                                                    broadcastKmerFingerprints.getValue()), readItr))
                 .collect();
 
         SparkUtils.destroyBroadcast(broadcastKmersAndIntervals, "cleaned kmers and intervals");
+        SparkUtils.destroyBroadcast(broadcastKmerFingerprints, "cleaned kmer fingerprints");
 
         return qNamesAndIntervals;
     }
 
+    /**
+     * The fingerprints of the kmers in a multimap, with which the kmers of reads can be screened cheaply before
+     * looking them up in the multimap itself.
+     */
+    @VisibleForTesting static LongHopscotchSet getKmerFingerprints(
+            final HopscotchUniqueMultiMap<SVKmer, Integer, KmerAndInterval> kmerMultiMap ) {
+        final LongHopscotchSet kmerFingerprints = new LongHopscotchSet(kmerMultiMap.size());
+        for ( final KmerAndInterval kmerAndInterval : kmerMultiMap ) {
+            kmerFingerprints.add(kmerAndInterval.fingerprint());
+        }
+        return kmerFingerprints;
+    }
+
     /** find kmers for each interval */
     @VisibleForTesting static Tuple2<List<AlignedAssemblyOrExcuse>, List<KmerAndInterval>> getKmerIntervals(
             final FindBreakpointEvidenceSparkArgumentCollection params,
@@ -951,7 +961,7 @@ public final class FindBreakpointEvidenceSpark extends GATKSparkTool {
             final List<SVInterval> intervals,
             final JavaRDD<GATKRead> unfilteredReads,
             final SVReadFilter filter,
-            final Broadcast<SVIntervalTree<SVInterval>> broadcastHighCoverageSubIntervals) {
+            final Broadcast<SVIntervalIndex<SVInterval>> broadcastHighCoverageSubIntervals) {
         final Broadcast<List<SVInterval>> broadcastIntervals = ctx.broadcast(intervals);
         final List<QNameAndInterval> qNameAndIntervalList =
                 unfilteredReads
@@ -981,7 +991,7 @@ public final class FindBreakpointEvidenceSpark extends GATKSparkTool {
             final SAMFileHeader header,
             final JavaRDD<GATKRead> unfilteredReads,
             final SVReadFilter filter,
-            final Logger logger, final Broadcast<SVIntervalTree<SVInterval>> highCoverageSubintervalTree) {
+            final Logger logger, final Broadcast<SVIntervalIndex<SVInterval>> highCoverageSubintervalTree) {
         // find all breakpoint evidence, then filter for pile-ups
         final int nContigs = header.getSequenceDictionary().getSequences().size();
         final int allowedOverhang = params.allowedShortFragmentOverhang;
@@ -3,9 +3,10 @@ package org.broadinstitute.hellbender.tools.spark.sv.evidence;
 import org.broadinstitute.hellbender.tools.spark.sv.utils.KmerAndCount;
 import org.broadinstitute.hellbender.tools.spark.sv.utils.SVKmer;
 import org.broadinstitute.hellbender.tools.spark.sv.utils.SVKmerLong;
-import org.broadinstitute.hellbender.tools.spark.sv.utils.SVKmerizer;
+import org.broadinstitute.hellbender.tools.spark.sv.utils.SVPackedKmerizer;
 import org.broadinstitute.hellbender.tools.spark.utils.HopscotchMap;
 import org.broadinstitute.hellbender.tools.spark.utils.HopscotchUniqueMultiMap;
+import org.broadinstitute.hellbender.tools.spark.utils.LongHopscotchSet;
 import org.broadinstitute.hellbender.utils.read.GATKRead;
 
 import java.util.Iterator;
@@ -13,31 +14,40 @@ import java.util.Iterator;
 /**
  * Iterates over reads, kmerizing them, and counting up just the kmers that appear in a passed-in set.
  * The counts are returned as a KmerAndCount iterator.
+ * A set of fingerprints of the kmers of interest lets most kmers be rejected without making an SVKmer to look them up.
  */
 public final class KmerCounter {
-    private final int kSize;
     private final int kmersPerPartitionGuess;
     private final HopscotchUniqueMultiMap<SVKmer, Integer, KmerAndInterval> kmerMap;
+    private final LongHopscotchSet kmerFingerprints;
+    private final SVPackedKmerizer kmerizer;
 
+    /**
+     * @param kmerFingerprints the {@link SVKmerLong#fingerprint()}s of the keys of kmerMap
+     */
     public KmerCounter( final int kSize, final int kmersPerPartitionGuess,
-                        final HopscotchUniqueMultiMap<SVKmer, Integer, KmerAndInterval> kmerMap ) {
-        this.kSize = kSize;
+                        final HopscotchUniqueMultiMap<SVKmer, Integer, KmerAndInterval> kmerMap,
+                        final LongHopscotchSet kmerFingerprints ) {
         this.kmerMap = kmerMap;
         this.kmersPerPartitionGuess = kmersPerPartitionGuess;
+        this.kmerFingerprints = kmerFingerprints;
+        this.kmerizer = new SVPackedKmerizer(kSize);
     }
 
     public Iterator<KmerAndCount> apply( final Iterator<GATKRead> readItr ) {
         final HopscotchMap<SVKmer, Integer, KmerAndCount> counts = new HopscotchMap<>(kmersPerPartitionGuess);
         while ( readItr.hasNext() ) {
             final GATKRead read = readItr.next();
-            SVKmerizer.canonicalStream(read.getBases(), kSize, new SVKmerLong())
-                    .forEach(kmer -> {
-                        if ( kmerMap.contains(kmer) ) {
-                            final KmerAndCount kmerAndCount = counts.find(kmer);
-                            if ( kmerAndCount != null ) kmerAndCount.bumpCount();
-                            else counts.add(new KmerAndCount((SVKmerLong)kmer));
-                        }
-                    });
+            final int nKmers = kmerizer.kmerize(read.getBases());
+            for ( int idx = 0; idx != nKmers; ++idx ) {
+                if ( !kmerFingerprints.contains(kmerizer.getFingerprint(idx)) ) continue;
+                final SVKmerLong kmer = kmerizer.getKmer(idx);
+                if ( kmerMap.contains(kmer) ) {
+                    final KmerAndCount kmerAndCount = counts.find(kmer);
+                    if ( kmerAndCount != null ) kmerAndCount.bumpCount();
+                    else counts.add(new KmerAndCount(kmer));
+                }
+            }
         }
         return counts.iterator();
     }
@@ -2,8 +2,9 @@ package org.broadinstitute.hellbender.tools.spark.sv.evidence;
 
 import org.broadinstitute.hellbender.tools.spark.sv.utils.SVKmer;
 import org.broadinstitute.hellbender.tools.spark.sv.utils.SVKmerLong;
-import org.broadinstitute.hellbender.tools.spark.sv.utils.SVKmerizer;
+import org.broadinstitute.hellbender.tools.spark.sv.utils.SVPackedKmerizer;
 import org.broadinstitute.hellbender.tools.spark.utils.HopscotchUniqueMultiMap;
+import org.broadinstitute.hellbender.tools.spark.utils.LongHopscotchSet;
 import org.broadinstitute.hellbender.utils.read.GATKRead;
 
 import java.util.ArrayList;
@@ -14,30 +15,38 @@ import java.util.function.Function;
 /**
  * Iterates over reads, kmerizing them, and checking the kmers against a set of KmerAndIntervals
  * to figure out which intervals (if any) a read belongs in.
+ * A set of fingerprints of the kmers in the set lets most kmers be rejected without making an SVKmer to look them up.
  * Results are returned as a QNameAndInterval iterator.
  */
 public final class QNameIntervalFinder implements Function<GATKRead,Iterator<QNameAndInterval>> {
-    private final int kSize;
     private final HopscotchUniqueMultiMap<SVKmer, Integer, KmerAndInterval> kmerMap;
+    private final LongHopscotchSet kmerFingerprints;
+    private final SVPackedKmerizer kmerizer;
 
-    public QNameIntervalFinder( final int kSize, final HopscotchUniqueMultiMap<SVKmer, Integer, KmerAndInterval> kmerMap ) {
-        this.kSize = kSize;
+    /**
+     * @param kmerFingerprints the {@link SVKmerLong#fingerprint()}s of the keys of kmerMap
+     */
+    public QNameIntervalFinder( final int kSize, final HopscotchUniqueMultiMap<SVKmer, Integer, KmerAndInterval> kmerMap,
+                                final LongHopscotchSet kmerFingerprints ) {
         this.kmerMap = kmerMap;
+        this.kmerFingerprints = kmerFingerprints;
+        this.kmerizer = new SVPackedKmerizer(kSize);
     }
 
     @Override
     public Iterator<QNameAndInterval> apply( final GATKRead read ) {
         final List<Integer> intervals = new ArrayList<>();
-        SVKmerizer.canonicalStream(read.getBases(), kSize, new SVKmerLong())
-                .forEach(kmer -> {
-                    final Iterator<KmerAndInterval> kmerAndIntervalIterator = kmerMap.findEach(kmer);
-                    while ( kmerAndIntervalIterator.hasNext() ) {
-                        final Integer intervalId = kmerAndIntervalIterator.next().getValue();
-                        if ( !intervals.contains(intervalId) ) {
-                            intervals.add(intervalId);
-                        }
-                    }
-                });
+        final int nKmers = kmerizer.kmerize(read.getBases());
+        for ( int idx = 0; idx != nKmers; ++idx ) {
+            if ( !kmerFingerprints.contains(kmerizer.getFingerprint(idx)) ) continue;
+            final Iterator<KmerAndInterval> kmerAndIntervalIterator = kmerMap.findEach(kmerizer.getKmer(idx));
+            while ( kmerAndIntervalIterator.hasNext() ) {
+                final Integer intervalId = kmerAndIntervalIterator.next().getValue();
+                if ( !intervals.contains(intervalId) ) {
+                    intervals.add(intervalId);
+                }
+            }
+        }
         final String qName = read.getName();
         return intervals.stream().map(intervalId -> new QNameAndInterval(qName, intervalId)).iterator();
     }
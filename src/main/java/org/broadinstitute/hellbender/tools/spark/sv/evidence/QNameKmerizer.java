@@ -1,8 +1,8 @@
 package org.broadinstitute.hellbender.tools.spark.sv.evidence;
 
-import org.broadinstitute.hellbender.tools.spark.sv.utils.SVDUSTFilteredKmerizer;
 import org.broadinstitute.hellbender.tools.spark.sv.utils.SVKmer;
 import org.broadinstitute.hellbender.tools.spark.sv.utils.SVKmerLong;
+import org.broadinstitute.hellbender.tools.spark.sv.utils.SVPackedKmerizer;
 import org.broadinstitute.hellbender.tools.spark.utils.HopscotchUniqueMultiMap;
 import org.broadinstitute.hellbender.utils.read.GATKRead;
 import scala.Tuple2;
@@ -20,9 +20,9 @@ import java.util.function.Function;
 public final class QNameKmerizer implements Function<GATKRead, Iterator<Tuple2<KmerAndInterval, Integer>>> {
     private final HopscotchUniqueMultiMap<String, Integer, QNameAndInterval> qNameAndIntervalMultiMap;
     private final Set<SVKmer> kmersToIgnore;
-    private final int kSize;
-    private final int maxDUSTScore;
     private final SVReadFilter filter;
+    private final SVPackedKmerizer kmerizer;
+    private final ArrayList<SVKmerLong> kmerList = new ArrayList<>();
     private final ArrayList<Tuple2<KmerAndInterval, Integer>> tupleList = new ArrayList<>();
 
     public QNameKmerizer( final HopscotchUniqueMultiMap<String, Integer, QNameAndInterval> qNameAndIntervalMultiMap,
@@ -30,9 +30,8 @@ public final class QNameKmerizer implements Function<GATKRead, Iterator<Tuple2<K
                           final SVReadFilter filter ) {
         this.qNameAndIntervalMultiMap = qNameAndIntervalMultiMap;
         this.kmersToIgnore = kmersToIgnore;
-        this.kSize = kSize;
-        this.maxDUSTScore = maxDUSTScore;
         this.filter = filter;
+        this.kmerizer = new SVPackedKmerizer(kSize, maxDUSTScore);
     }
 
     @Override
@@ -40,13 +39,21 @@ public final class QNameKmerizer implements Function<GATKRead, Iterator<Tuple2<K
         if ( !filter.notJunk(read) || !filter.isPrimaryLine(read) ) return Collections.emptyIterator();
         final String qName = read.getName();
         final Iterator<QNameAndInterval> names = qNameAndIntervalMultiMap.findEach(qName);
+        if ( !names.hasNext() ) return Collections.emptyIterator();
+
+        // kmerize the read just once, no matter how many intervals it belongs to
+        final int nKmers = kmerizer.kmerize(read.getBases());
+        kmerList.clear();
+        for ( int idx = 0; idx != nKmers; ++idx ) {
+            final SVKmerLong kmer = kmerizer.getKmer(idx);
+            if ( !kmersToIgnore.contains(kmer) ) kmerList.add(kmer);
+        }
         tupleList.clear();
         while ( names.hasNext() ) {
             final int intervalId = names.next().getIntervalId();
-            SVDUSTFilteredKmerizer.canonicalStream(read.getBases(), kSize, maxDUSTScore, new SVKmerLong())
-                    .filter(kmer -> !kmersToIgnore.contains(kmer))
-                    .map(kmer -> new KmerAndInterval(kmer, intervalId))
-                    .forEach(kmerCountAndInterval -> tupleList.add(new Tuple2<>(kmerCountAndInterval, 1)));
+            for ( final SVKmerLong kmer : kmerList ) {
+                tupleList.add(new Tuple2<>(new KmerAndInterval(kmer, intervalId), 1));
+            }
         }
         return tupleList.iterator();
     }
@@ -2,6 +2,7 @@ package org.broadinstitute.hellbender.tools.spark.sv.evidence;
 
 import biz.k11i.xgboost.Predictor;
 import biz.k11i.xgboost.learner.ObjFunction;
+import biz.k11i.xgboost.util.FVec;
 import com.google.common.annotations.VisibleForTesting;
 import htsjdk.samtools.CigarElement;
 import htsjdk.samtools.CigarOperator;
@@ -15,6 +16,7 @@ import org.broadinstitute.hellbender.tools.spark.sv.StructuralVariationDiscovery
 import org.broadinstitute.hellbender.tools.spark.sv.utils.*;
 import org.broadinstitute.hellbender.tools.spark.utils.IntHistogram;
 import org.broadinstitute.hellbender.utils.SimpleInterval;
+import org.broadinstitute.hellbender.utils.Utils;
 import org.broadinstitute.hellbender.utils.gcs.BucketUtils;
 import org.broadinstitute.hellbender.utils.io.IOUtils;
 
@@ -22,6 +24,9 @@ import org.broadinstitute.hellbender.tools.spark.sv.evidence.BreakpointEvidence.
 
 import java.io.*;
 import java.util.*;
+import java.util.function.IntPredicate;
+import java.util.function.ObjIntConsumer;
+import java.util.function.Predicate;
 
 /**
  * A class that acts as a filter for BreakpointEvidence.
@@ -44,6 +49,11 @@ public final class XGBoostEvidenceFilter implements Iterator<BreakpointEvidence>
     private static final int DEFAULT_GOOD_MAPPING_QUALITY = 60;
     private static final double NON_READ_MAPPING_QUALITY = DEFAULT_GOOD_MAPPING_QUALITY; // alternatively could be Double.NaN
     private static final double NON_READ_CIGAR_LENGTHS = 0.0; // alternatively could be Double.NaN
+    @VisibleForTesting static final int NUM_FEATURES = 17;
+    // evidence is scored in blocks of up to this many items, drawn from successive intervals
+    @VisibleForTesting static final int SCORING_BLOCK_SIZE = 128;
+    // no more intervals are drawn from the tree while this many are waiting to be decided or passed on
+    @VisibleForTesting static final int MAX_PENDING_INTERVALS = 4 * SCORING_BLOCK_SIZE;
 
     private final PartitionCrossingChecker partitionCrossingChecker;
 
@@ -54,8 +64,10 @@ public final class XGBoostEvidenceFilter implements Iterator<BreakpointEvidence>
     private final EvidenceOverlapChecker evidenceOverlapChecker;
     private final Map<BreakpointEvidence, UnscaledOverlapInfo> rawFeatureCache;
 
-    private Iterator<SVIntervalTree.Entry<List<BreakpointEvidence>>> treeItr;
     private Iterator<BreakpointEvidence> listItr;
+    private final IntervalBlockScorer intervalScorer;
+    private final double[] blockFeatures;
+    private final FeatureMatrixRow blockRow;
     private final FeatureDataSource<BEDFeature> genomeGaps;
     private final FeatureDataSource<BEDFeature> umapS100Mappability;
 
@@ -93,7 +105,18 @@ public final class XGBoostEvidenceFilter implements Iterator<BreakpointEvidence>
         rawFeatureCache = new HashMap<>();
 
         listItr = null;
-        treeItr = evidenceOverlapChecker.getTreeIterator();
+        blockFeatures = new double[SCORING_BLOCK_SIZE * NUM_FEATURES];
+        blockRow = new FeatureMatrixRow(blockFeatures);
+        intervalScorer = new IntervalBlockScorer(
+                evidenceOverlapChecker.getTreeIterator(),
+                // already validated (no need to mark validated again) or on partition boundary (punt for now)
+                entry -> isValidated(entry.getValue()) || partitionCrossingChecker.onBoundary(entry.getInterval()),
+                (evidence, row) -> fillFeatures(evidence, blockFeatures, row * NUM_FEATURES),
+                row -> {
+                    blockRow.setRow(row);
+                    return predictor.predictSingle(blockRow) > thresholdProbability;
+                },
+                SCORING_BLOCK_SIZE, MAX_PENDING_INTERVALS);
     }
 
     private static Map<Class<?>, Integer> evidenceTypeOrderToImmutableMap(final List<Class<?>> evidenceTypeOrder) {
@@ -130,25 +153,13 @@ public final class XGBoostEvidenceFilter implements Iterator<BreakpointEvidence>
         if ( listItr != null && listItr.hasNext() ) {
             return true;
         }
-        listItr = null;
-        boolean result = false;
-        while ( !result && treeItr.hasNext() ) {
-            final SVIntervalTree.Entry<List<BreakpointEvidence>> entry = treeItr.next();
-            final SVInterval curInterval = entry.getInterval();
-            final List<BreakpointEvidence> evidenceList = entry.getValue();
-            if( isValidated(entry.getValue()) || partitionCrossingChecker.onBoundary(curInterval) ) {
-                // already validated (no need to mark validated again) or on partition boundary (punt for now)
-                result = true;
-            } else if( anyPassesFilter(evidenceList) ) {
-                evidenceList.forEach(ev -> ev.setValidated(true));
-                result = true;
-            }
-
-            if ( result ) {
-                listItr = entry.getValue().iterator();
-            }
+        final List<BreakpointEvidence> passingEvidence = intervalScorer.nextPassingInterval();
+        if ( passingEvidence == null ) {
+            listItr = null;
+            return false;
         }
-        return result;
+        listItr = passingEvidence.iterator();
+        return true;
     }
 
     @Override
@@ -166,15 +177,6 @@ public final class XGBoostEvidenceFilter implements Iterator<BreakpointEvidence>
         return false;
     }
 
-    private boolean anyPassesFilter(final List<BreakpointEvidence> evidenceList) {
-        for(final BreakpointEvidence evidence : evidenceList) {
-            if(predictProbability(evidence) > thresholdProbability) {
-                return true;
-            }
-        }
-        return false;
-    }
-
     @VisibleForTesting
     double predictProbability(final BreakpointEvidence evidence) {
         return predictor.predictSingle(getFeatures(evidence));
@@ -185,6 +187,15 @@ public final class XGBoostEvidenceFilter implements Iterator<BreakpointEvidence>
      */
     @VisibleForTesting
     EvidenceFeatures getFeatures(final BreakpointEvidence evidence) {
+        final double[] values = new double[NUM_FEATURES];
+        fillFeatures(evidence, values, 0);
+        return new EvidenceFeatures(values);
+    }
+
+    /**
+     * Compute the features of a piece of BreakpointEvidence into NUM_FEATURES consecutive elements of an array
+     */
+    private void fillFeatures(final BreakpointEvidence evidence, final double[] values, final int offset) {
         // create new struct for these two, use CigarOperator to update if it's ReadEvidence
         final CigarQualityInfo cigarQualityInfo = new CigarQualityInfo(evidence);
         final double evidenceType = evidenceTypeMap.get(evidence.getClass());
@@ -204,18 +215,24 @@ public final class XGBoostEvidenceFilter implements Iterator<BreakpointEvidence>
 
         // either templateSize is defined (for ReadEvidence) or readCount (for TemplateSizeAnomaly).
         final double templateSizeOrReadCount = getTemplateSizeOrReadCount(evidence);
-        return new EvidenceFeatures(
-                new double[]{
-                        cigarQualityInfo.basesMatched, cigarQualityInfo.referenceLength, evidenceType, mappingQuality, templateSizeOrReadCount,
-                        individualOverlapInfo.numOverlap, individualOverlapInfo.totalOverlapMappingQuality,
-                        individualOverlapInfo.meanOverlapMappingQuality, individualOverlapInfo.numCoherent,
-                        individualOverlapInfo.totalCoherentMappingQuality,
-                        clusterOverlapInfo.numOverlap, clusterOverlapInfo.totalOverlapMappingQuality,
-                        clusterOverlapInfo.meanOverlapMappingQuality, clusterOverlapInfo.numCoherent,
-                        clusterOverlapInfo.totalCoherentMappingQuality,
-                        referenceGapOverlap, umapS100
-                }
-        );
+        int idx = offset;
+        values[idx++] = cigarQualityInfo.basesMatched;
+        values[idx++] = cigarQualityInfo.referenceLength;
+        values[idx++] = evidenceType;
+        values[idx++] = mappingQuality;
+        values[idx++] = templateSizeOrReadCount;
+        values[idx++] = individualOverlapInfo.numOverlap;
+        values[idx++] = individualOverlapInfo.totalOverlapMappingQuality;
+        values[idx++] = individualOverlapInfo.meanOverlapMappingQuality;
+        values[idx++] = individualOverlapInfo.numCoherent;
+        values[idx++] = individualOverlapInfo.totalCoherentMappingQuality;
+        values[idx++] = clusterOverlapInfo.numOverlap;
+        values[idx++] = clusterOverlapInfo.totalOverlapMappingQuality;
+        values[idx++] = clusterOverlapInfo.meanOverlapMappingQuality;
+        values[idx++] = clusterOverlapInfo.numCoherent;
+        values[idx++] = clusterOverlapInfo.totalCoherentMappingQuality;
+        values[idx++] = referenceGapOverlap;
+        values[idx] = umapS100;
     }
 
     /**
@@ -343,6 +360,157 @@ public final class XGBoostEvidenceFilter implements Iterator<BreakpointEvidence>
                 new UnscaledOverlapInfo(numOverlap, numCoherent, totalOverlapMappingQuality, totalCoherentMappingQuality));
     }
 
+    /**
+     * Decides, in order, which intervals of the overlap checker's tree pass the filter. An interval passes as a whole
+     * if any of its evidence passes.
+     * <p>
+     * The evidence of successive intervals is scored in blocks: the features of a block's rows are all computed, and
+     * then the rows are all scored, so that the classifier's trees stay in cache rather than being evicted by the
+     * overlap queries of the feature computation. The rows are still scored one at a time, as xgboost-predictor has no
+     * batch prediction. Each undecided interval contributes one item of evidence to a block, and none once an item
+     * passes, so no more features are computed than when scoring each interval on its own and stopping at the first
+     * item that passes.
+     */
+    @VisibleForTesting
+    static final class IntervalBlockScorer {
+        private final Iterator<SVIntervalTree.Entry<List<BreakpointEvidence>>> treeItr;
+        private final Predicate<SVIntervalTree.Entry<List<BreakpointEvidence>>> passesWithoutScoring;
+        private final ObjIntConsumer<BreakpointEvidence> rowFiller;
+        private final IntPredicate rowPasses;
+        private final int maxPendingIntervals;
+        private final ArrayDeque<PendingInterval> pendingIntervals;
+        private final PendingInterval[] blockIntervals;
+
+        /**
+         * @param treeItr the intervals of evidence, in order
+         * @param passesWithoutScoring whether an interval passes without having its evidence scored (and so without
+         *                             having its evidence marked as validated)
+         * @param rowFiller computes the features of an item of evidence into a row of the block
+         * @param rowPasses scores a row of the block, returning whether it passes
+         * @param blockSize the maximum number of rows in a block
+         * @param maxPendingIntervals no more intervals are drawn from {@code treeItr} while this many are pending
+         */
+        IntervalBlockScorer( final Iterator<SVIntervalTree.Entry<List<BreakpointEvidence>>> treeItr,
+                             final Predicate<SVIntervalTree.Entry<List<BreakpointEvidence>>> passesWithoutScoring,
+                             final ObjIntConsumer<BreakpointEvidence> rowFiller,
+                             final IntPredicate rowPasses,
+                             final int blockSize,
+                             final int maxPendingIntervals ) {
+            Utils.validateArg(blockSize > 0, "blockSize must be positive");
+            Utils.validateArg(maxPendingIntervals > 0, "maxPendingIntervals must be positive");
+            this.treeItr = treeItr;
+            this.passesWithoutScoring = passesWithoutScoring;
+            this.rowFiller = rowFiller;
+            this.rowPasses = rowPasses;
+            this.maxPendingIntervals = maxPendingIntervals;
+            pendingIntervals = new ArrayDeque<>();
+            blockIntervals = new PendingInterval[blockSize];
+        }
+
+        /**
+         * @return the evidence of the next interval that passes, or null if there are no more
+         */
+        List<BreakpointEvidence> nextPassingInterval() {
+            while ( true ) {
+                // intervals are passed on in order, once they've been decided
+                while ( !pendingIntervals.isEmpty() && pendingIntervals.peekFirst().isDecided() ) {
+                    final PendingInterval interval = pendingIntervals.pollFirst();
+                    if ( interval.passes ) {
+                        return interval.evidenceList;
+                    }
+                }
+                if ( pendingIntervals.isEmpty() && !treeItr.hasNext() ) {
+                    return null;
+                }
+                scoreNextBlock();
+            }
+        }
+
+        @VisibleForTesting
+        int getNumPendingIntervals() {
+            return pendingIntervals.size();
+        }
+
+        /**
+         * Fills a block with the next item of evidence from each undecided interval, pulling more intervals from the
+         * tree as needed, and scores it.
+         */
+        private void scoreNextBlock() {
+            int nRows = 0;
+            for ( final PendingInterval interval : pendingIntervals ) {
+                if ( nRows == blockIntervals.length ) break;
+                if ( !interval.isDecided() ) nRows = addToBlock(interval, nRows);
+            }
+            while ( nRows < blockIntervals.length && pendingIntervals.size() < maxPendingIntervals && treeItr.hasNext() ) {
+                final SVIntervalTree.Entry<List<BreakpointEvidence>> entry = treeItr.next();
+                final PendingInterval interval = new PendingInterval(entry.getValue());
+                if ( passesWithoutScoring.test(entry) ) {
+                    interval.passes = true;
+                } else {
+                    nRows = addToBlock(interval, nRows);
+                }
+                pendingIntervals.addLast(interval);
+            }
+
+            for ( int row = 0; row != nRows; ++row ) {
+                final PendingInterval interval = blockIntervals[row];
+                blockIntervals[row] = null;
+                if ( rowPasses.test(row) ) {
+                    interval.passes = true;
+                    interval.evidenceList.forEach(ev -> ev.setValidated(true));
+                }
+            }
+        }
+
+        private int addToBlock( final PendingInterval interval, final int nRows ) {
+            if ( interval.nScored < interval.evidenceList.size() ) {
+                rowFiller.accept(interval.evidenceList.get(interval.nScored++), nRows);
+                blockIntervals[nRows] = interval;
+                return nRows + 1;
+            }
+            return nRows;
+        }
+
+        /**
+         * The evidence from one interval of the tree, and how much of it has been scored.
+         */
+        private static final class PendingInterval {
+            private final List<BreakpointEvidence> evidenceList;
+            private int nScored; // the number of items of evidence added to blocks so far
+            private boolean passes;
+
+            private PendingInterval( final List<BreakpointEvidence> evidenceList ) {
+                this.evidenceList = evidenceList;
+            }
+
+            private boolean isDecided() {
+                return passes || nScored == evidenceList.size();
+            }
+        }
+    }
+
+    /**
+     * A view of one row of a block's feature matrix, for the Predictor.
+     */
+    private static final class FeatureMatrixRow implements FVec {
+        private static final long serialVersionUID = 1L;
+        private final double[] matrix;
+        private int offset;
+
+        private FeatureMatrixRow(final double[] matrix) {
+            this.matrix = matrix;
+        }
+
+        private void setRow(final int row) {
+            offset = row * NUM_FEATURES;
+        }
+
+        @Override
+        public double fvalue(final int index) {
+            return matrix[offset + index];
+        }
+    }
+
     private static class UnscaledOverlapInfo {
         final int numOverlap;
         final int numCoherent;
@@ -0,0 +1,366 @@
+package org.broadinstitute.hellbender.tools.spark.sv.utils;
+
+import com.esotericsoftware.kryo.DefaultSerializer;
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import org.broadinstitute.hellbender.exceptions.GATKException;
+import org.broadinstitute.hellbender.utils.Utils;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * An immutable index of intervals for fast overlap queries, built once from an {@link SVIntervalTree}.
+ * <p>
+ * The intervals are kept in the tree's sorted order in flat arrays of ints, one run of intervals per contig,
+ * and each run is treated as an implicit, augmented binary tree (the layout used by cgranges): the interval at
+ * index i of a run is a node at level k if the low k bits of i are all 1s and bit k is 0, and each node records the
+ * largest end among the intervals of its subtree.  Small subtrees are scanned linearly.
+ * So there is no per-interval object, no pointer chasing during a query, and the index is compact to serialize, which
+ * makes it a better choice than the tree itself for read-only lookups after construction, such as in a broadcast.
+ * <p>
+ * {@link #hasOverlapper} and {@link #overlappers} give the same answers, in the same order, as those of the tree.
+ * Entries are read-only.
+ */
+@DefaultSerializer(SVIntervalIndex.Serializer.class)
+public final class SVIntervalIndex<V> implements Iterable<SVIntervalTree.Entry<V>> {
+    // subtrees at this level or lower are scanned rather than descended
+    private static final int SCAN_LEVEL = 3;
+
+    private final int[] contigs;       // the distinct contigs, in ascending order
+    private final int[] contigOffsets; // the index of the first interval on each contig, and the total number of intervals
+    private final int[] maxLevels;     // the level of the root of each contig's implicit tree
+    private final int[] starts;
+    private final int[] ends;
+    private final int[] maxEnds;       // the largest end in the subtree of each interval
+    private final Object[] values;
+
+    public SVIntervalIndex( final SVIntervalTree<V> tree ) {
+        Utils.nonNull(tree, "tree may not be null");
+        final int size = tree.size();
+        starts = new int[size];
+        ends = new int[size];
+        maxEnds = new int[size];
+        values = new Object[size];
+        final int[] intervalContigs = new int[size];
+        int idx = 0;
+        for ( final SVIntervalTree.Entry<V> entry : tree ) {
+            final SVInterval interval = entry.getInterval();
+            intervalContigs[idx] = interval.getContig();
+            starts[idx] = interval.getStart();
+            ends[idx] = interval.getEnd();
+            values[idx] = entry.getValue();
+            idx += 1;
+        }
+        if ( idx != size ) {
+            throw new GATKException("SVIntervalTree size and iteration gave a different number of intervals.");
+        }
+
+        int nContigs = 0;
+        for ( idx = 0; idx != size; ++idx ) {
+            if ( idx == 0 || intervalContigs[idx] != intervalContigs[idx - 1] ) nContigs += 1;
+        }
+        contigs = new int[nContigs];
+        contigOffsets = new int[nContigs + 1];
+        maxLevels = new int[nContigs];
+        int contigIdx = 0;
+        for ( idx = 0; idx != size; ++idx ) {
+            if ( idx == 0 || intervalContigs[idx] != intervalContigs[idx - 1] ) {
+                contigs[contigIdx] = intervalContigs[idx];
+                contigOffsets[contigIdx++] = idx;
+            }
+        }
+        contigOffsets[nContigs] = size;
+        buildIndex();
+    }
+
+    private SVIntervalIndex( final Kryo kryo, final Input input ) {
+        final int nContigs = input.readInt();
+        contigs = new int[nContigs];
+        contigOffsets = new int[nContigs + 1];
+        maxLevels = new int[nContigs];
+        for ( int contigIdx = 0; contigIdx != nContigs; ++contigIdx ) {
+            contigs[contigIdx] = input.readInt();
+            contigOffsets[contigIdx + 1] = contigOffsets[contigIdx] + input.readInt();
+        }
+        final int size = contigOffsets[nContigs];
+        starts = new int[size];
+        ends = new int[size];
+        maxEnds = new int[size];
+        values = new Object[size];
+        for ( int idx = 0; idx != size; ++idx ) {
+            starts[idx] = input.readInt();
+            ends[idx] = input.readInt();
+            values[idx] = kryo.readClassAndObject(input);
+        }
+        buildIndex();
+    }
+
+    private void serialize( final Kryo kryo, final Output output ) {
+        final int nContigs = contigs.length;
+        output.writeInt(nContigs);
+        for ( int contigIdx = 0; contigIdx != nContigs; ++contigIdx ) {
+            output.writeInt(contigs[contigIdx]);
+            output.writeInt(contigOffsets[contigIdx + 1] - contigOffsets[contigIdx]);
+        }
+        final int size = size();
+        for ( int idx = 0; idx != size; ++idx ) {
+            output.writeInt(starts[idx]);
+            output.writeInt(ends[idx]);
+            kryo.writeClassAndObject(output, values[idx]);
+        }
+    }
+
+    // fills in maxEnds and maxLevels, given the sorted intervals of each contig
+    private void buildIndex() {
+        for ( int contigIdx = 0; contigIdx != contigs.length; ++contigIdx ) {
+            final int offset = contigOffsets[contigIdx];
+            final int nIntervals = contigOffsets[contigIdx + 1] - offset;
+
+            // leaves
+            int lastIdx = 0;
+            int lastMaxEnd = 0;
+            for ( int idx = 0; idx < nIntervals; idx += 2 ) {
+                lastIdx = idx;
+                lastMaxEnd = maxEnds[offset + idx] = ends[offset + idx];
+            }
+
+            // internal nodes, level by level.  lastIdx tracks the ancestors of the last interval, and lastMaxEnd the
+            // largest end beneath them, which stands in for the maxEnd of right children that are beyond the end.
+            int level = 1;
+            for ( ; (1L << level) <= nIntervals; ++level ) {
+                final int halfWidth = 1 << (level - 1);
+                final int step = halfWidth << 2;
+                for ( int idx = (halfWidth << 1) - 1; idx < nIntervals; idx += step ) {
+                    final int leftMaxEnd = maxEnds[offset + idx - halfWidth];
+                    final int rightMaxEnd = idx + halfWidth < nIntervals ? maxEnds[offset + idx + halfWidth] : lastMaxEnd;
+                    maxEnds[offset + idx] = Math.max(ends[offset + idx], Math.max(leftMaxEnd, rightMaxEnd));
+                }
+                lastIdx = ((lastIdx >> level) & 1) != 0 ? lastIdx - halfWidth : lastIdx + halfWidth;
+                if ( lastIdx < nIntervals && maxEnds[offset + lastIdx] > lastMaxEnd ) {
+                    lastMaxEnd = maxEnds[offset + lastIdx];
+                }
+            }
+            maxLevels[contigIdx] = level - 1;
+        }
+    }
+
+    /**
+     * Return the number of intervals in the index.
+     */
+    public int size() { return starts.length; }
+
+    /**
+     * Returns the interval at the specified index in sorted order, as {@link SVIntervalTree#findByIndex} would.
+     */
+    public Entry<V> getEntry( final int idx ) {
+        if ( idx < 0 || idx >= size() ) {
+            throw new IndexOutOfBoundsException("Index " + idx + " is not less than " + size());
+        }
+        return new Entry<>(this, idx);
+    }
+
+    /**
+     * Check the index against a probe interval to see if there's an overlapping interval.
+     *
+     * @param interval The interval sought.
+     * @return Whether or not there's an overlapping interval in this index.
+     */
+    public boolean hasOverlapper( final SVInterval interval ) {
+        return new OverlapIterator(interval).hasNext();
+    }
+
+    /**
+     * Return an iterator over all intervals overlapping the specified interval, in sorted order.
+     *
+     * @param interval Interval to be overlapped.
+     * @return An iterator.
+     */
+    public Iterator<SVIntervalTree.Entry<V>> overlappers( final SVInterval interval ) {
+        return new OverlapIterator(interval);
+    }
+
+    /**
+     * Return an iterator over the entire index, in sorted order.
+     */
+    @Override
+    public Iterator<SVIntervalTree.Entry<V>> iterator() {
+        return new Iterator<SVIntervalTree.Entry<V>>() {
+            private int nextIdx = 0;
+
+            @Override
+            public boolean hasNext() { return nextIdx < size(); }
+
+            @Override
+            public SVIntervalTree.Entry<V> next() {
+                if ( !hasNext() ) {
+                    throw new NoSuchElementException("No next element.");
+                }
+                return new Entry<>(SVIntervalIndex.this, nextIdx++);
+            }
+        };
+    }
+
+    private int getContigIdx( final int contig ) {
+        int lo = 0;
+        int hi = contigs.length - 1;
+        while ( lo <= hi ) {
+            final int mid = (lo + hi) >>> 1;
+            if ( contigs[mid] < contig ) lo = mid + 1;
+            else if ( contigs[mid] > contig ) hi = mid - 1;
+            else return mid;
+        }
+        return -1;
+    }
+
+    // the index of the contig of the idx'th interval
+    private int getContigIdxForInterval( final int idx ) {
+        int lo = 0;
+        int hi = contigs.length - 1;
+        while ( lo < hi ) {
+            final int mid = (lo + hi + 1) >>> 1;
+            if ( contigOffsets[mid] <= idx ) lo = mid;
+            else hi = mid - 1;
+        }
+        return lo;
+    }
+
+    /**
+     * An interval and its value, by reference to the index.
+     */
+    public static final class Entry<V1> implements SVIntervalTree.Entry<V1> {
+        private final SVIntervalIndex<V1> index;
+        private final int idx;
+
+        private Entry( final SVIntervalIndex<V1> index, final int idx ) {
+            this.index = index;
+            this.idx = idx;
+        }
+
+        @Override
+        public SVInterval getInterval() {
+            return new SVInterval(index.contigs[index.getContigIdxForInterval(idx)], index.starts[idx], index.ends[idx]);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public V1 getValue() { return (V1)index.values[idx]; }
+
+        @Override
+        public V1 setValue( final V1 value ) {
+            throw new UnsupportedOperationException("SVIntervalIndex is immutable.");
+        }
+    }
+
+    /**
+     * Walks the implicit tree of the probe interval's contig with an explicit stack, descending into the left subtree
+     * of a node only if something in it ends after the probe starts, and into the right subtree only if the node
+     * itself starts before the probe ends.
+     */
+    private final class OverlapIterator implements Iterator<SVIntervalTree.Entry<V>> {
+        private final int probeStart;
+        private final int probeEnd;
+        private final int offset;
+        private final int nIntervals;
+        // the stack of nodes yet to be visited: the index of the node, its level, and whether its left subtree is done
+        private final int[] stackIdxs;
+        private final int[] stackLevels;
+        private final boolean[] stackLeftDone;
+        private int stackSize;
+        private int scanIdx;
+        private int scanEnd;
+        private int nextIdx;
+
+        OverlapIterator( final SVInterval interval ) {
+            probeStart = interval.getStart();
+            probeEnd = interval.getEnd();
+            final int contigIdx = getContigIdx(interval.getContig());
+            if ( contigIdx < 0 ) {
+                offset = nIntervals = 0;
+                stackIdxs = stackLevels = null;
+                stackLeftDone = null;
+                nextIdx = -1;
+                return;
+            }
+            offset = contigOffsets[contigIdx];
+            nIntervals = contigOffsets[contigIdx + 1] - offset;
+            final int maxLevel = maxLevels[contigIdx];
+            final int maxStackSize = 2 * (maxLevel + 1);
+            stackIdxs = new int[maxStackSize];
+            stackLevels = new int[maxStackSize];
+            stackLeftDone = new boolean[maxStackSize];
+            push((1 << maxLevel) - 1, maxLevel, false);
+            nextIdx = advance();
+        }
+
+        @Override
+        public boolean hasNext() { return nextIdx >= 0; }
+
+        @Override
+        public SVIntervalTree.Entry<V> next() {
+            if ( nextIdx < 0 ) {
+                throw new NoSuchElementException("No next element.");
+            }
+            final Entry<V> entry = new Entry<>(SVIntervalIndex.this, offset + nextIdx);
+            nextIdx = advance();
+            return entry;
+        }
+
+        // returns the index (relative to offset) of the next overlapper, or -1 if there are no more
+        private int advance() {
+            while ( true ) {
+                if ( scanIdx < scanEnd ) {
+                    final int idx = scanIdx++;
+                    if ( starts[offset + idx] >= probeEnd ) {
+                        scanIdx = scanEnd;
+                    } else if ( probeStart < ends[offset + idx] ) {
+                        return idx;
+                    }
+                    continue;
+                }
+                if ( stackSize == 0 ) {
+                    return -1;
+                }
+                stackSize -= 1;
+                final int idx = stackIdxs[stackSize];
+                final int level = stackLevels[stackSize];
+                if ( level <= SCAN_LEVEL ) {
+                    scanIdx = (idx >> level) << level;
+                    scanEnd = Math.min(scanIdx + (1 << (level + 1)) - 1, nIntervals);
+                } else if ( !stackLeftDone[stackSize] ) {
+                    push(idx, level, true);
+                    // the left child always exists in the implicit tree, but may be beyond the end of the run
+                    final int leftIdx = idx - (1 << (level - 1));
+                    if ( leftIdx >= nIntervals || maxEnds[offset + leftIdx] > probeStart ) {
+                        push(leftIdx, level - 1, false);
+                    }
+                } else if ( idx < nIntervals && starts[offset + idx] < probeEnd ) {
+                    push(idx + (1 << (level - 1)), level - 1, false);
+                    if ( probeStart < ends[offset + idx] ) {
+                        return idx;
+                    }
+                }
+            }
+        }
+
+        private void push( final int idx, final int level, final boolean leftDone ) {
+            stackIdxs[stackSize] = idx;
+            stackLevels[stackSize] = level;
+            stackLeftDone[stackSize] = leftDone;
+            stackSize += 1;
+        }
+    }
+
+    public static final class Serializer<T> extends com.esotericsoftware.kryo.Serializer<SVIntervalIndex<T>> {
+        @Override
+        public void write( final Kryo kryo, final Output output, final SVIntervalIndex<T> index ) {
+            index.serialize(kryo, output);
+        }
+
+        @Override
+        public SVIntervalIndex<T> read( final Kryo kryo, final Input input, final Class<SVIntervalIndex<T>> klass ) {
+            return new SVIntervalIndex<>(kryo, input);
+        }
+    }
+}
@@ -38,7 +38,7 @@ public class SVKmerLong extends SVKmer implements Comparable<SVKmerLong>  {
         this.valLow = thatLong.valLow;
     }
 
-    private SVKmerLong( final long valHigh, final long valLow ) { this.valHigh = valHigh; this.valLow = valLow; }
+    SVKmerLong( final long valHigh, final long valLow ) { this.valHigh = valHigh; this.valLow = valLow; }
 
     protected SVKmerLong( final Kryo kryo, final Input input ) {
         valHigh = input.readLong();
@@ -137,6 +137,18 @@ public class SVKmerLong extends SVKmer implements Comparable<SVKmerLong>  {
         return (int)SVUtils.fnvLong64(SVUtils.fnvLong64(valHigh), valLow);
     }
 
+    /**
+     * A 63-bit hash of this kmer (so, a non-negative value suitable for a LongHopscotchSet).
+     * Equal kmers have equal fingerprints, and unequal kmers very probably have unequal fingerprints.
+     */
+    public final long fingerprint() {
+        return fingerprint(valHigh, valLow);
+    }
+
+    static long fingerprint( final long valHigh, final long valLow ) {
+        return SVUtils.fnvLong64(SVUtils.fnvLong64(valHigh), valLow) & Long.MAX_VALUE;
+    }
+
     /**
      * SVKmerLong comparison is consistent with equals.
      * It's also the same as the lexicographic ordering you'd get using toString on the Kmers.
@@ -0,0 +1,126 @@
+package org.broadinstitute.hellbender.tools.spark.sv.utils;
+
+import org.broadinstitute.hellbender.utils.Utils;
+
+import java.util.Arrays;
+
+/**
+ * Kmerizes sequences into canonical kmers without allocating an object per kmer.
+ *
+ * Each kmer is held as the pair of packed longs that back an {@link SVKmerLong}, in arrays that are reused from one
+ * sequence to the next, so that callers need only make an {@link SVKmerLong} for the kmers they keep.
+ * The reverse-complement is rolled along with the kmer, rather than computed afresh for each position.
+ * The kmers produced, and their order, are the same as those of {@link SVKmerizer#canonicalStream} or, given a
+ * maximum DUST score, {@link SVDUSTFilteredKmerizer#canonicalStream}, with an {@link SVKmerLong} prototype.
+ *
+ * {@link #getFingerprint} gives a 63-bit hash of a kmer, suitable for storing in a
+ * {@link org.broadinstitute.hellbender.tools.spark.utils.LongHopscotchSet}, which lets callers check cheaply
+ * whether a kmer might be in some set of {@link SVKmerLong}s before making an object to look it up.
+ *
+ * Instances are not thread-safe.
+ */
+public final class SVPackedKmerizer {
+    public static final int NO_DUST_FILTER = Integer.MAX_VALUE;
+
+    private final int kSize;
+    private final int maxDUSTScore;
+    private final long mask;
+    private final int[] trimerCounts = new int[64];
+    private long[] valHighs = new long[0];
+    private long[] valLows = new long[0];
+    private int nKmers;
+
+    /**
+     * Makes a kmerizer that produces all canonical kmers.
+     * @param kSize must be odd (so that kmers have a canonical form), and between 7 and 63
+     */
+    public SVPackedKmerizer( final int kSize ) {
+        this(kSize, NO_DUST_FILTER);
+    }
+
+    /**
+     * Makes a kmerizer that produces the canonical kmers having a DUST score no larger than maxDUSTScore.
+     * @param kSize must be odd (so that kmers have a canonical form), and between 7 and 63
+     */
+    public SVPackedKmerizer( final int kSize, final int maxDUSTScore ) {
+        Utils.validateArg(kSize > 6 && kSize < 64 && (kSize & 1) != 0, "Kmer length must be odd, and between 7 and 63.");
+        this.kSize = kSize;
+        this.maxDUSTScore = maxDUSTScore;
+        this.mask = (1L << kSize) - 1L;
+    }
+
+    /**
+     * Kmerizes a sequence, replacing the kmers of the previous one.
+     * Silently skips over parts of the sequence that have characters other than A, C, G, or T.
+     * @return the number of kmers
+     */
+    public int kmerize( final byte[] seq ) {
+        final int maxKmers = Math.max(seq.length - kSize + 1, 0);
+        if ( valHighs.length < maxKmers ) {
+            valHighs = new long[maxKmers];
+            valLows = new long[maxKmers];
+        }
+        nKmers = 0;
+
+        // the DUST score is tracked just as SVDUSTFilteredKmerizer does, starting from a poly-A kmer
+        Arrays.fill(trimerCounts, 0);
+        final int polyACount = kSize - 2;
+        trimerCounts[0] = polyACount;
+        int curDUSTScore = polyACount*(polyACount - 1)/2;
+
+        // the kmer and its reverse-complement, as the most and least significant kSize bits of each
+        long valHigh = 0L, valLow = 0L;
+        long rcHigh = 0L, rcLow = 0L;
+        int validBaseCount = 0;
+        for ( final byte call : seq ) {
+            curDUSTScore -= --trimerCounts[(int)(valHigh >>> (kSize - 6))];
+            long base;
+            switch ( call ) {
+                case 'a': case 'A': base = 0L; break;
+                case 'c': case 'C': base = 1L; break;
+                case 'g': case 'G': base = 2L; break;
+                case 't': case 'T': base = 3L; break;
+                default: base = 0L; validBaseCount = -1; break;
+            }
+            // roll the new base onto the end of the kmer, and its complement onto the start of the reverse-complement
+            valHigh = ((valHigh << 2) | (valLow >> (kSize - 2))) & mask;
+            valLow = ((valLow << 2) | base) & mask;
+            rcLow = ((rcLow >> 2) | (rcHigh << (kSize - 2))) & mask;
+            rcHigh = ((rcHigh >> 2) | ((3L - base) << (kSize - 2))) & mask;
+            curDUSTScore += trimerCounts[(int)valLow & 0x3F]++;
+
+            if ( ++validBaseCount >= kSize && curDUSTScore <= maxDUSTScore ) {
+                // the kmer is canonical if its middle base, whose high bit is the low bit of valHigh, is A or C
+                if ( (valHigh & 1L) == 0 ) {
+                    valHighs[nKmers] = valHigh;
+                    valLows[nKmers] = valLow;
+                } else {
+                    valHighs[nKmers] = rcHigh;
+                    valLows[nKmers] = rcLow;
+                }
+                nKmers += 1;
+            }
+        }
+        return nKmers;
+    }
+
+    /** The number of kmers in the last sequence kmerized. */
+    public int size() { return nKmers; }
+
+    /** Makes an SVKmerLong for the idx'th kmer of the last sequence kmerized. */
+    public SVKmerLong getKmer( final int idx ) {
+        return new SVKmerLong(valHighs[checkIndex(idx)], valLows[idx]);
+    }
+
+    /** The fingerprint of the idx'th kmer of the last sequence kmerized. See {@link SVKmerLong#fingerprint()}. */
+    public long getFingerprint( final int idx ) {
+        return SVKmerLong.fingerprint(valHighs[checkIndex(idx)], valLows[idx]);
+    }
+
+    private int checkIndex( final int idx ) {
+        if ( idx < 0 || idx >= nKmers ) {
+            throw new IndexOutOfBoundsException("Kmer index " + idx + " is not less than " + nKmers);
+        }
+        return idx;
+    }
+}
@@ -39,7 +39,7 @@ public final class LongBloomFilter {
             4294967311L, 8589934609L, 17179869209L, 34359738337L, 68719476767L,
             137438953481L, 274877906951L, 549755813881L, 1099511627791L};
 
-    private final static long HASH_SEED_2 = 0x6cebe6dca7f118a6L;
+    final static long HASH_SEED_2 = 0x6cebe6dca7f118a6L;
 
     public LongBloomFilter(final long numElements, final double fpp) {
         Utils.validateArg(numElements > 0, "Number of elements must be greater than 0");
@@ -183,10 +183,33 @@ public final class LongBloomFilter {
      * Structures & Algorithms. 33:2, 187-218.
      */
     private long applyHashFunction(final int i, final long fnvHash1, final long fnvHash2) {
+        return applyHashFunction(i, fnvHash1, fnvHash2, totalBits);
+    }
+
+    static long applyHashFunction(final int i, final long fnvHash1, final long fnvHash2, final long totalBits) {
         final long result = (fnvHash1+ i * fnvHash2) % totalBits;
         return result < 0 ? result + totalBits : result;
     }
 
+    long getTotalBits() {
+        return totalBits;
+    }
+
+    int getNumHashes() {
+        return numHashes;
+    }
+
+    /**
+     * Copies the filter's bits, 8 to a byte, to a mapped region starting at the given position
+     */
+    void copyBitsTo(final MappedFileRegion region, long pos) {
+        for (final byte[] array : buckets) {
+            for (final byte b : array) {
+                region.putByte(pos++, b);
+            }
+        }
+    }
+
     /**
      * Determines partition corresponding to the given the bit index
      */
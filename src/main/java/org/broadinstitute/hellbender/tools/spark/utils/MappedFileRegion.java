@@ -0,0 +1,63 @@
+package org.broadinstitute.hellbender.tools.spark.utils;
+
+import org.broadinstitute.hellbender.utils.Utils;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * A region of a file mapped into memory.  The region is mapped in chunks, so that it can be larger than the 2GB limit
+ * on a single mapping.  Chunks are a multiple of 8 bytes long, so longs at positions that are a multiple of 8 never
+ * span two chunks.
+ * <p>
+ * The mapping remains valid after the channel is closed, and is released when this object is garbage collected.
+ * Reads are thread-safe; writes are not.
+ */
+final class MappedFileRegion {
+    private static final int CHUNK_BITS = 30;
+    private static final long CHUNK_MASK = (1L << CHUNK_BITS) - 1L;
+
+    private final MappedByteBuffer[] chunks;
+    private final long length;
+
+    /**
+     * @param mode either READ_ONLY, or READ_WRITE (in which case the file is extended to cover the region as necessary)
+     */
+    MappedFileRegion( final FileChannel channel, final FileChannel.MapMode mode,
+                      final long offset, final long length ) throws IOException {
+        Utils.nonNull(channel);
+        Utils.validateArg(offset >= 0 && length >= 0, "Mapped region cannot have a negative offset or length");
+        this.length = length;
+        chunks = new MappedByteBuffer[(int)((length + CHUNK_MASK) >>> CHUNK_BITS)];
+        for ( int chunkIdx = 0; chunkIdx != chunks.length; ++chunkIdx ) {
+            final long chunkStart = (long)chunkIdx << CHUNK_BITS;
+            chunks[chunkIdx] = channel.map(mode, offset + chunkStart, Math.min(length - chunkStart, 1L << CHUNK_BITS));
+        }
+    }
+
+    long length() { return length; }
+
+    long getLong( final long pos ) {
+        return chunks[(int)(pos >>> CHUNK_BITS)].getLong((int)(pos & CHUNK_MASK));
+    }
+
+    void putLong( final long pos, final long value ) {
+        chunks[(int)(pos >>> CHUNK_BITS)].putLong((int)(pos & CHUNK_MASK), value);
+    }
+
+    byte getByte( final long pos ) {
+        return chunks[(int)(pos >>> CHUNK_BITS)].get((int)(pos & CHUNK_MASK));
+    }
+
+    void putByte( final long pos, final byte value ) {
+        chunks[(int)(pos >>> CHUNK_BITS)].put((int)(pos & CHUNK_MASK), value);
+    }
+
+    /** Writes any changes through to the file. */
+    void force() {
+        for ( final MappedByteBuffer chunk : chunks ) {
+            chunk.force();
+        }
+    }
+}
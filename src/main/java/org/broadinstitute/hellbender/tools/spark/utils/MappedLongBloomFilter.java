@@ -0,0 +1,85 @@
+package org.broadinstitute.hellbender.tools.spark.utils;
+
+import org.broadinstitute.hellbender.exceptions.GATKException;
+import org.broadinstitute.hellbender.tools.spark.sv.utils.SVUtils;
+import org.broadinstitute.hellbender.utils.Utils;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+
+/**
+ * A read-only {@link LongBloomFilter} that lives in a memory-mapped file, so that it can be opened in constant time and
+ * shared through the page cache by all processes on a machine (see {@link MappedLongSet}).
+ * It uses the same hash functions as {@link LongBloomFilter}, and so gives exactly the same answers.
+ * <p>
+ * Starting at some offset in the file, the layout is: the number of bits and the number of hash functions, as
+ * big-endian longs, and then the bits, 8 to a byte, lowest bit first.
+ */
+public final class MappedLongBloomFilter {
+    private static final int HEADER_BYTES = 2 * Long.BYTES;
+
+    private final MappedFileRegion bits;
+    private final long totalBits;
+    private final int numHashes;
+
+    private MappedLongBloomFilter( final MappedFileRegion bits, final long totalBits, final int numHashes ) {
+        this.bits = bits;
+        this.totalBits = totalBits;
+        this.numHashes = numHashes;
+    }
+
+    /**
+     * Maps a filter that was written by {@link #write} at the given offset in a file.
+     * The channel may be closed once this returns.
+     */
+    public static MappedLongBloomFilter map( final FileChannel channel, final long offset ) throws IOException {
+        final MappedFileRegion header = new MappedFileRegion(channel, FileChannel.MapMode.READ_ONLY, offset, HEADER_BYTES);
+        final long totalBits = header.getLong(0);
+        final long numHashes = header.getLong(Long.BYTES);
+        if ( totalBits <= 0 || numHashes <= 0 || numHashes > Integer.MAX_VALUE ||
+                offset + getSerializedSize(totalBits) > channel.size() ) {
+            throw new GATKException("Invalid header for mapped Bloom filter: bits " + totalBits + ", hashes " + numHashes);
+        }
+        final MappedFileRegion bits =
+                new MappedFileRegion(channel, FileChannel.MapMode.READ_ONLY, offset + HEADER_BYTES, getNumBytes(totalBits));
+        return new MappedLongBloomFilter(bits, totalBits, (int)numHashes);
+    }
+
+    /**
+     * Writes a Bloom filter at the given offset in a file.
+     * @return the number of bytes written
+     */
+    public static long write( final FileChannel channel, final long offset, final LongBloomFilter filter ) throws IOException {
+        Utils.nonNull(filter);
+        final long totalBits = filter.getTotalBits();
+        final long serializedSize = getSerializedSize(totalBits);
+        final MappedFileRegion region = new MappedFileRegion(channel, FileChannel.MapMode.READ_WRITE, offset, serializedSize);
+        region.putLong(0, totalBits);
+        region.putLong(Long.BYTES, filter.getNumHashes());
+        filter.copyBitsTo(region, HEADER_BYTES);
+        region.force();
+        return serializedSize;
+    }
+
+    public boolean contains( final long key ) {
+        final long hash1 = SVUtils.fnvLong64(key);
+        final long hash2 = SVUtils.fnvLong64(LongBloomFilter.HASH_SEED_2, key);
+        for (int i = 0; i < numHashes; i++) {
+            final long bitIndex = LongBloomFilter.applyHashFunction(i, hash1, hash2, totalBits);
+            if ( (bits.getByte(bitIndex >>> 3) & (1 << (bitIndex & 7))) == 0 ) return false;
+        }
+        return true;
+    }
+
+    public long getTotalBits() { return totalBits; }
+
+    public int getNumHashes() { return numHashes; }
+
+    private static long getNumBytes( final long totalBits ) {
+        return (totalBits + 7) >>> 3;
+    }
+
+    private static long getSerializedSize( final long totalBits ) {
+        return HEADER_BYTES + getNumBytes(totalBits);
+    }
+}
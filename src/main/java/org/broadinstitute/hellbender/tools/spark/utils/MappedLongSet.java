@@ -0,0 +1,153 @@
+package org.broadinstitute.hellbender.tools.spark.utils;
+
+import org.broadinstitute.hellbender.exceptions.GATKException;
+import org.broadinstitute.hellbender.tools.spark.sv.utils.SVUtils;
+import org.broadinstitute.hellbender.utils.Utils;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.util.NoSuchElementException;
+
+/**
+ * A read-only set of non-negative longs that lives in a memory-mapped file.
+ * <p>
+ * Opening the set takes constant time, whatever its size: nothing is read onto the heap, and pages of the file are
+ * brought in by the OS as they are probed.  All processes on a machine that map the same file share a single copy of
+ * it in the page cache.  This makes it suitable for very large sets that would otherwise take minutes to deserialize
+ * into a {@link LargeLongHopscotchSet} in every executor.
+ * <p>
+ * The set is an open-addressed hash table with linear probing, and it's laid out as follows, starting at some offset in
+ * the file: the number of buckets (a power of 2), the number of elements, and then the buckets, each of which holds an
+ * element or -1 if it's empty.  All values are big-endian longs.
+ */
+public final class MappedLongSet {
+    // the table is sized so that the load factor is between MAX_LOAD_FACTOR/2 and MAX_LOAD_FACTOR
+    private static final double MAX_LOAD_FACTOR = .75;
+    private static final long EMPTY_BUCKET = -1L;
+    private static final int HEADER_BYTES = 2 * Long.BYTES;
+
+    private final MappedFileRegion buckets;
+    private final long capacity;
+    private final long size;
+
+    private MappedLongSet( final MappedFileRegion buckets, final long capacity, final long size ) {
+        this.buckets = buckets;
+        this.capacity = capacity;
+        this.size = size;
+    }
+
+    /**
+     * Maps a set that was written by {@link #write} at the given offset in a file.
+     * The channel may be closed once this returns.
+     */
+    public static MappedLongSet map( final FileChannel channel, final long offset ) throws IOException {
+        final MappedFileRegion header = new MappedFileRegion(channel, FileChannel.MapMode.READ_ONLY, offset, HEADER_BYTES);
+        final long capacity = header.getLong(0);
+        final long size = header.getLong(Long.BYTES);
+        if ( capacity <= 0 || Long.bitCount(capacity) != 1 || size < 0 || size > capacity ||
+                offset + getSerializedSize(capacity) > channel.size() ) {
+            throw new GATKException("Invalid header for mapped long set: capacity " + capacity + ", size " + size);
+        }
+        final MappedFileRegion buckets =
+                new MappedFileRegion(channel, FileChannel.MapMode.READ_ONLY, offset + HEADER_BYTES, capacity * Long.BYTES);
+        return new MappedLongSet(buckets, capacity, size);
+    }
+
+    /**
+     * Writes a set of values at the given offset in a file, directly into a mapping of the file, so that no heap is
+     * needed for the table.
+     * @param values the values, which must be non-negative (duplicates are ignored)
+     * @param maxValues an upper bound on the number of values, which determines the size of the table
+     * @return the number of bytes written
+     */
+    public static long write( final FileChannel channel, final long offset,
+                              final LongIterator values, final long maxValues ) throws IOException {
+        Utils.nonNull(values);
+        Utils.validateArg(maxValues >= 0, "Number of values cannot be negative");
+        final long capacity = getCapacity(maxValues);
+        final long serializedSize = getSerializedSize(capacity);
+        final MappedFileRegion region = new MappedFileRegion(channel, FileChannel.MapMode.READ_WRITE, offset, serializedSize);
+        for ( long pos = HEADER_BYTES; pos != serializedSize; pos += Long.BYTES ) {
+            region.putLong(pos, EMPTY_BUCKET);
+        }
+        final long mask = capacity - 1L;
+        long size = 0;
+        while ( values.hasNext() ) {
+            final long value = values.next();
+            Utils.validateArg(value >= 0, "Tried to add negative entry to MappedLongSet");
+            long bucketIdx = hashToIndex(value, mask);
+            long entry;
+            while ( (entry = region.getLong(HEADER_BYTES + bucketIdx * Long.BYTES)) != EMPTY_BUCKET && entry != value ) {
+                bucketIdx = (bucketIdx + 1L) & mask;
+            }
+            if ( entry == EMPTY_BUCKET ) {
+                if ( ++size > maxValues ) {
+                    throw new IllegalArgumentException("More than the expected number of values (" + maxValues + ")");
+                }
+                region.putLong(HEADER_BYTES + bucketIdx * Long.BYTES, value);
+            }
+        }
+        region.putLong(0, capacity);
+        region.putLong(Long.BYTES, size);
+        region.force();
+        return serializedSize;
+    }
+
+    public boolean contains( final long key ) {
+        if ( key < 0 ) return false;
+        final long mask = capacity - 1L;
+        long bucketIdx = hashToIndex(key, mask);
+        long entry;
+        while ( (entry = buckets.getLong(bucketIdx * Long.BYTES)) != EMPTY_BUCKET ) {
+            if ( entry == key ) return true;
+            bucketIdx = (bucketIdx + 1L) & mask;
+        }
+        return false;
+    }
+
+    public long size() { return size; }
+
+    public long capacity() { return capacity; }
+
+    public LongIterator iterator() {
+        return new LongIterator() {
+            private long bucketIdx = advance(0);
+
+            @Override
+            public boolean hasNext() { return bucketIdx < capacity; }
+
+            @Override
+            public long next() {
+                if ( !hasNext() ) {
+                    throw new NoSuchElementException("MappedLongSet iterator is exhausted.");
+                }
+                final long value = buckets.getLong(bucketIdx * Long.BYTES);
+                bucketIdx = advance(bucketIdx + 1);
+                return value;
+            }
+
+            private long advance( long idx ) {
+                while ( idx < capacity && buckets.getLong(idx * Long.BYTES) == EMPTY_BUCKET ) {
+                    idx += 1;
+                }
+                return idx;
+            }
+        };
+    }
+
+    private static long getCapacity( final long maxValues ) {
+        long capacity = 1L;
+        while ( capacity * MAX_LOAD_FACTOR < maxValues + 1 ) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    private static long getSerializedSize( final long capacity ) {
+        return HEADER_BYTES + capacity * Long.BYTES;
+    }
+
+    private static long hashToIndex( final long value, final long mask ) {
+        return SVUtils.fnvLong64(value) & mask;
+    }
+}
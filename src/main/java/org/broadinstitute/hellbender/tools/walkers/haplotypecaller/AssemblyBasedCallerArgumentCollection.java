@@ -34,6 +34,7 @@ public abstract class AssemblyBasedCallerArgumentCollection extends StandardCall
         final ReadThreadingAssembler assemblyEngine = assemblerArgs.makeReadThreadingAssembler();
         assemblyEngine.setDebug(debug);
         assemblyEngine.setMinBaseQualityToUseInAssembly(minBaseQualityScore);
+        assemblyEngine.setReuseReadKmersAcrossRegions(assemblerArgs.reuseReadKmersAcrossRegions);
 
         return assemblyEngine;
     }
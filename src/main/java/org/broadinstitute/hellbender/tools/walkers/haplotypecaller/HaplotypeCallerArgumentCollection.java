@@ -24,6 +24,7 @@ public class HaplotypeCallerArgumentCollection extends AssemblyBasedCallerArgume
     public static final String MAX_MNP_DISTANCE_SHORT_NAME = "mnp-dist";
     public static final String GQ_BAND_LONG_NAME = "gvcf-gq-bands";
     public static final String GQ_BAND_SHORT_NAME = "GQB";
+    public static final String MAX_PAIR_HMM_CELLS_PER_REGION_LONG_NAME = "max-pair-hmm-cells-per-region";
 
     @Override
     protected ReadThreadingAssemblerArgumentCollection getReadThreadingAssemblerArgumentCollection() {
@@ -135,4 +136,18 @@ public class HaplotypeCallerArgumentCollection extends AssemblyBasedCallerArgume
             doc = "Two or more phased substitutions separated by this distance or less are merged into MNPs. " +
             "WARNING: When used in GVCF mode, resulting GVCFs cannot be joint-genotyped.", optional = true)
     public int maxMnpDistance = 0;
+
+    /**
+     * Bounds the cost of computing the likelihoods of the reads of an active region, which is proportional to the
+     * number of reads times the number of haplotypes times their lengths, and can explode in very deep data such as
+     * PCR amplicon panels. If the reads of a sample in a region would need more PairHMM cells (read length times
+     * haplotype length, summed over all pairs of reads and haplotypes) than its share of this value, they are
+     * downsampled before computing the likelihoods, stratified by alignment start and strand so that the most
+     * stacked-up starts lose reads first. The value is shared evenly among the samples with reads in the region, and
+     * whatever a sample doesn't need of its share goes to the others. Zero or less disables this downsampling.
+     */
+    @Advanced
+    @Argument(fullName = MAX_PAIR_HMM_CELLS_PER_REGION_LONG_NAME,
+            doc = "Maximum number of PairHMM cells to compute per active region, over all samples; reads are downsampled to fit. 0 to disable", optional = true)
+    public long maxPairHMMCellsPerRegion = 0;
 }
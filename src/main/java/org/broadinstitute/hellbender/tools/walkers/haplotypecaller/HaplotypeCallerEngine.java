@@ -30,6 +30,7 @@ import org.broadinstitute.hellbender.utils.SimpleInterval;
 import org.broadinstitute.hellbender.utils.Utils;
 import org.broadinstitute.hellbender.utils.activityprofile.ActivityProfileState;
 import org.broadinstitute.hellbender.utils.downsampling.AlleleBiasedDownsamplingUtils;
+import org.broadinstitute.hellbender.utils.downsampling.CostBoundedDownsampler;
 import org.broadinstitute.hellbender.utils.genotyper.IndexedSampleList;
 import org.broadinstitute.hellbender.utils.genotyper.ReadLikelihoods;
 import org.broadinstitute.hellbender.utils.genotyper.SampleList;
@@ -37,6 +38,7 @@ import org.broadinstitute.hellbender.utils.haplotype.Haplotype;
 import org.broadinstitute.hellbender.utils.haplotype.HaplotypeBAMWriter;
 import org.broadinstitute.hellbender.utils.read.GATKRead;
 import org.broadinstitute.hellbender.utils.read.ReadUtils;
+import org.broadinstitute.hellbender.utils.runtime.RuntimeMetrics;
 import org.broadinstitute.hellbender.utils.smithwaterman.SmithWatermanAligner;
 import org.broadinstitute.hellbender.utils.variant.GATKVCFConstants;
 import org.broadinstitute.hellbender.utils.variant.GATKVCFHeaderLines;
@@ -134,6 +136,22 @@ public final class HaplotypeCallerEngine implements AssemblyRegionEvaluator {
 
     private static final List<VariantContext> NO_CALLS = Collections.emptyList();
 
+    // the phases of calling an active region, recorded only if runtime metrics are enabled
+    private static final RuntimeMetrics.Counter ACTIVE_REGIONS_COUNTER = RuntimeMetrics.counter("HaplotypeCallerEngine.activeRegions");
+    private static final RuntimeMetrics.Histogram READS_PER_REGION_HISTOGRAM = RuntimeMetrics.histogram("HaplotypeCallerEngine.readsPerActiveRegion");
+    private static final RuntimeMetrics.Histogram HAPLOTYPES_PER_REGION_HISTOGRAM = RuntimeMetrics.histogram("HaplotypeCallerEngine.haplotypesPerActiveRegion");
+    private static final RuntimeMetrics.Timer ASSEMBLY_TIMER = RuntimeMetrics.timer("HaplotypeCallerEngine.assembly");
+    private static final RuntimeMetrics.Timer PAIR_HMM_TIMER = RuntimeMetrics.timer("HaplotypeCallerEngine.pairHMM");
+    private static final RuntimeMetrics.Timer REALIGNMENT_TIMER = RuntimeMetrics.timer("HaplotypeCallerEngine.realignment");
+    private static final RuntimeMetrics.Timer GENOTYPING_TIMER = RuntimeMetrics.timer("HaplotypeCallerEngine.genotyping");
+    private static final RuntimeMetrics.Counter DOWNSAMPLED_REGIONS_COUNTER = RuntimeMetrics.counter("HaplotypeCallerEngine.regionsDownsampledForPairHMM");
+    private static final RuntimeMetrics.Counter DOWNSAMPLED_READS_COUNTER = RuntimeMetrics.counter("HaplotypeCallerEngine.readsDownsampledForPairHMM");
+
+    // no start position and strand is left without reads when downsampling for the PairHMM
+    private static final int MIN_READS_PER_STRATUM_FOR_PAIR_HMM = 1;
+
+    private long numRegionsDownsampledForPairHMM = 0;
+
     private static final Allele FAKE_REF_ALLELE = Allele.create("N", true); // used in isActive function to call into UG Engine. Should never appear anywhere in a VCF file
     private static final Allele FAKE_ALT_ALLELE = Allele.create("<FAKE_ALT>", false); // used in isActive function to call into UG Engine. Should never appear anywhere in a VCF file
 
@@ -538,8 +556,13 @@ public final class HaplotypeCallerEngine implements AssemblyRegionEvaluator {
             return referenceModelForNoVariation(region, true, VCpriors);
         }
 
+        ACTIVE_REGIONS_COUNTER.increment();
+        READS_PER_REGION_HISTOGRAM.add(region.size());
+
         // run the local assembler, getting back a collection of information on how we should proceed
+        final long assemblyStartTime = ASSEMBLY_TIMER.start();
         final AssemblyResultSet untrimmedAssemblyResult =  AssemblyBasedCallerUtils.assembleReads(region, givenAlleles, hcArgs, readsHeader, samplesList, logger, referenceReader, assemblyEngine, aligner);
+        ASSEMBLY_TIMER.stop(assemblyStartTime);
         
         final SortedSet<VariantContext> allVariationEvents = untrimmedAssemblyResult.getVariationEvents(hcArgs.maxMnpDistance);
         // TODO - line bellow might be unnecessary : it might be that assemblyResult will always have those alleles anyway
@@ -588,14 +611,23 @@ public final class HaplotypeCallerEngine implements AssemblyRegionEvaluator {
         // evaluate each sample's reads against all haplotypes
         final List<Haplotype> haplotypes = assemblyResult.getHaplotypeList();
         final Map<String,List<GATKRead>> reads = AssemblyBasedCallerUtils.splitReadsBySample(samplesList, readsHeader, regionForGenotyping.getReads());
+        if ( hcArgs.maxPairHMMCellsPerRegion > 0 ) {
+            downsampleReadsForPairHMM(reads, haplotypes, regionForGenotyping);
+        }
+
+        HAPLOTYPES_PER_REGION_HISTOGRAM.add(haplotypes.size());
 
         // Calculate the likelihoods: CPU intensive part.
+        final long pairHMMStartTime = PAIR_HMM_TIMER.start();
         final ReadLikelihoods<Haplotype> readLikelihoods =
                 likelihoodCalculationEngine.computeReadLikelihoods(assemblyResult, samplesList, reads);
+        PAIR_HMM_TIMER.stop(pairHMMStartTime);
 
         // Realign reads to their best haplotype.
+        final long realignmentStartTime = REALIGNMENT_TIMER.start();
         final Map<GATKRead, GATKRead> readRealignments = AssemblyBasedCallerUtils.realignReadsToTheirBestHaplotype(readLikelihoods, assemblyResult.getReferenceHaplotype(), assemblyResult.getPaddedReferenceLoc(), aligner);
         readLikelihoods.changeReads(readRealignments);
+        REALIGNMENT_TIMER.stop(realignmentStartTime);
 
         // Note: we used to subset down at this point to only the "best" haplotypes in all samples for genotyping, but there
         //  was a bad interaction between that selection and the marginalization that happens over each event when computing
@@ -603,6 +635,7 @@ public final class HaplotypeCallerEngine implements AssemblyRegionEvaluator {
         //  haplotype containing C as reference (and vice versa).  Now this is fine if all possible haplotypes are included
         //  in the genotyping, but we lose information if we select down to a few haplotypes.  [EB]
 
+        final long genotypingStartTime = GENOTYPING_TIMER.start();
         final HaplotypeCallerGenotypingEngine.CalledHaplotypes calledHaplotypes = genotypingEngine.assignGenotypeLikelihoods(
                 haplotypes,
                 readLikelihoods,
@@ -616,6 +649,7 @@ public final class HaplotypeCallerEngine implements AssemblyRegionEvaluator {
                 hcArgs.maxMnpDistance,
                 readsHeader,
                 haplotypeBAMWriter.isPresent());
+        GENOTYPING_TIMER.stop(genotypingStartTime);
 
         if ( haplotypeBAMWriter.isPresent() ) {
             final Set<Haplotype> calledHaplotypeSet = new HashSet<>(calledHaplotypes.getCalledHaplotypes());
@@ -662,6 +696,61 @@ public final class HaplotypeCallerEngine implements AssemblyRegionEvaluator {
         }
     }
 
+    /**
+     * Downsamples the reads of each sample so that computing their likelihoods against the haplotypes takes no more than
+     * the sample's share of {@link HaplotypeCallerArgumentCollection#maxPairHMMCellsPerRegion} PairHMM cells.
+     * Every read costs its length times the total length of the haplotypes, so this amounts to a limit on the read bases.
+     * Samples with no reads in the region get no share, and the part of its share that a sample doesn't use goes to the
+     * samples with more reads.
+     * The discarded reads are also removed from the region.
+     */
+    private void downsampleReadsForPairHMM(final Map<String, List<GATKRead>> readsBySample, final List<Haplotype> haplotypes, final AssemblyRegion region) {
+        final long haplotypeBases = haplotypes.stream().mapToLong(Haplotype::length).sum();
+        if ( haplotypeBases == 0 ) {
+            return;
+        }
+        final Map<String, Long> readBasesBySample = new LinkedHashMap<>();
+        readsBySample.forEach((sample, reads) -> {
+            if ( ! reads.isEmpty() ) {
+                readBasesBySample.put(sample, reads.stream().mapToLong(GATKRead::getLength).sum());
+            }
+        });
+
+        // split the budget evenly among the samples with reads, visiting them from the fewest read bases up, so that
+        // whatever a sample doesn't need of its share is shared among those with more reads
+        final List<String> samples = new ArrayList<>(readBasesBySample.keySet());
+        samples.sort(Comparator.comparingLong(readBasesBySample::get));
+        long remainingReadBases = hcArgs.maxPairHMMCellsPerRegion / haplotypeBases;
+        int remainingSamples = samples.size();
+        final Set<GATKRead> readsToRemove = new LinkedHashSet<>();
+        for ( final String sample : samples ) {
+            final long maxReadBasesForSample = remainingReadBases / remainingSamples--;
+            final List<GATKRead> sampleReads = readsBySample.get(sample);
+            final CostBoundedDownsampler downsampler = new CostBoundedDownsampler(maxReadBasesForSample, MIN_READS_PER_STRATUM_FOR_PAIR_HMM);
+            downsampler.submit(sampleReads);
+            downsampler.signalEndOfInput();
+            final List<GATKRead> keptReads = downsampler.consumeFinalizedItems();
+            if ( downsampler.getNumberOfDiscardedItems() > 0 ) {
+                final Set<GATKRead> keptReadSet = Collections.newSetFromMap(new IdentityHashMap<>());
+                keptReadSet.addAll(keptReads);
+                sampleReads.stream().filter(read -> ! keptReadSet.contains(read)).forEach(readsToRemove::add);
+                readsBySample.put(sample, keptReads);
+            }
+            // the reads kept may exceed the sample's share, to keep the minimum number of reads per stratum
+            remainingReadBases = Math.max(0, remainingReadBases - keptReads.stream().mapToLong(GATKRead::getLength).sum());
+        }
+
+        if ( ! readsToRemove.isEmpty() ) {
+            numRegionsDownsampledForPairHMM++;
+            DOWNSAMPLED_REGIONS_COUNTER.increment();
+            DOWNSAMPLED_READS_COUNTER.add(readsToRemove.size());
+            if ( hcArgs.debug ) {
+                logger.info("Downsampled " + readsToRemove.size() + " reads out of " + region.size() + " in " + region.getSpan() + " to compute their likelihoods against " + haplotypes.size() + " haplotypes");
+            }
+            region.removeAll(readsToRemove);
+        }
+    }
+
     private boolean containsCalls(final HaplotypeCallerGenotypingEngine.CalledHaplotypes calledHaplotypes) {
         return calledHaplotypes.getCalls().stream()
                 .flatMap(call -> call.getGenotypes().stream())
@@ -701,6 +790,9 @@ public final class HaplotypeCallerEngine implements AssemblyRegionEvaluator {
      * Shutdown this HC engine, closing resources as appropriate
      */
     public void shutdown() {
+        if ( numRegionsDownsampledForPairHMM > 0 ) {
+            logger.info(numRegionsDownsampledForPairHMM + " active regions had their reads downsampled to stay within " + hcArgs.maxPairHMMCellsPerRegion + " PairHMM cells");
+        }
         likelihoodCalculationEngine.close();
         aligner.close();
         if ( haplotypeBAMWriter.isPresent() ) {
@@ -60,6 +60,15 @@ public abstract class ReadThreadingAssemblerArgumentCollection implements Serial
     @Argument(fullName="min-dangling-branch-length", doc="Minimum length of a dangling branch to attempt recovery", optional = true)
     public int minDanglingBranchLength = 4;
 
+    /**
+     * Consecutive assembly regions overlap through their padding, so most reads are assembled in more than one region.
+     * With this option, the assembler keeps what it learned about the kmers of the reads of each region for the next
+     * one, and only analyzes the reads that are new to the region. The assembly graphs and results are the same.
+     */
+    @Advanced
+    @Argument(fullName="reuse-read-kmers-across-regions", doc="Reuse the kmer analysis of reads shared by consecutive assembly regions", optional = true)
+    public boolean reuseReadKmersAcrossRegions = false;
+
 
 
     /**
@@ -4,6 +4,8 @@ import org.broadinstitute.hellbender.utils.MathUtils;
 import org.broadinstitute.hellbender.utils.Utils;
 import org.broadinstitute.hellbender.utils.haplotype.Haplotype;
 
+import java.util.List;
+
 /**
  * Represents a result from a K-best haplotype search.
  *
@@ -27,6 +29,14 @@ public final class KBestHaplotype extends Path<SeqVertex,BaseEdge>{
         isReference &= edge.isRef();
     }
 
+    /**
+     * Creates a path from its edges, without checking them, with a score that has already been computed
+     */
+    KBestHaplotype(final List<BaseEdge> edgesInOrder, final SeqVertex lastVertex, final BaseGraph<SeqVertex,BaseEdge> graph, final double score) {
+        super(edgesInOrder, lastVertex, graph);
+        this.score = score;
+    }
+
     public final Haplotype haplotype() {
         final Haplotype haplotype = new Haplotype(getBases(),isReference());
         haplotype.setScore(score());
@@ -1,11 +1,10 @@
 package org.broadinstitute.hellbender.tools.walkers.haplotypecaller.graphs;
 
-import org.apache.commons.lang3.mutable.MutableInt;
+import org.broadinstitute.hellbender.utils.MathUtils;
 import org.broadinstitute.hellbender.utils.Utils;
 import org.jgrapht.alg.CycleDetector;
 
 import java.util.*;
-import java.util.stream.Collectors;
 
 /**
  * Efficient algorithm to obtain the list of best haplotypes given the {@link SeqGraph instace}.
@@ -63,36 +62,203 @@ public final class KBestHaplotypeFinder {
 
     /**
      * Implement Dijkstra's algorithm as described in https://en.wikipedia.org/wiki/K_shortest_path_routing
+     *
+     * The search runs over an indexed copy of the graph, with the score of following each edge computed once, and keeps
+     * the partial paths as a tree of primitive nodes (each a vertex, the edge leading to it and the node of its parent),
+     * so that extending a path doesn't copy it. Only the paths that are returned are turned into {@link KBestHaplotype}s.
+     * The queue is a binary heap that orders its elements exactly as the {@link PriorityQueue} of paths that the search
+     * used to keep, so ties between paths of equal score are broken the same way.
      */
     public List<KBestHaplotype> findBestHaplotypes(final int maxNumberOfHaplotypes) {
-        final List<KBestHaplotype> result = new ArrayList<>();
-        final PriorityQueue<KBestHaplotype> queue = new PriorityQueue<>(Comparator.comparingDouble(KBestHaplotype::score).reversed());
-        sources.forEach(source -> queue.add(new KBestHaplotype(source, graph)));
+        final IndexedGraph indexedGraph = new IndexedGraph(graph, sinks);
+        final PathNodes nodes = new PathNodes();
+        final PathNodeHeap queue = new PathNodeHeap(nodes);
+        for ( final SeqVertex source : sources ) {
+            queue.add(nodes.add(0, indexedGraph.indexOf(source), -1, -1));
+        }
 
-        final Map<SeqVertex, MutableInt> vertexCounts = graph.vertexSet().stream()
-                .collect(Collectors.toMap(v -> v, v -> new MutableInt(0)));
+        final int[] vertexCounts = new int[indexedGraph.numVertices];
+        final List<KBestHaplotype> result = new ArrayList<>();
 
         while (!queue.isEmpty() && result.size() < maxNumberOfHaplotypes) {
-            final KBestHaplotype pathToExtend = queue.poll();
-            final SeqVertex vertexToExtend = pathToExtend.getLastVertex();
-            if (sinks.contains(vertexToExtend)) {
-                result.add(pathToExtend);
+            final int nodeToExtend = queue.poll();
+            final int vertexToExtend = nodes.vertex[nodeToExtend];
+            if (indexedGraph.isSink[vertexToExtend]) {
+                result.add(nodes.toKBestHaplotype(nodeToExtend, indexedGraph, graph));
             } else {
-                final Set<BaseEdge> outgoingEdges = graph.outgoingEdgesOf(vertexToExtend);
+                final double score = nodes.score[nodeToExtend];
+                final double log10TotalOutgoingMultiplicity = indexedGraph.log10TotalOutgoingMultiplicity[vertexToExtend];
+                for (int edge = indexedGraph.firstOutgoingEdge[vertexToExtend]; edge < indexedGraph.firstOutgoingEdge[vertexToExtend + 1]; edge++) {
+                    final int targetVertex = indexedGraph.edgeTarget[edge];
+                    if (vertexCounts[targetVertex]++ < maxNumberOfHaplotypes) {
+                        // the same arithmetic as in the KBestHaplotype constructor, so that the scores are identical
+                        final double extendedScore = score + indexedGraph.log10EdgeMultiplicity[edge] - log10TotalOutgoingMultiplicity;
+                        queue.add(nodes.add(extendedScore, targetVertex, nodeToExtend, edge));
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * The graph's vertices and edges, indexed by int, with the edges out of each vertex in the graph's iteration order
+     */
+    private static final class IndexedGraph {
+        final int numVertices;
+        final SeqVertex[] vertices;
+        final Map<SeqVertex, Integer> vertexIndices;
+        final boolean[] isSink;
+        final double[] log10TotalOutgoingMultiplicity;
+        // the edges out of vertex v are those from firstOutgoingEdge[v] (inclusive) to firstOutgoingEdge[v + 1] (exclusive)
+        final int[] firstOutgoingEdge;
+        final BaseEdge[] edges;
+        final int[] edgeTarget;
+        final double[] log10EdgeMultiplicity;
+
+        IndexedGraph(final SeqGraph graph, final Set<SeqVertex> sinks) {
+            numVertices = graph.vertexSet().size();
+            vertices = graph.vertexSet().toArray(new SeqVertex[numVertices]);
+            vertexIndices = new HashMap<>(2 * numVertices);
+            for (int v = 0; v < numVertices; v++) {
+                vertexIndices.put(vertices[v], v);
+            }
+
+            final int numEdges = graph.edgeSet().size();
+            isSink = new boolean[numVertices];
+            log10TotalOutgoingMultiplicity = new double[numVertices];
+            firstOutgoingEdge = new int[numVertices + 1];
+            edges = new BaseEdge[numEdges];
+            edgeTarget = new int[numEdges];
+            log10EdgeMultiplicity = new double[numEdges];
+            int edge = 0;
+            for (int v = 0; v < numVertices; v++) {
+                isSink[v] = sinks.contains(vertices[v]);
+                firstOutgoingEdge[v] = edge;
                 int totalOutgoingMultiplicity = 0;
-                for (final BaseEdge edge : outgoingEdges) {
-                    totalOutgoingMultiplicity += edge.getMultiplicity();
+                for (final BaseEdge outgoingEdge : graph.outgoingEdgesOf(vertices[v])) {
+                    totalOutgoingMultiplicity += outgoingEdge.getMultiplicity();
+                    edges[edge] = outgoingEdge;
+                    edgeTarget[edge] = vertexIndices.get(graph.getEdgeTarget(outgoingEdge));
+                    log10EdgeMultiplicity[edge] = MathUtils.log10(outgoingEdge.getMultiplicity());
+                    edge++;
                 }
+                log10TotalOutgoingMultiplicity[v] = MathUtils.log10(totalOutgoingMultiplicity);
+            }
+            firstOutgoingEdge[numVertices] = edge;
+        }
+
+        int indexOf(final SeqVertex vertex) {
+            return vertexIndices.get(vertex);
+        }
+    }
+
+    /**
+     * The tree of partial paths: each node is a path, made of the path of its parent node followed by an edge
+     */
+    private static final class PathNodes {
+        private static final int INITIAL_CAPACITY = 64;
+
+        int size = 0;
+        double[] score = new double[INITIAL_CAPACITY];
+        int[] vertex = new int[INITIAL_CAPACITY];
+        int[] parent = new int[INITIAL_CAPACITY];
+        int[] edge = new int[INITIAL_CAPACITY];
+        int[] length = new int[INITIAL_CAPACITY];
 
-                for (final BaseEdge edge : outgoingEdges) {
-                    final SeqVertex targetVertex = graph.getEdgeTarget(edge);
-                    if (vertexCounts.get(targetVertex).getAndIncrement() < maxNumberOfHaplotypes) {
-                        queue.add(new KBestHaplotype(pathToExtend, edge, totalOutgoingMultiplicity));
+        /**
+         * @return the index of the new node
+         */
+        int add(final double nodeScore, final int nodeVertex, final int parentNode, final int lastEdge) {
+            if (size == score.length) {
+                final int capacity = 2 * size;
+                score = Arrays.copyOf(score, capacity);
+                vertex = Arrays.copyOf(vertex, capacity);
+                parent = Arrays.copyOf(parent, capacity);
+                edge = Arrays.copyOf(edge, capacity);
+                length = Arrays.copyOf(length, capacity);
+            }
+            score[size] = nodeScore;
+            vertex[size] = nodeVertex;
+            parent[size] = parentNode;
+            edge[size] = lastEdge;
+            length[size] = parentNode < 0 ? 0 : length[parentNode] + 1;
+            return size++;
+        }
+
+        KBestHaplotype toKBestHaplotype(final int node, final IndexedGraph indexedGraph, final SeqGraph graph) {
+            final SeqVertex lastVertex = indexedGraph.vertices[vertex[node]];
+            if (length[node] == 0) {
+                return new KBestHaplotype(lastVertex, graph);
+            }
+            final BaseEdge[] edgesInOrder = new BaseEdge[length[node]];
+            for (int n = node; parent[n] >= 0; n = parent[n]) {
+                edgesInOrder[length[n] - 1] = indexedGraph.edges[edge[n]];
+            }
+            return new KBestHaplotype(new ArrayList<>(Arrays.asList(edgesInOrder)), lastVertex, graph, score[node]);
+        }
+    }
+
+    /**
+     * A binary heap of path nodes, highest score first, that replicates the sifting of {@link PriorityQueue} so that its
+     * elements come out in the same order, ties included.
+     */
+    private static final class PathNodeHeap {
+        private final PathNodes nodes;
+        private int[] heap = new int[64];
+        private int size = 0;
+
+        PathNodeHeap(final PathNodes nodes) {
+            this.nodes = nodes;
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        // the comparator of the PriorityQueue: Comparator.comparingDouble(KBestHaplotype::score).reversed()
+        private int compare(final int node1, final int node2) {
+            return Double.compare(nodes.score[node2], nodes.score[node1]);
+        }
+
+        void add(final int node) {
+            if (size == heap.length) {
+                heap = Arrays.copyOf(heap, 2 * size);
+            }
+            int k = size++;
+            while (k > 0) {
+                final int parent = (k - 1) >>> 1;
+                if (compare(node, heap[parent]) >= 0) {
+                    break;
+                }
+                heap[k] = heap[parent];
+                k = parent;
+            }
+            heap[k] = node;
+        }
+
+        int poll() {
+            final int result = heap[0];
+            final int last = heap[--size];
+            if (size > 0) {
+                int k = 0;
+                final int half = size >>> 1;
+                while (k < half) {
+                    int child = (k << 1) + 1;
+                    final int right = child + 1;
+                    if (right < size && compare(heap[child], heap[right]) > 0) {
+                        child = right;
+                    }
+                    if (compare(last, heap[child]) <= 0) {
+                        break;
                     }
+                    heap[k] = heap[child];
+                    k = child;
                 }
+                heap[k] = last;
             }
+            return result;
         }
-        return result;
     }
 
     public List<KBestHaplotype> findBestHaplotypes() {
@@ -0,0 +1,137 @@
+package org.broadinstitute.hellbender.tools.walkers.haplotypecaller.readthreading;
+
+import org.broadinstitute.hellbender.tools.walkers.haplotypecaller.Kmer;
+import org.broadinstitute.hellbender.utils.Utils;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Remembers the non-unique kmers of the sequences threaded into the assembly graphs of recent assembly regions.
+ *
+ * Consecutive assembly regions overlap through their padding, so most of the reads of one region are assembled again,
+ * with the same bases, in the next one. Finding the non-unique kmers of a sequence is the part of building a
+ * {@link ReadThreadingGraph} that costs the most per read, and it depends only on the bases and kmer size, so it can be
+ * looked up here instead of being recomputed for every region and kmer size.
+ *
+ * The cache is a window over the last two regions: when a new region starts, the sequences that weren't seen in the
+ * region that just ended (i.e. the reads that have left the window) are evicted. Not thread-safe.
+ */
+final class NonUniqueKmerCache {
+    // the sequences seen in the previous region and not yet in the current one, and those seen in the current one
+    private Map<SequenceKey, CachedSequence> previousRegion = new HashMap<>();
+    private Map<SequenceKey, CachedSequence> currentRegion = new HashMap<>();
+
+    private long hits = 0;
+    private long misses = 0;
+
+    /**
+     * Marks the start of a new assembly region, evicting the sequences that weren't used in the one that just ended
+     */
+    void startRegion() {
+        previousRegion = currentRegion;
+        currentRegion = new HashMap<>();
+    }
+
+    /**
+     * Gets the non-unique kmers of a sequence, as computed by {@link ReadThreadingGraph#determineNonUniqueKmers}.
+     * The result must not be modified.
+     */
+    Collection<Kmer> getNonUniqueKmers(final ReadThreadingGraph.SequenceForKmers seqForKmers, final int kmerSize) {
+        Utils.nonNull(seqForKmers);
+        final SequenceKey key = new SequenceKey(seqForKmers.sequence, seqForKmers.stop, kmerSize);
+        CachedSequence cached = currentRegion.get(key);
+        if ( cached == null ) {
+            cached = previousRegion.remove(key);
+            if ( cached == null ) {
+                misses++;
+                // the cached kmers refer to a copy of the bases, so that they can't be changed by whoever owns the sequence
+                final SequenceKey storedKey = key.copy();
+                final ReadThreadingGraph.SequenceForKmers storedSequence = new ReadThreadingGraph.SequenceForKmers(seqForKmers.name,
+                        storedKey.bases, seqForKmers.start, seqForKmers.stop, seqForKmers.count, seqForKmers.isRef);
+                cached = new CachedSequence(storedKey, ReadThreadingGraph.determineNonUniqueKmers(storedSequence, kmerSize));
+            } else {
+                hits++;
+            }
+            currentRegion.put(cached.key, cached);
+        } else {
+            hits++;
+        }
+        return cached.nonUniqueKmers;
+    }
+
+    /**
+     * @return the number of sequences currently cached
+     */
+    int size() {
+        return previousRegion.size() + currentRegion.size();
+    }
+
+    long getHits() { return hits; }
+
+    long getMisses() { return misses; }
+
+    private static final class CachedSequence {
+        private final SequenceKey key;
+        private final Collection<Kmer> nonUniqueKmers;
+
+        private CachedSequence( final SequenceKey key, final Collection<Kmer> nonUniqueKmers ) {
+            this.key = key;
+            this.nonUniqueKmers = nonUniqueKmers;
+        }
+    }
+
+    /**
+     * The bases that determine the non-unique kmers of a sequence, which are those up to its stop
+     * (see {@link ReadThreadingGraph#determineNonUniqueKmers}), and the kmer size.
+     * Keys used for lookups refer to the sequence's bases, while the stored keys have their own copy.
+     */
+    private static final class SequenceKey {
+        private final byte[] bases;
+        private final int length;
+        private final int kmerSize;
+        private final int hash;
+
+        private SequenceKey( final byte[] bases, final int length, final int kmerSize ) {
+            this.bases = bases;
+            this.length = length;
+            this.kmerSize = kmerSize;
+            int h = kmerSize;
+            for ( int i = 0; i < length; i++ ) {
+                h = 31 * h + bases[i];
+            }
+            hash = h;
+        }
+
+        private SequenceKey copy() {
+            return new SequenceKey(Arrays.copyOf(bases, length), length, kmerSize);
+        }
+
+        @Override
+        public boolean equals( final Object o ) {
+            if ( this == o ) {
+                return true;
+            }
+            if ( !(o instanceof SequenceKey) ) {
+                return false;
+            }
+            final SequenceKey other = (SequenceKey) o;
+            if ( hash != other.hash || length != other.length || kmerSize != other.kmerSize ) {
+                return false;
+            }
+            for ( int i = 0; i < length; i++ ) {
+                if ( bases[i] != other.bases[i] ) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -62,6 +62,9 @@ public final class ReadThreadingAssembler {
     private int pruneFactor;
     private final ChainPruner<MultiDeBruijnVertex, MultiSampleEdge> chainPruner;
 
+    // if not null, the non-unique kmers of the reads in recent regions, which are reused by the graphs of the next region
+    private NonUniqueKmerCache nonUniqueKmerCache = null;
+
     private File debugGraphOutputPath = null;  //Where to write debug graphs, if unset it defaults to the current working dir
     private File graphOutputPath = null;
 
@@ -134,6 +137,10 @@ public final class ReadThreadingAssembler {
             correctedReads = assemblyRegion.getReads();
         }
 
+        if ( nonUniqueKmerCache != null ) {
+            nonUniqueKmerCache.startRegion();
+        }
+
         final List<SeqGraph> nonRefGraphs = new LinkedList<>();
         final AssemblyResultSet resultSet = new AssemblyResultSet();
         resultSet.setRegionForGenotyping(assemblyRegion);
@@ -379,9 +386,19 @@ public final class ReadThreadingAssembler {
     List<AssemblyResult> assemble(final List<GATKRead> reads, final Haplotype refHaplotype, final List<Haplotype> givenHaplotypes, final SAMFileHeader header, final SmithWatermanAligner aligner) {
         final List<AssemblyResult> results = new LinkedList<>();
 
+        // bound the length of the repeats in the reference and reads once for all kmer sizes, so that we needn't look
+        // for the non-unique kmers of the sequences that can't have any at a given kmer size
+        final int[] candidateKmerSizes = kmerSizes.stream().mapToInt(Integer::intValue).sorted().toArray();
+        final int refRepeatLength = ReadThreadingGraph.repeatLengthUpperBound(refHaplotype.getBases(), refHaplotype.length(), candidateKmerSizes);
+        final int[] readRepeatLengths = new int[reads.size()];
+        int readIndex = 0;
+        for ( final GATKRead read : reads ) {
+            readRepeatLengths[readIndex++] = ReadThreadingGraph.repeatLengthUpperBound(read.getBases(), read.getLength(), candidateKmerSizes);
+        }
+
         // first, try using the requested kmer sizes
         for ( final int kmerSize : kmerSizes ) {
-            addResult(results, createGraph(reads, refHaplotype, kmerSize, givenHaplotypes, dontIncreaseKmerSizesForCycles, allowNonUniqueKmersInRef, header, aligner));
+            addResult(results, createGraph(reads, readRepeatLengths, refHaplotype, refRepeatLength, kmerSize, givenHaplotypes, dontIncreaseKmerSizesForCycles, allowNonUniqueKmersInRef, header, aligner));
         }
 
         // if none of those worked, iterate over larger sizes if allowed to do so
@@ -391,7 +408,7 @@ public final class ReadThreadingAssembler {
             while ( results.isEmpty() && numIterations <= MAX_KMER_ITERATIONS_TO_ATTEMPT ) {
                 // on the last attempt we will allow low complexity graphs
                 final boolean lastAttempt = numIterations == MAX_KMER_ITERATIONS_TO_ATTEMPT;
-                addResult(results, createGraph(reads, refHaplotype, kmerSize, givenHaplotypes, lastAttempt, lastAttempt, header, aligner));
+                addResult(results, createGraph(reads, readRepeatLengths, refHaplotype, refRepeatLength, kmerSize, givenHaplotypes, lastAttempt, lastAttempt, header, aligner));
                 kmerSize += KMER_SIZE_ITERATION_INCREASE;
                 numIterations++;
             }
@@ -409,15 +426,19 @@ public final class ReadThreadingAssembler {
      *
      * @param aligner
      * @param reads            reads to use
+     * @param readRepeatLengths an upper bound on the length of the longest repeated subsequence of each read
      * @param refHaplotype     reference haplotype
+     * @param refRepeatLength  an upper bound on the length of the longest repeated subsequence of the reference haplotype
      * @param kmerSize         kmer size
      * @param activeAlleleHaplotypes the GGA haplotypes to inject into the graph
      * @param allowLowComplexityGraphs if true, do not check for low-complexity graphs
      * @param allowNonUniqueKmersInRef if true, do not fail if the reference has non-unique kmers
      * @return sequence graph or null if one could not be created (e.g. because it contains cycles or too many paths or is low complexity)
      */
-    private AssemblyResult createGraph(final Iterable<GATKRead> reads,
+    private AssemblyResult createGraph(final List<GATKRead> reads,
+                                       final int[] readRepeatLengths,
                                        final Haplotype refHaplotype,
+                                       final int refRepeatLength,
                                        final int kmerSize,
                                        final Iterable<Haplotype> activeAlleleHaplotypes,
                                        final boolean allowLowComplexityGraphs,
@@ -429,7 +450,8 @@ public final class ReadThreadingAssembler {
             return new AssemblyResult(AssemblyResult.Status.FAILED, null, null);
         }
 
-        if ( !allowNonUniqueKmersInRef && !ReadThreadingGraph.determineNonUniqueKmers(new ReadThreadingGraph.SequenceForKmers("ref", refHaplotype.getBases(), 0, refHaplotype.getBases().length, 1, true), kmerSize).isEmpty() ) {
+        // the reference can only have non-unique kmers for the kmer sizes up to the length of its longest repeat
+        if ( !allowNonUniqueKmersInRef && kmerSize <= refRepeatLength && !ReadThreadingGraph.determineNonUniqueKmers(new ReadThreadingGraph.SequenceForKmers("ref", refHaplotype.getBases(), 0, refHaplotype.getBases().length, 1, true), kmerSize).isEmpty() ) {
             if ( debug ) {
                 logger.info("Not using kmer size of " + kmerSize + " in read threading assembler because reference contains non-unique kmers");
             }
@@ -439,6 +461,7 @@ public final class ReadThreadingAssembler {
         final ReadThreadingGraph rtgraph = new ReadThreadingGraph(kmerSize, debugGraphTransformations, minBaseQualityToUseInAssembly, numPruningSamples);
 
         rtgraph.setThreadingStartOnlyAtExistingVertex(!recoverDanglingBranches);
+        rtgraph.setNonUniqueKmerCache(nonUniqueKmerCache);
 
         // add the reference sequence to the graph
         rtgraph.addSequence("ref", refHaplotype.getBases(), true);
@@ -450,8 +473,9 @@ public final class ReadThreadingAssembler {
         }
 
         // Next pull kmers out of every read and throw them on the graph
+        int readIndex = 0;
         for( final GATKRead read : reads ) {
-            rtgraph.addRead(read, header);
+            rtgraph.addRead(read, header, readRepeatLengths[readIndex++]);
         }
 
         // actually build the read threading graph
@@ -608,6 +632,20 @@ public final class ReadThreadingAssembler {
         this.justReturnRawGraph = justReturnRawGraph;
     }
 
+    /**
+     * Sets whether to keep the non-unique kmers of the reads assembled in each region for the next region, which is
+     * assumed to be the adjacent one, instead of determining them again for the reads that are in both regions.
+     * Doesn't change the assembly results. The kept kmers are not thread-safe, so neither is the assembler if this is set.
+     */
+    public void setReuseReadKmersAcrossRegions(final boolean reuseReadKmersAcrossRegions) {
+        nonUniqueKmerCache = reuseReadKmersAcrossRegions ? new NonUniqueKmerCache() : null;
+    }
+
+    @VisibleForTesting
+    NonUniqueKmerCache getNonUniqueKmerCache() {
+        return nonUniqueKmerCache;
+    }
+
     public void setRemovePathsNotConnectedToRef(final boolean removePathsNotConnectedToRef) {
         this.removePathsNotConnectedToRef = removePathsNotConnectedToRef;
     }
@@ -40,6 +40,8 @@ public class ReadThreadingGraph extends BaseGraph<MultiDeBruijnVertex, MultiSamp
     private static final boolean DEBUG_NON_UNIQUE_CALC = false;
 
     private static final int MAX_CIGAR_COMPLEXITY = 3;
+    // the largest kmer size whose kmers fit in a long at 2 bits per base
+    static final int MAX_ENCODED_KMER_SIZE = 31;
     private static final long serialVersionUID = 1l;
     private int maxMismatchesInDanglingHead = -1;
 
@@ -47,6 +49,9 @@ public class ReadThreadingGraph extends BaseGraph<MultiDeBruijnVertex, MultiSamp
 
     private boolean startThreadingOnlyAtExistingVertex = false;
 
+    // if not null, where to look up the non-unique kmers of each sequence
+    private NonUniqueKmerCache nonUniqueKmerCache = null;
+
     /** for debugging info printing */
     private static int counter = 0;
 
@@ -187,7 +192,7 @@ public class ReadThreadingGraph extends BaseGraph<MultiDeBruijnVertex, MultiSamp
      * @see #addSequence(String, String, byte[], int, int, int, boolean) for full information
      */
     public final void addSequence(final String seqName, final byte[] sequence, final int count, final boolean isRef) {
-        addSequence(seqName, ANONYMOUS_SAMPLE, sequence, 0, sequence.length, count, isRef);
+        addSequence(seqName, ANONYMOUS_SAMPLE, sequence, 0, sequence.length, count, isRef, SequenceForKmers.UNKNOWN_REPEAT_LENGTH);
     }
 
     /**
@@ -199,8 +204,9 @@ public class ReadThreadingGraph extends BaseGraph<MultiDeBruijnVertex, MultiSamp
      * @param stop the last base offset in sequence that we should use for constructing the graph using this sequence, exclusive
      * @param count the representative count of this sequence (to use as the weight)
      * @param isRef is this the reference sequence.
+     * @param maxRepeatLength an upper bound on the length of the longest repeated subsequence of sequence (see {@link SequenceForKmers#maxRepeatLength})
      */
-    private void addSequence(final String seqName, final String sampleName, final byte[] sequence, final int start, final int stop, final int count, final boolean isRef) {
+    private void addSequence(final String seqName, final String sampleName, final byte[] sequence, final int start, final int stop, final int count, final boolean isRef, final int maxRepeatLength) {
         // note that argument testing is taken care of in SequenceForKmers
         if ( alreadyBuilt ) {
             throw new IllegalStateException("Graph already built");
@@ -214,7 +220,7 @@ public class ReadThreadingGraph extends BaseGraph<MultiDeBruijnVertex, MultiSamp
         }
 
         // add the new sequence to the list of sequences for sample
-        sampleSequences.add(new SequenceForKmers(seqName, sequence, start, stop, count, isRef));
+        sampleSequences.add(new SequenceForKmers(seqName, sequence, start, stop, count, isRef, maxRepeatLength));
     }
 
     /**
@@ -301,6 +307,16 @@ public class ReadThreadingGraph extends BaseGraph<MultiDeBruijnVertex, MultiSamp
         startThreadingOnlyAtExistingVertex = value;
     }
 
+    /**
+     * Sets a cache of the non-unique kmers of sequences, shared with other graphs, so that the non-unique kmers of
+     * sequences that were already added to one of those graphs needn't be determined again.
+     *
+     * @param cache the cache to use, or null to determine the non-unique kmers of every sequence
+     */
+    final void setNonUniqueKmerCache(final NonUniqueKmerCache cache) {
+        nonUniqueKmerCache = cache;
+    }
+
     /**
      * Build the read threaded assembly graph if it hasn't already been constructed from the sequences that have
      * been added to the graph.
@@ -448,11 +464,20 @@ public class ReadThreadingGraph extends BaseGraph<MultiDeBruijnVertex, MultiSamp
         final int stop;
         final int count;
         final boolean isRef;
+        // an upper bound on the length of the longest subsequence that occurs twice in the sequence, so that it has no
+        // non-unique kmers of a greater size (see repeatLengthUpperBound)
+        final int maxRepeatLength;
+
+        static final int UNKNOWN_REPEAT_LENGTH = Integer.MAX_VALUE;
 
         /**
          * Create a new sequence for creating kmers
          */
         SequenceForKmers(final String name, final byte[] sequence, final int start, final int stop, final int count, final boolean ref) {
+            this(name, sequence, start, stop, count, ref, UNKNOWN_REPEAT_LENGTH);
+        }
+
+        SequenceForKmers(final String name, final byte[] sequence, final int start, final int stop, final int count, final boolean ref, final int maxRepeatLength) {
             Utils.nonNull(sequence, "Sequence is null ");
             Utils.validateArg( start >= 0, () -> "Invalid start " + start);
             Utils.validateArg( stop >= start, () -> "Invalid stop " + stop);
@@ -464,6 +489,7 @@ public class ReadThreadingGraph extends BaseGraph<MultiDeBruijnVertex, MultiSamp
             this.stop = stop;
             this.count = count;
             isRef = ref;
+            this.maxRepeatLength = maxRepeatLength;
         }
     }
 
@@ -980,8 +1006,10 @@ public class ReadThreadingGraph extends BaseGraph<MultiDeBruijnVertex, MultiSamp
             while ( it.hasNext() ) {
                 final SequenceForKmers sequenceForKmers = it.next();
 
-                // determine the non-unique kmers for this sequence
-                final Collection<Kmer> nonUniquesFromSeq = determineNonUniqueKmers(sequenceForKmers, kmerSize);
+                // determine the non-unique kmers for this sequence (there can't be any if it has no repeat as long as a kmer)
+                final Collection<Kmer> nonUniquesFromSeq = sequenceForKmers.maxRepeatLength < kmerSize ? Collections.emptyList()
+                        : nonUniqueKmerCache == null ? determineNonUniqueKmers(sequenceForKmers, kmerSize)
+                        : nonUniqueKmerCache.getNonUniqueKmers(sequenceForKmers, kmerSize);
                 if ( nonUniquesFromSeq.isEmpty() ) {
                     // remove this sequence from future consideration
                     it.remove();
@@ -1030,6 +1058,66 @@ public class ReadThreadingGraph extends BaseGraph<MultiDeBruijnVertex, MultiSamp
         return nonUniqueKmers;
     }
 
+    /**
+     * Get an upper bound on the length of the longest subsequence that occurs (at least) twice in the first length
+     * bases of sequence. These bases have non-unique kmers (as determined by {@link #determineNonUniqueKmers}) only for
+     * the kmer sizes up to this length, so the bound lets us skip looking for non-unique kmers of greater sizes.
+     *
+     * The candidate kmer sizes are tried in increasing order, and the bound is one less than the first size for which all
+     * the kmers are unique. This check encodes kmers of up to {@link #MAX_ENCODED_KMER_SIZE} bases in longs, so it
+     * doesn't create any {@link Kmer} objects.
+     *
+     * @param sequence the bases
+     * @param length the number of bases of sequence to consider
+     * @param candidateKmerSizes the kmer sizes to check, in increasing order
+     * @return the bound, or {@link SequenceForKmers#UNKNOWN_REPEAT_LENGTH} if every candidate size (that can be encoded) has
+     * non-unique kmers or the bases aren't all A, C, G or T (in upper case)
+     */
+    static int repeatLengthUpperBound(final byte[] sequence, final int length, final int[] candidateKmerSizes) {
+        Utils.nonNull(sequence);
+        Utils.nonNull(candidateKmerSizes);
+        Utils.validateArg(length >= 0 && length <= sequence.length, () -> "Invalid length " + length);
+        final byte[] baseCodes = new byte[length];
+        for ( int i = 0; i < length; i++ ) {
+            switch ( sequence[i] ) {
+                case 'A': baseCodes[i] = 0; break;
+                case 'C': baseCodes[i] = 1; break;
+                case 'G': baseCodes[i] = 2; break;
+                case 'T': baseCodes[i] = 3; break;
+                default: return SequenceForKmers.UNKNOWN_REPEAT_LENGTH;
+            }
+        }
+
+        final long[] encodedKmers = new long[Math.max(length, 1)];
+        for ( final int kmerSize : candidateKmerSizes ) {
+            if ( kmerSize > MAX_ENCODED_KMER_SIZE ) {
+                break;
+            }
+            if ( kmerSize > length ) {
+                // no kmers at all
+                return kmerSize - 1;
+            }
+            final long mask = (1L << (2 * kmerSize)) - 1;
+            long kmer = 0;
+            int numKmers = 0;
+            for ( int i = 0; i < length; i++ ) {
+                kmer = ((kmer << 2) | baseCodes[i]) & mask;
+                if ( i >= kmerSize - 1 ) {
+                    encodedKmers[numKmers++] = kmer;
+                }
+            }
+            Arrays.sort(encodedKmers, 0, numKmers);
+            boolean unique = true;
+            for ( int i = 1; i < numKmers && unique; i++ ) {
+                unique = encodedKmers[i] != encodedKmers[i - 1];
+            }
+            if ( unique ) {
+                return kmerSize - 1;
+            }
+        }
+        return SequenceForKmers.UNKNOWN_REPEAT_LENGTH;
+    }
+
     @Override
     public SeqGraph toSequenceGraph() {
         buildGraphIfNecessary();
@@ -1155,6 +1243,18 @@ public class ReadThreadingGraph extends BaseGraph<MultiDeBruijnVertex, MultiSamp
      */
     @VisibleForTesting
     void addRead(final GATKRead read, final SAMFileHeader header) {
+        addRead(read, header, SequenceForKmers.UNKNOWN_REPEAT_LENGTH);
+    }
+
+    /**
+     * Add a read to the sequence graph, as {@link #addRead(GATKRead, SAMFileHeader)} does.
+     *
+     * @param read a non-null read
+     * @param maxRepeatLength an upper bound on the length of the longest repeated subsequence of the read's bases
+     *                        (see {@link #repeatLengthUpperBound}), so that the non-unique kmers of the read needn't be
+     *                        searched for when it is shorter than the kmer size
+     */
+    void addRead(final GATKRead read, final SAMFileHeader header, final int maxRepeatLength) {
         final byte[] sequence = read.getBases();
         final byte[] qualities = read.getBaseQualities();
 
@@ -1169,7 +1269,7 @@ public class ReadThreadingGraph extends BaseGraph<MultiDeBruijnVertex, MultiSamp
                 if ( start != -1 && len >= kmerSize ) {
                     // if the sequence is long enough to get some value out of, add it to the graph
                     final String name = read.getName() + '_' + start + '_' + end;
-                    addSequence(name, ReadUtils.getSampleName(read, header), sequence, start, end, 1, false);
+                    addSequence(name, ReadUtils.getSampleName(read, header), sequence, start, end, 1, false, maxRepeatLength);
                 }
 
                 lastGood = -1; // reset the last good base
@@ -17,6 +17,7 @@ import org.broadinstitute.hellbender.utils.read.GATKRead;
 import org.broadinstitute.hellbender.utils.read.ReadUtils;
 
 import java.io.Serializable;
+import java.util.Arrays;
 
 /*
   The topology of the profile HMM:
@@ -142,30 +143,75 @@ public final class BAQ implements Serializable {
     private static final double EM = 0.33333333333;
     private static final double EI = 0.25;
 
-    private final double[][][] EPSILONS = new double[256][256][SAMUtils.MAX_PHRED_SCORE+1];
+    // 0-3 for the (case-insensitive) bases A, C, G and T, and -1 for anything else
+    private static final byte[] BASE_CODES = new byte[256];
+    static {
+        Arrays.fill(BASE_CODES, (byte)-1);
+        final String bases = "ACGT";
+        for ( int i = 0; i < bases.length(); i++ ) {
+            BASE_CODES[bases.charAt(i)] = BASE_CODES[Character.toLowerCase(bases.charAt(i))] = (byte)i;
+        }
+    }
 
-    private void initializeCachedData() {
-        for ( int i = 0; i < 256; i++ )
-            for ( int j = 0; j < 256; j++ )
-                for ( int q = 0; q <= SAMUtils.MAX_PHRED_SCORE; q++ ) {
-                    EPSILONS[i][j][q] = 1.0;
-                }
+    // emission probabilities of a matching and a mismatching base, by base quality
+    private final double[] matchEpsilons = new double[SAMUtils.MAX_PHRED_SCORE+1];
+    private final double[] mismatchEpsilons = new double[SAMUtils.MAX_PHRED_SCORE+1];
 
-        for ( char b1 : "ACGTacgt".toCharArray() ) {
-            for ( char b2 : "ACGTacgt".toCharArray() ) {
-                for ( int q = 0; q <= SAMUtils.MAX_PHRED_SCORE; q++ ) {
-                    double qual = qual2prob[q < minBaseQual ? minBaseQual : q];
-                    double e = Character.toLowerCase(b1) == Character.toLowerCase(b2) ? 1 - qual : qual * EM;
-                    EPSILONS[(byte)b1][(byte)b2][q] = e;
-                }
-            }
+    private void initializeCachedData() {
+        for ( int q = 0; q <= SAMUtils.MAX_PHRED_SCORE; q++ ) {
+            double qual = qual2prob[q < minBaseQual ? minBaseQual : q];
+            matchEpsilons[q] = 1 - qual;
+            mismatchEpsilons[q] = qual * EM;
         }
     }
 
     protected double calcEpsilon( byte ref, byte read, byte qualB ) {
-        return EPSILONS[ref][read][qualB];
+        final int refCode = BASE_CODES[ref & 0xff];
+        final int readCode = BASE_CODES[read & 0xff];
+        if ( refCode < 0 || readCode < 0 ) {
+            return 1.0;
+        }
+        return refCode == readCode ? matchEpsilons[qualB] : mismatchEpsilons[qualB];
+    }
+
+    /**
+     * The forward and backward matrices and the scaling factors for {@link #hmm_glocal}, which are kept between calls,
+     * and grown as necessary, so that each read doesn't allocate them afresh.  One per thread, so that a BAQ can be
+     * shared between threads.
+     */
+    private static final class Workspace {
+        private double[][] f = new double[0][];
+        private double[][] b = new double[0][];
+        private double[] s = new double[0];
+
+        /**
+         * Makes the first nRows rows of the matrices at least rowLength long, and zeroes them up to rowLength,
+         * as they would be if freshly allocated
+         */
+        private void reset(final int nRows, final int rowLength) {
+            if ( f.length < nRows ) {
+                final int capacity = Math.max(nRows, 2 * f.length);
+                f = Arrays.copyOf(f, capacity);
+                b = Arrays.copyOf(b, capacity);
+                s = new double[capacity + 1];
+            }
+            for ( int i = 0; i < nRows; i++ ) {
+                f[i] = resetRow(f[i], rowLength);
+                b[i] = resetRow(b[i], rowLength);
+            }
+        }
+
+        private static double[] resetRow(final double[] row, final int rowLength) {
+            if ( row == null || row.length < rowLength ) {
+                return new double[rowLength];
+            }
+            Arrays.fill(row, 0, rowLength, 0.);
+            return row;
+        }
     }
 
+    private static final ThreadLocal<Workspace> workspace = ThreadLocal.withInitial(Workspace::new);
+
     // ####################################################################################################
     //
     // NOTE -- THIS CODE IS SYNCHRONIZED WITH CODE IN THE SAMTOOLS REPOSITORY.  CHANGES TO THIS CODE SHOULD BE
@@ -204,10 +250,12 @@ public final class BAQ implements Serializable {
         //System.out.printf("c->bw = %d, bw = %d, l_ref = %d, l_query = %d\n", cb, bw, l_ref, l_query);
 		bw2 = bw * 2 + 1;
 
-        // allocate the forward and backward matrices f[][] and b[][] and the scaling array s[]
-		double[][] f = new double[l_query+1][bw2*3 + 6];
-		double[][] b = new double[l_query+1][bw2*3 + 6];
-		double[] s = new double[l_query+2];
+        // get the forward and backward matrices f[][] and b[][] and the scaling array s[]
+        final Workspace ws = workspace.get();
+        ws.reset(l_query+1, bw2*3 + 6);
+		final double[][] f = ws.f;
+		final double[][] b = ws.b;
+		final double[] s = ws.s;
 
 		// initialize transition probabilities
 		double sM, sI, bM, bI;
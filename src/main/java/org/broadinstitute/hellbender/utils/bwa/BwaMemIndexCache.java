@@ -1,17 +1,45 @@
 package org.broadinstitute.hellbender.utils.bwa;
 
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 import org.apache.spark.api.java.JavaSparkContext;
 import org.broadinstitute.hellbender.exceptions.GATKException;
 import org.broadinstitute.hellbender.utils.Utils;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
 import java.util.*;
+import java.util.zip.CRC32;
 
 /**
  * Manage a global collection of {@link BwaMemIndex} instances.
+ *
+ * <p>
+ *     The native code maps the index image file into memory rather than reading it, so that all the processes on a
+ *     node that open the same image file share a single physical copy of the index through the page cache.
+ *     {@link #getNodeLocalImage} makes copies of an image distributed separately to each executor
+ *     (e.g. via {@code SparkContext.addFile}) resolve to the same file on a node, and {@link #warmUp} pages in the
+ *     whole image ahead of alignment.
+ * </p>
+ *
+ * <p>
+ *     Instances in use by concurrent tasks should be obtained via {@link #acquireInstance} and given back via
+ *     {@link #releaseInstance}; a request to close an instance that is in use is deferred until its last release.
+ * </p>
  */
 public class BwaMemIndexCache {
+    private static final Logger logger = LogManager.getLogger(BwaMemIndexCache.class);
+
+    // the number of bytes at the start of an image that are checksummed to tell apart images with the same name and size
+    private static final int IMAGE_SIGNATURE_BYTES = 1 << 20;
+    private static final int WARM_UP_BUFFER_SIZE = 4 << 20;
 
     private final static Map<String, BwaMemIndex> instances = new HashMap<>();
+    private final static Map<String, Integer> referenceCounts = new HashMap<>();
+    private final static Set<String> pendingCloses = new HashSet<>();
+    private final static Set<String> warmedUpImages = new HashSet<>();
 
     /**
      * Returns a {@link BwaMemIndex} instance that corresponds to  given index image file.
@@ -26,6 +54,46 @@ public class BwaMemIndexCache {
         return instances.get(indexImageFile);
     }
 
+    /**
+     * Returns the {@link BwaMemIndex} instance for the given index image file, as {@link #getInstance} does,
+     * and marks it as in use until a matching call to {@link #releaseInstance}.
+     * @param indexImageFile the target image file.
+     * @return never {@code null}.
+     */
+    public static synchronized BwaMemIndex acquireInstance( final String indexImageFile ) {
+        final BwaMemIndex instance = getInstance(indexImageFile);
+        referenceCounts.merge(indexImageFile, 1, Integer::sum);
+        return instance;
+    }
+
+    /**
+     * Marks an instance obtained via {@link #acquireInstance} as no longer in use by the caller.
+     * The instance stays in the cache for subsequent tasks, unless it was closed while in use, in which case
+     * it is closed now if this was the last use.
+     * @param indexImageFile the index file name that was passed to {@link #acquireInstance}.
+     */
+    public static synchronized void releaseInstance( final String indexImageFile ) {
+        Utils.nonNull(indexImageFile, "the index image file name provided cannot be null");
+        final Integer count = referenceCounts.get(indexImageFile);
+        Utils.validate(count != null, () -> "the index instance for " + indexImageFile + " has not been acquired");
+        if (count > 1) {
+            referenceCounts.put(indexImageFile, count - 1);
+        } else {
+            referenceCounts.remove(indexImageFile);
+            if (pendingCloses.remove(indexImageFile)) {
+                instances.remove(indexImageFile).close();
+                warmedUpImages.remove(indexImageFile);
+            }
+        }
+    }
+
+    /**
+     * @return the number of outstanding {@link #acquireInstance} calls for the given index image file.
+     */
+    public static synchronized int getReferenceCount( final String indexImageFile ) {
+        return referenceCounts.getOrDefault(indexImageFile, 0);
+    }
+
     /**
      * Closes an index instance in the cache given its index file name.
      * <p>
@@ -33,6 +101,7 @@ public class BwaMemIndexCache {
      * </p>
      * <p>
      *     An attempt to close a missing instance, won't have any effect.
+     *     If the instance is in use (see {@link #acquireInstance}), it is closed once it is released.
      * </p>
      *
      * @param indexImageFile the index file name of the instance to close.
@@ -40,8 +109,7 @@ public class BwaMemIndexCache {
     public static synchronized void closeInstance(final String indexImageFile) {
         Utils.nonNull(indexImageFile, "the input image file cannot be null");
         if (instances.containsKey(indexImageFile)) {
-            instances.get(indexImageFile).close();
-            instances.remove(indexImageFile);
+            closeOrDefer(indexImageFile);
         }
     }
 
@@ -55,9 +123,10 @@ public class BwaMemIndexCache {
      */
     public static synchronized void closeInstance(final BwaMemIndex instance) {
         Utils.nonNull(instance, "the input index cannot be null");
-        if (instances.values().contains(instance)) {
-            instance.close();
-            instances.values().remove(instance);
+        for (final Map.Entry<String, BwaMemIndex> entry : new ArrayList<>(instances.entrySet())) {
+            if (entry.getValue() == instance) {
+                closeOrDefer(entry.getKey());
+            }
         }
     }
 
@@ -65,10 +134,17 @@ public class BwaMemIndexCache {
      * Closes all instances in the VM.
      */
     public static synchronized void closeInstances() {
-        final Iterator<BwaMemIndex> it = instances.values().iterator();
-        while (it.hasNext()) {
-            it.next().close();
-            it.remove();
+        for (final String indexImageFile : new ArrayList<>(instances.keySet())) {
+            closeOrDefer(indexImageFile);
+        }
+    }
+
+    private static void closeOrDefer(final String indexImageFile) {
+        if (referenceCounts.containsKey(indexImageFile)) {
+            pendingCloses.add(indexImageFile);
+        } else {
+            instances.remove(indexImageFile).close();
+            warmedUpImages.remove(indexImageFile);
         }
     }
 
@@ -83,4 +159,87 @@ public class BwaMemIndexCache {
         for ( int idx = 0; idx != nJobs; ++idx ) jobList.add(idx);
         ctx.parallelize(jobList, nJobs).foreach(idx -> closeInstances());
     }
+
+    /**
+     * Returns a path in a node-local shared directory for the given index image, so that processes that each
+     * have their own copy of the same image open a single file, and therefore share a single physical copy of the index.
+     *
+     * <p>
+     *     The first process to call this on a node hard-links its copy into the shared directory (or copies it, if the
+     *     directory is on a different file system); other processes then use that file.
+     *     Images are identified by their file name, size and a checksum of their first megabyte.
+     * </p>
+     *
+     * @param indexImageFile a local copy of the index image.
+     * @param sharedDirectory a directory on local disk that is shared by all processes on the node.
+     * @return the path of the shared image.
+     */
+    public static String getNodeLocalImage( final String indexImageFile, final String sharedDirectory ) {
+        Utils.nonNull(indexImageFile, "the index image file name provided cannot be null");
+        Utils.nonNull(sharedDirectory, "the shared directory provided cannot be null");
+        final Path image = Paths.get(indexImageFile);
+        try {
+            final Path directory = Files.createDirectories(Paths.get(sharedDirectory));
+            final Path sharedImage = directory.resolve(image.getFileName() + "." + getImageSignature(image));
+            if (Files.exists(sharedImage)) {
+                return sharedImage.toString();
+            }
+            try {
+                Files.createLink(sharedImage, image);
+            } catch (final FileAlreadyExistsException e) {
+                // another process got there first
+            } catch (final IOException | UnsupportedOperationException e) {
+                // hard links are not possible across file systems: copy the image, then link it into place
+                // atomically so that no process ever opens a partial copy
+                final Path copy = Files.createTempFile(directory, image.getFileName().toString(), ".tmp");
+                try {
+                    Files.copy(image, copy, StandardCopyOption.REPLACE_EXISTING);
+                    Files.createLink(sharedImage, copy);
+                } catch (final FileAlreadyExistsException e2) {
+                    // another process got there first
+                } finally {
+                    Files.deleteIfExists(copy);
+                }
+            }
+            return sharedImage.toString();
+        } catch (final IOException e) {
+            throw new GATKException("Unable to share the index image " + indexImageFile + " in " + sharedDirectory, e);
+        }
+    }
+
+    private static String getImageSignature( final Path image ) throws IOException {
+        final CRC32 crc = new CRC32();
+        try (final FileChannel channel = FileChannel.open(image, StandardOpenOption.READ)) {
+            final ByteBuffer buffer = ByteBuffer.allocate((int)Math.min(IMAGE_SIGNATURE_BYTES, channel.size()));
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+            }
+            buffer.flip();
+            crc.update(buffer);
+            return Long.toHexString(channel.size()) + "." + Long.toHexString(crc.getValue());
+        }
+    }
+
+    /**
+     * Reads the whole index image file, so that it is resident in the page cache by the time it is mapped into memory,
+     * and opens its {@link BwaMemIndex} instance. Calls after the first for the same file in the same VM have no effect.
+     * @param indexImageFile the target image file.
+     */
+    public static synchronized void warmUp( final String indexImageFile ) {
+        Utils.nonNull(indexImageFile, "the index image file name provided cannot be null");
+        if (warmedUpImages.contains(indexImageFile)) {
+            return;
+        }
+        final long startTime = System.currentTimeMillis();
+        try (final FileChannel channel = FileChannel.open(Paths.get(indexImageFile), StandardOpenOption.READ)) {
+            final ByteBuffer buffer = ByteBuffer.allocateDirect(WARM_UP_BUFFER_SIZE);
+            while (channel.read(buffer) >= 0) {
+                buffer.clear();
+            }
+        } catch (final IOException e) {
+            throw new GATKException("Unable to read the index image " + indexImageFile, e);
+        }
+        getInstance(indexImageFile);
+        warmedUpImages.add(indexImageFile);
+        logger.info("Warmed up index image " + indexImageFile + " in " + (System.currentTimeMillis() - startTime) + " ms");
+    }
 }
@@ -0,0 +1,215 @@
+package org.broadinstitute.hellbender.utils.downsampling;
+
+import org.broadinstitute.hellbender.utils.MathUtils;
+import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.param.ParamUtils;
+import org.broadinstitute.hellbender.utils.read.GATKRead;
+import org.broadinstitute.hellbender.utils.read.ReadUtils;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Cost-Bounded Downsampler: Limits the total number of bases of the reads that it retains, so that the cost of
+ * any later per-base computation over them (e.g. computing the likelihoods of every read against every haplotype)
+ * is bounded.
+ *
+ * The reads are stratified by alignment start and strand. If their total length exceeds the limit, the number of
+ * reads kept in each stratum is capped at the largest value for which the limit is met, so that the strata with the
+ * most reads (e.g. the starts of PCR amplicons) are downsampled first and the sparse ones are left untouched. The
+ * reads to keep in each stratum are chosen at random. No stratum is reduced below the minimum number of reads per
+ * stratum, even if that means exceeding the limit.
+ *
+ * All reads remain pending until {@link #signalEndOfInput()} is called, and then come out in the order in which
+ * they were submitted.
+ */
+public final class CostBoundedDownsampler extends ReadsDownsampler {
+
+    private final long maxReadBases;
+
+    private final int minReadsPerStratum;
+
+    private List<GATKRead> pendingReads;
+
+    private List<GATKRead> finalizedReads;
+
+    private long pendingReadBases;
+
+    /**
+     * Construct a CostBoundedDownsampler
+     *
+     * @param maxReadBases the total length of the reads that this downsampler retains may not exceed this value, unless
+     *                     this would require reducing some stratum below minReadsPerStratum reads. Must be >= 0
+     * @param minReadsPerStratum no stratum of reads will be reduced below this size. Must be >= 0
+     */
+    public CostBoundedDownsampler(final long maxReadBases, final int minReadsPerStratum) {
+        Utils.validateArg(maxReadBases >= 0, "maxReadBases must be >= 0 but got " + maxReadBases);
+        this.maxReadBases = maxReadBases;
+        this.minReadsPerStratum = ParamUtils.isPositiveOrZero(minReadsPerStratum, "minReadsPerStratum must be >= 0");
+        clearItems();
+        resetStats();
+    }
+
+    @Override
+    public void submit( final GATKRead newRead ) {
+        Utils.nonNull(newRead, "newRead");
+        pendingReads.add(newRead);
+        pendingReadBases += newRead.getLength();
+    }
+
+    @Override
+    public boolean hasFinalizedItems() {
+        return ! finalizedReads.isEmpty();
+    }
+
+    @Override
+    public List<GATKRead> consumeFinalizedItems() {
+        final List<GATKRead> toReturn = finalizedReads;
+        finalizedReads = new ArrayList<>();
+        return toReturn;
+    }
+
+    @Override
+    public boolean hasPendingItems() {
+        return ! pendingReads.isEmpty();
+    }
+
+    @Override
+    public GATKRead peekFinalized() {
+        return finalizedReads.isEmpty() ? null : finalizedReads.get(0);
+    }
+
+    @Override
+    public GATKRead peekPending() {
+        return pendingReads.isEmpty() ? null : pendingReads.get(0);
+    }
+
+    @Override
+    public int size() {
+        return finalizedReads.size() + pendingReads.size();
+    }
+
+    @Override
+    public void signalEndOfInput() {
+        if ( pendingReadBases <= maxReadBases ) {
+            // most common case: no downsampling necessary
+            finalizedReads.addAll(pendingReads);
+        } else {
+            finalizeDownsampledPendingReads();
+        }
+        pendingReads = new ArrayList<>();
+        pendingReadBases = 0;
+    }
+
+    @Override
+    public void clearItems() {
+        pendingReads = new ArrayList<>();
+        finalizedReads = new ArrayList<>();
+        pendingReadBases = 0;
+    }
+
+    @Override
+    public boolean requiresCoordinateSortOrder() {
+        return false;
+    }
+
+    @Override
+    public void signalNoMoreReadsBefore( final GATKRead read ) {
+        // NO-OP: reads are only finalized at the end of the input
+    }
+
+    private void finalizeDownsampledPendingReads() {
+        final Map<Stratum, List<Integer>> readIndicesByStratum = new LinkedHashMap<>();
+        for ( int i = 0; i < pendingReads.size(); i++ ) {
+            readIndicesByStratum.computeIfAbsent(new Stratum(pendingReads.get(i)), s -> new ArrayList<>()).add(i);
+        }
+
+        // visit the reads of each stratum in a random order, so that those kept for any cap are a random subset;
+        // the bases of the first n reads of stratum s are cumulativeBases[s][n]
+        final int[][] readIndices = new int[readIndicesByStratum.size()][];
+        final long[][] cumulativeBases = new long[readIndices.length][];
+        int maxStratumSize = 0;
+        int s = 0;
+        for ( final List<Integer> stratum : readIndicesByStratum.values() ) {
+            final int[] order = MathUtils.sampleIndicesWithoutReplacement(stratum.size(), stratum.size());
+            readIndices[s] = new int[stratum.size()];
+            cumulativeBases[s] = new long[stratum.size() + 1];
+            for ( int n = 0; n < order.length; n++ ) {
+                readIndices[s][n] = stratum.get(order[n]);
+                cumulativeBases[s][n + 1] = cumulativeBases[s][n] + pendingReads.get(readIndices[s][n]).getLength();
+            }
+            maxStratumSize = Math.max(maxStratumSize, stratum.size());
+            s++;
+        }
+
+        // binary search for the largest cap on the reads per stratum that keeps the total bases within the limit
+        int lowCap = minReadsPerStratum;
+        int highCap = maxStratumSize;
+        while ( lowCap < highCap ) {
+            final int cap = lowCap + (highCap - lowCap + 1) / 2;
+            if ( basesWithCap(cumulativeBases, cap) <= maxReadBases ) {
+                lowCap = cap;
+            } else {
+                highCap = cap - 1;
+            }
+        }
+
+        final BitSet readsToKeep = new BitSet(pendingReads.size());
+        for ( final int[] stratumReadIndices : readIndices ) {
+            for ( int n = 0; n < Math.min(lowCap, stratumReadIndices.length); n++ ) {
+                readsToKeep.set(stratumReadIndices[n]);
+            }
+        }
+        for ( int i = 0; i < pendingReads.size(); i++ ) {
+            if ( readsToKeep.get(i) ) {
+                finalizedReads.add(pendingReads.get(i));
+            }
+        }
+        incrementNumberOfDiscardedItems(pendingReads.size() - readsToKeep.cardinality());
+    }
+
+    private static long basesWithCap( final long[][] cumulativeBases, final int cap ) {
+        long bases = 0;
+        for ( final long[] stratumCumulativeBases : cumulativeBases ) {
+            bases += stratumCumulativeBases[Math.min(cap, stratumCumulativeBases.length - 1)];
+        }
+        return bases;
+    }
+
+    /**
+     * The alignment start and strand of a read; reads with no assigned position are all in the same stratum
+     */
+    private static final class Stratum {
+        private final String contig;
+        private final int start;
+        private final boolean isReverseStrand;
+
+        private Stratum( final GATKRead read ) {
+            final boolean hasPosition = ! ReadUtils.readHasNoAssignedPosition(read);
+            contig = hasPosition ? read.getAssignedContig() : null;
+            start = hasPosition ? read.getAssignedStart() : 0;
+            isReverseStrand = hasPosition && read.isReverseStrand();
+        }
+
+        @Override
+        public boolean equals( final Object o ) {
+            if ( this == o ) {
+                return true;
+            }
+            if ( !(o instanceof Stratum) ) {
+                return false;
+            }
+            final Stratum other = (Stratum) o;
+            return start == other.start && isReverseStrand == other.isReverseStrand && Objects.equals(contig, other.contig);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * (31 * Objects.hashCode(contig) + start) + (isReverseStrand ? 1 : 0);
+        }
+    }
+}
@@ -20,9 +20,7 @@ import java.util.stream.Collectors;
  * @author Samuel Lee &lt;slee@broadinstitute.org&gt;
  */
 public final class GibbsSampler<V extends Enum<V> & ParameterEnum, S extends ParameterizedState<V>, T extends DataCollection> {
-    private static final int RANDOM_SEED = 42;
-    private static final RandomGenerator rng =
-            RandomGeneratorFactory.createRandomGenerator(new Random(RANDOM_SEED));
+    public static final int DEFAULT_RANDOM_SEED = 42;
 
     private static final Logger logger = LogManager.getLogger(GibbsSampler.class);
     private static final int NUMBER_OF_SAMPLES_PER_LOG_ENTRY = 25;
@@ -30,6 +28,9 @@ public final class GibbsSampler<V extends Enum<V> & ParameterEnum, S extends Par
     private final int numSamples;
     private int numSamplesPerLogEntry;
 
+    private final int randomSeed;
+    private final RandomGenerator rng;
+
     private final ParameterizedModel<V, S, T> model;
 
     private final List<S> samples;
@@ -40,14 +41,29 @@ public final class GibbsSampler<V extends Enum<V> & ParameterEnum, S extends Par
      * Constructs a GibbsSampler given the total number of samples (including burn-in) and a {@link ParameterizedModel}.
      * The {@link ParameterizedState} held by the model is used to initialize the Monte Carlo Markov Chain and is taken
      * to be the first sample.  Number of samples per log entry will be set to the default.
+     * The default random seed is used.
      * @param numSamples    total number of samples; must be positive
      * @param model         {@link ParameterizedModel} to be sampled
      */
     public GibbsSampler(final int numSamples, final ParameterizedModel<V, S, T> model) {
+        this(numSamples, model, DEFAULT_RANDOM_SEED);
+    }
+
+    /**
+     * Constructs a GibbsSampler given the total number of samples (including burn-in), a {@link ParameterizedModel},
+     * and a random seed.  Each GibbsSampler holds its own {@link RandomGenerator}, so that independent chains
+     * (i.e., samplers constructed with distinct models and seeds) may be run concurrently.
+     * @param numSamples    total number of samples; must be positive
+     * @param model         {@link ParameterizedModel} to be sampled
+     * @param randomSeed    seed used to initialize the random number generator at the start of each run
+     */
+    public GibbsSampler(final int numSamples, final ParameterizedModel<V, S, T> model, final int randomSeed) {
         ParamUtils.isPositive(numSamples, "Number of samples must be positive.");
         Utils.validateArg(model.getUpdateMethod() == ParameterizedModel.UpdateMethod.GIBBS, "ParameterizedModel must be constructed to update using Gibbs sampling.");
         this.numSamples = numSamples;
         this.model = model;
+        this.randomSeed = randomSeed;
+        rng = RandomGeneratorFactory.createRandomGenerator(new Random(randomSeed));
         numSamplesPerLogEntry = NUMBER_OF_SAMPLES_PER_LOG_ENTRY;
         samples = new ArrayList<>(numSamples);
         samples.add(model.state());
@@ -67,7 +83,7 @@ public final class GibbsSampler<V extends Enum<V> & ParameterEnum, S extends Par
      * Progress is logged according to {@code numSamplesPerLogEntry}.
      */
     public void runMCMC() {
-        rng.setSeed(RANDOM_SEED);
+        rng.setSeed(randomSeed);
         logger.info("Starting MCMC sampling.");
         for (int sample = 1; sample < numSamples; sample++) {
             if (sample % numSamplesPerLogEntry == 0) {
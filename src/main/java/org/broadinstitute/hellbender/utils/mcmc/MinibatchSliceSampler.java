@@ -11,7 +11,6 @@ import org.broadinstitute.hellbender.utils.param.ParamUtils;
 import java.util.*;
 import java.util.function.BiFunction;
 import java.util.function.Function;
-import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
 /**
@@ -21,8 +20,8 @@ import java.util.stream.IntStream;
  * that the PDF, which is assumed to be a posterior function of a parameter value and the data, is specified in terms
  * of a prior, a likelihood, and the data.
  *
- * Note that likelihoods are cached and retrieved based on the hash of {@code DATA}, i.e., we assume it is
- * cheaper to compute this hash rather than the likelihood.
+ * Note that likelihoods evaluated at the current sample are cached in a primitive array indexed by the position
+ * of each data point in the list, so that neither hashing of {@code DATA} nor boxing of cached values is required.
  *
  * @author Samuel Lee &lt;slee@broadinstitute.org&gt;
  */
@@ -37,7 +36,7 @@ public final class MinibatchSliceSampler<DATA> extends AbstractSliceSampler {
 
     private Double xSampleCache = null;
     private Double logPriorCache = null;
-    private Map<DATA, Double> logLikelihoodsCache = null;    //data -> log likelihood
+    private double[] logLikelihoodsCache = null;    //data index -> log likelihood (NaN if not yet computed)
 
     /**
      * Creates a new sampler for a bounded univariate random variable, given a random number generator, a list of data,
@@ -118,7 +117,10 @@ public final class MinibatchSliceSampler<DATA> extends AbstractSliceSampler {
         if (xSampleCache == null || xSampleCache != xSample) {
             xSampleCache = xSample;
             logPriorCache = logPrior.apply(xSample);
-            logLikelihoodsCache = new HashMap<>(numDataPoints);
+            if (logLikelihoodsCache == null) {
+                logLikelihoodsCache = new double[numDataPoints];
+            }
+            Arrays.fill(logLikelihoodsCache, Double.NaN);
         }
         if (!(xSampleCache != null && logPriorCache != null && logLikelihoodsCache != null)) {
             throw new GATKException.ShouldNeverReachHereException("Cache for xSample is in an invalid state.");
@@ -134,9 +136,9 @@ public final class MinibatchSliceSampler<DATA> extends AbstractSliceSampler {
 
         //initialize the lazy data iterator (or just use the standard iterator if only a single batch is required)
         final int numMinibatches = Math.max(numDataPoints / minibatchSize, 1);
-        final Iterator<DATA> shuffledDataIterator = numMinibatches > 1
-                ? lazyShuffleIterator(rng, data)
-                : data.iterator();
+        final PrimitiveIterator.OfInt shuffledDataIndexIterator = numMinibatches > 1
+                ? lazyShuffleIndexIterator(rng, numDataPoints)
+                : IntStream.range(0, numDataPoints).iterator();
 
         //initialize running quantities needed for statistical test
         int numDataIndicesSeen = 0;
@@ -148,16 +150,17 @@ public final class MinibatchSliceSampler<DATA> extends AbstractSliceSampler {
             final int dataIndexStart = minibatchIndex * minibatchSize;
             final int dataIndexEnd = Math.min((minibatchIndex + 1) * minibatchSize, numDataPoints);
             final int actualMinibatchSize = dataIndexEnd - dataIndexStart;  //equals minibatchSize except perhaps for last minibatch
-            final List<DATA> dataMinibatch = IntStream.range(0, actualMinibatchSize).boxed()
-                    .map(i -> shuffledDataIterator.next())
-                    .collect(Collectors.toList());
 
             //calculate quantities for this minibatch
             double logLikelihoodDifferencesMinibatchSum = 0.;
             double logLikelihoodDifferencesSquaredMinibatchSum = 0.;
-            for (final DATA dataPoint : dataMinibatch) {
-                final double logLikelihoodxSample = logLikelihoodsCache.computeIfAbsent(
-                        dataPoint, d -> logLikelihood.apply(d, xSample));
+            for (int i = 0; i < actualMinibatchSize; i++) {
+                final int dataIndex = shuffledDataIndexIterator.nextInt();
+                final DATA dataPoint = data.get(dataIndex);
+                if (Double.isNaN(logLikelihoodsCache[dataIndex])) {
+                    logLikelihoodsCache[dataIndex] = logLikelihood.apply(dataPoint, xSample);
+                }
+                final double logLikelihoodxSample = logLikelihoodsCache[dataIndex];
                 final double logLikelihoodxProposed = logLikelihood.apply(dataPoint, xProposed);
                 final double logLikelihoodDifference = logLikelihoodxProposed - logLikelihoodxSample;
                 logLikelihoodDifferencesMinibatchSum += logLikelihoodDifference;
@@ -197,29 +200,28 @@ public final class MinibatchSliceSampler<DATA> extends AbstractSliceSampler {
      * we lazily shuffle to avoid unnecessarily shuffling all data.  Uses the properties of relative primes and is
      * random enough for our purposes.  Adapted from https://stackoverflow.com/questions/16165128/lazy-shuffle-algorithms.
      */
-    private static <T> Iterator<T> lazyShuffleIterator(final RandomGenerator rng,
-                                                       final List<T> data) {
-        final int numDataPoints = data.size();
-
+    private static PrimitiveIterator.OfInt lazyShuffleIndexIterator(final RandomGenerator rng,
+                                                                    final int numDataPoints) {
         //find first prime greater than or equal to numDataPoints
         final int nextPrime = Primes.nextPrime(numDataPoints);
 
-        return new Iterator<T>() {
+        return new PrimitiveIterator.OfInt() {
             int numSeen = 0;
             int index = rng.nextInt(numDataPoints) + 1;
             final int increment = index;
 
+            @Override
             public boolean hasNext() {
-                return numSeen < data.size();
+                return numSeen < numDataPoints;
             }
 
             @Override
-            public T next() {
+            public int nextInt() {
                 while (true) {
                     index = (index + increment) % nextPrime;
                     if (index < numDataPoints) {
                         numSeen++;
-                        return data.get(index);
+                        return index;
                     }
                 }
             }
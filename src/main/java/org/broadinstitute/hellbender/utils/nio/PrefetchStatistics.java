@@ -0,0 +1,110 @@
+package org.broadinstitute.hellbender.utils.nio;
+
+import org.broadinstitute.hellbender.utils.Utils;
+
+/**
+ * Statistics about how well a {@link SeekableByteChannelPrefetcher} anticipated the reads made through it.
+ *
+ * One instance may be shared by several prefetchers (for example, all the channels opened for a single input),
+ * and instances can be added together to report totals over all inputs.
+ * Instances are not thread-safe.
+ */
+public final class PrefetchStatistics {
+
+    // total number of bytes read from the underlying channel (whether returned to the user or not)
+    long bytesRead = 0;
+    // total number of bytes returned by read (if the user asks for the same bytes multiple times, they count)
+    long bytesReturned = 0;
+    // number of times we had the user's data already ready
+    long hits = 0;
+    // number of times we had already started to prefetch the user's data (but it hadn't arrived yet)
+    long nearHits = 0;
+    // number of times we weren't fetching what the user asked for, and had to start fetching it
+    long misses = 0;
+    // number of times the user asks for data with a lower index than what we already have
+    long goingBack = 0;
+    // number of times the user asks for data past the end of the file
+    long readsPastEnd = 0;
+    // number of prefetch hints for which we started fetching data
+    long hintsFetched = 0;
+    // number of times the user asked for data that was fetched because of a hint
+    long hintHits = 0;
+    // time spent blocking the user because we're waiting on the underlying channel (only if time tracking is on)
+    long msWaitingForData = 0;
+    // time spent blocking the user because we're copying bytes (only if time tracking is on)
+    long msCopyingData = 0;
+    // time spent in between calls to read, presumably processing the data (only if time tracking is on)
+    long msBetweenCallsToRead = 0;
+
+    public long getBytesRead() { return bytesRead; }
+
+    public long getBytesReturned() { return bytesReturned; }
+
+    public long getHits() { return hits; }
+
+    public long getNearHits() { return nearHits; }
+
+    public long getMisses() { return misses; }
+
+    public long getGoingBack() { return goingBack; }
+
+    public long getReadsPastEnd() { return readsPastEnd; }
+
+    public long getHintsFetched() { return hintsFetched; }
+
+    public long getHintHits() { return hintHits; }
+
+    public long getMsWaitingForData() { return msWaitingForData; }
+
+    public long getMsCopyingData() { return msCopyingData; }
+
+    public long getMsBetweenCallsToRead() { return msBetweenCallsToRead; }
+
+    /**
+     * @return the fraction of requests for a block that found it already fetched, or 0 if there were none
+     */
+    public double getHitRate() {
+        final long requests = hits + nearHits + misses;
+        return requests == 0 ? 0.0 : (double)hits / requests;
+    }
+
+    /**
+     * @return true if no data has been fetched
+     */
+    public boolean isEmpty() {
+        return bytesRead == 0 && hits + nearHits + misses == 0;
+    }
+
+    /**
+     * Adds the counts of another set of statistics to these.
+     * @return this object
+     */
+    public PrefetchStatistics add( final PrefetchStatistics other ) {
+        Utils.nonNull(other);
+        bytesRead += other.bytesRead;
+        bytesReturned += other.bytesReturned;
+        hits += other.hits;
+        nearHits += other.nearHits;
+        misses += other.misses;
+        goingBack += other.goingBack;
+        readsPastEnd += other.readsPastEnd;
+        hintsFetched += other.hintsFetched;
+        hintHits += other.hintHits;
+        msWaitingForData += other.msWaitingForData;
+        msCopyingData += other.msCopyingData;
+        msBetweenCallsToRead += other.msBetweenCallsToRead;
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        final double returnedPct = (bytesRead > 0 ? (100.0 * bytesReturned / bytesRead) : 100.0);
+        return String.format("Bytes read: %12d\n  returned: %12d ( %3.2f %% )", bytesRead, bytesReturned, returnedPct)
+                + String.format("\nReads past the end: %3d", readsPastEnd)
+                + String.format("\nReads forcing re-fetching of an earlier block: %3d", goingBack)
+                // A near-hit is when we're already fetching the data the user is asking for,
+                // but we're not done loading it in.
+                + String.format("\nCache\n hits:      %12d\n near-hits: %12d\n misses:    %12d", hits, nearHits, misses)
+                + String.format("\nHints\n fetched:   %12d\n used:      %12d", hintsFetched, hintHits);
+    }
+}
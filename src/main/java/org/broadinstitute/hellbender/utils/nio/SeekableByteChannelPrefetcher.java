@@ -6,7 +6,6 @@ import org.broadinstitute.hellbender.exceptions.GATKException;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import java.io.Closeable;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.channels.ClosedChannelException;
@@ -30,21 +29,39 @@ import shaded.cloud_nio.com.google.common.util.concurrent.ThreadFactoryBuilder;
  * simple code overlaps computation and communication for you.
  * (Of course this is only worthwhile if the underlying SeekableByteChannel doesn't already
  * implement prefetching).
+ *
+ * <p>The prefetcher owns a fixed number of buffers. One holds the data currently being read, and the others are
+ * used to read ahead of it, so that with N buffers up to N-1 blocks are fetched ahead of the reader. The caller may
+ * also give hints, via {@link #prefetch(long)}, of a position it is going to seek to later (for example, the start
+ * of the next interval of a traversal); the block there is then fetched in place of the block farthest ahead.
+ *
+ * <p>Statistics about how well the reads were anticipated are kept in a {@link PrefetchStatistics}.
  */
 public final class SeekableByteChannelPrefetcher implements SeekableByteChannel {
 
     private static final Logger logger = LogManager.getLogger(SeekableByteChannelPrefetcher.class);
 
+    /**
+     * Default number of buffers: one being read from, and one being fetched ahead.
+     */
+    public static final int DEFAULT_BUFFER_COUNT = 2;
+
+    private static final long NO_BLOCK = -1L;
+
     // Only one thread at a time should use chan.
     // To ensure this is the case, only the prefetching thread uses it.
     private final SeekableByteChannel chan;
     private final int bufSize;
+    // total number of buffers
+    private final int bufCount;
     private final ExecutorService exec;
     private final long size;
-    private List<WorkUnit> full = new ArrayList<>();
-    private WorkUnit fetching = null;
-    // total number of buffers
-    private final static int BUF_COUNT = 2;
+    // at most bufCount buffers, each one either holding a block or in the queue to fetch one
+    private final List<WorkUnit> units = new ArrayList<>();
+    // number of buffers handed to the fetching thread so far, to know which of the queued buffers will be filled first
+    private long submitCount = 0;
+    // the block we were last asked to prefetch, which we keep until it's read
+    private long hintedBlock = NO_BLOCK;
     // where we pretend to be, wrt returning bytes from read()
     private long position = 0;
     private boolean open;
@@ -53,28 +70,7 @@ public final class SeekableByteChannelPrefetcher implements SeekableByteChannel
     private final int prefetcherIndex;
 
     // statistics, for profiling
-    // time spent blocking the user because we're waiting on the network
-    public long msWaitingForData = 0;
-    // time spent blocking the user because we're copying bytes
-    public long msCopyingData = 0;
-    // total number of bytes returned by read (if the user asks for the same bytes multiple times, they count)
-    public long bytesReturned = 0;
-    // total number of bytes read over the network (whether returned to the user or not)
-    public long bytesRead = 0;
-    // time spend in between calls to Read, ie. presumably while the user is processing the data we returned.
-    public long msBetweenCallsToRead = 0;
-    // number of times we had the user's data already ready, didn't have to grab it from the net.
-    public long nbHit = 0;
-    // number of times we had already started to prefetch the user's data (but it hadn't arrived yet).
-    public long nbNearHit = 0;
-    // number of times we don't have what the user's asking for, we have to wait for a prefetch to finish,
-    // and the prefetch didn't return what the user wanted (either they are going backward, or jumping forward)
-    public long nbMiss = 0;
-    // number of times the user asks for data with a lower index than what we already have
-    // (so they're not following the expected pattern of increasing indexes)
-    public long nbGoingBack = 0;
-    // number of times the user asks for data past the end of the file
-    public long nbReadsPastEnd = 0;
+    private final PrefetchStatistics statistics;
     // timing statistics have an overhead, so only turn them on when debugging performance
     // issues.
     private static final boolean trackTime = false;
@@ -87,8 +83,23 @@ public final class SeekableByteChannelPrefetcher implements SeekableByteChannel
      * @return wrapped channel
      */
     public static SeekableByteChannel addPrefetcher(int bufferSizeMB, SeekableByteChannel channel) {
+        return addPrefetcher(bufferSizeMB, DEFAULT_BUFFER_COUNT, channel, new PrefetchStatistics());
+    }
+
+    /**
+     * Wraps the provided SeekableByteChannel within a SeekableByteChannelPrefetcher, using the provided buffer size
+     * and number of buffers
+     *
+     * @param bufferSizeMB buffer size in MB
+     * @param bufferCount number of buffers (at least 1)
+     * @param channel channel to wrap in the prefetcher
+     * @param statistics where to accumulate the prefetcher's statistics, may be shared with other prefetchers
+     * @return wrapped channel
+     */
+    public static SeekableByteChannel addPrefetcher(int bufferSizeMB, int bufferCount, SeekableByteChannel channel,
+                                                    PrefetchStatistics statistics) {
         try {
-            return new SeekableByteChannelPrefetcher(channel, bufferSizeMB * 1024 * 1024);
+            return new SeekableByteChannelPrefetcher(channel, bufferSizeMB * 1024 * 1024, bufferCount, statistics);
         } catch (IOException ex) {
             throw new GATKException("Unable to initialize the prefetcher: " + ex);
         }
@@ -99,30 +110,38 @@ public final class SeekableByteChannelPrefetcher implements SeekableByteChannel
      *
      * <p>Use it like this:
      * <ol>
-     *   <li> call()
-     *   <li> the data is now in buf, you can access it directly
-     *   <li> if need more, call resetForIndex(...) and go back to the top.
-     *   <li> else, call close()
+     *   <li> submit(...)
+     *   <li> getBuf() waits for the data, which is then in buf, and you can access it directly
+     *   <li> if need more, call submit(...) again and go back to the top.
      * </ol>
+     * While the unit is waiting in the queue, it can be pointed at a different block with retarget(...).
      */
-    private static class WorkUnit implements Callable<ByteBuffer>, Closeable {
+    private static class WorkUnit implements Callable<ByteBuffer> {
         public final ByteBuffer buf;
         public long blockIndex;
         private final SeekableByteChannel chan;
         private final int blockSize;
         private Future<ByteBuffer> futureBuf;
+        // whether the fetching thread has started on this unit; guarded by this
+        private boolean started;
+        // order in which the unit was submitted
+        private long submitOrder;
 
-        public WorkUnit(SeekableByteChannel chan, int blockSize, long blockIndex) {
+        public WorkUnit(SeekableByteChannel chan, int blockSize) {
             this.chan = chan;
             this.buf = ByteBuffer.allocate(blockSize);
             this.futureBuf = null;
             this.blockSize = blockSize;
-            this.blockIndex = blockIndex;
+            this.blockIndex = NO_BLOCK;
         }
 
         @Override
         public ByteBuffer call() throws IOException {
-            long pos = ((long)blockSize) * blockIndex;
+            final long pos;
+            synchronized (this) {
+                started = true;
+                pos = ((long)blockSize) * blockIndex;
+            }
             if (pos > chan.size()) {
                 return null;
             }
@@ -140,21 +159,35 @@ public final class SeekableByteChannelPrefetcher implements SeekableByteChannel
             return futureBuf.get();
         }
 
-        public WorkUnit resetForIndex(long blockIndex) {
-            this.blockIndex = blockIndex;
-            buf.clear();
-            futureBuf = null;
-            return this;
+        public boolean isDone() {
+            return futureBuf.isDone();
         }
 
+        public void submit(ExecutorService exec, long blockIndex, long submitOrder) {
+            synchronized (this) {
+                this.blockIndex = blockIndex;
+                this.started = false;
+            }
+            this.submitOrder = submitOrder;
+            buf.clear();
+            futureBuf = exec.submit(this);
+        }
 
-        @Override
-        public void close() throws IOException {
-            chan.close();
+        // fetch a different block instead, if the fetching thread hasn't started on this unit yet
+        public synchronized boolean retarget(long blockIndex) {
+            if (started) {
+                return false;
+            }
+            this.blockIndex = blockIndex;
+            return true;
         }
     }
 
     public SeekableByteChannelPrefetcher(SeekableByteChannel chan, int bufSize) throws IOException {
+        this(chan, bufSize, DEFAULT_BUFFER_COUNT, new PrefetchStatistics());
+    }
+
+    public SeekableByteChannelPrefetcher(SeekableByteChannel chan, int bufSize, int bufCount, PrefetchStatistics statistics) throws IOException {
         if (chan instanceof SeekableByteChannelPrefetcher) {
             throw new IllegalArgumentException("Cannot put two prefetchers on the same channel.");
         }
@@ -165,12 +198,20 @@ public final class SeekableByteChannelPrefetcher implements SeekableByteChannel
         if (bufSize <= 0) {
             throw new IllegalArgumentException("bufSize must be positive");
         }
+        if (bufCount <= 0) {
+            throw new IllegalArgumentException("bufCount must be positive");
+        }
+        if (statistics == null) {
+            throw new IllegalArgumentException("statistics must not be null");
+        }
         this.size = chan.size();
         if (bufSize > this.size) {
             this.bufSize = (int)this.size;
         } else {
             this.bufSize = bufSize;
         }
+        this.bufCount = bufCount;
+        this.statistics = statistics;
         this.open = true;
         this.prefetcherIndex = (prefetcherCount++);
         // Make sure the prefetching thread's name indicate what it is and
@@ -186,100 +227,183 @@ public final class SeekableByteChannelPrefetcher implements SeekableByteChannel
 
     public String getStatistics() {
         try {
-            double returnedPct = (bytesRead > 0 ? (100.0 * bytesReturned / bytesRead) : 100.0);
-            return String
-                .format("Bytes read: %12d\n  returned: %12d ( %3.2f %% )", bytesRead, bytesReturned,
-                    returnedPct)
-                + String.format("\nReads past the end: %3d", nbReadsPastEnd)
-                + String.format("\nReads forcing re-fetching of an earlier block: %3d", nbGoingBack)
-                // A near-hit is when we're already fetching the data the user is asking for,
-                // but we're not done loading it in.
-                + String
-                .format("\nCache\n hits:      %12d\n near-hits: %12d\n misses:    %12d", nbHit,
-                    nbNearHit, nbMiss);
+            return statistics.toString();
         } catch (UnknownFormatConversionException x) {
             // let's not crash the whole program, instead just return no info
             return "(error while formatting statistics)";
         }
     }
 
-    // if we don't already have that block and the fetching thread is idle,
-    // make sure it now goes looking for that block index.
-    private void ensureFetching(long blockIndex) {
-        if (null != fetching) {
-            if (fetching.futureBuf.isDone()) {
-                full.add(fetching);
-                fetching = null;
-            } else {
-                return;
+    /**
+     * @return the statistics of this prefetcher (which may be shared with other prefetchers)
+     */
+    public PrefetchStatistics getPrefetchStatistics() {
+        return statistics;
+    }
+
+    /**
+     * Hints that the data at the given position will be read soon, so that it can be fetched in the background
+     * without moving this channel's position. The block there is fetched instead of the one farthest ahead of the
+     * current position, but not instead of the next one, so hints are only useful with at least 3 buffers.
+     *
+     * @param hintPosition position in the underlying channel that will be read soon
+     */
+    public synchronized void prefetch(long hintPosition) {
+        if (!open || hintPosition < 0 || hintPosition >= size) {
+            return;
+        }
+        final long blockIndex = hintPosition / bufSize;
+        if (findUnit(blockIndex) != null) {
+            return;
+        }
+        // a new hint replaces the previous one, and takes precedence over reading far ahead (but we keep the block
+        // being read and the one after it)
+        hintedBlock = NO_BLOCK;
+        try {
+            if (startFetching(blockIndex, position / bufSize, 2, false) != null) {
+                hintedBlock = blockIndex;
+                statistics.hintsFetched++;
             }
+        } catch (InterruptedException e) {
+            // Restore interrupted status
+            Thread.currentThread().interrupt();
         }
-        for (WorkUnit w : full) {
+    }
+
+    private WorkUnit findUnit(long blockIndex) {
+        for (WorkUnit w : units) {
             if (w.blockIndex == blockIndex) {
-                return;
+                return w;
             }
         }
-        if (full.size() < BUF_COUNT) {
-            fetching = new WorkUnit(chan, bufSize, blockIndex);
-            bytesRead += bufSize;
-            fetching.futureBuf = exec.submit(fetching);
-        } else {
-            // reuse the oldest full buffer
-            fetching = full.remove(0);
-            fetching.resetForIndex(blockIndex);
-            bytesRead += bufSize;
-            fetching.futureBuf = exec.submit(fetching);
+        return null;
+    }
+
+    // the blocks we want to keep: the one being read, the ones following it, and the hinted one
+    private boolean isWanted(long blockIndex, long currentBlockIndex, int keptBlocks) {
+        return (blockIndex >= currentBlockIndex && blockIndex < currentBlockIndex + keptBlocks) || blockIndex == hintedBlock;
+    }
+
+    // Get a buffer to fetch this block into, and queue the fetch.
+    // Buffers holding blocks we still want (the hinted block, and the keptBlocks blocks starting at the current one)
+    // are only taken if the block is needed right away (force); otherwise this returns null when there is no buffer
+    // to spare.
+    private WorkUnit startFetching(long blockIndex, long currentBlockIndex, int keptBlocks, boolean force) throws InterruptedException {
+        if (units.size() < bufCount) {
+            final WorkUnit unit = new WorkUnit(chan, bufSize);
+            units.add(unit);
+            submit(unit, blockIndex);
+            return unit;
+        }
+        // reuse a buffer we are done with
+        for (WorkUnit w : units) {
+            if (w.isDone() && !isWanted(w.blockIndex, currentBlockIndex, keptBlocks)) {
+                submit(w, blockIndex);
+                return w;
+            }
         }
+        // or one that's still queued for a block we no longer want, the one that will be filled first
+        WorkUnit queued = null;
+        for (WorkUnit w : units) {
+            if (!w.isDone() && !isWanted(w.blockIndex, currentBlockIndex, keptBlocks) && (queued == null || w.submitOrder < queued.submitOrder)) {
+                queued = w;
+            }
+        }
+        if (queued != null && retarget(queued, blockIndex)) {
+            return queued;
+        }
+        if (!force) {
+            return null;
+        }
+        // The block is needed now, so take the buffer holding the block farthest from it, preferring blocks we
+        // don't want, and if it's being filled then wait for that to finish.
+        WorkUnit victim = null;
+        for (WorkUnit w : units) {
+            if (victim == null || isBetterVictim(w, victim, blockIndex, currentBlockIndex, keptBlocks)) {
+                victim = w;
+            }
+        }
+        if (!victim.isDone() && retarget(victim, blockIndex)) {
+            return victim;
+        }
+        try {
+            victim.getBuf();
+        } catch (ExecutionException e) {
+            // we don't care how the fetch of a block we're throwing away ended
+        }
+        submit(victim, blockIndex);
+        return victim;
+    }
+
+    private boolean isBetterVictim(WorkUnit w, WorkUnit victim, long blockIndex, long currentBlockIndex, int keptBlocks) {
+        final boolean wanted = isWanted(w.blockIndex, currentBlockIndex, keptBlocks);
+        if (wanted != isWanted(victim.blockIndex, currentBlockIndex, keptBlocks)) {
+            return !wanted;
+        }
+        return Math.abs(w.blockIndex - blockIndex) > Math.abs(victim.blockIndex - blockIndex);
+    }
+
+    private void submit(WorkUnit unit, long blockIndex) {
+        if (unit.blockIndex == hintedBlock) {
+            hintedBlock = NO_BLOCK;
+        }
+        unit.submit(exec, blockIndex, submitCount++);
+        statistics.bytesRead += bufSize;
+    }
+
+    private boolean retarget(WorkUnit unit, long blockIndex) {
+        final long previousBlockIndex = unit.blockIndex;
+        if (!unit.retarget(blockIndex)) {
+            return false;
+        }
+        if (previousBlockIndex == hintedBlock) {
+            hintedBlock = NO_BLOCK;
+        }
+        return true;
     }
 
     // Return a buffer at this position, blocking if necessary.
-    // Start a background read of the buffer after this one (if there isn't one already).
+    // Start background reads of the buffers after this one (if there aren't already).
     public ByteBuffer fetch(long position) throws InterruptedException, ExecutionException {
 
-        long blockIndex = position / bufSize;
+        final long blockIndex = position / bufSize;
 
 //        logger.debug("Fetch requested.  Internal Position: " + this.position + " Fetch Position: " + position + " Block Index: " + blockIndex);
 
-        boolean goingBack = false;
-        for (WorkUnit w : full) {
-            if (w.blockIndex == blockIndex) {
-                ensureFetching(blockIndex+1);
-                nbHit++;
-                return w.buf;
-            } else if (w.blockIndex > blockIndex) {
-                goingBack = true;
+        WorkUnit candidate = findUnit(blockIndex);
+        if (null != candidate) {
+            if (candidate.isDone()) {
+                statistics.hits++;
+            } else {
+                // this is who we were waiting for
+                statistics.nearHits++;
             }
+        } else {
+            for (WorkUnit w : units) {
+                if (w.blockIndex > blockIndex) {
+                    // user is asking for a block with a lower index than we've already fetched -
+                    // in other words they are not following the expected pattern of increasing indexes.
+                    statistics.goingBack++;
+//                    logger.debug("Fetch is going back at least 1 block (unexpected behavior).");
+                    break;
+                }
+            }
+            // we don't have the block. Let's fetch the right one now.
+            statistics.misses++;
+            candidate = startFetching(blockIndex, blockIndex, bufCount, true);
         }
-        if (goingBack) {
-            // user is asking for a block with a lower index than we've already fetched -
-            // in other words they are not following the expected pattern of increasing indexes.
-            nbGoingBack++;
-//            logger.debug("Fetch is going back at least 1 block (unexpected behavior).");
+        if (blockIndex == hintedBlock) {
+            statistics.hintHits++;
+            hintedBlock = NO_BLOCK;
         }
-        if (null == fetching) {
-            ensureFetching(blockIndex);
+        // queue up the following blocks before blocking, so that they're fetched while we wait
+        for (long next = blockIndex + 1; next < blockIndex + bufCount && next * bufSize < size; next++) {
+            if (null == findUnit(next) && null == startFetching(next, blockIndex, bufCount, false)) {
+                break;
+            }
         }
-        WorkUnit candidate = fetching;
         // block until we have the buffer
-        ByteBuffer buf = candidate.getBuf();
-        full.add(candidate);
-        fetching = null;
-        if (candidate.blockIndex == blockIndex) {
-            // this is who we were waiting for
-            nbNearHit++;
-            ensureFetching(blockIndex+1);
-            return buf;
-        } else {
-            // wrong block. Let's fetch the right one now.
-            nbMiss++;
-            ensureFetching(blockIndex);
-            candidate = fetching;
-            buf = candidate.getBuf();
-            full.add(candidate);
-            fetching = null;
-            ensureFetching(blockIndex+1);
-            return buf;
-        }
+        return candidate.getBuf();
     }
 
 
@@ -298,7 +422,7 @@ public final class SeekableByteChannelPrefetcher implements SeekableByteChannel
         if (!open) throw new ClosedChannelException();
         try {
             if (trackTime) {
-                msBetweenCallsToRead += betweenCallsToRead.elapsed(TimeUnit.MILLISECONDS);
+                statistics.msBetweenCallsToRead += betweenCallsToRead.elapsed(TimeUnit.MILLISECONDS);
             }
             ByteBuffer src;
             try {
@@ -308,7 +432,7 @@ public final class SeekableByteChannelPrefetcher implements SeekableByteChannel
                 }
                 src = fetch(position);
                 if (trackTime) {
-                    msWaitingForData += waitingForData.elapsed(TimeUnit.MILLISECONDS);
+                    statistics.msWaitingForData += waitingForData.elapsed(TimeUnit.MILLISECONDS);
                 }
             } catch (InterruptedException e) {
                 // Restore interrupted status
@@ -319,7 +443,7 @@ public final class SeekableByteChannelPrefetcher implements SeekableByteChannel
             }
             if (null == src) {
                 // the caller is asking for a block past EOF
-                nbReadsPastEnd++;
+                statistics.readsPastEnd++;
                 return -1; // EOF
             }
             Stopwatch copyingData;
@@ -339,7 +463,7 @@ public final class SeekableByteChannelPrefetcher implements SeekableByteChannel
             int availableToCopy = src.position() - offset;
             if (availableToCopy < 0) {
                 // the caller is asking to read past the end of the file
-                nbReadsPastEnd++;
+                statistics.readsPastEnd++;
                 return -1; // EOF
             }
             if (availableToCopy < bytesToCopy) {
@@ -348,9 +472,9 @@ public final class SeekableByteChannelPrefetcher implements SeekableByteChannel
             dst.put(array, offset, bytesToCopy);
             position += bytesToCopy;
             if (trackTime) {
-                msCopyingData += copyingData.elapsed(TimeUnit.MILLISECONDS);
+                statistics.msCopyingData += copyingData.elapsed(TimeUnit.MILLISECONDS);
             }
-            bytesReturned += bytesToCopy;
+            statistics.bytesReturned += bytesToCopy;
             if (availableToCopy == 0) {
                 // EOF
                 return -1;
@@ -19,5 +19,10 @@ public enum ReadsWriteFormat {
     /**
      * Write reads to a sharded set of ADAM-formatted Parquet files
      */
-    ADAM
+    ADAM,
+
+    /**
+     * Write reads to a sharded set of columnar Parquet files, for use as an intermediate format between Spark pipelines
+     */
+    COLUMNAR
 }
@@ -264,10 +264,10 @@ public class SAMRecordToGATKReadAdapter implements GATKRead, Serializable {
         return bases[i];
     }
 
+    //Records read from a BAM decode their fields lazily, and know their length without decoding the bases
     @Override
     public int getLength() {
-        final byte[] bases = samRecord.getReadBases();
-        return bases == null ? 0 : bases.length;
+        return samRecord.getReadLength();
     }
 
     @Override
@@ -290,6 +290,8 @@ public class SAMRecordToGATKReadAdapter implements GATKRead, Serializable {
         return baseQualities != null ? baseQualities : new byte[0];
     }
 
+    //Unlike getLength, this decodes the qualities of a BAMRecord: a BAM stores as many quality bytes as bases even
+    //when the qualities are missing (as 0xFF), and htsjdk only tells the two cases apart when it decodes them
     @Override
     public int getBaseQualityCount(){
         final byte[] baseQualities = samRecord.getBaseQualities();
@@ -0,0 +1,423 @@
+package org.broadinstitute.hellbender.utils.runtime;
+
+import com.google.api.client.json.JsonFactory;
+import com.google.api.client.json.JsonGenerator;
+import org.broadinstitute.hellbender.exceptions.UserException;
+import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.tsv.TableColumnCollection;
+import org.broadinstitute.hellbender.utils.tsv.TableUtils;
+import org.broadinstitute.hellbender.utils.tsv.TableWriter;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * A process-wide registry of named runtime metrics -- timers, counters and histograms -- for finding out where a tool
+ * spends its time without attaching a profiler.
+ *
+ * Metrics are registered once, typically in a static field, and then recorded from any thread:
+ * <pre>
+ *     private static final RuntimeMetrics.Timer ASSEMBLY_TIMER = RuntimeMetrics.timer("HaplotypeCallerEngine.assembly");
+ *     ...
+ *     final long startTime = ASSEMBLY_TIMER.start();
+ *     ... assemble ...
+ *     ASSEMBLY_TIMER.stop(startTime);
+ * </pre>
+ *
+ * Recording does nothing until metrics are enabled (GATKTool enables them when asked to write them out). When
+ * they are enabled, each thread accumulates into its own arrays, so that threads never contend with each other. Each
+ * thread's arrays are guarded by their own lock, which is only ever contended by {@link #getSummaries}, so that the
+ * totals over all threads include everything recorded before they were taken.
+ */
+public final class RuntimeMetrics {
+
+    public enum MetricType {
+        /** Elapsed times, recorded in nanoseconds and reported in seconds */
+        TIMER,
+        /** Amounts added up */
+        COUNTER,
+        /** Values whose distribution is kept in power-of-2 bins */
+        HISTOGRAM
+    }
+
+    private static final double NANOSECONDS_PER_SECOND = 1e9;
+
+    private static final JsonFactory JSON_FACTORY = com.google.api.client.googleapis.util.Utils.getDefaultJsonFactory();
+
+    // per metric, the values are count, sum, min and max, followed for histograms by the bin counts
+    private static final int COUNT = 0;
+    private static final int SUM = 1;
+    private static final int MIN = 2;
+    private static final int MAX = 3;
+    private static final int FIRST_BIN = 4;
+    // bin i holds the values with i significant bits, i.e. from 2^(i-1) to 2^i - 1 (bin 0 holds values <= 0)
+    private static final int NUM_BINS = Long.SIZE + 1;
+
+    private static volatile boolean enabled = false;
+    // incremented by reset, so that each thread knows to discard what it recorded before
+    private static volatile long generation = 0;
+
+    private static final Map<String, Metric> metricsByName = new LinkedHashMap<>();
+    private static final Queue<Accumulator> accumulators = new ConcurrentLinkedQueue<>();
+    private static final ThreadLocal<Accumulator> threadAccumulator = ThreadLocal.withInitial(Accumulator::new);
+
+    private RuntimeMetrics() {}
+
+    /**
+     * A metric that can be recorded from any thread
+     */
+    public abstract static class Metric {
+        private final String name;
+        private final MetricType type;
+        private final int id;
+
+        private Metric( final String name, final MetricType type, final int id ) {
+            this.name = name;
+            this.type = type;
+            this.id = id;
+        }
+
+        public String getName() { return name; }
+
+        public MetricType getType() { return type; }
+
+        void record( final long value ) {
+            threadAccumulator.get().record(this, value);
+        }
+    }
+
+    /**
+     * Times a piece of code; each start/stop pair adds one elapsed time
+     */
+    public static final class Timer extends Metric {
+        private Timer( final String name, final int id ) {
+            super(name, MetricType.TIMER, id);
+        }
+
+        /**
+         * @return the start time to pass to {@link #stop} (0 if metrics are disabled)
+         */
+        public long start() {
+            return enabled ? System.nanoTime() : 0L;
+        }
+
+        /**
+         * Records the time elapsed since startTime, which was returned by {@link #start}
+         */
+        public void stop( final long startTime ) {
+            if ( enabled && startTime != 0L ) {
+                record(System.nanoTime() - startTime);
+            }
+        }
+    }
+
+    /**
+     * Adds up amounts, e.g. numbers of records processed
+     */
+    public static final class Counter extends Metric {
+        private Counter( final String name, final int id ) {
+            super(name, MetricType.COUNTER, id);
+        }
+
+        public void increment() {
+            add(1L);
+        }
+
+        public void add( final long amount ) {
+            if ( enabled ) {
+                record(amount);
+            }
+        }
+    }
+
+    /**
+     * Keeps the distribution of some value, e.g. the number of reads in each region
+     */
+    public static final class Histogram extends Metric {
+        private Histogram( final String name, final int id ) {
+            super(name, MetricType.HISTOGRAM, id);
+        }
+
+        public void add( final long value ) {
+            if ( enabled ) {
+                record(value);
+            }
+        }
+    }
+
+    // the values recorded by one thread, indexed by metric id, which are only accessed while holding its lock
+    private static final class Accumulator {
+        private long[][] values = new long[0][];
+        private long accumulatorGeneration = -1;
+
+        synchronized void record( final Metric metric, final long value ) {
+            final long[] metricValues = getValues(metric);
+            if ( metricValues[COUNT]++ == 0 ) {
+                metricValues[MIN] = value;
+                metricValues[MAX] = value;
+            } else if ( value < metricValues[MIN] ) {
+                metricValues[MIN] = value;
+            } else if ( value > metricValues[MAX] ) {
+                metricValues[MAX] = value;
+            }
+            metricValues[SUM] += value;
+            if ( metric.type == MetricType.HISTOGRAM ) {
+                metricValues[FIRST_BIN + getBin(value)]++;
+            }
+        }
+
+        private long[] getValues( final Metric metric ) {
+            if ( accumulatorGeneration != generation ) {
+                accumulatorGeneration = generation;
+                values = new long[values.length][];
+                accumulators.add(this);
+            }
+            if ( metric.id >= values.length ) {
+                values = Arrays.copyOf(values, Math.max(metric.id + 1, 2 * values.length));
+            }
+            long[] metricValues = values[metric.id];
+            if ( metricValues == null ) {
+                metricValues = new long[metric.type == MetricType.HISTOGRAM ? FIRST_BIN + NUM_BINS : FIRST_BIN];
+                values[metric.id] = metricValues;
+            }
+            return metricValues;
+        }
+
+        // adds what this thread recorded for a metric in the given generation to totals
+        synchronized void addTo( final Metric metric, final long currentGeneration, final long[] totals ) {
+            if ( accumulatorGeneration != currentGeneration || metric.id >= values.length ||
+                    values[metric.id] == null || values[metric.id][COUNT] == 0 ) {
+                return;
+            }
+            final long[] metricValues = values[metric.id];
+            totals[MIN] = totals[COUNT] == 0 ? metricValues[MIN] : Math.min(totals[MIN], metricValues[MIN]);
+            totals[MAX] = totals[COUNT] == 0 ? metricValues[MAX] : Math.max(totals[MAX], metricValues[MAX]);
+            totals[COUNT] += metricValues[COUNT];
+            totals[SUM] += metricValues[SUM];
+            for ( int i = FIRST_BIN; i < totals.length; i++ ) {
+                totals[i] += metricValues[i];
+            }
+        }
+    }
+
+    /**
+     * @return the timer with the given name, which is created if there isn't one
+     */
+    public static Timer timer( final String name ) {
+        return (Timer)getOrCreateMetric(name, MetricType.TIMER);
+    }
+
+    /**
+     * @return the counter with the given name, which is created if there isn't one
+     */
+    public static Counter counter( final String name ) {
+        return (Counter)getOrCreateMetric(name, MetricType.COUNTER);
+    }
+
+    /**
+     * @return the histogram with the given name, which is created if there isn't one
+     */
+    public static Histogram histogram( final String name ) {
+        return (Histogram)getOrCreateMetric(name, MetricType.HISTOGRAM);
+    }
+
+    private static synchronized Metric getOrCreateMetric( final String name, final MetricType type ) {
+        Utils.nonEmpty(name, "Metric name must not be empty");
+        final Metric existing = metricsByName.get(name);
+        if ( existing != null ) {
+            Utils.validateArg(existing.type == type, () -> "Metric " + name + " is a " + existing.type + ", not a " + type);
+            return existing;
+        }
+        final int id = metricsByName.size();
+        final Metric metric = type == MetricType.TIMER ? new Timer(name, id) :
+                type == MetricType.COUNTER ? new Counter(name, id) : new Histogram(name, id);
+        metricsByName.put(name, metric);
+        return metric;
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Turns the recording of metrics on or off (it's off by default)
+     */
+    public static void setEnabled( final boolean enable ) {
+        enabled = enable;
+    }
+
+    /**
+     * Discards all recorded values. Threads that are recording at the time may keep part of what they recorded.
+     */
+    public static synchronized void reset() {
+        accumulators.clear();
+        generation++;
+    }
+
+    /**
+     * The totals of a metric over all threads
+     */
+    public static final class MetricSummary {
+        private final String name;
+        private final MetricType type;
+        private final long count;
+        private final long sum;
+        private final long min;
+        private final long max;
+        private final long[] bins;
+
+        private MetricSummary( final Metric metric, final long[] values ) {
+            this.name = metric.name;
+            this.type = metric.type;
+            this.count = values[COUNT];
+            this.sum = values[SUM];
+            this.min = values[MIN];
+            this.max = values[MAX];
+            this.bins = type == MetricType.HISTOGRAM ? Arrays.copyOfRange(values, FIRST_BIN, FIRST_BIN + NUM_BINS) : null;
+        }
+
+        public String getName() { return name; }
+
+        public MetricType getType() { return type; }
+
+        /**
+         * @return the number of values recorded (timings, amounts added or histogram values)
+         */
+        public long getCount() { return count; }
+
+        /**
+         * @return the sum of the values recorded (in nanoseconds for timers)
+         */
+        public long getSum() { return sum; }
+
+        public long getMin() { return min; }
+
+        public long getMax() { return max; }
+
+        public double getMean() { return count == 0 ? 0.0 : (double)sum / count; }
+
+        /**
+         * @return for histograms, the number of values in each bin, where bin i holds the values with i significant
+         * bits (from 2^(i-1) to 2^i - 1, and bin 0 holds values up to 0); null for other metrics
+         */
+        public long[] getBins() { return bins == null ? null : bins.clone(); }
+
+        // timers are reported in seconds
+        private double toReportedUnits( final double value ) {
+            return type == MetricType.TIMER ? value / NANOSECONDS_PER_SECOND : value;
+        }
+    }
+
+    /**
+     * @return the totals over all threads of each metric that has been recorded since the last reset, in the order
+     * in which the metrics were registered
+     */
+    public static synchronized List<MetricSummary> getSummaries() {
+        final long currentGeneration = generation;
+        final List<MetricSummary> summaries = new ArrayList<>();
+        for ( final Metric metric : metricsByName.values() ) {
+            final long[] totals = new long[metric.type == MetricType.HISTOGRAM ? FIRST_BIN + NUM_BINS : FIRST_BIN];
+            for ( final Accumulator accumulator : accumulators ) {
+                accumulator.addTo(metric, currentGeneration, totals);
+            }
+            if ( totals[COUNT] > 0 ) {
+                summaries.add(new MetricSummary(metric, totals));
+            }
+        }
+        return summaries;
+    }
+
+    /**
+     * Writes the totals of all metrics recorded since the last reset, as JSON if the path ends in .json and as a
+     * tab-separated table otherwise. Times are in seconds.
+     */
+    public static void write( final Path outputPath ) {
+        Utils.nonNull(outputPath);
+        final List<MetricSummary> summaries = getSummaries();
+        try ( final Writer writer = Files.newBufferedWriter(outputPath, StandardCharsets.UTF_8) ) {
+            if ( outputPath.toString().toLowerCase().endsWith(".json") ) {
+                writeJson(writer, summaries);
+            } else {
+                writeTsv(writer, summaries);
+            }
+        } catch ( final IOException e ) {
+            throw new UserException.CouldNotCreateOutputFile(outputPath.toString(), "Could not write runtime metrics", e);
+        }
+    }
+
+    private static void writeTsv( final Writer writer, final List<MetricSummary> summaries ) throws IOException {
+        final TableColumnCollection columns = new TableColumnCollection("NAME", "TYPE", "COUNT", "SUM", "MEAN", "MIN", "MAX");
+        try ( final TableWriter<MetricSummary> tableWriter = TableUtils.writer(writer, columns, (summary, dataLine) ->
+                dataLine.set("NAME", summary.name)
+                        .set("TYPE", summary.type.name())
+                        .set("COUNT", summary.count)
+                        .set("SUM", summary.toReportedUnits(summary.sum))
+                        .set("MEAN", summary.toReportedUnits(summary.getMean()))
+                        .set("MIN", summary.toReportedUnits(summary.min))
+                        .set("MAX", summary.toReportedUnits(summary.max))) ) {
+            tableWriter.writeAllRecords(summaries);
+        }
+    }
+
+    private static void writeJson( final Writer writer, final List<MetricSummary> summaries ) throws IOException {
+        final JsonGenerator generator = JSON_FACTORY.createJsonGenerator(writer);
+        generator.enablePrettyPrint();
+        generator.writeStartObject();
+        generator.writeFieldName("metrics");
+        generator.writeStartArray();
+        for ( final MetricSummary summary : summaries ) {
+            generator.writeStartObject();
+            writeJsonField(generator, "name", summary.name);
+            writeJsonField(generator, "type", summary.type.name());
+            generator.writeFieldName("count");
+            generator.writeNumber(summary.count);
+            writeJsonField(generator, "sum", summary.toReportedUnits(summary.sum));
+            writeJsonField(generator, "mean", summary.toReportedUnits(summary.getMean()));
+            writeJsonField(generator, "min", summary.toReportedUnits(summary.min));
+            writeJsonField(generator, "max", summary.toReportedUnits(summary.max));
+            if ( summary.bins != null ) {
+                generator.writeFieldName("bins");
+                generator.writeStartArray();
+                for ( int bin = 0; bin < summary.bins.length; bin++ ) {
+                    if ( summary.bins[bin] > 0 ) {
+                        generator.writeStartObject();
+                        generator.writeFieldName("max");
+                        generator.writeNumber(getBinMax(bin));
+                        generator.writeFieldName("count");
+                        generator.writeNumber(summary.bins[bin]);
+                        generator.writeEndObject();
+                    }
+                }
+                generator.writeEndArray();
+            }
+            generator.writeEndObject();
+        }
+        generator.writeEndArray();
+        generator.writeEndObject();
+        generator.flush();
+    }
+
+    private static void writeJsonField( final JsonGenerator generator, final String name, final String value ) throws IOException {
+        generator.writeFieldName(name);
+        generator.writeString(value);
+    }
+
+    private static void writeJsonField( final JsonGenerator generator, final String name, final double value ) throws IOException {
+        generator.writeFieldName(name);
+        generator.writeNumber(value);
+    }
+
+    private static int getBin( final long value ) {
+        return value <= 0 ? 0 : Long.SIZE - Long.numberOfLeadingZeros(value);
+    }
+
+    // the largest value in a bin
+    private static long getBinMax( final int bin ) {
+        return bin == 0 ? 0 : bin == Long.SIZE ? Long.MAX_VALUE : (1L << bin) - 1;
+    }
+}
@@ -51,8 +51,8 @@ public interface SmithWatermanAligner extends Closeable {
                 logger.info("Using AVX accelerated SmithWaterman implementation");
                 return aligner;
             } catch (UserException.HardwareFeatureException exception) {
-                logger.info("AVX accelerated SmithWaterman implementation is not supported, falling back to the Java implementation");
-                return SmithWatermanJavaAligner.getInstance();
+                logger.info("AVX accelerated SmithWaterman implementation is not supported, falling back to the buffered Java implementation");
+                return new SmithWatermanBufferedJavaAligner();
             }
         }),
 
@@ -69,7 +69,13 @@ public interface SmithWatermanAligner extends Closeable {
         /**
          * use the pure java implementation of Smith-Waterman, works on all hardware
          */
-        JAVA(SmithWatermanJavaAligner::getInstance);
+        JAVA(SmithWatermanJavaAligner::getInstance),
+
+        /**
+         * use a faster pure java implementation of Smith-Waterman that reuses its buffers between alignments and gives
+         * the same results as JAVA, works on all hardware
+         */
+        JAVA_BUFFERED(SmithWatermanBufferedJavaAligner::new);
 
         private final Supplier<SmithWatermanAligner> alignerSupplier;
 
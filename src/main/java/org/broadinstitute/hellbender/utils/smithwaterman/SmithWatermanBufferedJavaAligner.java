@@ -0,0 +1,214 @@
+package org.broadinstitute.hellbender.utils.smithwaterman;
+
+import org.broadinstitute.gatk.nativebindings.smithwaterman.SWOverhangStrategy;
+import org.broadinstitute.gatk.nativebindings.smithwaterman.SWParameters;
+import org.broadinstitute.hellbender.utils.Utils;
+
+import java.util.Arrays;
+
+/**
+ * Pairwise discrete smith-waterman alignment implemented in pure java, producing exactly the same alignments as
+ * {@link SmithWatermanJavaAligner}, but faster:
+ * <ul>
+ *     <li>The scratch space is kept between calls, and grown as necessary, so that aligning does not allocate.</li>
+ *     <li>Only two rows of the score matrix are kept, along with its last column; the back track matrix is a single
+ *     flat array, walked in row order.</li>
+ *     <li>The match or mismatch score of each reference base against every alternate base is computed once per
+ *     alignment (a query profile), removing the unpredictable base comparison from the inner loop.</li>
+ * </ul>
+ * Because of the scratch space, instances are not thread-safe: use one per thread.
+ *
+ * ************************************************************************
+ * ****                    IMPORTANT NOTE:                             ****
+ * ****  This class assumes that all bytes come from UPPERCASED chars! ****
+ * ************************************************************************
+ */
+public final class SmithWatermanBufferedJavaAligner implements SmithWatermanAligner {
+    private static final int MATRIX_MIN_CUTOFF = (int) -1.0e8;   // never let matrix elements drop below this cutoff
+    private static final int LOW_INIT_VALUE = Integer.MIN_VALUE/2;
+    private static final int NUM_BASE_VALUES = 256;
+
+    private long totalComputeTime = 0;
+
+    // scratch space, indexed by column (for the rows) or by row (for the last column)
+    private int[] lastRow = new int[0];
+    private int[] curRow = new int[0];
+    private int[] lastColumn = new int[0];
+    private int[] bestGapV = new int[0];
+    private int[] gapSizeV = new int[0];
+    private int[] btrack = new int[0];
+
+    // query profile: the score of each reference base value against each alternate base, built on demand
+    private final int[][] profiles = new int[NUM_BASE_VALUES][];
+    private final int[] profileAlignment = new int[NUM_BASE_VALUES];
+    private int alignmentCount = 0;
+
+    /**
+     * Aligns the alternate sequence to the reference sequence
+     *
+     * @param reference  ref sequence
+     * @param alternate  alt sequence
+     */
+    @Override
+    public SmithWatermanAlignment align(final byte[] reference, final byte[] alternate, final SWParameters parameters, final SWOverhangStrategy overhangStrategy) {
+        final long startTime = System.nanoTime();
+
+        if ( reference == null || reference.length == 0 || alternate == null || alternate.length == 0 ) {
+            throw new IllegalArgumentException("Non-null, non-empty sequences are required for the Smith-Waterman calculation");
+        }
+        Utils.nonNull(parameters);
+        Utils.nonNull(overhangStrategy);
+
+        // avoid running full Smith-Waterman if there is an exact match of alternate in reference
+        SmithWatermanAlignment alignmentResult = SmithWatermanJavaAligner.alignExactMatch(reference, alternate, overhangStrategy);
+        if ( alignmentResult == null ) {
+            calculateMatrix(reference, alternate, overhangStrategy, parameters);
+            final int ncol = alternate.length + 1;
+            final int[] bottomRow = curRow;
+            final int[] lastColumnScores = lastColumn;
+            final int[] backtrack = btrack;
+            alignmentResult = SmithWatermanJavaAligner.calculateCigar(reference.length, alternate.length,
+                    i -> lastColumnScores[i], j -> bottomRow[j], (i, j) -> backtrack[i * ncol + j], overhangStrategy);
+        }
+
+        totalComputeTime += System.nanoTime() - startTime;
+        return alignmentResult;
+    }
+
+    /**
+     * Fills the back track matrix, the last column of scores and the last row of scores (left in curRow).
+     * This follows {@link SmithWatermanJavaAligner}'s calculateMatrix step for step, so see there for the details.
+     */
+    private void calculateMatrix(final byte[] reference, final byte[] alternate,
+                                 final SWOverhangStrategy overhangStrategy, final SWParameters parameters) {
+        final int ncol = alternate.length + 1;
+        final int nrow = reference.length + 1;
+        ensureCapacity(nrow, ncol);
+        alignmentCount += 1;
+
+        final int w_open = parameters.getGapOpenPenalty();
+        final int w_extend = parameters.getGapExtendPenalty();
+        final int w_match = parameters.getMatchValue();
+        final int w_mismatch = parameters.getMismatchPenalty();
+        final boolean initializeWithGaps =
+                overhangStrategy == SWOverhangStrategy.INDEL || overhangStrategy == SWOverhangStrategy.LEADING_INDEL;
+
+        final int[] bestGapV = this.bestGapV;
+        final int[] gapSizeV = this.gapSizeV;
+        final int[] btrack = this.btrack;
+        Arrays.fill(bestGapV, 0, ncol, LOW_INIT_VALUE);
+        Arrays.fill(gapSizeV, 0, ncol, 0);
+
+        // the first row
+        int[] curRow = this.curRow;
+        int[] lastRow = this.lastRow;
+        curRow[0] = 0;
+        int gapValue = w_open;
+        for ( int j = 1; j < ncol; j++ ) {
+            curRow[j] = initializeWithGaps ? gapValue : 0;
+            gapValue += w_extend;
+        }
+        lastColumn[0] = curRow[ncol - 1];
+
+        int firstColumnValue = w_open;
+        for ( int i = 1; i < nrow; i++ ) {
+            final int[] swap = lastRow;
+            lastRow = curRow;
+            curRow = swap;
+            curRow[0] = initializeWithGaps ? firstColumnValue : 0;
+            firstColumnValue += w_extend;
+
+            final int[] profile = getProfile(reference[i-1], alternate, w_match, w_mismatch);
+            final int rowOffset = i * ncol;
+            int bestGapH = LOW_INIT_VALUE;
+            int gapSizeH = 0;
+            int left = curRow[0];
+            for ( int j = 1; j < ncol; j++ ) {
+                final int step_diag = lastRow[j-1] + profile[j];
+
+                // best gap ending here coming down from above
+                int prev_gap = lastRow[j] + w_open;
+                int bestV = bestGapV[j] + w_extend;
+                int sizeV;
+                if ( prev_gap > bestV ) {
+                    bestV = prev_gap;
+                    sizeV = 1;
+                } else {
+                    sizeV = gapSizeV[j] + 1;
+                }
+                bestGapV[j] = bestV;
+                gapSizeV[j] = sizeV;
+
+                // best gap ending here coming from the left
+                prev_gap = left + w_open;
+                bestGapH += w_extend;
+                if ( prev_gap > bestGapH ) {
+                    bestGapH = prev_gap;
+                    gapSizeH = 1;
+                } else {
+                    gapSizeH++;
+                }
+
+                //priority here will be step diagonal, step right, step down
+                final int score;
+                if ( step_diag >= bestV && step_diag >= bestGapH ) {
+                    score = step_diag;
+                    btrack[rowOffset + j] = 0;
+                } else if ( bestGapH >= bestV ) {
+                    score = bestGapH;
+                    btrack[rowOffset + j] = -gapSizeH; // negative = horizontal
+                } else {
+                    score = bestV;
+                    btrack[rowOffset + j] = sizeV; // positive = vertical
+                }
+                left = Math.max(MATRIX_MIN_CUTOFF, score);
+                curRow[j] = left;
+            }
+            lastColumn[i] = curRow[ncol - 1];
+        }
+        this.curRow = curRow;
+        this.lastRow = lastRow;
+    }
+
+    /**
+     * Returns the score of a reference base against each alternate base, indexed from 1 like the matrix columns
+     */
+    private int[] getProfile(final byte refBase, final byte[] alternate, final int w_match, final int w_mismatch) {
+        final int baseIdx = refBase & 0xff;
+        int[] profile = profiles[baseIdx];
+        if ( profileAlignment[baseIdx] != alignmentCount || profile == null ) {
+            if ( profile == null || profile.length < alternate.length + 1 ) {
+                profile = new int[curRow.length];
+                profiles[baseIdx] = profile;
+            }
+            for ( int j = 1; j <= alternate.length; j++ ) {
+                profile[j] = alternate[j-1] == refBase ? w_match : w_mismatch;
+            }
+            profileAlignment[baseIdx] = alignmentCount;
+        }
+        return profile;
+    }
+
+    private void ensureCapacity(final int nrow, final int ncol) {
+        if ( curRow.length < ncol ) {
+            final int capacity = Math.max(ncol, 2 * curRow.length);
+            lastRow = new int[capacity];
+            curRow = new int[capacity];
+            bestGapV = new int[capacity];
+            gapSizeV = new int[capacity];
+        }
+        if ( lastColumn.length < nrow ) {
+            lastColumn = new int[Math.max(nrow, 2 * lastColumn.length)];
+        }
+        final long matrixSize = (long)nrow * ncol;
+        Utils.validateArg(matrixSize <= Integer.MAX_VALUE - 8, () -> "Sequences are too long to align: " + (nrow - 1) + " by " + (ncol - 1));
+        if ( btrack.length < matrixSize ) {
+            btrack = new int[(int)Math.min(Integer.MAX_VALUE - 8, Math.max(matrixSize, 2L * btrack.length))];
+        }
+    }
+
+    @Override
+    public void close() {
+        logger.info(String.format("Total compute time in buffered java Smith-Waterman : %.2f sec", totalComputeTime * 1e-9));
+    }
+}
@@ -12,6 +12,8 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.function.IntBinaryOperator;
+import java.util.function.IntUnaryOperator;
 
 /**
  * Pairwise discrete smith-waterman alignment implemented in pure java
@@ -65,22 +67,9 @@ public final class SmithWatermanJavaAligner implements SmithWatermanAligner {
         Utils.nonNull(overhangStrategy);
 
         // avoid running full Smith-Waterman if there is an exact match of alternate in reference
-        int matchIndex = -1;
-        if (overhangStrategy == SWOverhangStrategy.SOFTCLIP || overhangStrategy == SWOverhangStrategy.IGNORE) {
-            // Use a substring search to find an exact match of the alternate in the reference
-            // NOTE: This approach only works for SOFTCLIP and IGNORE overhang strategies
-            matchIndex = Utils.lastIndexOf(reference, alternate);
-        }
-
-        final SmithWatermanAlignment alignmentResult;
+        SmithWatermanAlignment alignmentResult = alignExactMatch(reference, alternate, overhangStrategy);
 
-        if (matchIndex != -1) {
-            // generate the alignment result when the substring search was successful
-            final List<CigarElement> lce = new ArrayList<>(alternate.length);
-            lce.add(makeElement(State.MATCH, alternate.length));
-            alignmentResult = new SWPairwiseAlignmentResult(AlignmentUtils.consolidateCigar(new Cigar(lce)), matchIndex);
-        }
-        else {
+        if (alignmentResult == null) {
             // run full Smith-Waterman
             final int n = reference.length+1;
             final int m = alternate.length+1;
@@ -95,6 +84,26 @@ public final class SmithWatermanJavaAligner implements SmithWatermanAligner {
         return alignmentResult;
     }
 
+    /**
+     * Returns the alignment of alternate as an exact substring of reference, or null if it isn't one or if the overhang
+     * strategy doesn't allow this shortcut
+     */
+    static SmithWatermanAlignment alignExactMatch(final byte[] reference, final byte[] alternate, final SWOverhangStrategy overhangStrategy) {
+        // Use a substring search to find an exact match of the alternate in the reference
+        // NOTE: This approach only works for SOFTCLIP and IGNORE overhang strategies
+        if (overhangStrategy != SWOverhangStrategy.SOFTCLIP && overhangStrategy != SWOverhangStrategy.IGNORE) {
+            return null;
+        }
+        final int matchIndex = Utils.lastIndexOf(reference, alternate);
+        if (matchIndex == -1) {
+            return null;
+        }
+        // generate the alignment result when the substring search was successful
+        final List<CigarElement> lce = new ArrayList<>(alternate.length);
+        lce.add(makeElement(State.MATCH, alternate.length));
+        return new SWPairwiseAlignmentResult(AlignmentUtils.consolidateCigar(new Cigar(lce)), matchIndex);
+    }
+
     /**
      * Calculates the SW matrices for the given sequences
      * @param reference  ref sequence
@@ -228,7 +237,7 @@ public final class SmithWatermanJavaAligner implements SmithWatermanAligner {
     /*
      * Class to store the result of calculating the CIGAR from the back track matrix
      */
-    private static final class SWPairwiseAlignmentResult implements SmithWatermanAlignment {
+    static final class SWPairwiseAlignmentResult implements SmithWatermanAlignment {
         private final Cigar cigar;
         private final int alignmentOffset;
 
@@ -257,11 +266,32 @@ public final class SmithWatermanJavaAligner implements SmithWatermanAligner {
      * @return non-null SWPairwiseAlignmentResult object
      */
     private static SWPairwiseAlignmentResult calculateCigar(final int[][] sw, final int[][] btrack, final SWOverhangStrategy overhangStrategy) {
-        // p holds the position we start backtracking from; we will be assembling a cigar in the backwards order
-        int p1 = 0, p2 = 0;
-
         final int refLength = sw.length-1;
         final int altLength = sw[0].length-1;
+        return calculateCigar(refLength, altLength, i -> sw[i][altLength], j -> sw[refLength][j],
+                (i, j) -> btrack[i][j], overhangStrategy);
+    }
+
+    /**
+     * Calculates the CIGAR for the alignment from the scores on the last column and the bottom row of the
+     * Smith-Waterman matrix and from the back track matrix, so that implementations which don't keep the full matrices
+     * produce exactly the same alignments as this one
+     *
+     * @param refLength            the number of rows of the matrices, less one
+     * @param altLength            the number of columns of the matrices, less one
+     * @param lastColumnScores     the score in each row of the last column
+     * @param bottomRowScores      the score in each column of the last row
+     * @param btrack               the back track matrix, indexed by row and column
+     * @param overhangStrategy    the strategy to use for dealing with overhangs
+     * @return non-null SWPairwiseAlignmentResult object
+     */
+    static SWPairwiseAlignmentResult calculateCigar(final int refLength, final int altLength,
+                                                    final IntUnaryOperator lastColumnScores,
+                                                    final IntUnaryOperator bottomRowScores,
+                                                    final IntBinaryOperator btrack,
+                                                    final SWOverhangStrategy overhangStrategy) {
+        // p holds the position we start backtracking from; we will be assembling a cigar in the backwards order
+        int p1 = 0, p2 = 0;
 
         int maxscore = Integer.MIN_VALUE; // sw scores are allowed to be negative
         int segment_length = 0; // length of the segment (continuous matches, insertions or deletions)
@@ -277,8 +307,8 @@ public final class SmithWatermanJavaAligner implements SmithWatermanAligner {
             //excluding high scoring local alignments
             p2=altLength;
 
-            for(int i=1;i<sw.length;i++)  {
-               final int curScore = sw[i][altLength];
+            for(int i=1;i<=refLength;i++)  {
+               final int curScore = lastColumnScores.applyAsInt(i);
                if (curScore >= maxscore ) {
                     p1 = i;
                     maxscore = curScore;
@@ -286,9 +316,8 @@ public final class SmithWatermanJavaAligner implements SmithWatermanAligner {
             }
             // now look for a larger score on the bottom-most row
             if ( overhangStrategy != SWOverhangStrategy.LEADING_INDEL ) {
-                final int[] bottomRow=sw[refLength];
-                for ( int j = 1 ; j < bottomRow.length; j++) {
-                    final int curScore=bottomRow[j];
+                for ( int j = 1 ; j <= altLength; j++) {
+                    final int curScore=bottomRowScores.applyAsInt(j);
                     // data_offset is the offset of [n][j]
                     if ( curScore > maxscore ||
                             (curScore == maxscore && Math.abs(refLength - j) < Math.abs(p1 - p2) ) ) {
@@ -311,7 +340,7 @@ public final class SmithWatermanJavaAligner implements SmithWatermanAligner {
 
         State state = State.MATCH;
         do {
-            final int btr = btrack[p1][p2];
+            final int btr = btrack.applyAsInt(p1, p2);
             final State new_state;
             int step_length = 1;
             if ( btr > 0 ) {
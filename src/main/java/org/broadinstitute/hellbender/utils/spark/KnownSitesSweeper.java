@@ -0,0 +1,277 @@
+package org.broadinstitute.hellbender.utils.spark;
+
+import com.esotericsoftware.kryo.DefaultSerializer;
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.Lists;
+import htsjdk.samtools.util.Locatable;
+import htsjdk.variant.variantcontext.VariantContext;
+import org.broadinstitute.hellbender.engine.FeatureDataSource;
+import org.broadinstitute.hellbender.utils.SimpleInterval;
+import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.variant.GATKVariant;
+import org.broadinstitute.hellbender.utils.variant.VariantContextVariantAdapter;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Finds the variants from a single variants file that overlap each of a sequence of coordinate-sorted intervals
+ * (typically reads) using a sweep line, rather than issuing a query for every interval.
+ *
+ * <p>
+ *     Variants are streamed from the file in blocks of {@code blockSize} bases as the sweep advances, converted to
+ *     {@link GATKVariant}s only once, and kept in a sliding window of parallel arrays holding their start and end positions.
+ *     Variants that end before the start of the current interval are evicted from the head of the window.
+ * </p>
+ *
+ * <p>
+ *     The {@link Iterable}s returned by {@link #getOverlappingVariants} are views on the window rather than copies.
+ *     They remain valid after the sweep advances, because the window arrays are only ever appended to, and are
+ *     reallocated (rather than overwritten) when the window is compacted or reset.
+ *     When serialized (by Java serialization or Kryo), a view is written as a list of only the variants it contains,
+ *     and is deserialized as such a list.
+ * </p>
+ *
+ * <p>
+ *     Intervals need not be sorted for the results to be correct: whenever an interval starts before the previous one
+ *     or is on a different contig, the window is discarded and the sweep restarts at the new interval.
+ *     This is only efficient for sorted input, however.
+ * </p>
+ */
+final class KnownSitesSweeper {
+    private static final int DEFAULT_INITIAL_WINDOW_CAPACITY = 1024;
+
+    private final FeatureDataSource<VariantContext> variantSource;
+    private final int blockSize;
+    private final int initialWindowCapacity;
+
+    private String currentContig = null;
+    private int lastQueryStart = 0;
+    //all variants starting at or before this position on the current contig have been loaded into the window
+    private int loadedThrough = 0;
+
+    //the window: variants in [head, size) are live, sorted by start
+    private GATKVariant[] variants;
+    private int[] starts;
+    private int[] ends;
+    private int head;
+    private int size;
+
+    /**
+     * @param variantSource  indexed variants file to stream; must be sorted by start position within each contig
+     * @param blockSize      number of bases of variants to load at a time as the sweep advances
+     */
+    KnownSitesSweeper(final FeatureDataSource<VariantContext> variantSource, final int blockSize) {
+        this(variantSource, blockSize, DEFAULT_INITIAL_WINDOW_CAPACITY);
+    }
+
+    @VisibleForTesting
+    KnownSitesSweeper(final FeatureDataSource<VariantContext> variantSource, final int blockSize, final int initialWindowCapacity) {
+        this.variantSource = Utils.nonNull(variantSource);
+        Utils.validateArg(blockSize > 0, "Block size must be positive.");
+        Utils.validateArg(initialWindowCapacity > 0, "Initial window capacity must be positive.");
+        this.blockSize = blockSize;
+        this.initialWindowCapacity = initialWindowCapacity;
+        resetWindow();
+    }
+
+    /**
+     * Returns the variants overlapping {@code interval}, which should start at or after the previous interval
+     * passed to this method for the sweep to be efficient.
+     *
+     * @return  an unmodifiable view on the overlapping variants, sorted by start
+     */
+    Iterable<GATKVariant> getOverlappingVariants(final Locatable interval) {
+        Utils.nonNull(interval);
+        final String contig = interval.getContig();
+        final int queryStart = interval.getStart();
+        final int queryEnd = interval.getEnd();
+
+        if (!contig.equals(currentContig) || queryStart < lastQueryStart || queryStart > loadedThrough + 1) {
+            //new contig, unsorted input, or a gap larger than what has been loaded: restart the sweep here
+            restartAt(contig, queryStart);
+        }
+        lastQueryStart = queryStart;
+        while (loadedThrough < queryEnd) {
+            loadNextBlock();
+        }
+
+        //evict variants that end before this interval, as no subsequent sorted interval can overlap them
+        while (head < size && ends[head] < queryStart) {
+            head++;
+        }
+
+        //variants in [head, stop) start at or before the end of the interval, but may still end before its start
+        final int stop = firstIndexStartingAfter(queryEnd);
+        return head == stop ? Collections.emptyList() : new WindowView(variants, ends, head, stop, queryStart);
+    }
+
+    private void restartAt(final String contig, final int start) {
+        currentContig = contig;
+        resetWindow();
+        //the first block also returns the variants that start before the sweep but overlap it
+        final SimpleInterval block = new SimpleInterval(contig, start, blockEnd(start));
+        for (final VariantContext vc : variantSource.queryAndPrefetch(block)) {
+            append(vc);
+        }
+        loadedThrough = block.getEnd();
+    }
+
+    private void loadNextBlock() {
+        final SimpleInterval block = new SimpleInterval(currentContig, loadedThrough + 1, blockEnd(loadedThrough + 1));
+        for (final VariantContext vc : variantSource.queryAndPrefetch(block)) {
+            //variants starting before the block overlap it, but have already been loaded
+            if (vc.getStart() >= block.getStart()) {
+                append(vc);
+            }
+        }
+        loadedThrough = block.getEnd();
+    }
+
+    private int blockEnd(final int blockStart) {
+        return (int) Math.min((long) blockStart + blockSize - 1, Integer.MAX_VALUE);
+    }
+
+    private void append(final VariantContext vc) {
+        if (size == variants.length) {
+            compactOrGrow();
+        }
+        variants[size] = VariantContextVariantAdapter.sparkVariantAdapter(vc);
+        starts[size] = vc.getStart();
+        ends[size] = vc.getEnd();
+        size++;
+    }
+
+    /**
+     * Moves the live part of the window to new arrays, so that views handed out on the old arrays are unaffected
+     * and evicted variants can be garbage collected once those views are.
+     */
+    private void compactOrGrow() {
+        final int numLive = size - head;
+        final int capacity = numLive * 2 > variants.length ? variants.length * 2 : variants.length;
+        variants = Arrays.copyOfRange(variants, head, head + capacity);
+        starts = Arrays.copyOfRange(starts, head, head + capacity);
+        ends = Arrays.copyOfRange(ends, head, head + capacity);
+        head = 0;
+        size = numLive;
+    }
+
+    private void resetWindow() {
+        variants = new GATKVariant[initialWindowCapacity];
+        starts = new int[initialWindowCapacity];
+        ends = new int[initialWindowCapacity];
+        head = 0;
+        size = 0;
+        lastQueryStart = 0;
+        loadedThrough = 0;
+    }
+
+    /**
+     * @return  index of the first live variant starting after {@code position}, or {@code size} if there is none
+     */
+    private int firstIndexStartingAfter(final int position) {
+        int low = head;
+        int high = size;
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+            if (starts[mid] <= position) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Immutable view on the variants in a range of the window that end at or after a given position.
+     * Serialization writes a copy of the viewed variants instead of the backing window arrays.
+     */
+    @DefaultSerializer(WindowViewSerializer.class)
+    private static final class WindowView implements Iterable<GATKVariant>, Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final GATKVariant[] variants;
+        private final int[] ends;
+        private final int from;
+        private final int to;
+        private final int minEnd;
+
+        private WindowView(final GATKVariant[] variants, final int[] ends, final int from, final int to, final int minEnd) {
+            this.variants = variants;
+            this.ends = ends;
+            this.from = from;
+            this.to = to;
+            this.minEnd = minEnd;
+        }
+
+        @Override
+        public Iterator<GATKVariant> iterator() {
+            return new Iterator<GATKVariant>() {
+                private int next = advance(from);
+
+                private int advance(int index) {
+                    while (index < to && ends[index] < minEnd) {
+                        index++;
+                    }
+                    return index;
+                }
+
+                @Override
+                public boolean hasNext() {
+                    return next < to;
+                }
+
+                @Override
+                public GATKVariant next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    final GATKVariant variant = variants[next];
+                    next = advance(next + 1);
+                    return variant;
+                }
+            };
+        }
+
+        private List<GATKVariant> copyOfViewedVariants() {
+            return Lists.newArrayList(this);
+        }
+
+        private Object writeReplace() {
+            return copyOfViewedVariants();
+        }
+    }
+
+    /**
+     * Kryo serializer that writes only the variants in a {@link WindowView}, which are read back as a list.
+     */
+    public static final class WindowViewSerializer extends com.esotericsoftware.kryo.Serializer<Iterable<GATKVariant>> {
+        @Override
+        public void write(final Kryo kryo, final Output output, final Iterable<GATKVariant> view) {
+            final List<GATKVariant> viewedVariants = ((WindowView)view).copyOfViewedVariants();
+            output.writeInt(viewedVariants.size(), true);
+            for (final GATKVariant variant : viewedVariants) {
+                kryo.writeClassAndObject(output, variant);
+            }
+        }
+
+        @Override
+        public Iterable<GATKVariant> read(final Kryo kryo, final Input input, final Class<Iterable<GATKVariant>> klass) {
+            final int numVariants = input.readInt(true);
+            final List<GATKVariant> variants = new ArrayList<>(numVariants);
+            for (int i = 0; i < numVariants; i++) {
+                variants.add((GATKVariant)kryo.readClassAndObject(input));
+            }
+            return variants;
+        }
+    }
+}
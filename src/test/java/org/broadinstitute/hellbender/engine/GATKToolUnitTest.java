@@ -26,6 +26,7 @@ import org.broadinstitute.hellbender.utils.SimpleInterval;
 import org.broadinstitute.hellbender.utils.config.GATKConfig;
 import org.broadinstitute.hellbender.utils.read.GATKRead;
 import org.broadinstitute.hellbender.utils.reference.ReferenceUtils;
+import org.broadinstitute.hellbender.utils.runtime.RuntimeMetrics;
 import org.testng.Assert;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
@@ -141,6 +142,19 @@ public final class GATKToolUnitTest extends GATKBaseTest {
         }
     }
 
+    @CommandLineProgramProperties(
+            summary = "TestGATKToolThatFails",
+            oneLineSummary = "TestGATKToolThatFails",
+            programGroup = TestProgramGroup.class
+    )
+    private static final class TestGATKToolThatFails extends GATKTool{
+
+        @Override
+        public void traverse() {
+            throw new IllegalStateException("traversal failed");
+        }
+    }
+
     @CommandLineProgramProperties(
             summary = "TestGATKToolWithVariants",
             oneLineSummary = "TestGATKToolWithVariants",
@@ -575,6 +589,26 @@ public final class GATKToolUnitTest extends GATKBaseTest {
         Assert.assertNull(toolDict);
     }
 
+    @Test
+    public void testRuntimeMetricsFailureDoesNotHideToolFailure() {
+        final GATKTool tool = new TestGATKToolThatFails();
+        final CommandLineParser clp = new CommandLineArgumentParser(tool);
+        final File unwritableMetrics = new File(new File(createTempDir("testRuntimeMetricsFailure"), "nonexistent"), "metrics.tsv");
+        final String[] args = {"--" + StandardArgumentDefinitions.RUNTIME_METRICS_OUTPUT_LONG_NAME, unwritableMetrics.getAbsolutePath()};
+        clp.parseArguments(System.out, args);
+        tool.onStartup();
+        try {
+            tool.doWork();
+            Assert.fail("the tool should have failed");
+        } catch (final IllegalStateException e) {
+            Assert.assertEquals(e.getMessage(), "traversal failed");
+            Assert.assertEquals(e.getSuppressed().length, 1);
+            Assert.assertTrue(e.getSuppressed()[0] instanceof UserException.CouldNotCreateOutputFile);
+        } finally {
+            RuntimeMetrics.setEnabled(false);
+        }
+    }
+
     @DataProvider(name="createVCFWriterData")
     public Object[][] createVCFWriterData() {
         return new Object[][]{
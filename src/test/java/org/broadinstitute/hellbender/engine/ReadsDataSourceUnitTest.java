@@ -231,6 +231,30 @@ public final class ReadsDataSourceUnitTest extends GATKBaseTest {
         };
     }
 
+    @Test(dataProvider = "MultipleFilesCompleteTraversalData")
+    public void testMultipleFilesCompleteTraversalWithLocalPrefetching(final List<Path> samFiles, final List<String> expectedReadNames) {
+        try (ReadsDataSource readsSource = new ReadsDataSource(samFiles, null, null, 0, 0, 1, 3)) {
+            // a hint must not disturb the traversal
+            readsSource.prefetch(Arrays.asList(new SimpleInterval("2", 200, 300)));
+
+            final List<String> readNames = new ArrayList<>();
+            readsSource.iterator().forEachRemaining(read -> readNames.add(read.getName()));
+            Assert.assertEquals(readNames, expectedReadNames);
+
+            Assert.assertFalse(readsSource.getPrefetchStatistics().isEmpty());
+            Assert.assertTrue(readsSource.getPrefetchStatistics().getBytesReturned() > 0);
+        }
+    }
+
+    @Test
+    public void testNoPrefetchingByDefault() {
+        try (ReadsDataSource readsSource = new ReadsDataSource(FIRST_TEST_BAM)) {
+            readsSource.prefetch(Arrays.asList(new SimpleInterval("1", 200, 210)));
+            readsSource.iterator().forEachRemaining(read -> {});
+            Assert.assertTrue(readsSource.getPrefetchStatistics().isEmpty());
+        }
+    }
+
     @Test(dataProvider = "MultipleFilesCompleteTraversalData")
     public void testMultipleFilesCompleteTraversal(final List<Path> samFiles, final List<String> expectedReadNames) {
         try (ReadsDataSource readsSource = new ReadsDataSource(samFiles)) {
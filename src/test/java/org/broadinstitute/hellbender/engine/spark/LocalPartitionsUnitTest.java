@@ -0,0 +1,140 @@
+package org.broadinstitute.hellbender.engine.spark;
+
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.broadinstitute.hellbender.exceptions.UserException;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+public class LocalPartitionsUnitTest extends GATKBaseTest {
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+    @AfterClass
+    public void shutdownExecutor() {
+        executor.shutdownNow();
+    }
+
+    // partition i holds the elements 10 * i to 10 * i + 9
+    private static List<Supplier<Stream<Integer>>> createPartitions(final int numPartitions, final AtomicInteger partitionsStarted) {
+        final List<Supplier<Stream<Integer>>> partitions = new ArrayList<>();
+        for (int i = 0; i < numPartitions; i++) {
+            final int partition = i;
+            partitions.add(() -> {
+                partitionsStarted.incrementAndGet();
+                return IntStream.range(10 * partition, 10 * partition + 10).boxed();
+            });
+        }
+        return partitions;
+    }
+
+    @DataProvider(name = "partitionsInFlight")
+    public Object[][] partitionsInFlight() {
+        return new Object[][] {
+                {0, 1}, {1, 1}, {20, 1}, {20, 2}, {20, 8}, {3, 8}
+        };
+    }
+
+    @Test(dataProvider = "partitionsInFlight")
+    public void testElementsAreReturnedInOrderWithinTheWindow(final int numPartitions, final int maxPartitionsInFlight) {
+        final AtomicInteger partitionsStarted = new AtomicInteger();
+        final LocalPartitions<Integer> partitions = new LocalPartitions<>(executor, maxPartitionsInFlight, createPartitions(numPartitions, partitionsStarted));
+        Assert.assertEquals(partitions.getNumPartitions(), numPartitions);
+        Assert.assertEquals(partitionsStarted.get(), 0, "partitions should not be computed until the results are requested");
+
+        final Iterator<Integer> elements = partitions.map(x -> x + 1).iterator();
+        for (int expected = 1; expected <= 10 * numPartitions; expected++) {
+            Assert.assertTrue(elements.hasNext());
+            Assert.assertEquals(elements.next().intValue(), expected);
+            final int currentPartition = (expected - 1) / 10;
+            Assert.assertTrue(partitionsStarted.get() <= currentPartition + maxPartitionsInFlight,
+                    partitionsStarted.get() + " partitions were started while consuming partition " + currentPartition);
+        }
+        Assert.assertFalse(elements.hasNext());
+        Assert.assertEquals(partitionsStarted.get(), numPartitions);
+    }
+
+    @Test
+    public void testTransformations() {
+        final LocalPartitions<Integer> partitions = new LocalPartitions<>(executor, 2, createPartitions(5, new AtomicInteger()));
+        Assert.assertEquals(partitions.count(), 50);
+        Assert.assertEquals(partitions.filter(x -> x % 7 == 0).collect(), Arrays.asList(0, 7, 14, 21, 28, 35, 42, 49));
+        Assert.assertEquals(partitions.mapPartitions(elements -> Stream.of(elements.next()).iterator()).collect(),
+                IntStream.range(0, 5).map(i -> 10 * i).boxed().collect(Collectors.toList()));
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testFailedPartition() {
+        final LocalPartitions<Integer> partitions = new LocalPartitions<>(executor, 2, createPartitions(5, new AtomicInteger()));
+        partitions.map(x -> {
+            if (x == 25) {
+                throw new IllegalStateException("failed");
+            }
+            return x;
+        }).collect();
+    }
+
+    @Test
+    public void testLargePartitionsAreStreamed() {
+        final int partitionSize = 1_000_000;
+        final AtomicLong elementsComputed = new AtomicLong();
+        final List<Supplier<Stream<Integer>>> partitionSuppliers = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            partitionSuppliers.add(() -> IntStream.range(0, partitionSize).boxed().peek(x -> elementsComputed.incrementAndGet()));
+        }
+        // a single thread, so that later partitions are queued behind earlier ones that are waiting to be consumed
+        final ExecutorService singleThread = Executors.newSingleThreadExecutor();
+        try {
+            final Iterator<Integer> elements = new LocalPartitions<>(singleThread, 2, partitionSuppliers).iterator();
+            long consumed = 0;
+            while (elements.hasNext()) {
+                Assert.assertEquals(elements.next().intValue(), consumed % partitionSize);
+                consumed++;
+                Assert.assertTrue(elementsComputed.get() - consumed <= 10_000,
+                        elementsComputed.get() + " elements were computed when " + consumed + " had been consumed");
+            }
+            Assert.assertEquals(consumed, 3L * partitionSize);
+        } finally {
+            singleThread.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testSaveAsTextFile() throws IOException {
+        final File out = new File(createTempDir("testSaveAsTextFile"), "out");
+        new LocalPartitions<>(executor, 2, createPartitions(3, new AtomicInteger())).saveAsTextFile(out.getAbsolutePath());
+        Assert.assertTrue(new File(out, "_SUCCESS").exists());
+        for (int i = 0; i < 3; i++) {
+            Assert.assertEquals(Files.readAllLines(new File(out, String.format("part-%05d", i)).toPath()),
+                    IntStream.range(10 * i, 10 * i + 10).mapToObj(Integer::toString).collect(Collectors.toList()));
+        }
+    }
+
+    @Test(expectedExceptions = UserException.CouldNotCreateOutputFile.class)
+    public void testSaveAsTextFileToExistingPath() {
+        final File out = createTempDir("testSaveAsTextFileToExistingPath");
+        new LocalPartitions<>(executor, 2, createPartitions(3, new AtomicInteger())).saveAsTextFile(out.getAbsolutePath());
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testNonPositiveMaxPartitionsInFlight() {
+        new LocalPartitions<>(executor, 0, createPartitions(1, new AtomicInteger()));
+    }
+}
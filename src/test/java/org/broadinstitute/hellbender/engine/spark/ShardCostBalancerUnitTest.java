@@ -0,0 +1,143 @@
+package org.broadinstitute.hellbender.engine.spark;
+
+import com.google.common.collect.ImmutableList;
+import htsjdk.samtools.SAMSequenceDictionary;
+import htsjdk.samtools.SAMSequenceRecord;
+import org.apache.spark.api.java.JavaRDD;
+import org.apache.spark.api.java.JavaSparkContext;
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.broadinstitute.hellbender.engine.Shard;
+import org.broadinstitute.hellbender.engine.ShardBoundary;
+import org.broadinstitute.hellbender.utils.SimpleInterval;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+public class ShardCostBalancerUnitTest extends GATKBaseTest implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private static final SAMSequenceDictionary SEQUENCE_DICTIONARY = new SAMSequenceDictionary(
+            ImmutableList.of(new SAMSequenceRecord("1", 1000), new SAMSequenceRecord("2", 500)));
+
+    private static ShardBoundary shardBoundary(final String contig, final int start, final int end, final int padding) {
+        final SimpleInterval interval = new SimpleInterval(contig, start, end);
+        return new ShardBoundary(interval, interval.expandWithinContig(padding, SEQUENCE_DICTIONARY));
+    }
+
+    //10 shards of 100 bases on contig 1, 5 shards of 100 bases on contig 2, all with 10 bases of padding
+    private static List<ShardBoundary> getShardBoundaries() {
+        final List<ShardBoundary> shardBoundaries = new ArrayList<>();
+        for (int start = 1; start <= 1000; start += 100) {
+            shardBoundaries.add(shardBoundary("1", start, start + 99, 10));
+        }
+        for (int start = 1; start <= 500; start += 100) {
+            shardBoundaries.add(shardBoundary("2", start, start + 99, 10));
+        }
+        return shardBoundaries;
+    }
+
+    @Test
+    public void testSplitHotShards() {
+        final List<ShardBoundary> shardBoundaries = getShardBoundaries();
+        final double[] costs = new double[shardBoundaries.size()];
+        Arrays.fill(costs, 1.);
+        costs[0] = 21.;
+        costs[14] = 100.;
+        //the total cost is 134, so the maximum cost is 2 * 134 / 15 = 17.9
+        final ShardCostBalancer balancer = new ShardCostBalancer(shardBoundaries, costs);
+
+        final ShardCostBalancer splitBalancer = balancer.splitHotShards(2., 25, 10, SEQUENCE_DICTIONARY);
+        final List<ShardBoundary> splitShardBoundaries = splitBalancer.getShardBoundaries();
+        Assert.assertEquals(splitBalancer.getTotalCost(), balancer.getTotalCost(), 1E-10);
+
+        final List<ShardBoundary> expectedShardBoundaries = new ArrayList<>();
+        //the first shard is split in 2
+        expectedShardBoundaries.add(shardBoundary("1", 1, 50, 10));
+        expectedShardBoundaries.add(shardBoundary("1", 51, 100, 10));
+        expectedShardBoundaries.addAll(shardBoundaries.subList(1, 14));
+        //the last shard would be split in 6, but the minimum shard size limits this to 4
+        expectedShardBoundaries.add(shardBoundary("2", 401, 425, 10));
+        expectedShardBoundaries.add(shardBoundary("2", 426, 450, 10));
+        expectedShardBoundaries.add(shardBoundary("2", 451, 475, 10));
+        expectedShardBoundaries.add(shardBoundary("2", 476, 500, 10));
+        Assert.assertEquals(splitShardBoundaries.stream().map(ShardBoundary::getInterval).collect(Collectors.toList()),
+                expectedShardBoundaries.stream().map(ShardBoundary::getInterval).collect(Collectors.toList()));
+        Assert.assertEquals(splitShardBoundaries.stream().map(ShardBoundary::getPaddedInterval).collect(Collectors.toList()),
+                expectedShardBoundaries.stream().map(ShardBoundary::getPaddedInterval).collect(Collectors.toList()));
+
+        final double[] expectedCosts = new double[expectedShardBoundaries.size()];
+        Arrays.fill(expectedCosts, 1.);
+        Arrays.fill(expectedCosts, 0, 2, 10.5);
+        Arrays.fill(expectedCosts, expectedCosts.length - 4, expectedCosts.length, 25.);
+        Assert.assertEquals(splitBalancer.getCosts(), expectedCosts);
+    }
+
+    @Test
+    public void testSplitHotShardsWithNoCost() {
+        final List<ShardBoundary> shardBoundaries = getShardBoundaries();
+        final ShardCostBalancer balancer = new ShardCostBalancer(shardBoundaries, new double[shardBoundaries.size()]);
+        Assert.assertEquals(balancer.splitHotShards(1., 1, 10, SEQUENCE_DICTIONARY).getShardBoundaries(), shardBoundaries);
+    }
+
+    @Test
+    public void testAssignPartitions() {
+        final List<ShardBoundary> shardBoundaries = getShardBoundaries();
+        final double[] costs = {1., 1., 1., 1., 6., 1., 1., 1., 1., 1., 1., 1., 1., 1., 1.};   //total cost is 20
+        final ShardCostBalancer balancer = new ShardCostBalancer(shardBoundaries, costs);
+        //the hot shard is in a partition of its own, and cold shards are coalesced
+        Assert.assertEquals(Arrays.toString(balancer.assignPartitions(4)), Arrays.toString(new int[]{0, 0, 0, 0, 1, 2, 2, 2, 2, 2, 3, 3, 3, 3, 3}));
+        Assert.assertEquals(Arrays.toString(balancer.assignPartitions(1)), Arrays.toString(new int[15]));
+
+        final ShardCostBalancer noCostBalancer = new ShardCostBalancer(shardBoundaries, new double[shardBoundaries.size()]);
+        Assert.assertEquals(Arrays.toString(noCostBalancer.assignPartitions(5)), Arrays.toString(new int[]{0, 0, 0, 1, 1, 1, 2, 2, 2, 3, 3, 3, 4, 4, 4}));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testMismatchedCosts() {
+        new ShardCostBalancer(getShardBoundaries(), new double[1]);
+    }
+
+    @Test
+    public void testEstimateAndRepartition() {
+        final JavaSparkContext ctx = SparkContextFactory.getTestSparkContext();
+        final List<ShardBoundary> shardBoundaries = getShardBoundaries();
+
+        //one locatable starting at each position, with 10 times as many in the second shard on contig 2
+        final List<SimpleInterval> locatables = new ArrayList<>();
+        for (int start = 1; start <= 1000; start++) {
+            locatables.add(new SimpleInterval("1", start, start));
+        }
+        for (int start = 1; start <= 500; start++) {
+            for (int i = 0; i < (start > 100 && start <= 200 ? 10 : 1); i++) {
+                locatables.add(new SimpleInterval("2", start, start));
+            }
+        }
+        final JavaRDD<SimpleInterval> locatablesRDD = ctx.parallelize(locatables, 3);
+
+        final ShardCostBalancer balancer = ShardCostBalancer.estimate(ctx, locatablesRDD, shardBoundaries, SEQUENCE_DICTIONARY, 1., 0L, l -> 1.);
+        final double[] expectedCosts = new double[shardBoundaries.size()];
+        Arrays.fill(expectedCosts, 100.);
+        expectedCosts[11] = 1000.;
+        Assert.assertEquals(balancer.getCosts(), expectedCosts);
+
+        final ShardCostBalancer sampledBalancer = ShardCostBalancer.estimate(ctx, locatablesRDD, shardBoundaries, SEQUENCE_DICTIONARY, 0.5, 0L, l -> 1.);
+        Assert.assertEquals(sampledBalancer.getTotalCost(), balancer.getTotalCost(), 0.1 * balancer.getTotalCost());
+
+        final JavaRDD<Shard<SimpleInterval>> shards = SparkSharder.shard(ctx, locatablesRDD, SimpleInterval.class, SEQUENCE_DICTIONARY, shardBoundaries, 1);
+        final JavaRDD<Shard<SimpleInterval>> repartitionedShards = balancer.repartition(shards, 4, SEQUENCE_DICTIONARY);
+        Assert.assertEquals(repartitionedShards.getNumPartitions(), 4);
+        final List<List<SimpleInterval>> shardIntervalsPerPartition = repartitionedShards
+                .map(Shard::getInterval)
+                .glom()
+                .collect();
+        //the hot shard is in a partition of its own, and shard order is preserved
+        Assert.assertEquals(shardIntervalsPerPartition.get(2), ImmutableList.of(shardBoundaries.get(11).getInterval()));
+        Assert.assertEquals(shardIntervalsPerPartition.stream().flatMap(List::stream).collect(Collectors.toList()),
+                shardBoundaries.stream().map(ShardBoundary::getInterval).collect(Collectors.toList()));
+    }
+}
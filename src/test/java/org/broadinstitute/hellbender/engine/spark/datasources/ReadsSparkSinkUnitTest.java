@@ -241,4 +241,33 @@ public class ReadsSparkSinkUnitTest extends GATKBaseTest {
             Assert.assertEquals(observed.getCigar(), expected.getCigar(), "getCigar");
         }
     }
+
+    @Test(groups = "spark")
+    public void readsSinkColumnarTest() throws IOException {
+        // this file has unmapped reads that are set to the position of their mates
+        final String inputBam = testDataDir + "tools/BQSR/CEUTrio.HiSeq.WGS.b37.ch20.1m-1m1k.NA12878.bam";
+        final File outputDirectory = new File(createTempDir("ReadsSparkSinkUnitTest_columnar_parent"), "output" + ColumnarReadsFormat.COLUMNAR_READS_EXTENSION);
+
+        JavaSparkContext ctx = SparkContextFactory.getTestSparkContext();
+
+        ReadsSparkSource readSource = new ReadsSparkSource(ctx);
+        JavaRDD<GATKRead> rddParallelReads = readSource.getParallelReads(inputBam, null).repartition(3);
+        SAMFileHeader header = readSource.getHeader(inputBam, null);
+
+        ReadsSparkSink.writeReads(ctx, outputDirectory.getAbsolutePath(), null, rddParallelReads, header, ReadsWriteFormat.COLUMNAR);
+        SAMFileHeader columnarHeader = readSource.getHeader(outputDirectory.getAbsolutePath(), null);
+        Assert.assertEquals(columnarHeader.getSortOrder(), header.getSortOrder());
+        Assert.assertEquals(columnarHeader.getSequenceDictionary(), header.getSequenceDictionary());
+        Assert.assertEquals(columnarHeader.getReadGroups(), header.getReadGroups());
+
+        // the round trip is lossless, and reads are sorted as specified by the header
+        List<GATKRead> columnarReads = readSource.getColumnarReads(outputDirectory.getAbsolutePath(), null, header).collect();
+        assertReadsAreSorted(header, columnarReads);
+        List<GATKRead> samList = new ArrayList<>(rddParallelReads.collect());
+        samList.sort(new ReadCoordinateComparator(header));
+        Assert.assertEquals(columnarReads.size(), samList.size());
+        for (int i = 0; i < samList.size(); i++) {
+            Assert.assertEquals(columnarReads.get(i).convertToSAMRecord(header).getSAMString(), samList.get(i).convertToSAMRecord(header).getSAMString());
+        }
+    }
 }
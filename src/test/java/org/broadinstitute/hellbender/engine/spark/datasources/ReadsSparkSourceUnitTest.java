@@ -15,6 +15,7 @@ import org.broadinstitute.hellbender.utils.SimpleInterval;
 import org.broadinstitute.hellbender.utils.io.IOUtils;
 import org.broadinstitute.hellbender.utils.read.GATKRead;
 import org.broadinstitute.hellbender.utils.read.ReadConstants;
+import org.broadinstitute.hellbender.utils.read.ReadsWriteFormat;
 import org.broadinstitute.hellbender.utils.read.SAMRecordToGATKReadAdapter;
 import org.broadinstitute.hellbender.GATKBaseTest;
 import org.broadinstitute.hellbender.testutils.MiniClusterUtils;
@@ -24,6 +25,8 @@ import org.testng.annotations.Test;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.Collections;
+import java.util.EnumSet;
 import java.util.List;
 
 import static org.testng.Assert.assertEquals;
@@ -240,6 +243,49 @@ public class ReadsSparkSourceUnitTest extends GATKBaseTest {
         }
     }
 
+    @Test(groups = "spark")
+    public void testColumnarIntervalsWithUnmapped() throws IOException {
+        String bam = publicTestDir + "org/broadinstitute/hellbender/engine/CEUTrio.HiSeq.WGS.b37.NA12878.snippet_with_unmapped.bam";
+        JavaSparkContext ctx = SparkContextFactory.getTestSparkContext();
+        ReadsSparkSource readSource = new ReadsSparkSource(ctx);
+        SAMFileHeader header = readSource.getHeader(bam, null);
+        String columnarReads = new File(createTempDir("testColumnarIntervals"), "reads" + ColumnarReadsFormat.COLUMNAR_READS_EXTENSION).getAbsolutePath();
+        ReadsSparkSink.writeReads(ctx, columnarReads, null, readSource.getParallelReads(bam, null), header, ReadsWriteFormat.COLUMNAR);
+
+        List<SimpleInterval> intervals = ImmutableList.of(new SimpleInterval("20", 10000009, 10000011), new SimpleInterval("20", 10000200, 10000300));
+        for (final boolean traverseUnmapped : new boolean[]{false, true}) {
+            TraversalParameters traversalParameters = new TraversalParameters(intervals, traverseUnmapped);
+            List<String> expected = readSource.getParallelReads(bam, null, traversalParameters).map(GATKRead::getSAMString).collect();
+            List<String> actual = readSource.getColumnarReads(columnarReads, traversalParameters, header).map(GATKRead::getSAMString).collect();
+            Assert.assertFalse(actual.isEmpty());
+            Assert.assertEquals(actual, expected);
+        }
+
+        // with no intervals and no unmapped reads, no reads are loaded
+        Assert.assertEquals(readSource.getColumnarReads(columnarReads, new TraversalParameters(Collections.emptyList(), false), header).count(), 0);
+    }
+
+    @Test(groups = "spark")
+    public void testColumnarProjection() throws IOException {
+        JavaSparkContext ctx = SparkContextFactory.getTestSparkContext();
+        ReadsSparkSource readSource = new ReadsSparkSource(ctx);
+        String bam = dirBQSR + "HiSeq.1mb.1RG.2k_lines.alternate.bam";
+        SAMFileHeader header = readSource.getHeader(bam, null);
+        String columnarReads = new File(createTempDir("testColumnarProjection"), "reads" + ColumnarReadsFormat.COLUMNAR_READS_EXTENSION).getAbsolutePath();
+        JavaRDD<GATKRead> reads = readSource.getParallelReads(bam, null);
+        ReadsSparkSink.writeReads(ctx, columnarReads, null, reads, header, ReadsWriteFormat.COLUMNAR);
+
+        List<GATKRead> projectedReads = readSource.getColumnarReads(columnarReads, null, header,
+                EnumSet.of(ColumnarReadsFormat.OptionalColumn.NAME)).collect();
+        Assert.assertEquals(projectedReads.size(), reads.count());
+        for (final GATKRead read : projectedReads) {
+            Assert.assertNotNull(read.getName());
+            Assert.assertEquals(read.getLength(), 0);
+            Assert.assertEquals(read.getBaseQualityCount(), 0);
+            Assert.assertTrue(read.convertToSAMRecord(header).getAttributes().isEmpty());
+        }
+    }
+
     /**
      * Loads Reads using samReaderFactory, then calling ctx.parallelize.
      * @param bam file to load
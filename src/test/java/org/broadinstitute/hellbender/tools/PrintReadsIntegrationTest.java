@@ -1,5 +1,6 @@
 package org.broadinstitute.hellbender.tools;
 
+import com.google.api.client.json.GenericJson;
 import htsjdk.samtools.SAMRecord;
 import htsjdk.samtools.SamReader;
 import org.apache.commons.io.FileUtils;
@@ -24,6 +25,7 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.stream.Collectors;
 
 public final class PrintReadsIntegrationTest extends CommandLineProgramTest{
 
@@ -141,6 +143,46 @@ public final class PrintReadsIntegrationTest extends CommandLineProgramTest{
         SamAssertionUtils.assertSamsEqual(outFile, zeroRefBasesReadBam);
     }
 
+    @Test
+    public void testAsyncDecompressionAndCompression() throws IOException {
+        final File inFile = new File(TEST_DATA_DIR, "print_reads.sorted.bam");
+        final File outFile = GATKBaseTest.createTempFile("testAsyncDecompressionAndCompression", ".bam");
+        final String[] args = new String[] {
+                "--input" , inFile.getAbsolutePath(),
+                "--output", outFile.getAbsolutePath(),
+                "--" + StandardArgumentDefinitions.ASYNC_READS_DECOMPRESSION_LONG_NAME,
+                "--" + StandardArgumentDefinitions.ASYNC_OUTPUT_COMPRESSION_LONG_NAME,
+                "--" + StandardArgumentDefinitions.CREATE_OUTPUT_BAM_INDEX_LONG_NAME
+        };
+        runCommandLine(args);
+
+        SamAssertionUtils.assertSamsEqual(outFile, inFile);
+        final File indexFile = new File(outFile.getAbsolutePath().replaceAll("\\.bam$", ".bai"));
+        indexFile.deleteOnExit();
+        Assert.assertTrue(indexFile.exists(), indexFile + " does not exist");
+    }
+
+    @Test
+    public void testRuntimeMetricsOutput() throws IOException {
+        final File inFile = new File(TEST_DATA_DIR, "print_reads.sorted.bam");
+        final File outFile = GATKBaseTest.createTempFile("testRuntimeMetricsOutput", ".bam");
+        final File metricsFile = GATKBaseTest.createTempFile("testRuntimeMetricsOutput", ".json");
+        final String[] args = new String[] {
+                "--input" , inFile.getAbsolutePath(),
+                "--output", outFile.getAbsolutePath(),
+                "--" + StandardArgumentDefinitions.RUNTIME_METRICS_OUTPUT_LONG_NAME, metricsFile.getAbsolutePath()
+        };
+        runCommandLine(args);
+
+        SamAssertionUtils.assertSamsEqual(outFile, inFile);
+        final String metrics = FileUtils.readFileToString(metricsFile, StandardCharsets.UTF_8);
+        final List<?> metricsList = (List<?>)com.google.api.client.googleapis.util.Utils.getDefaultJsonFactory().fromString(metrics, GenericJson.class).get("metrics");
+        final Set<Object> names = metricsList.stream().map(metric -> ((Map<?, ?>)metric).get("name")).collect(Collectors.toSet());
+        for ( final String name : Arrays.asList("GATKTool.onStartup", "GATKTool.traverse", "GATKTool.closeTool", "ReadWalker.apply") ) {
+            Assert.assertTrue(names.contains(name), name + " is missing from " + metrics);
+        }
+    }
+
     @Test
     public void testNoConflictPG() throws IOException {
         final File inFile = new File(TEST_DATA_DIR, "print_reads_withPG.sam");
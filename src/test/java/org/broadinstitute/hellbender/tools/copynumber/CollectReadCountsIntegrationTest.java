@@ -95,6 +95,22 @@ public final class CollectReadCountsIntegrationTest extends CommandLineProgramTe
         Assert.assertEquals(expectedCounts, resultCounts);
     }
 
+    @Test(dataProvider = "testData")
+    public void testTSVOutputWithMultipleCountingThreads(final File inputBAMFile, final File expectedOutputFile) {
+        final File resultOutputFile = createTempFile("collect-read-counts-test", ".tsv");
+        final ArgumentsBuilder argsBuilder = new ArgumentsBuilder()
+                .addInput(inputBAMFile)
+                .addArgument(StandardArgumentDefinitions.INTERVALS_LONG_NAME, INTERVALS_FILE.getAbsolutePath())
+                .addArgument(IntervalArgumentCollection.INTERVAL_MERGING_RULE_LONG_NAME, IntervalMergingRule.OVERLAPPING_ONLY.toString())
+                .addArgument(CollectReadCounts.FORMAT_LONG_NAME, CollectReadCounts.Format.TSV.toString())
+                .addArgument(CollectReadCounts.NUMBER_OF_COUNTING_THREADS_LONG_NAME, "4")
+                .addOutput(resultOutputFile);
+        runCommandLine(argsBuilder);
+        final SimpleCountCollection expectedCounts = SimpleCountCollection.read(expectedOutputFile);
+        final SimpleCountCollection resultCounts = SimpleCountCollection.read(resultOutputFile);
+        Assert.assertEquals(expectedCounts, resultCounts);
+    }
+
     @Test(dataProvider = "testData")
     public void testHDF5Output(final File inputBAMFile, final File expectedOutputFile) {
         final File resultOutputFile = createTempFile("collect-read-counts-test", ".hdf5");
@@ -12,6 +12,7 @@ import org.broadinstitute.hellbender.CommandLineProgramTest;
 import org.broadinstitute.hellbender.testutils.ArgumentsBuilder;
 import org.broadinstitute.hellbender.tools.copynumber.arguments.CopyNumberStandardArgument;
 import org.broadinstitute.hellbender.tools.copynumber.denoising.HDF5SVDReadCountPanelOfNormals;
+import org.broadinstitute.hellbender.tools.copynumber.denoising.SVDBatchDenoiser;
 import org.broadinstitute.hellbender.tools.copynumber.denoising.SVDDenoisedCopyRatioResult;
 import org.broadinstitute.hellbender.tools.copynumber.denoising.SVDReadCountPanelOfNormals;
 import org.broadinstitute.hellbender.tools.copynumber.formats.collections.AnnotatedIntervalCollection;
@@ -248,6 +249,27 @@ public final class CreateReadCountPanelOfNormalsIntegrationTest extends CommandL
         testPanelOfNormals(annotatedIntervalsFile, expectedNumberOfEigenvalues, resultOutputFile);
     }
 
+    @Test(dataProvider = "dataPanelOfNormals")
+    public void testStreaming(final List<File> inputFiles,
+                              final File annotatedIntervalsFile,
+                              final int expectedNumberOfEigenvalues) {
+        final File resultOutputFile = createTempFile("create-read-count-panel-of-normals-test", ".tsv");
+        final ArgumentsBuilder argsBuilder = new ArgumentsBuilder()
+                .addArgument(CreateReadCountPanelOfNormals.MINIMUM_INTERVAL_MEDIAN_PERCENTILE_LONG_NAME, Double.toString(MINIMUM_INTERVAL_MEDIAN_PERCENTILE))
+                .addArgument(CreateReadCountPanelOfNormals.MAXIMUM_ZEROS_IN_SAMPLE_PERCENTAGE_LONG_NAME, Double.toString(MAXIMUM_ZEROS_IN_SAMPLE_PERCENTAGE))
+                .addArgument(CreateReadCountPanelOfNormals.MAXIMUM_ZEROS_IN_INTERVAL_PERCENTAGE_LONG_NAME, Double.toString(MAXIMUM_ZEROS_IN_INTERVAL_PERCENTAGE))
+                .addArgument(CreateReadCountPanelOfNormals.EXTREME_SAMPLE_MEDIAN_PERCENTILE_LONG_NAME, Double.toString(EXTREME_SAMPLE_MEDIAN_PERCENTILE))
+                .addArgument(CopyNumberStandardArgument.NUMBER_OF_EIGENSAMPLES_LONG_NAME, Integer.toString(NUMBER_OF_EIGENVALUES_REQUESTED))
+                .addBooleanArgument(CreateReadCountPanelOfNormals.STREAMING_LONG_NAME, true)
+                .addOutput(resultOutputFile);
+        if (annotatedIntervalsFile != null) {
+            argsBuilder.addFileArgument(CopyNumberStandardArgument.ANNOTATED_INTERVALS_FILE_LONG_NAME, annotatedIntervalsFile);
+        }
+        inputFiles.forEach(argsBuilder::addInput);
+        runCommandLine(argsBuilder);
+        testPanelOfNormals(annotatedIntervalsFile, expectedNumberOfEigenvalues, resultOutputFile);
+    }
+
     @Test(dataProvider = "dataPanelOfNormals")
     public void testSingleSample(final List<File> inputFiles,
                                  final File annotatedIntervalsFile,
@@ -382,6 +404,15 @@ public final class CreateReadCountPanelOfNormalsIntegrationTest extends CommandL
                             .mapToDouble(x -> x)
                             .toArray());
             Assert.assertFalse(badDenoisedLog2CRStandardDeviation < DENOISED_LOG2CR_STANDARD_DEVIATION_THRESHOLD);
+
+            //check that denoising both samples together in a batch gives results identical to denoising them separately
+            final List<SVDDenoisedCopyRatioResult> batchDenoisedResults = new SVDBatchDenoiser(panelOfNormals, expectedNumberOfEigenvalues)
+                    .denoise(Arrays.asList(sampleCounts, badSampleCounts));
+            Assert.assertEquals(batchDenoisedResults.size(), 2);
+            Assert.assertEquals(batchDenoisedResults.get(0).getStandardizedCopyRatios(), standardizedCopyRatios);
+            Assert.assertEquals(batchDenoisedResults.get(0).getDenoisedCopyRatios(), denoisedCopyRatios);
+            Assert.assertEquals(batchDenoisedResults.get(1).getStandardizedCopyRatios(), badDenoisedResult.getStandardizedCopyRatios());
+            Assert.assertEquals(batchDenoisedResults.get(1).getDenoisedCopyRatios(), badDenoisedCopyRatios);
         }
     }
 }
\ No newline at end of file
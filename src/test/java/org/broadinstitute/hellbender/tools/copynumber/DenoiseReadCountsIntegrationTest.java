@@ -82,4 +82,50 @@ public final class DenoiseReadCountsIntegrationTest extends CommandLineProgramTe
         //standardized and denoised copy ratios should be the same if PoN is not provided
         Assert.assertEquals(standardizedCopyRatios.getLog2CopyRatioValues().equals(denoisedCopyRatios.getLog2CopyRatioValues()), isStandardizedEqualsDenoised);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testDenoiseReadCountsMultipleSamples() {
+        final List<File> inputReadCountsFiles = Arrays.asList(WGS_READ_COUNTS_TSV_FILE, WGS_READ_COUNTS_HDF5_FILE);
+        final ArgumentsBuilder argumentsBuilder = new ArgumentsBuilder()
+                .addFileArgument(CopyNumberStandardArgument.ANNOTATED_INTERVALS_FILE_LONG_NAME, WGS_ANNOTATED_INTERVALS_FILE)
+                .addArgument(DenoiseReadCounts.BATCH_SIZE_LONG_NAME, "1");
+        final List<File> standardizedCRFiles = new ArrayList<>();
+        final List<File> denoisedCRFiles = new ArrayList<>();
+        for (final File inputReadCountsFile : inputReadCountsFiles) {
+            final File standardizedCRFile = createTempFile("test", ".standardizedCR.tsv");
+            final File denoisedCRFile = createTempFile("test", ".denoisedCR.tsv");
+            argumentsBuilder
+                    .addFileArgument(StandardArgumentDefinitions.INPUT_SHORT_NAME, inputReadCountsFile)
+                    .addFileArgument(CopyNumberStandardArgument.STANDARDIZED_COPY_RATIOS_FILE_LONG_NAME, standardizedCRFile)
+                    .addFileArgument(CopyNumberStandardArgument.DENOISED_COPY_RATIOS_FILE_LONG_NAME, denoisedCRFile);
+            standardizedCRFiles.add(standardizedCRFile);
+            denoisedCRFiles.add(denoisedCRFile);
+        }
+        runCommandLine(argumentsBuilder);
+
+        //the TSV and HDF5 inputs contain identical counts, so all results should be identical to those for a single sample
+        final File expectedStandardizedCRFile = createTempFile("test", ".standardizedCR.tsv");
+        final File expectedDenoisedCRFile = createTempFile("test", ".denoisedCR.tsv");
+        runCommandLine(new ArgumentsBuilder()
+                .addFileArgument(StandardArgumentDefinitions.INPUT_SHORT_NAME, WGS_READ_COUNTS_TSV_FILE)
+                .addFileArgument(CopyNumberStandardArgument.ANNOTATED_INTERVALS_FILE_LONG_NAME, WGS_ANNOTATED_INTERVALS_FILE)
+                .addFileArgument(CopyNumberStandardArgument.STANDARDIZED_COPY_RATIOS_FILE_LONG_NAME, expectedStandardizedCRFile)
+                .addFileArgument(CopyNumberStandardArgument.DENOISED_COPY_RATIOS_FILE_LONG_NAME, expectedDenoisedCRFile));
+        final CopyRatioCollection expectedStandardizedCopyRatios = new CopyRatioCollection(expectedStandardizedCRFile);
+        final CopyRatioCollection expectedDenoisedCopyRatios = new CopyRatioCollection(expectedDenoisedCRFile);
+        for (int sampleIndex = 0; sampleIndex < inputReadCountsFiles.size(); sampleIndex++) {
+            Assert.assertEquals(new CopyRatioCollection(standardizedCRFiles.get(sampleIndex)), expectedStandardizedCopyRatios);
+            Assert.assertEquals(new CopyRatioCollection(denoisedCRFiles.get(sampleIndex)), expectedDenoisedCopyRatios);
+        }
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testDenoiseReadCountsMismatchedNumberOfOutputs() {
+        final ArgumentsBuilder argumentsBuilder = new ArgumentsBuilder()
+                .addFileArgument(StandardArgumentDefinitions.INPUT_SHORT_NAME, WGS_READ_COUNTS_TSV_FILE)
+                .addFileArgument(StandardArgumentDefinitions.INPUT_SHORT_NAME, WGS_READ_COUNTS_HDF5_FILE)
+                .addFileArgument(CopyNumberStandardArgument.STANDARDIZED_COPY_RATIOS_FILE_LONG_NAME, createTempFile("test", ".standardizedCR.tsv"))
+                .addFileArgument(CopyNumberStandardArgument.DENOISED_COPY_RATIOS_FILE_LONG_NAME, createTempFile("test", ".denoisedCR.tsv"));
+        runCommandLine(argumentsBuilder);
+    }
+}
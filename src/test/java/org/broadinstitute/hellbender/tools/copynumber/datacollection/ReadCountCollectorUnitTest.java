@@ -0,0 +1,123 @@
+package org.broadinstitute.hellbender.tools.copynumber.datacollection;
+
+import htsjdk.samtools.SAMSequenceDictionary;
+import htsjdk.samtools.SAMSequenceRecord;
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.broadinstitute.hellbender.tools.copynumber.formats.collections.SimpleCountCollection;
+import org.broadinstitute.hellbender.tools.copynumber.formats.metadata.SampleLocatableMetadata;
+import org.broadinstitute.hellbender.tools.copynumber.formats.metadata.SimpleSampleLocatableMetadata;
+import org.broadinstitute.hellbender.tools.copynumber.formats.records.SimpleCount;
+import org.broadinstitute.hellbender.utils.SimpleInterval;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+/**
+ * Unit tests for {@link ReadCountCollector}.
+ */
+public final class ReadCountCollectorUnitTest extends GATKBaseTest {
+    private static final SampleLocatableMetadata METADATA = new SimpleSampleLocatableMetadata(
+            "test-sample",
+            new SAMSequenceDictionary(Arrays.asList(
+                    new SAMSequenceRecord("1", 10000),
+                    new SAMSequenceRecord("2", 10000),
+                    new SAMSequenceRecord("3", 10000))));
+
+    @DataProvider(name = "testBinsData")
+    public Object[][] testBinsData() {
+        return new Object[][]{
+                //evenly spaced, contiguous bins (direct indexing)
+                {Arrays.asList(
+                        new SimpleInterval("1", 101, 200),
+                        new SimpleInterval("1", 201, 300),
+                        new SimpleInterval("1", 301, 400))},
+                //evenly spaced bins with gaps (direct indexing)
+                {Arrays.asList(
+                        new SimpleInterval("1", 101, 150),
+                        new SimpleInterval("1", 201, 250),
+                        new SimpleInterval("1", 301, 350))},
+                //unevenly spaced bins (binary search)
+                {Arrays.asList(
+                        new SimpleInterval("1", 101, 150),
+                        new SimpleInterval("1", 171, 250),
+                        new SimpleInterval("1", 1001, 1001),
+                        new SimpleInterval("1", 2000, 3500))},
+                //single bin
+                {Collections.singletonList(
+                        new SimpleInterval("1", 500, 600))}
+        };
+    }
+
+    @Test(dataProvider = "testBinsData")
+    public void testFindBin(final List<SimpleInterval> intervals) {
+        final ReadCountCollector collector = new ReadCountCollector(METADATA, intervals);
+        final ReadCountCollector.ContigCounter contigCounter = collector.getContigCounter("1");
+        Assert.assertEquals(contigCounter.getIntervals(), intervals);
+        for (int position = 1; position <= 4000; position++) {
+            final int p = position;
+            final int expectedBinIndex = intervals.indexOf(intervals.stream()
+                    .filter(i -> i.getStart() <= p && p <= i.getEnd())
+                    .findFirst().orElse(null));
+            Assert.assertEquals(contigCounter.findBin(position), expectedBinIndex);
+        }
+    }
+
+    @Test
+    public void testReadCounts() {
+        final List<SimpleInterval> intervals = Arrays.asList(
+                new SimpleInterval("2", 1, 100),
+                new SimpleInterval("1", 201, 300),
+                new SimpleInterval("1", 1, 100),
+                new SimpleInterval("1", 101, 200),
+                new SimpleInterval("3", 501, 1000),
+                new SimpleInterval("3", 1, 500));
+        final ReadCountCollector collector = new ReadCountCollector(METADATA, intervals);
+        Assert.assertEquals(collector.getContigs(), Arrays.asList("1", "2", "3"));
+        Assert.assertNull(collector.getContigCounter("4"));
+
+        final Random rng = new Random(1);
+        final int[][] expectedCounts = new int[3][2001];
+        for (int n = 0; n < 10000; n++) {
+            final int contigIndex = rng.nextInt(3);
+            final int start = rng.nextInt(2000) + 1;
+            expectedCounts[contigIndex][start]++;
+            collector.addReadStart(Integer.toString(contigIndex + 1), start);
+        }
+        Assert.assertFalse(collector.addReadStart("4", 1));
+        Assert.assertFalse(collector.addReadStart("2", 101));
+        Assert.assertTrue(collector.addReadStart("2", 100));
+        expectedCounts[1][100]++;
+
+        final List<SimpleInterval> sortedIntervals = Arrays.asList(
+                new SimpleInterval("1", 1, 100),
+                new SimpleInterval("1", 101, 200),
+                new SimpleInterval("1", 201, 300),
+                new SimpleInterval("2", 1, 100),
+                new SimpleInterval("3", 1, 500),
+                new SimpleInterval("3", 501, 1000));
+        final List<SimpleCount> expectedSimpleCounts = sortedIntervals.stream()
+                .map(i -> new SimpleCount(i, Arrays.stream(expectedCounts[Integer.parseInt(i.getContig()) - 1], i.getStart(), i.getEnd() + 1).sum()))
+                .collect(Collectors.toList());
+        final SimpleCountCollection readCounts = collector.getReadCounts();
+        Assert.assertEquals(readCounts.getMetadata(), METADATA);
+        Assert.assertEquals(readCounts.getRecords(), expectedSimpleCounts);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testOverlappingIntervals() {
+        new ReadCountCollector(METADATA, Arrays.asList(
+                new SimpleInterval("1", 1, 100),
+                new SimpleInterval("1", 100, 200)));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testIntervalNotInSequenceDictionary() {
+        new ReadCountCollector(METADATA, Collections.singletonList(new SimpleInterval("4", 1, 100)));
+    }
+}
@@ -0,0 +1,72 @@
+package org.broadinstitute.hellbender.tools.copynumber.denoising;
+
+import org.apache.commons.math3.random.RandomDataGenerator;
+import org.apache.commons.math3.stat.descriptive.rank.Median;
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+
+/**
+ * Unit tests for {@link StreamingMedianSketch}.
+ */
+public final class StreamingMedianSketchUnitTest extends GATKBaseTest {
+    private static final int RANDOM_SEED = 1;
+
+    @DataProvider(name = "dataExactMedian")
+    public Object[][] dataExactMedian() {
+        return new Object[][]{
+                {new double[]{}},
+                {new double[]{3.}},
+                {new double[]{3., 1.}},
+                {new double[]{3., 1., 2.}},
+                {new double[]{0., 3., 1., 2.}},
+                {new double[]{5., 0., 3., 1., 2.}}
+        };
+    }
+
+    @Test(dataProvider = "dataExactMedian")
+    public void testExactMedian(final double[] values) {
+        final StreamingMedianSketch sketch = new StreamingMedianSketch(1);
+        Arrays.stream(values).forEach(value -> sketch.add(0, value));
+        Assert.assertEquals(sketch.getMedian(0), new Median().evaluate(values));
+    }
+
+    @Test
+    public void testApproximateMedians() {
+        final int numStreams = 3;
+        final int numValues = 10000;
+        final double[] means = {-10., 0., 100.};
+        final double standardDeviation = 1.;
+        final RandomDataGenerator rng = new RandomDataGenerator();
+        rng.reSeed(RANDOM_SEED);
+
+        final StreamingMedianSketch sketch = new StreamingMedianSketch(numStreams);
+        final double[][] values = new double[numStreams][numValues];
+        for (int i = 0; i < numValues; i++) {
+            //interleave values from different streams, which should be independent
+            for (int streamIndex = 0; streamIndex < numStreams; streamIndex++) {
+                values[streamIndex][i] = rng.nextGaussian(means[streamIndex], standardDeviation);
+                sketch.add(streamIndex, values[streamIndex][i]);
+            }
+        }
+
+        final double[] medians = sketch.getMedians();
+        for (int streamIndex = 0; streamIndex < numStreams; streamIndex++) {
+            Assert.assertEquals(medians[streamIndex], new Median().evaluate(values[streamIndex]), 0.05 * standardDeviation);
+        }
+    }
+
+    @Test
+    public void testApproximateMedianOfSortedValues() {
+        //sorted input is a difficult case for marker-based estimators
+        final int numValues = 1001;
+        final StreamingMedianSketch sketch = new StreamingMedianSketch(1);
+        for (int i = 0; i < numValues; i++) {
+            sketch.add(0, i);
+        }
+        Assert.assertEquals(sketch.getMedian(0), (numValues - 1) / 2., 0.01 * numValues);
+    }
+}
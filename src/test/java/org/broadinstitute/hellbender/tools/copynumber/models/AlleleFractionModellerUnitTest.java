@@ -61,6 +61,39 @@ public final class AlleleFractionModellerUnitTest extends GATKBaseTest {
         assertAlleleFractionPosteriorCenters(modeller, simulatedData);
     }
 
+    @Test
+    public void testMCMCWithMultipleChains() {
+        final double meanBias = 1.2;
+        final double biasVariance = 0.04;
+        final double outlierProbability = 0.02;
+        final AlleleFractionGlobalParameters globalParameters = new AlleleFractionGlobalParameters(meanBias, biasVariance, outlierProbability);
+        final double minorAlleleFractionPriorAlpha = 1.;
+        final AlleleFractionPrior prior = new AlleleFractionPrior(minorAlleleFractionPriorAlpha);
+        final int numSegments = 50;
+        final double averageHetsPerSegment = 50.;
+        final double averageDepth = 50.;
+        final int numSamples = 150;
+        final int numBurnIn = 50;
+        final int numChains = 2;
+        final RandomGenerator rng = RandomGeneratorFactory.createRandomGenerator(new Random(RANDOM_SEED));
+
+        final SampleLocatableMetadata metadata = new SimpleSampleLocatableMetadata(
+                "test-sample",
+                new SAMSequenceDictionary(IntStream.range(0, numSegments)
+                        .mapToObj(i -> new SAMSequenceRecord("chr" + i + 1, 10000))
+                        .collect(Collectors.toList())));
+        final AlleleFractionSimulatedData simulatedData = new AlleleFractionSimulatedData(
+                metadata, globalParameters, numSegments, averageHetsPerSegment, averageDepth, rng);
+
+        final AlleleFractionModeller modeller = new AlleleFractionModeller(simulatedData.getData().getAllelicCounts(), simulatedData.getData().getSegments(), prior);
+        modeller.fitMCMC(numSamples, numBurnIn, numChains);
+
+        Assert.assertEquals(modeller.getMeanBiasSamples().size(), numChains * (numSamples - numBurnIn));
+        Assert.assertEquals(modeller.getMinorFractionsSamples().size(), numChains * (numSamples - numBurnIn));
+
+        assertAlleleFractionPosteriorCenters(modeller, simulatedData);
+    }
+
     static void assertAlleleFractionPosteriorCenters(final AlleleFractionModeller modeller,
                                                      final AlleleFractionSimulatedData simulatedData) {
         final AlleleFractionState trueState = simulatedData.getTrueState();
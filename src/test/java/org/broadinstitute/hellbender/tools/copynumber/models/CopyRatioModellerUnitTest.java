@@ -56,6 +56,39 @@ public final class CopyRatioModellerUnitTest extends GATKBaseTest {
         assertCopyRatioPosteriorCenters(modeller, simulatedData);
     }
 
+    @Test
+    public void testMCMCWithMultipleChains() {
+        final double variance = 0.01;
+        final double outlierProbability = 0.05;
+        final int numSegments = 100;
+        final double averageIntervalsPerSegment = 100.;
+        final int numSamples = 150;
+        final int numBurnIn = 50;
+        final int numChains = 4;
+        final RandomGenerator rng = RandomGeneratorFactory.createRandomGenerator(new Random(RANDOM_SEED));
+
+        final SampleLocatableMetadata metadata = new SimpleSampleLocatableMetadata(
+                "test-sample",
+                new SAMSequenceDictionary(IntStream.range(0, numSegments)
+                        .mapToObj(i -> new SAMSequenceRecord("chr" + i + 1, 10000))
+                        .collect(Collectors.toList())));
+        final CopyRatioSimulatedData simulatedData = new CopyRatioSimulatedData(
+                metadata, variance, outlierProbability, numSegments, averageIntervalsPerSegment, rng);
+
+        final CopyRatioModeller singleChainModeller = new CopyRatioModeller(simulatedData.getData().getCopyRatios(), simulatedData.getData().getSegments());
+        singleChainModeller.fitMCMC(numSamples, numBurnIn);
+
+        final CopyRatioModeller modeller = new CopyRatioModeller(simulatedData.getData().getCopyRatios(), simulatedData.getData().getSegments());
+        modeller.fitMCMC(numSamples, numBurnIn, numChains);
+
+        //samples are pooled over chains in order, and the first chain is identical to the single-chain result
+        Assert.assertEquals(modeller.getVarianceSamples().size(), numChains * (numSamples - numBurnIn));
+        Assert.assertEquals(modeller.getSegmentMeansSamples().size(), numChains * (numSamples - numBurnIn));
+        Assert.assertEquals(modeller.getVarianceSamples().subList(0, numSamples - numBurnIn), singleChainModeller.getVarianceSamples());
+
+        assertCopyRatioPosteriorCenters(modeller, simulatedData);
+    }
+
     static void assertCopyRatioPosteriorCenters(final CopyRatioModeller modeller,
                                                 final CopyRatioSimulatedData simulatedData) {
         final CopyRatioState trueState = simulatedData.getTrueState();
@@ -53,6 +53,58 @@ public final class HDF5UtilsUnitTest extends GATKBaseTest {
         }
     }
 
+    @DataProvider(name = "testChunkedDoubleMatrixWriterData")
+    public Object[][] dataProviderChunkedDoubleMatrixWriter() {
+        return new Object[][] {
+                //numRows, numColumns, maxChunkSize
+                new Object[] {1, 10, 10},
+                new Object[] {10, 10, 10},      //filled chunks only
+                new Object[] {10, 10, 30},      //filled chunks and a partial chunk
+                new Object[] {7, 10, 100},      //partial chunk only
+                new Object[] {25, 3, 10}
+        };
+    }
+
+    @Test(dataProvider = "testChunkedDoubleMatrixWriterData")
+    public void testChunkedDoubleMatrixWriter(final int numRows,
+                                              final int numColumns,
+                                              final int maxChunkSize) {
+        final String matrixPath = "/test/matrix";
+        final String streamedMatrixPath = "/test/streamed_matrix";
+
+        final RealMatrix matrix = createMatrixOfGaussianValues(numRows, numColumns, 0., 1.);
+        final File tempOutputHD5 = IOUtils.createTempFile("chunked-matrix-", ".hd5");
+        try (final HDF5File hdf5File = new HDF5File(tempOutputHD5, HDF5File.OpenMode.CREATE)) {
+            HDF5Utils.writeChunkedDoubleMatrix(hdf5File, matrixPath, matrix.getData(), maxChunkSize);
+            try (final HDF5Utils.ChunkedDoubleMatrixWriter writer =
+                         new HDF5Utils.ChunkedDoubleMatrixWriter(hdf5File, streamedMatrixPath, numColumns, maxChunkSize)) {
+                for (int i = 0; i < numRows; i++) {
+                    writer.addRow(matrix.getRow(i));
+                }
+            }
+        }
+
+        try (final HDF5File hdf5FileForReading = new HDF5File(tempOutputHD5, HDF5File.OpenMode.READ_ONLY)) {
+            //the streamed matrix should be chunked identically to the matrix written all at once
+            Assert.assertEquals(
+                    hdf5FileForReading.readDouble(streamedMatrixPath + HDF5Utils.NUMBER_OF_CHUNKS_SUB_PATH),
+                    hdf5FileForReading.readDouble(matrixPath + HDF5Utils.NUMBER_OF_CHUNKS_SUB_PATH));
+            final double[][] result = HDF5Utils.readChunkedDoubleMatrix(hdf5FileForReading, streamedMatrixPath);
+            assertEqualsMatrix(new Array2DRowRealMatrix(result, false), matrix, 0.);
+        }
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testChunkedDoubleMatrixWriterWrongNumberOfColumns() {
+        final File tempOutputHD5 = IOUtils.createTempFile("chunked-matrix-", ".hd5");
+        try (final HDF5File hdf5File = new HDF5File(tempOutputHD5, HDF5File.OpenMode.CREATE);
+             final HDF5Utils.ChunkedDoubleMatrixWriter writer =
+                     new HDF5Utils.ChunkedDoubleMatrixWriter(hdf5File, "/test/matrix", 10, 100)) {
+            writer.addRow(new double[10]);
+            writer.addRow(new double[9]);
+        }
+    }
+
     private static RealMatrix createMatrixOfGaussianValues(final int numRows,
                                                            final int numColumns,
                                                            final double mean,
@@ -1,8 +1,10 @@
 package org.broadinstitute.hellbender.tools.examples;
 
 import org.broadinstitute.hellbender.CommandLineProgramTest;
+import org.broadinstitute.hellbender.engine.spark.GATKSparkTool;
 import org.broadinstitute.hellbender.testutils.ArgumentsBuilder;
 import org.broadinstitute.hellbender.testutils.IntegrationTestSpec;
+import org.broadinstitute.hellbender.testutils.SparkTestUtils;
 import org.testng.annotations.Test;
 
 import java.io.File;
@@ -31,4 +33,27 @@ public final class ExampleLocusWalkerSparkIntegrationTest extends CommandLinePro
         File expected = new File(TEST_OUTPUT_DIRECTORY, "expected_ExampleLocusWalkerIntegrationTest_output.txt");
         IntegrationTestSpec.assertEqualTextFiles(new File(out, "part-00000"), expected);
     }
+
+    @Test
+    public void testExampleLocusWalkerOnLocalEngine() throws IOException {
+        final File out = File.createTempFile("out", ".txt");
+        out.delete();
+        out.deleteOnExit();
+        final ArgumentsBuilder args = new ArgumentsBuilder();
+        args.add("-L 1");
+        args.add("--input");
+        args.add(TEST_DATA_DIRECTORY + "reads_data_source_test1.bam");
+        args.add("-V");
+        args.add(TEST_DATA_DIRECTORY + "feature_data_source_test.vcf");
+        args.add("--output");
+        args.add(out.getAbsolutePath());
+        args.add("--reference");
+        args.add(hg19MiniReference);
+        args.add("--" + GATKSparkTool.USE_LOCAL_ENGINE_LONG_NAME);
+        args.add("--" + GATKSparkTool.LOCAL_ENGINE_THREADS_LONG_NAME);
+        args.add("2");
+        this.runCommandLine(args.getArgsArray());
+        File expected = new File(TEST_OUTPUT_DIRECTORY, "expected_ExampleLocusWalkerIntegrationTest_output.txt");
+        IntegrationTestSpec.assertEqualTextFiles(SparkTestUtils.concatenatePartFiles(out), expected);
+    }
 }
@@ -1,8 +1,11 @@
 package org.broadinstitute.hellbender.tools.examples;
 
 import org.broadinstitute.hellbender.CommandLineProgramTest;
+import org.broadinstitute.hellbender.engine.spark.GATKSparkTool;
+import org.broadinstitute.hellbender.exceptions.UserException;
 import org.broadinstitute.hellbender.testutils.ArgumentsBuilder;
 import org.broadinstitute.hellbender.testutils.IntegrationTestSpec;
+import org.broadinstitute.hellbender.testutils.SparkTestUtils;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
@@ -35,4 +38,43 @@ public final class ExampleVariantWalkerSparkIntegrationTest extends CommandLineP
         IntegrationTestSpec.assertEqualTextFiles(new File(out, "part-00000"), expected);
     }
 
+    @Test
+    public void testExampleVariantWalkerOnLocalEngine() throws IOException {
+        final File out = File.createTempFile("out", ".txt");
+        Assert.assertTrue(out.delete(), "failed to perform necessary deletion during test setup");
+        out.deleteOnExit();
+        final ArgumentsBuilder args = new ArgumentsBuilder();
+        args.add("-L 1:100-200");
+        // note that joining with reads is not currently supported
+        args.add("-V");
+        args.add(TEST_DATA_DIRECTORY + "example_variants_withSequenceDict.vcf");
+        args.add("-auxiliaryVariants");
+        args.add(TEST_DATA_DIRECTORY + "feature_data_source_test.vcf");
+        args.add("--output");
+        args.add(out.getAbsolutePath());
+        args.add("--reference");
+        args.add(hg19MiniReference);
+        args.add("--" + GATKSparkTool.USE_LOCAL_ENGINE_LONG_NAME);
+        args.add("--" + GATKSparkTool.LOCAL_ENGINE_THREADS_LONG_NAME);
+        args.add("2");
+        this.runCommandLine(args.getArgsArray());
+        File expected = new File(TEST_OUTPUT_DIRECTORY, "expected_ExampleVariantWalkerSparkIntegrationTest_output.txt");
+        IntegrationTestSpec.assertEqualTextFiles(SparkTestUtils.concatenatePartFiles(out), expected);
+    }
+
+    @Test(expectedExceptions = UserException.MissingIndex.class)
+    public void testExampleVariantWalkerOnLocalEngineRequiresAnIndex() throws IOException {
+        final File out = File.createTempFile("out", ".txt");
+        Assert.assertTrue(out.delete(), "failed to perform necessary deletion during test setup");
+        out.deleteOnExit();
+        final ArgumentsBuilder args = new ArgumentsBuilder();
+        args.add("-V");
+        args.add(TEST_DATA_DIRECTORY + "feature_data_source_test.wo-idx.vcf");
+        args.add("--output");
+        args.add(out.getAbsolutePath());
+        args.add("--reference");
+        args.add(hg19MiniReference);
+        args.add("--" + GATKSparkTool.USE_LOCAL_ENGINE_LONG_NAME);
+        this.runCommandLine(args.getArgsArray());
+    }
 }
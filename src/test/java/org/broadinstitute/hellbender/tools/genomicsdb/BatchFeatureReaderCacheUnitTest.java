@@ -0,0 +1,131 @@
+package org.broadinstitute.hellbender.tools.genomicsdb;
+
+import htsjdk.samtools.util.Locatable;
+import htsjdk.tribble.CloseableTribbleIterator;
+import htsjdk.tribble.FeatureReader;
+import htsjdk.variant.variantcontext.VariantContext;
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.util.*;
+
+public class BatchFeatureReaderCacheUnitTest extends GATKBaseTest {
+
+    /**
+     * Reader that returns empty iterators and records whether it and its iterators were closed.
+     */
+    static final class CountingFeatureReader implements FeatureReader<VariantContext> {
+        final String sampleName;
+        boolean isClosed = false;
+        final List<CountingIterator> iterators = new ArrayList<>();
+
+        CountingFeatureReader(final String sampleName) {
+            this.sampleName = sampleName;
+        }
+
+        @Override
+        public CloseableTribbleIterator<VariantContext> query(final Locatable locus) {
+            return query(locus.getContig(), locus.getStart(), locus.getEnd());
+        }
+
+        @Override
+        public CloseableTribbleIterator<VariantContext> query(final String chr, final int start, final int end) {
+            Assert.assertFalse(isClosed);
+            final CountingIterator iterator = new CountingIterator();
+            iterators.add(iterator);
+            return iterator;
+        }
+
+        @Override
+        public CloseableTribbleIterator<VariantContext> iterator() {
+            return query("1", 1, 1);
+        }
+
+        @Override
+        public void close() {
+            isClosed = true;
+        }
+
+        @Override
+        public List<String> getSequenceNames() {
+            return Collections.singletonList("1");
+        }
+
+        @Override
+        public Object getHeader() {
+            return sampleName;
+        }
+
+        static final class CountingIterator implements CloseableTribbleIterator<VariantContext> {
+            boolean isClosed = false;
+
+            @Override public void close() { isClosed = true; }
+            @Override public Iterator<VariantContext> iterator() { return this; }
+            @Override public boolean hasNext() { return false; }
+            @Override public VariantContext next() { throw new NoSuchElementException(); }
+        }
+    }
+
+    @Test
+    public void testReadersAreReusedWithinBatch() throws IOException {
+        final List<CountingFeatureReader> openedReaders = new ArrayList<>();
+        final BatchFeatureReaderCache cache = new BatchFeatureReaderCache(sampleName -> {
+            final CountingFeatureReader reader = new CountingFeatureReader(sampleName);
+            openedReaders.add(reader);
+            return reader;
+        });
+        final List<String> batch1 = Arrays.asList("Sample1", "Sample2");
+        final List<String> batch2 = Collections.singletonList("Sample3");
+
+        //first interval of the first batch opens readers
+        final SortedMap<String, FeatureReader<VariantContext>> interval1Readers = cache.getReaders(batch1, 0);
+        Assert.assertEquals(new ArrayList<>(interval1Readers.keySet()), batch1);
+        Assert.assertEquals(interval1Readers.get("Sample2").getHeader(), "Sample2");
+        interval1Readers.get("Sample1").query("1", 1, 10);
+        Assert.assertEquals(openedReaders.size(), 2);
+        for (final FeatureReader<VariantContext> reader : interval1Readers.values()) {
+            reader.close();
+        }
+        //closing the leases closes the iterators but not the readers
+        Assert.assertTrue(openedReaders.get(0).iterators.get(0).isClosed);
+        Assert.assertTrue(openedReaders.stream().noneMatch(r -> r.isClosed));
+
+        //second interval of the first batch reuses them
+        final SortedMap<String, FeatureReader<VariantContext>> interval2Readers = cache.getReaders(batch1, 0);
+        Assert.assertEquals(openedReaders.size(), 2);
+        Assert.assertEquals(cache.getNumReadersOpened(), 2);
+        Assert.assertEquals(cache.getNumReadersReused(), 2);
+
+        //an interval imported in parallel with a reader still leased opens new readers
+        final SortedMap<String, FeatureReader<VariantContext>> parallelIntervalReaders = cache.getReaders(batch1, 0);
+        Assert.assertEquals(openedReaders.size(), 4);
+        for (final FeatureReader<VariantContext> reader : interval2Readers.values()) {
+            reader.close();
+        }
+        for (final FeatureReader<VariantContext> reader : parallelIntervalReaders.values()) {
+            reader.close();
+        }
+        Assert.assertTrue(openedReaders.stream().noneMatch(r -> r.isClosed));
+
+        //a new batch closes all readers from the previous batch
+        final SortedMap<String, FeatureReader<VariantContext>> batch2Readers = cache.getReaders(batch2, 2);
+        Assert.assertTrue(openedReaders.subList(0, 4).stream().allMatch(r -> r.isClosed));
+        Assert.assertEquals(openedReaders.size(), 5);
+
+        //readers leased when the cache is closed are closed along with their lease
+        cache.close();
+        Assert.assertFalse(openedReaders.get(4).isClosed);
+        batch2Readers.get("Sample3").close();
+        Assert.assertTrue(openedReaders.get(4).isClosed);
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testQueryAfterClose() throws IOException {
+        final BatchFeatureReaderCache cache = new BatchFeatureReaderCache(CountingFeatureReader::new);
+        final FeatureReader<VariantContext> reader = cache.getReaders(Collections.singletonList("Sample1"), 0).get("Sample1");
+        reader.close();
+        reader.query("1", 1, 10);
+    }
+}
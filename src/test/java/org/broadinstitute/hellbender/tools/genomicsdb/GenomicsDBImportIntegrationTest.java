@@ -2,6 +2,7 @@ package org.broadinstitute.hellbender.tools.genomicsdb;
 
 import htsjdk.samtools.SAMSequenceDictionary;
 import htsjdk.samtools.SAMSequenceRecord;
+import htsjdk.samtools.metrics.MetricsFile;
 import htsjdk.tribble.AbstractFeatureReader;
 import htsjdk.tribble.CloseableTribbleIterator;
 import htsjdk.tribble.readers.LineIterator;
@@ -34,6 +35,7 @@ import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
 import java.io.File;
+import java.io.FileReader;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Paths;
@@ -363,6 +365,30 @@ public final class GenomicsDBImportIntegrationTest extends CommandLineProgramTes
         testGenomicsDBImporterWithBatchSize(LOCAL_GVCFS, MULTIPLE_INTERVALS, COMBINED_MULTI_INTERVAL, batchSize);
     }
 
+    @Test
+    public void testGenomicsDBImportWithAdaptiveSchedulingAndBatchMetrics() throws IOException {
+        final String workspace = createTempDir("genomicsdb-adaptive-tests-").getAbsolutePath() + "/workspace";
+        final File metricsFile = createTempFile("genomicsdb-batch-metrics", ".txt");
+        final ArgumentsBuilder args = new ArgumentsBuilder();
+        args.addArgument(GenomicsDBImport.WORKSPACE_ARG_LONG_NAME, workspace);
+        MULTIPLE_INTERVALS.forEach(args::addInterval);
+        LOCAL_GVCFS.forEach(vcf -> args.addArgument("V", vcf));
+        args.addArgument(GenomicsDBImport.BATCHSIZE_ARG_LONG_NAME, "2");    //upper bound on the batch size
+        args.addBooleanArgument(GenomicsDBImport.ADAPTIVE_SCHEDULING_LONG_NAME, true);
+        args.addFileArgument(GenomicsDBImport.BATCH_METRICS_OUTPUT_LONG_NAME, metricsFile);
+        runCommandLine(args);
+
+        checkJSONFilesAreWritten(workspace);
+        checkGenomicsDBAgainstExpected(workspace, MULTIPLE_INTERVALS, COMBINED_MULTI_INTERVAL, b38_reference_20_21, true, ATTRIBUTES_TO_IGNORE);
+
+        final MetricsFile<GenomicsDBImportScheduler.BatchMetrics, Integer> metrics = new MetricsFile<>();
+        try (final FileReader reader = new FileReader(metricsFile)) {
+            metrics.read(reader);
+        }
+        Assert.assertEquals(metrics.getMetrics().size(), 2);
+        Assert.assertEquals(metrics.getMetrics().stream().mapToInt(m -> m.SAMPLES).sum(), LOCAL_GVCFS.size());
+    }
+
     @Test(groups = {"bucket"}, dataProvider = "batchSizes")
     public void testGenomicsDBImportGCSInputsInBatches(final int batchSize) throws IOException {
         testGenomicsDBImporterWithBatchSize(resolveLargeFilesAsCloudURIs(LOCAL_GVCFS), INTERVAL, COMBINED, batchSize);
@@ -0,0 +1,81 @@
+package org.broadinstitute.hellbender.tools.genomicsdb;
+
+import htsjdk.tribble.FeatureReader;
+import htsjdk.variant.variantcontext.VariantContext;
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+public class GenomicsDBImportSchedulerUnitTest extends GATKBaseTest {
+    private static final long MB = 1024L * 1024L;
+
+    @DataProvider
+    public Object[][] getPlanData() {
+        return new Object[][]{
+                //numSamples, numIntervals, maxBatchSize, bytesPerReader, heapBudgetBytes, fileDescriptorBudget, numProcessors, expectedBatchSize, expectedNumIntervalsInParallel
+                //ample heap and file descriptors: all samples in one batch, one interval per processor
+                {1000, 10, 0, MB, 100000 * MB, GenomicsDBImportScheduler.UNKNOWN_FILE_DESCRIPTOR_LIMIT, 4, 1000, 4},
+                //fewer intervals than processors
+                {1000, 2, 0, MB, 100000 * MB, 100000L, 4, 1000, 2},
+                //heap-limited
+                {1000, 10, 0, MB, 400 * MB, GenomicsDBImportScheduler.UNKNOWN_FILE_DESCRIPTOR_LIMIT, 4, 100, 4},
+                //file-descriptor-limited
+                {1000, 10, 0, MB, 100000 * MB, 800L, 4, 100, 4},
+                //explicit batch size is an upper bound
+                {1000, 10, 50, MB, 100000 * MB, 100000L, 4, 50, 4},
+                //budget smaller than the number of processors reduces interval concurrency
+                {1000, 10, 0, MB, 2 * MB, GenomicsDBImportScheduler.UNKNOWN_FILE_DESCRIPTOR_LIMIT, 4, 1, 2},
+                //no budget at all still yields a valid schedule
+                {1000, 10, 0, MB, 0L, 0L, 4, 1, 1}
+        };
+    }
+
+    @Test(dataProvider = "getPlanData")
+    public void testPlan(final int numSamples,
+                         final int numIntervals,
+                         final int maxBatchSize,
+                         final long bytesPerReader,
+                         final long heapBudgetBytes,
+                         final long fileDescriptorBudget,
+                         final int numProcessors,
+                         final int expectedBatchSize,
+                         final int expectedNumIntervalsInParallel) {
+        final GenomicsDBImportScheduler.Schedule schedule = GenomicsDBImportScheduler.plan(
+                numSamples, numIntervals, maxBatchSize, bytesPerReader, heapBudgetBytes, fileDescriptorBudget, numProcessors);
+        Assert.assertEquals(schedule.getBatchSize(), expectedBatchSize);
+        Assert.assertEquals(schedule.getNumIntervalsInParallel(), expectedNumIntervalsInParallel);
+    }
+
+    @Test
+    public void testBatchMetrics() throws IOException {
+        final BatchFeatureReaderCache readerCache = new BatchFeatureReaderCache(BatchFeatureReaderCacheUnitTest.CountingFeatureReader::new);
+        final GenomicsDBImportScheduler scheduler = new GenomicsDBImportScheduler(3);
+        for (int batch = 1; batch <= 2; batch++) {
+            scheduler.onBatchStart(2, readerCache);
+            for (int interval = 0; interval < 3; interval++) {
+                for (final FeatureReader<VariantContext> reader : readerCache.getReaders(Arrays.asList("Sample1", "Sample2"), 2 * batch).values()) {
+                    reader.close();
+                }
+                scheduler.onBatchStart(2, readerCache);     //should be ignored within a batch
+            }
+            final GenomicsDBImportScheduler.BatchMetrics metrics = scheduler.onBatchCompletion(batch, readerCache);
+            Assert.assertEquals(metrics.BATCH, batch);
+            Assert.assertEquals(metrics.SAMPLES, 2);
+            Assert.assertEquals(metrics.INTERVALS, 3);
+            Assert.assertEquals(metrics.READERS_OPENED, 2);
+            Assert.assertEquals(metrics.READERS_REUSED, 4);
+            Assert.assertTrue(metrics.ELAPSED_SECONDS >= 0.);
+            Assert.assertTrue(metrics.HEAP_MAX_MB > 0);
+        }
+        Assert.assertEquals(scheduler.getBatchMetrics().size(), 2);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testPlanWithNoSamples() {
+        GenomicsDBImportScheduler.plan(0, 1, 0, MB, MB, 10L, 1);
+    }
+}
@@ -39,6 +39,32 @@ public final class BwaSparkIntegrationTest extends CommandLineProgramTest {
         SamAssertionUtils.assertSamsEqual(new File(output, "part-r-00000.bam"), expectedSam);
     }
 
+    @Test
+    public void testPairedEndWithSharedIndex() throws Exception {
+        final File expectedSam = getTestFile("bwa.sam");
+
+        final File ref = getTestFile("ref.fa");
+        final File input = getTestFile("R.bam"); // this is a queryname sorted, paired, and unaligned input
+
+        final File output = createTempFile("bwa", ".bam");
+        Assert.assertTrue(output.delete());
+        final File sharedIndexDirectory = createTempDir("bwaSharedIndex");
+
+        // the image is distributed from next to the reference, and shared on the node
+        final ArgumentsBuilder args = new ArgumentsBuilder();
+        args.addFileArgument(StandardArgumentDefinitions.REFERENCE_LONG_NAME, ref);
+        args.addFileArgument(StandardArgumentDefinitions.INPUT_LONG_NAME, input);
+        args.addBooleanArgument(GATKSparkTool.SHARDED_OUTPUT_LONG_NAME, true);
+        args.addArgument(GATKSparkTool.NUM_REDUCERS_LONG_NAME,"1");
+        args.addOutput(output);
+        args.addFileArgument(BwaArgumentCollection.BWA_MEM_INDEX_SHARED_DIRECTORY_FULL_NAME, sharedIndexDirectory);
+        args.addBooleanArgument(BwaArgumentCollection.WARM_UP_BWA_MEM_INDEX_FULL_NAME, true);
+        this.runCommandLine(args.getArgsArray());
+
+        SamAssertionUtils.assertSamsEqual(new File(output, "part-r-00000.bam"), expectedSam);
+        Assert.assertEquals(sharedIndexDirectory.list().length, 1);
+    }
+
     @Test
     public void testSingleEnd() throws Exception {
         final File expectedSam = getTestFile("seBwa.bam");
@@ -5,6 +5,7 @@ import com.esotericsoftware.kryo.io.Input;
 import org.apache.commons.io.FileUtils;
 import org.broadinstitute.hellbender.CommandLineProgramTest;
 import org.broadinstitute.hellbender.engine.spark.datasources.ReferenceFileSparkSource;
+import org.broadinstitute.hellbender.exceptions.UserException;
 import org.broadinstitute.hellbender.tools.spark.sv.utils.SVKmerShort;
 import org.broadinstitute.hellbender.tools.spark.utils.LargeLongHopscotchSet;
 import org.broadinstitute.hellbender.tools.spark.utils.LongBloomFilter;
@@ -169,4 +170,56 @@ public class PSKmerUtilsTest extends CommandLineProgramTest {
         }
     }
 
-}
\ No newline at end of file
+    @Test
+    public void testReadWriteMappedSets() {
+        final long numElements = 100000L;
+        final int kSize = 31;
+        final SVKmerShort mask = SVKmerShort.getMask(new byte[]{3, 20, 25}, kSize);
+        final Random rand = new Random(8473893L);
+        final LargeLongHopscotchSet hssMasked = new LargeLongHopscotchSet(numElements);
+        final LongBloomFilter bfOut = new LongBloomFilter(numElements, 0.1);
+        for (long i = 0; i < numElements; i++) {
+            final long val = PSKmerCollection.canonicalizeAndMask(new SVKmerShort(rand.nextLong() >>> 2), kSize, mask);
+            hssMasked.add(val);
+            bfOut.add(val);
+        }
+
+        final File hssFile = createTempFile("set", ".bin");
+        PSKmerUtils.writeMappedKmerSet(hssFile.getPath(), hssMasked, kSize, mask);
+        final PSMappedKmerSet hssIn =
+                (PSMappedKmerSet) PSKmerUtils.readKmerFilter(hssFile.getPath() + PSKmerUtils.MAPPED_HOPSCOTCH_SET_EXTENSION);
+        Assert.assertEquals(hssIn.kmerSize(), kSize);
+        Assert.assertEquals(hssIn.getMask(), mask);
+        Assert.assertEquals(hssIn.setSize(), hssMasked.size());
+        final LongIterator hssIter = hssMasked.iterator();
+        while (hssIter.hasNext()) {
+            Assert.assertTrue(hssIn.contains(new SVKmerShort(hssIter.next())), "Mapped set is missing a kmer");
+        }
+        long mappedSize = 0;
+        for (final LongIterator mappedIter = hssIn.iterator(); mappedIter.hasNext(); mappedSize++) {
+            Assert.assertTrue(hssMasked.contains(mappedIter.next()), "Mapped set has an extra kmer");
+        }
+        Assert.assertEquals(mappedSize, hssMasked.size());
+
+        final File bfFile = createTempFile("set", ".bin");
+        final double fpp = new PSKmerBloomFilter(bfOut, kSize, mask, numElements).getFalsePositiveProbability();
+        PSKmerUtils.writeMappedKmerBloomFilter(bfFile.getPath(), bfOut, kSize, mask, fpp);
+        final PSKmerCollection bloomIn =
+                PSKmerUtils.readKmerFilter(bfFile.getPath() + PSKmerUtils.MAPPED_BLOOM_FILTER_EXTENSION);
+        Assert.assertEquals(bloomIn.getFalsePositiveProbability(), fpp);
+        for (int i = 0; i < 100000; i++) {
+            final SVKmerShort kmer = new SVKmerShort(rand.nextLong() >>> 2);
+            Assert.assertEquals(bloomIn.contains(kmer), bfOut.contains(PSKmerCollection.canonicalizeAndMask(kmer, kSize, mask)));
+            Assert.assertEquals(hssIn.contains(kmer), hssMasked.contains(PSKmerCollection.canonicalizeAndMask(kmer, kSize, mask)));
+        }
+    }
+
+    @Test(expectedExceptions = UserException.BadInput.class)
+    public void testReadMappedSetOfWrongType() {
+        final File hssFile = createTempFile("set", ".bin");
+        final LargeLongHopscotchSet hssMasked = new LargeLongHopscotchSet(10);
+        hssMasked.add(1L);
+        PSKmerUtils.writeMappedKmerSet(hssFile.getPath(), hssMasked, 31, SVKmerShort.getMask(new byte[]{}, 31));
+        PSMappedKmerBloomFilter.open(hssFile.getPath() + PSKmerUtils.MAPPED_HOPSCOTCH_SET_EXTENSION);
+    }
+}
@@ -367,10 +367,10 @@ public class PSScorerTest extends CommandLineProgramTest {
         readTaxHits.add(new PSPathogenAlignmentHit(Arrays.asList(4), 2));
         boolean divideByGenomeLength = true;
         boolean notNormalizedByKingdom = true;
-        final PSTaxonomyDatabase testDatabase = new PSTaxonomyDatabase(tree, null);
+        PSFlatTree flatTree = new PSFlatTree(tree);
         try {
-            final Iterator<Tuple2<Integer, PSPathogenTaxonScore>> resultIter = PSScorer.computeTaxScores(readTaxHits.iterator(), testDatabase, divideByGenomeLength);
-            Map<Integer,PSPathogenTaxonScore> resultMap = PSScorer.computeNormalizedScores(scoreIteratorToMap(resultIter), testDatabase.tree, notNormalizedByKingdom);
+            final Iterator<Tuple2<Integer, PSPathogenTaxonScore>> resultIter = PSScorer.computeTaxScores(readTaxHits.iterator(), flatTree, divideByGenomeLength);
+            Map<Integer,PSPathogenTaxonScore> resultMap = PSScorer.computeNormalizedScores(scoreIteratorToMap(resultIter), flatTree, notNormalizedByKingdom);
             Assert.assertTrue(resultMap.isEmpty(), "Result should be empty since the hit does not exist in the tree");
         } catch (Exception e) {
             Assert.fail("Threw an exception when a HitInfo references a tax ID not in the tree, or vice versa", e);
@@ -380,8 +380,9 @@ public class PSScorerTest extends CommandLineProgramTest {
         tree.addNode(3, "n3", 2, 100, "species");
         readTaxHits.clear();
         readTaxHits.add(new PSPathogenAlignmentHit(Arrays.asList(3), 2));
-        Iterator<Tuple2<Integer, PSPathogenTaxonScore>> resultIter = PSScorer.computeTaxScores(readTaxHits.iterator(), testDatabase, divideByGenomeLength);
-        Map<Integer,PSPathogenTaxonScore> resultMap = PSScorer.computeNormalizedScores(scoreIteratorToMap(resultIter), testDatabase.tree, notNormalizedByKingdom);
+        flatTree = new PSFlatTree(tree);
+        Iterator<Tuple2<Integer, PSPathogenTaxonScore>> resultIter = PSScorer.computeTaxScores(readTaxHits.iterator(), flatTree, divideByGenomeLength);
+        Map<Integer,PSPathogenTaxonScore> resultMap = PSScorer.computeNormalizedScores(scoreIteratorToMap(resultIter), flatTree, notNormalizedByKingdom);
         Assert.assertEquals(resultMap.size(), 3);
         Assert.assertEquals(resultMap.get(1).getSelfScore(), resultMap.get(2).getSelfScore());
         Assert.assertEquals(resultMap.get(1).getDescendentScore(), resultMap.get(2).getDescendentScore());
@@ -406,15 +407,16 @@ public class PSScorerTest extends CommandLineProgramTest {
         readTaxHits.add(new PSPathogenAlignmentHit(Arrays.asList(5), 2));
         readTaxHits.add(new PSPathogenAlignmentHit(Arrays.asList(6), 1));
         readTaxHits.add(new PSPathogenAlignmentHit(Arrays.asList(8), 2)); //Invalid hit, not in tree
-        resultIter = PSScorer.computeTaxScores(readTaxHits.iterator(), testDatabase, divideByGenomeLength);
-        resultMap = PSScorer.computeNormalizedScores(scoreIteratorToMap(resultIter), tree, notNormalizedByKingdom);
+        flatTree = new PSFlatTree(tree);
+        resultIter = PSScorer.computeTaxScores(readTaxHits.iterator(), flatTree, divideByGenomeLength);
+        resultMap = PSScorer.computeNormalizedScores(scoreIteratorToMap(resultIter), flatTree, notNormalizedByKingdom);
         checkComputedScores(resultMap, divideByGenomeLength, notNormalizedByKingdom);
 
         //Test after switching genome length and kingdom normalization
         divideByGenomeLength = false;
         notNormalizedByKingdom = false;
-        resultIter = PSScorer.computeTaxScores(readTaxHits.iterator(), testDatabase, divideByGenomeLength);
-        resultMap = PSScorer.computeNormalizedScores(scoreIteratorToMap(resultIter), tree, notNormalizedByKingdom);
+        resultIter = PSScorer.computeTaxScores(readTaxHits.iterator(), flatTree, divideByGenomeLength);
+        resultMap = PSScorer.computeNormalizedScores(scoreIteratorToMap(resultIter), flatTree, notNormalizedByKingdom);
         checkComputedScores(resultMap, divideByGenomeLength, notNormalizedByKingdom);
     }
 
@@ -0,0 +1,115 @@
+package org.broadinstitute.hellbender.tools.spark.pathseq;
+
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.*;
+
+public class PSTaxonScoreSumsTest extends GATKBaseTest {
+
+    private static final double SCORE_ABSOLUTE_ERROR_TOLERANCE = 1e-6;
+
+    @Test
+    public void testFlatTree() {
+        final PSTree tree = new PSTree(1);
+        tree.addNode(2, "n2", 1, 0, PSTaxonomyConstants.SUPERKINGDOM_RANK_NAME);
+        tree.addNode(3, "n3", 2, 10, "species");
+        tree.addNode(4, "n4", 2, 20, "species");
+        tree.addNode(5, "n5", 1, 30, "species");
+        final PSFlatTree flatTree = new PSFlatTree(tree);
+
+        Assert.assertEquals(flatTree.size(), 5);
+        Assert.assertEquals(flatTree.getOrdinal(1), 0);
+        Assert.assertEquals(flatTree.getOrdinal(6), PSFlatTree.NO_NODE);
+        final int n2 = flatTree.getOrdinal(2), n3 = flatTree.getOrdinal(3), n4 = flatTree.getOrdinal(4), n5 = flatTree.getOrdinal(5);
+        Assert.assertEquals(flatTree.getLCA(n3, n4), n2);
+        Assert.assertEquals(flatTree.getLCA(n3, n5), 0);
+        Assert.assertEquals(flatTree.getLCA(n3, n3), n3);
+        Assert.assertEquals(flatTree.getParent(n4), n2);
+        Assert.assertEquals(flatTree.getParent(n5), 0);
+        Assert.assertTrue(n2 < n3 && n2 < n4, "nodes should come after their ancestors");
+        Assert.assertEquals(flatTree.getKingdom(n3), n2);
+        Assert.assertEquals(flatTree.getKingdom(n5), 0);
+        Assert.assertEquals(flatTree.getLength(n4), 20);
+        Assert.assertEquals(flatTree.getParent(0), PSFlatTree.NO_NODE);
+    }
+
+    /**
+     * Checks that scores summed over several partitions and then merged are the same as those from visiting the full
+     * path to the root from every hit
+     */
+    @Test
+    public void testMergedScoresMatchPathScores() {
+        final Random random = new Random(13L);
+        final int numNodes = 200;
+        final PSTree tree = new PSTree(1);
+        for (int id = 2; id <= numNodes; id++) {
+            tree.addNode(id, "n" + id, 1 + random.nextInt(id - 1), random.nextInt(4) == 0 ? 0 : 1 + random.nextInt(1000), "species");
+        }
+        final PSFlatTree flatTree = new PSFlatTree(tree);
+
+        final List<PSPathogenAlignmentHit> hits = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            final List<Integer> taxIds = new ArrayList<>();
+            final int numHits = 1 + random.nextInt(5);
+            for (int j = 0; j < numHits; j++) {
+                taxIds.add(1 + random.nextInt(numNodes + 10)); //includes some IDs not in the tree
+            }
+            hits.add(new PSPathogenAlignmentHit(taxIds, 1 + random.nextInt(2)));
+        }
+
+        final PSTaxonScoreSums sums = new PSTaxonScoreSums();
+        for (int partition = 0; partition < 4; partition++) {
+            final PSTaxonScoreSums partitionSums = new PSTaxonScoreSums();
+            for (int i = partition; i < hits.size(); i += 4) {
+                partitionSums.add(hits.get(i), flatTree, true);
+            }
+            sums.merge(partitionSums);
+        }
+        final Map<Integer, PSPathogenTaxonScore> scores = sums.getTaxonScores(flatTree);
+
+        final Map<Integer, double[]> expectedScores = new HashMap<>(); //self, descendent, total, unambiguous
+        final Set<Integer> expectedInvalidIds = new HashSet<>();
+        for (final PSPathogenAlignmentHit hit : hits) {
+            final Set<Integer> validIds = new HashSet<>();
+            for (final int taxId : hit.taxIDs) {
+                if (tree.hasNode(taxId) && tree.getLengthOf(taxId) > 0) {
+                    validIds.add(taxId);
+                } else {
+                    expectedInvalidIds.add(taxId);
+                }
+            }
+            if (validIds.isEmpty()) continue;
+            for (final int taxId : tree.getPathOf(tree.getLCA(validIds))) {
+                getExpectedScore(expectedScores, taxId)[3] += hit.numMates;
+            }
+            final Set<Integer> pathNodes = new HashSet<>();
+            for (final int taxId : validIds) {
+                final double score = hit.numMates * PSScorer.SCORE_GENOME_LENGTH_UNITS / (validIds.size() * tree.getLengthOf(taxId));
+                for (final int pathTaxId : tree.getPathOf(taxId)) {
+                    getExpectedScore(expectedScores, pathTaxId)[pathTaxId == taxId ? 0 : 1] += score;
+                    pathNodes.add(pathTaxId);
+                }
+            }
+            for (final int taxId : pathNodes) {
+                getExpectedScore(expectedScores, taxId)[2] += hit.numMates;
+            }
+        }
+
+        Assert.assertEquals(sums.getInvalidIds(), expectedInvalidIds);
+        Assert.assertEquals(scores.keySet(), expectedScores.keySet());
+        for (final Map.Entry<Integer, double[]> entry : expectedScores.entrySet()) {
+            final PSPathogenTaxonScore score = scores.get(entry.getKey());
+            Assert.assertEquals(score.getSelfScore(), entry.getValue()[0], SCORE_ABSOLUTE_ERROR_TOLERANCE);
+            Assert.assertEquals(score.getDescendentScore(), entry.getValue()[1], SCORE_ABSOLUTE_ERROR_TOLERANCE);
+            Assert.assertEquals(score.getTotalReads(), (int) entry.getValue()[2]);
+            Assert.assertEquals(score.getUnambiguousReads(), (int) entry.getValue()[3]);
+            Assert.assertEquals(score.getReferenceLength(), tree.getLengthOf(entry.getKey()));
+        }
+    }
+
+    private static double[] getExpectedScore(final Map<Integer, double[]> scores, final int taxId) {
+        return scores.computeIfAbsent(taxId, key -> new double[4]);
+    }
+}
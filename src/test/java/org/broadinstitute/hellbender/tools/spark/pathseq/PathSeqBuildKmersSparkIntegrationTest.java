@@ -50,6 +50,35 @@ public class PathSeqBuildKmersSparkIntegrationTest extends CommandLineProgramTes
         Assert.assertEquals(testKmerLib, expectedKmerLib);
     }
 
+    @Test
+    public void testMemoryMappedHopscotchSetFromFasta() throws Exception {
+
+        final String libraryPath = publicTestDir + PathSeqBuildKmers.class.getPackage().getName().replace(".", "/") + "/hg19mini.hss";
+        final File expectedFile = new File(libraryPath);
+        final File ref = new File(hg19MiniReference);
+        final File output = createTempFile("test", PSKmerUtils.MAPPED_HOPSCOTCH_SET_EXTENSION);
+        if (!output.delete()) {
+            Assert.fail();
+        }
+        final ArgumentsBuilder args = new ArgumentsBuilder();
+        args.addFileArgument(PathSeqBuildKmers.REFERENCE_LONG_NAME, ref);
+        args.addBooleanArgument(PathSeqBuildKmers.MEMORY_MAPPED_OUTPUT_LONG_NAME, true);
+        args.addOutput(output);
+        this.runCommandLine(args.getArgsArray());
+
+        final Input inputExpected = new Input(FileUtils.openInputStream(expectedFile));
+        final PSKmerSet expectedKmerLib = new Kryo().readObject(inputExpected, PSKmerSet.class);
+        final PSMappedKmerSet testKmerLib = (PSMappedKmerSet) PSKmerUtils.readKmerFilter(output.getAbsolutePath());
+
+        Assert.assertEquals(testKmerLib.kmerSize(), expectedKmerLib.kmerSize());
+        Assert.assertEquals(testKmerLib.getMask(), expectedKmerLib.getMask());
+        Assert.assertEquals(testKmerLib.setSize(), expectedKmerLib.setSize());
+        final LongIterator itr = testKmerLib.iterator();
+        while (itr.hasNext()) {
+            Assert.assertTrue(expectedKmerLib.contains(new SVKmerShort(itr.next())));
+        }
+    }
+
     @SuppressWarnings("unchecked")
     @Test
     public void testBloomFilterFromFasta() throws Exception {
@@ -1,11 +1,19 @@
 package org.broadinstitute.hellbender.tools.spark.pipelines;
 
+import htsjdk.variant.variantcontext.VariantContext;
 import org.broadinstitute.hellbender.CommandLineProgramTest;
+import org.broadinstitute.hellbender.engine.spark.GATKSparkTool;
 import org.broadinstitute.hellbender.utils.gcs.BucketUtils;
 import org.broadinstitute.hellbender.testutils.ArgumentsBuilder;
+import org.broadinstitute.hellbender.testutils.VariantContextTestUtils;
+import org.testng.Assert;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
+import java.io.File;
+import java.util.Collections;
+import java.util.List;
+
 public final class PrintVariantsSparkIntegrationTest extends CommandLineProgramTest {
 
     @Override
@@ -39,4 +47,23 @@ public final class PrintVariantsSparkIntegrationTest extends CommandLineProgramT
             .addArgument("output", outputPath);
         runCommandLine(argBuilder);
     }
+
+    @Test
+    public void testLocalEngine() {
+        final String input = publicTestDir + "org/broadinstitute/hellbender/engine/example_variants_withSequenceDict.vcf";
+        final File output = createTempFile("testLocalEngine", ".vcf");
+
+        final ArgumentsBuilder argBuilder = new ArgumentsBuilder();
+        argBuilder.addArgument("variant", input)
+            .addArgument("output", output.getAbsolutePath())
+            .addArgument(GATKSparkTool.USE_LOCAL_ENGINE_LONG_NAME, "true");
+        runCommandLine(argBuilder);
+
+        final List<VariantContext> expected = VariantContextTestUtils.readEntireVCFIntoMemory(input).getRight();
+        final List<VariantContext> actual = VariantContextTestUtils.readEntireVCFIntoMemory(output.getAbsolutePath()).getRight();
+        Assert.assertEquals(actual.size(), expected.size());
+        for (int i = 0; i < expected.size(); i++) {
+            VariantContextTestUtils.assertVariantContextsAreEqual(actual.get(i), expected.get(i), Collections.emptyList());
+        }
+    }
 }
@@ -0,0 +1,67 @@
+package org.broadinstitute.hellbender.tools.spark.sv.evidence;
+
+import htsjdk.samtools.SAMFileHeader;
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.broadinstitute.hellbender.tools.spark.sv.StructuralVariationDiscoveryArgumentCollection.FindBreakpointEvidenceSparkArgumentCollection;
+import org.broadinstitute.hellbender.tools.spark.sv.utils.SVKmer;
+import org.broadinstitute.hellbender.tools.spark.sv.utils.SVKmerLong;
+import org.broadinstitute.hellbender.tools.spark.sv.utils.SVKmerizer;
+import org.broadinstitute.hellbender.tools.spark.utils.HopscotchUniqueMultiMap;
+import org.broadinstitute.hellbender.utils.read.ArtificialReadUtils;
+import org.broadinstitute.hellbender.utils.read.GATKRead;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+public class KmerCounterTest extends GATKBaseTest {
+    private static final int K_SIZE = new FindBreakpointEvidenceSparkArgumentCollection().kSize;
+    private static final SAMFileHeader header = ArtificialReadUtils.createArtificialSamHeader();
+
+    @Test(groups = "sv")
+    public void testCountsAndIntervals() {
+        final byte[] bases = ArtificialReadUtils.createRandomReadBases(300, false);
+        final List<GATKRead> reads = new ArrayList<>();
+        for ( int start = 0; start < 150; start += 10 ) {
+            final byte[] readBases = Arrays.copyOfRange(bases, start, start + 150);
+            reads.add(ArtificialReadUtils.createArtificialRead(header, "read" + start, 0, start + 1,
+                    readBases, ArtificialReadUtils.createRandomReadQuals(150), "150M"));
+        }
+
+        // pick some kmers of interest, a couple of them in more than one interval
+        final List<SVKmer> allKmers = SVKmerizer.canonicalStream(bases, K_SIZE, new SVKmerLong()).collect(Collectors.toList());
+        final HopscotchUniqueMultiMap<SVKmer, Integer, KmerAndInterval> kmerMap = new HopscotchUniqueMultiMap<>(100);
+        for ( int idx = 0; idx < allKmers.size(); idx += 17 ) {
+            kmerMap.add(new KmerAndInterval(allKmers.get(idx), idx % 3));
+            if ( idx % 2 == 0 ) kmerMap.add(new KmerAndInterval(allKmers.get(idx), 5));
+        }
+
+        final Map<SVKmer, Integer> expectedCounts = new HashMap<>();
+        final Map<String, Set<Integer>> expectedIntervals = new HashMap<>();
+        for ( final GATKRead read : reads ) {
+            SVKmerizer.canonicalStream(read.getBases(), K_SIZE, new SVKmerLong()).forEach(kmer -> {
+                final Iterator<KmerAndInterval> itr = kmerMap.findEach(kmer);
+                if ( itr.hasNext() ) expectedCounts.merge(kmer, 1, Integer::sum);
+                itr.forEachRemaining(kmerAndInterval ->
+                        expectedIntervals.computeIfAbsent(read.getName(), name -> new HashSet<>()).add(kmerAndInterval.getIntervalId()));
+            });
+        }
+        Assert.assertFalse(expectedCounts.isEmpty());
+
+        final Map<SVKmer, Integer> actualCounts = new HashMap<>();
+        new KmerCounter(K_SIZE, 100, kmerMap, FindBreakpointEvidenceSpark.getKmerFingerprints(kmerMap))
+                .apply(reads.iterator())
+                .forEachRemaining(kmerAndCount -> actualCounts.put(kmerAndCount.getKey(), kmerAndCount.grabCount()));
+        Assert.assertEquals(actualCounts, expectedCounts);
+
+        final QNameIntervalFinder qNameIntervalFinder =
+                new QNameIntervalFinder(K_SIZE, kmerMap, FindBreakpointEvidenceSpark.getKmerFingerprints(kmerMap));
+        final Map<String, Set<Integer>> actualIntervals = new HashMap<>();
+        for ( final GATKRead read : reads ) {
+            qNameIntervalFinder.apply(read).forEachRemaining(qNameAndInterval ->
+                    actualIntervals.computeIfAbsent(qNameAndInterval.getKey(), name -> new HashSet<>()).add(qNameAndInterval.getIntervalId()));
+        }
+        Assert.assertEquals(actualIntervals, expectedIntervals);
+    }
+}
@@ -0,0 +1,85 @@
+package org.broadinstitute.hellbender.tools.spark.sv.evidence;
+
+import htsjdk.samtools.SAMFileHeader;
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.broadinstitute.hellbender.tools.spark.sv.StructuralVariationDiscoveryArgumentCollection.FindBreakpointEvidenceSparkArgumentCollection;
+import org.broadinstitute.hellbender.tools.spark.sv.utils.SVDUSTFilteredKmerizer;
+import org.broadinstitute.hellbender.tools.spark.sv.utils.SVKmer;
+import org.broadinstitute.hellbender.tools.spark.sv.utils.SVKmerLong;
+import org.broadinstitute.hellbender.tools.spark.utils.HopscotchSet;
+import org.broadinstitute.hellbender.tools.spark.utils.HopscotchUniqueMultiMap;
+import org.broadinstitute.hellbender.utils.read.ArtificialReadUtils;
+import org.broadinstitute.hellbender.utils.read.GATKRead;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import scala.Tuple2;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+public class QNameKmerizerTest extends GATKBaseTest {
+    private static final FindBreakpointEvidenceSparkArgumentCollection params = new FindBreakpointEvidenceSparkArgumentCollection();
+    private static final SAMFileHeader header = ArtificialReadUtils.createArtificialSamHeader();
+
+    @Test(groups = "sv")
+    public void testKmerizeReadsForIntervals() {
+        final HopscotchUniqueMultiMap<String, Integer, QNameAndInterval> qNames = new HopscotchUniqueMultiMap<>(10);
+        qNames.add(new QNameAndInterval("read1", 3));
+        qNames.add(new QNameAndInterval("read1", 7));
+        qNames.add(new QNameAndInterval("read2", 5));
+
+        final GATKRead read1 = makeRead("read1", 151);
+        final GATKRead read2 = makeRead("read2", 151);
+        final GATKRead read3 = makeRead("read3", 151);
+        final List<SVKmer> read1Kmers = canonicalKmers(read1);
+        final Set<SVKmer> kmersToIgnore = new HopscotchSet<>(10);
+        kmersToIgnore.add(read1Kmers.get(0));
+        kmersToIgnore.add(read1Kmers.get(50));
+
+        final QNameKmerizer kmerizer =
+                new QNameKmerizer(qNames, kmersToIgnore, params.kSize, params.maxDUSTScore, new SVReadFilter(params));
+
+        final List<Tuple2<KmerAndInterval, Integer>> read1Result = toList(kmerizer.apply(read1));
+        final List<SVKmer> read1KeptKmers = read1Kmers.stream()
+                .filter(kmer -> !kmersToIgnore.contains(kmer)).collect(Collectors.toList());
+        Assert.assertEquals(read1Result.size(), 2 * read1KeptKmers.size());
+        final Set<Integer> intervalIds = read1Result.stream().map(tuple -> tuple._1().getIntervalId()).collect(Collectors.toSet());
+        Assert.assertEquals(intervalIds, new HashSet<>(Arrays.asList(3, 7)));
+        for ( final int intervalId : intervalIds ) {
+            Assert.assertEquals(read1Result.stream()
+                            .filter(tuple -> tuple._1().getIntervalId() == intervalId)
+                            .map(tuple -> new SVKmerLong(tuple._1().getKey()))
+                            .collect(Collectors.toList()),
+                    read1KeptKmers);
+        }
+        Assert.assertTrue(read1Result.stream().allMatch(tuple -> tuple._2() == 1));
+
+        final List<Tuple2<KmerAndInterval, Integer>> read2Result = toList(kmerizer.apply(read2));
+        Assert.assertEquals(read2Result.stream().map(tuple -> new SVKmerLong(tuple._1().getKey())).collect(Collectors.toList()),
+                canonicalKmers(read2));
+
+        Assert.assertFalse(kmerizer.apply(read3).hasNext());
+    }
+
+    private static GATKRead makeRead( final String name, final int length ) {
+        return ArtificialReadUtils.createArtificialRead(header, name, 0, 1,
+                ArtificialReadUtils.createRandomReadBases(length, false),
+                ArtificialReadUtils.createRandomReadQuals(length), length + "M");
+    }
+
+    private static List<SVKmer> canonicalKmers( final GATKRead read ) {
+        return SVDUSTFilteredKmerizer.canonicalStream(read.getBases(), params.kSize, params.maxDUSTScore, new SVKmerLong())
+                .collect(Collectors.toList());
+    }
+
+    private static <T> List<T> toList( final Iterator<T> itr ) {
+        final List<T> list = new ArrayList<>();
+        itr.forEachRemaining(list::add);
+        return list;
+    }
+}
@@ -14,10 +14,12 @@ import org.broadinstitute.hellbender.engine.spark.SparkContextFactory;
 import org.broadinstitute.hellbender.exceptions.GATKException;
 import org.broadinstitute.hellbender.tools.spark.sv.discovery.TestUtilsForAssemblyBasedSVDiscovery;
 import org.broadinstitute.hellbender.tools.spark.sv.utils.SVInterval;
+import org.broadinstitute.hellbender.tools.spark.sv.utils.SVIntervalTree;
 import org.broadinstitute.hellbender.tools.spark.sv.utils.StrandedInterval;
 import org.broadinstitute.hellbender.tools.spark.utils.IntHistogram;
 import org.broadinstitute.hellbender.utils.Utils;
 import org.testng.Assert;
+import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 import org.broadinstitute.hellbender.tools.spark.sv.StructuralVariationDiscoveryArgumentCollection.FindBreakpointEvidenceSparkArgumentCollection;
 
@@ -216,6 +218,132 @@ public class XGBoostEvidenceFilterUnitTest extends GATKBaseTest {
                 "Evidence passed by XGBoostEvidenceFilter not the same as expected");
     }
 
+    // one interval per evidence count, with the evidence at the given indices passing
+    private static SVIntervalTree<List<BreakpointEvidence>> makeEvidenceTree(final int[] evidenceCounts) {
+        final SVIntervalTree<List<BreakpointEvidence>> tree = new SVIntervalTree<>();
+        for ( int i = 0; i < evidenceCounts.length; ++i ) {
+            final SVInterval location = new SVInterval(1, 1000 * i, 1000 * i + 100);
+            final List<BreakpointEvidence> intervalEvidence = new ArrayList<>();
+            for ( int j = 0; j < evidenceCounts[i]; ++j ) {
+                intervalEvidence.add(new BreakpointEvidence(location, 1, false));
+            }
+            tree.put(location, intervalEvidence);
+        }
+        return tree;
+    }
+
+    @DataProvider(name = "intervalBlockScorerParams")
+    public Object[][] intervalBlockScorerParams() {
+        // block size, max pending intervals
+        return new Object[][] { {1, 1}, {3, 2}, {3, 5}, {8, 100}, {128, 512} };
+    }
+
+    @Test(groups = "sv", dataProvider = "intervalBlockScorerParams")
+    public void testIntervalBlockScorer(final int blockSize, final int maxPendingIntervals) {
+        // interval i has 1 + (i % 7) items of evidence; the ((i % 5) - 1)th item passes, if there is one, and intervals
+        // with i % 11 == 0 pass without scoring
+        final int nIntervals = 200;
+        final int[] evidenceCounts = new int[nIntervals];
+        for ( int i = 0; i < nIntervals; ++i ) {
+            evidenceCounts[i] = 1 + i % 7;
+        }
+        final SVIntervalTree<List<BreakpointEvidence>> tree = makeEvidenceTree(evidenceCounts);
+        final Set<BreakpointEvidence> passingEvidence = Collections.newSetFromMap(new IdentityHashMap<>());
+        final List<List<BreakpointEvidence>> expectedPassingIntervals = new ArrayList<>();
+        final List<BreakpointEvidence> expectedScoredEvidence = new ArrayList<>();
+        final Set<SVInterval> passWithoutScoring = new HashSet<>();
+        int i = 0;
+        for ( final SVIntervalTree.Entry<List<BreakpointEvidence>> entry : tree ) {
+            final List<BreakpointEvidence> intervalEvidence = entry.getValue();
+            final int passingIndex = i % 5 - 1;
+            final boolean hasPassingEvidence = passingIndex >= 0 && passingIndex < intervalEvidence.size();
+            if ( hasPassingEvidence ) {
+                passingEvidence.add(intervalEvidence.get(passingIndex));
+            }
+            if ( i % 11 == 0 ) {
+                passWithoutScoring.add(entry.getInterval());
+                expectedPassingIntervals.add(intervalEvidence);
+            } else {
+                // evidence is scored up to and including the first item that passes
+                expectedScoredEvidence.addAll(intervalEvidence.subList(0, hasPassingEvidence ? passingIndex + 1 : intervalEvidence.size()));
+                if ( hasPassingEvidence ) {
+                    expectedPassingIntervals.add(intervalEvidence);
+                }
+            }
+            ++i;
+        }
+
+        final BreakpointEvidence[] block = new BreakpointEvidence[blockSize];
+        final List<BreakpointEvidence> scoredEvidence = new ArrayList<>();
+        final XGBoostEvidenceFilter.IntervalBlockScorer scorer = new XGBoostEvidenceFilter.IntervalBlockScorer(
+                tree.iterator(),
+                entry -> passWithoutScoring.contains(entry.getInterval()),
+                (evidence, row) -> {
+                    Assert.assertNull(block[row], "row " + row + " filled twice");
+                    block[row] = evidence;
+                    scoredEvidence.add(evidence);
+                },
+                row -> {
+                    final BreakpointEvidence evidence = Utils.nonNull(block[row], "row " + row + " scored but not filled");
+                    block[row] = null;
+                    return passingEvidence.contains(evidence);
+                },
+                blockSize, maxPendingIntervals);
+
+        final List<List<BreakpointEvidence>> passingIntervals = new ArrayList<>();
+        List<BreakpointEvidence> intervalEvidence;
+        while ( (intervalEvidence = scorer.nextPassingInterval()) != null ) {
+            passingIntervals.add(intervalEvidence);
+            Assert.assertTrue(scorer.getNumPendingIntervals() <= maxPendingIntervals);
+        }
+
+        // intervals are flushed in order, once decided
+        Assert.assertEquals(passingIntervals.size(), expectedPassingIntervals.size());
+        for ( int idx = 0; idx != passingIntervals.size(); ++idx ) {
+            Assert.assertSame(passingIntervals.get(idx), expectedPassingIntervals.get(idx));
+        }
+        Assert.assertEquals(scorer.getNumPendingIntervals(), 0);
+        // no evidence is scored after an item of its interval passes
+        Assert.assertEquals(new HashSet<>(scoredEvidence), new HashSet<>(expectedScoredEvidence));
+        Assert.assertEquals(scoredEvidence.size(), expectedScoredEvidence.size());
+        // only the evidence of intervals that pass on their score is marked as validated
+        for ( final SVIntervalTree.Entry<List<BreakpointEvidence>> entry : tree ) {
+            final boolean validated = !passWithoutScoring.contains(entry.getInterval())
+                    && entry.getValue().stream().anyMatch(passingEvidence::contains);
+            entry.getValue().forEach(evidence -> Assert.assertEquals(evidence.isValidated(), validated));
+        }
+    }
+
+    @Test(groups = "sv")
+    public void testIntervalBlockScorerWaitsForUndecidedInterval() {
+        // the first interval is only decided once its last item has been scored, so the others must wait for it
+        final int[] evidenceCounts = {50, 1, 1, 1, 1, 1, 1, 1, 1, 1};
+        final SVIntervalTree<List<BreakpointEvidence>> tree = makeEvidenceTree(evidenceCounts);
+        final List<BreakpointEvidence> firstInterval = tree.iterator().next().getValue();
+        final BreakpointEvidence lastOfFirst = firstInterval.get(firstInterval.size() - 1);
+        final BreakpointEvidence[] block = new BreakpointEvidence[4];
+        final int[] nBlocksScored = {0};
+        final XGBoostEvidenceFilter.IntervalBlockScorer scorer = new XGBoostEvidenceFilter.IntervalBlockScorer(
+                tree.iterator(),
+                entry -> false,
+                (evidence, row) -> block[row] = evidence,
+                row -> {
+                    if ( row == 0 ) ++nBlocksScored[0];
+                    return block[row] == lastOfFirst || block[row].getLocation().getStart() > 0;
+                },
+                block.length, 3);
+
+        Assert.assertSame(scorer.nextPassingInterval(), firstInterval);
+        // one item of the first interval per block
+        Assert.assertEquals(nBlocksScored[0], firstInterval.size());
+        Assert.assertEquals(scorer.getNumPendingIntervals(), 2);
+        int nPassed = 1;
+        while ( scorer.nextPassingInterval() != null ) {
+            ++nPassed;
+        }
+        Assert.assertEquals(nPassed, evidenceCounts.length);
+    }
+
     private static void assertArrayEquals(final double[] actuals, final double[] expecteds, final double tol,
                                           final String message) {
         Assert.assertEquals(actuals.length, expecteds.length, "Lengths not equal: " + message);
@@ -0,0 +1,91 @@
+package org.broadinstitute.hellbender.tools.spark.sv.utils;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+public class SVIntervalIndexUnitTest extends GATKBaseTest {
+
+    @DataProvider(name = "trees")
+    public Object[][] getTrees() {
+        final Random random = new Random(47L);
+        final List<Object[]> trees = new ArrayList<>();
+        for ( final int nIntervals : new int[]{0, 1, 2, 3, 7, 15, 16, 17, 100, 1000, 5000} ) {
+            final SVIntervalTree<Integer> tree = new SVIntervalTree<>();
+            while ( tree.size() < nIntervals ) {
+                final int contig = random.nextInt(3);
+                final int start = random.nextInt(100000);
+                // mostly short intervals, with the odd long one
+                final int length = random.nextInt(20) == 0 ? random.nextInt(20000) : 1 + random.nextInt(500);
+                tree.put(new SVInterval(contig, start, start + length), tree.size());
+            }
+            trees.add(new Object[]{tree});
+        }
+        return trees.toArray(new Object[trees.size()][]);
+    }
+
+    @Test(dataProvider = "trees", groups = "sv")
+    public void testIterationAndOverlappers( final SVIntervalTree<Integer> tree ) {
+        final SVIntervalIndex<Integer> index = new SVIntervalIndex<>(tree);
+        Assert.assertEquals(index.size(), tree.size());
+        assertSameEntries(index.iterator(), tree.iterator());
+        for ( int idx = 0; idx != tree.size(); ++idx ) {
+            Assert.assertEquals(index.getEntry(idx).getInterval(), tree.findByIndex(idx).getInterval());
+        }
+
+        final Random random = new Random(11L);
+        for ( int probeNo = 0; probeNo != 2000; ++probeNo ) {
+            final int start = random.nextInt(110000);
+            final SVInterval probe = new SVInterval(random.nextInt(4), start, start + random.nextInt(2000));
+            Assert.assertEquals(index.hasOverlapper(probe), tree.hasOverlapper(probe), probe.toString());
+            assertSameEntries(index.overlappers(probe), tree.overlappers(probe));
+        }
+    }
+
+    @Test(dataProvider = "trees", groups = "sv")
+    public void testSerialization( final SVIntervalTree<Integer> tree ) {
+        final SVIntervalIndex<Integer> index = new SVIntervalIndex<>(tree);
+        final Kryo kryo = new Kryo();
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final Output output = new Output(bytes);
+        kryo.writeClassAndObject(output, index);
+        output.close();
+
+        final Input input = new Input(new ByteArrayInputStream(bytes.toByteArray()));
+        @SuppressWarnings("unchecked")
+        final SVIntervalIndex<Integer> index2 = (SVIntervalIndex<Integer>)kryo.readClassAndObject(input);
+        assertSameEntries(index2.iterator(), tree.iterator());
+        final SVInterval probe = new SVInterval(1, 40000, 42000);
+        assertSameEntries(index2.overlappers(probe), tree.overlappers(probe));
+    }
+
+    @Test(expectedExceptions = UnsupportedOperationException.class, groups = "sv")
+    public void testImmutable() {
+        final SVIntervalTree<Integer> tree = new SVIntervalTree<>();
+        tree.put(new SVInterval(0, 100, 200), 0);
+        new SVIntervalIndex<>(tree).iterator().next().setValue(1);
+    }
+
+    private static void assertSameEntries( final Iterator<SVIntervalTree.Entry<Integer>> actual,
+                                           final Iterator<SVIntervalTree.Entry<Integer>> expected ) {
+        while ( expected.hasNext() ) {
+            Assert.assertTrue(actual.hasNext());
+            final SVIntervalTree.Entry<Integer> expectedEntry = expected.next();
+            final SVIntervalTree.Entry<Integer> actualEntry = actual.next();
+            Assert.assertEquals(actualEntry.getInterval(), expectedEntry.getInterval());
+            Assert.assertEquals(actualEntry.getValue(), expectedEntry.getValue());
+        }
+        Assert.assertFalse(actual.hasNext());
+    }
+}
@@ -0,0 +1,96 @@
+package org.broadinstitute.hellbender.tools.spark.sv.utils;
+
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.broadinstitute.hellbender.tools.spark.sv.StructuralVariationDiscoveryArgumentCollection.FindBreakpointEvidenceSparkArgumentCollection.KMER_SIZE;
+import static org.broadinstitute.hellbender.tools.spark.sv.StructuralVariationDiscoveryArgumentCollection.FindBreakpointEvidenceSparkArgumentCollection.MAX_DUST_SCORE;
+
+public class SVPackedKmerizerUnitTest extends GATKBaseTest {
+
+    @DataProvider(name = "sequences")
+    public Object[][] getSequences() {
+        final Random random = new Random(47L);
+        final List<Object[]> sequences = new ArrayList<>();
+        sequences.add(new Object[]{"".getBytes(), 11});
+        sequences.add(new Object[]{"ACGTACGTAC".getBytes(), 11});
+        sequences.add(new Object[]{"ACGTACGTACG".getBytes(), 11});
+        sequences.add(new Object[]{"acgtNacgtacgtacgtTTTTTGGGGGCCCCC".getBytes(), 11});
+        sequences.add(new Object[]{"AAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAA".getBytes(), KMER_SIZE});
+        for ( final int kSize : new int[]{7, 31, 33, KMER_SIZE, 63} ) {
+            for ( int seqNo = 0; seqNo != 10; ++seqNo ) {
+                final byte[] seq = new byte[50 + random.nextInt(200)];
+                for ( int idx = 0; idx != seq.length; ++idx ) {
+                    // mostly low-complexity runs from a small alphabet, with the odd N
+                    final int roll = random.nextInt(100);
+                    seq[idx] = roll == 0 ? (byte)'N' : (byte)"ACGTAAC".charAt(roll % (seqNo % 2 == 0 ? 4 : 7));
+                }
+                sequences.add(new Object[]{seq, kSize});
+            }
+        }
+        return sequences.toArray(new Object[sequences.size()][]);
+    }
+
+    @Test(dataProvider = "sequences", groups = "sv")
+    public void testKmerize( final byte[] seq, final int kSize ) {
+        final List<SVKmer> expected = SVKmerizer.canonicalStream(seq, kSize, new SVKmerLong()).collect(Collectors.toList());
+        final SVPackedKmerizer kmerizer = new SVPackedKmerizer(kSize);
+        Assert.assertEquals(kmerizer.kmerize(seq), expected.size());
+        Assert.assertEquals(getKmers(kmerizer), expected);
+    }
+
+    @Test(dataProvider = "sequences", groups = "sv")
+    public void testDUSTFilteredKmerize( final byte[] seq, final int kSize ) {
+        for ( final int maxDUSTScore : new int[]{0, kSize / 2, MAX_DUST_SCORE} ) {
+            final List<SVKmer> expected =
+                    SVDUSTFilteredKmerizer.canonicalStream(seq, kSize, maxDUSTScore, new SVKmerLong()).collect(Collectors.toList());
+            final SVPackedKmerizer kmerizer = new SVPackedKmerizer(kSize, maxDUSTScore);
+            Assert.assertEquals(kmerizer.kmerize(seq), expected.size());
+            Assert.assertEquals(getKmers(kmerizer), expected);
+        }
+    }
+
+    @Test(groups = "sv")
+    public void testReuseAndFingerprints() {
+        final SVPackedKmerizer kmerizer = new SVPackedKmerizer(KMER_SIZE);
+        final byte[] longSeq = "ACGTTGCAACGTTGCAGGCATTACAGGACCATTAGACATTTACAGGAGGACCAGATTACAGTTACAGATTAAACAGGATAC".getBytes();
+        final byte[] shortSeq = "TTGCAACGTTGCAGGCATTACAGGACCATTAGACATTTACAGGAGGACCAGATTACA".getBytes();
+        kmerizer.kmerize(longSeq);
+        final int nKmers = kmerizer.kmerize(shortSeq);
+        final List<SVKmer> expected = SVKmerizer.canonicalStream(shortSeq, KMER_SIZE, new SVKmerLong()).collect(Collectors.toList());
+        Assert.assertEquals(nKmers, expected.size());
+        Assert.assertEquals(getKmers(kmerizer), expected);
+        for ( int idx = 0; idx != nKmers; ++idx ) {
+            final long fingerprint = kmerizer.getFingerprint(idx);
+            Assert.assertTrue(fingerprint >= 0L);
+            Assert.assertEquals(fingerprint, ((SVKmerLong)expected.get(idx)).fingerprint());
+            Assert.assertEquals((int)fingerprint, expected.get(idx).hashCode());
+        }
+    }
+
+    @Test(expectedExceptions = IndexOutOfBoundsException.class, groups = "sv")
+    public void testIndexOutOfBounds() {
+        final SVPackedKmerizer kmerizer = new SVPackedKmerizer(11);
+        kmerizer.getKmer(kmerizer.kmerize("ACGTACGTACGTA".getBytes()));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class, groups = "sv")
+    public void testEvenK() {
+        new SVPackedKmerizer(KMER_SIZE + 1);
+    }
+
+    private static List<SVKmer> getKmers( final SVPackedKmerizer kmerizer ) {
+        final List<SVKmer> kmers = new ArrayList<>(kmerizer.size());
+        for ( int idx = 0; idx != kmerizer.size(); ++idx ) {
+            kmers.add(kmerizer.getKmer(idx));
+        }
+        return kmers;
+    }
+}
@@ -36,6 +36,7 @@ import org.testng.annotations.Test;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.*;
 import java.util.stream.Collectors;
@@ -632,6 +633,53 @@ public class HaplotypeCallerIntegrationTest extends CommandLineProgramTest {
         Assert.assertEquals(calculateConcordance(output, expected), 1.0);
     }
 
+    @DataProvider(name = "MaxPairHMMCellsPerRegionData")
+    public Object[][] makeMaxPairHMMCellsPerRegionData() {
+        return new Object[][] {
+                // too many cells to ever downsample, so the calls must be the same as without a limit
+                {Long.MAX_VALUE, false},
+                // the region with the variant is downsampled from 50 to about 40 reads, which still leave plenty to call it
+                {50000L, true}
+        };
+    }
+
+    @Test(dataProvider = "MaxPairHMMCellsPerRegionData")
+    public void testMaxPairHMMCellsPerRegion(final long maxPairHMMCellsPerRegion, final boolean expectDownsampling) throws Exception {
+        final File testCaseFilesDir = new File(TEST_FILES_DIR, "issue3845_revertSoftClip_bug");
+        final File output = createTempFile("testMaxPairHMMCellsPerRegion", ".vcf");
+        final File metricsOutput = createTempFile("testMaxPairHMMCellsPerRegion", ".tsv");
+        final File expected = new File(testCaseFilesDir, "expected_testCompletelyClippedReadNearStartOfContig_revertSoftClipped_gatk4.vcf");
+
+        final String[] args = {
+                "-I", new File(testCaseFilesDir, "issue3845_bug.bam").getAbsolutePath(),
+                "-R", new File(publicTestDir, "Homo_sapiens_assembly38_chrM_only.fasta").getAbsolutePath(),
+                "-L", "chrM",
+                "-O", output.getAbsolutePath(),
+                "--" + HaplotypeCallerArgumentCollection.MAX_PAIR_HMM_CELLS_PER_REGION_LONG_NAME, Long.toString(maxPairHMMCellsPerRegion),
+                "--" + StandardArgumentDefinitions.RUNTIME_METRICS_OUTPUT_LONG_NAME, metricsOutput.getAbsolutePath()
+        };
+        // the reads to keep are chosen at random
+        Utils.resetRandomGenerator();
+        runCommandLine(args);
+
+        final boolean downsampled = Files.readAllLines(metricsOutput.toPath()).stream()
+                .anyMatch(line -> line.startsWith("HaplotypeCallerEngine.readsDownsampledForPairHMM\t"));
+        Assert.assertEquals(downsampled, expectDownsampling);
+
+        // the one variant of this data is called either way, at the same site and with the same genotype, but from
+        // fewer reads when they are downsampled
+        Assert.assertEquals(calculateConcordance(output, expected), 1.0);
+        final int expectedDepth = VariantContextTestUtils.streamVcf(expected).findFirst().get().getGenotype(0).getDP();
+        final List<VariantContext> calls = VariantContextTestUtils.streamVcf(output).collect(Collectors.toList());
+        Assert.assertEquals(calls.size(), 1);
+        final int depth = calls.get(0).getGenotype(0).getDP();
+        if ( expectDownsampling ) {
+            Assert.assertTrue(depth > 0 && depth < expectedDepth, "depth " + depth + " after downsampling the " + expectedDepth + " reads");
+        } else {
+            Assert.assertEquals(depth, expectedDepth);
+        }
+    }
+
     @Test
     public void testAssemblyRegionAndActivityProfileOutput() throws Exception {
         final File output = createTempFile("testAssemblyRegionAndActivityProfileOutput", ".vcf");
@@ -158,6 +158,77 @@ public final class KBestHaplotypeFinderUnitTest extends GATKBaseTest {
         IntStream.range(1, haplotypes.size()).forEach(n -> Assert.assertTrue(haplotypes.get(n-1).score() >= haplotypes.get(n).score()));
     }
 
+    // the search over paths as objects, with a PriorityQueue, that findBestHaplotypes must reproduce exactly (the graph must be acyclic)
+    private static List<KBestHaplotype> findBestHaplotypesWithPathObjects(final SeqGraph graph, final KBestHaplotypeFinder finder, final int maxNumberOfHaplotypes) {
+        final List<KBestHaplotype> result = new ArrayList<>();
+        final PriorityQueue<KBestHaplotype> queue = new PriorityQueue<>(Comparator.comparingDouble(KBestHaplotype::score).reversed());
+        finder.sources.forEach(source -> queue.add(new KBestHaplotype(source, graph)));
+        final Map<SeqVertex, Integer> vertexCounts = new HashMap<>();
+        while (!queue.isEmpty() && result.size() < maxNumberOfHaplotypes) {
+            final KBestHaplotype pathToExtend = queue.poll();
+            final SeqVertex vertexToExtend = pathToExtend.getLastVertex();
+            if (finder.sinks.contains(vertexToExtend)) {
+                result.add(pathToExtend);
+            } else {
+                final Set<BaseEdge> outgoingEdges = graph.outgoingEdgesOf(vertexToExtend);
+                final int totalOutgoingMultiplicity = outgoingEdges.stream().mapToInt(BaseEdge::getMultiplicity).sum();
+                for (final BaseEdge edge : outgoingEdges) {
+                    final SeqVertex targetVertex = graph.getEdgeTarget(edge);
+                    final int count = vertexCounts.getOrDefault(targetVertex, 0);
+                    vertexCounts.put(targetVertex, count + 1);
+                    if (count < maxNumberOfHaplotypes) {
+                        queue.add(new KBestHaplotype(pathToExtend, edge, totalOutgoingMultiplicity));
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    @DataProvider(name = "RandomGraphData")
+    public Object[][] makeRandomGraphData() {
+        final List<Object[]> tests = new ArrayList<>();
+        for ( final int seed : Arrays.asList(1, 2, 3, 4, 5, 6, 7, 8) ) {
+            for ( final int maxNumberOfHaplotypes : Arrays.asList(1, 5, 128) ) {
+                tests.add(new Object[]{seed, maxNumberOfHaplotypes});
+            }
+        }
+        return tests.toArray(new Object[][]{});
+    }
+
+    @Test(dataProvider = "RandomGraphData")
+    public void testSameHaplotypesAsPathObjectSearch(final int seed, final int maxNumberOfHaplotypes) {
+        final Random random = new Random(seed);
+        final SeqGraph graph = new SeqGraph(11);
+        final List<SeqVertex> vertices = new ArrayList<>();
+        final int numVertices = 12 + random.nextInt(12);
+        for ( int i = 0; i < numVertices; i++ ) {
+            final SeqVertex v = new SeqVertex(Strings.repeat("ACGT".substring(i % 4, i % 4 + 1), 1 + random.nextInt(3)));
+            graph.addVertex(v);
+            vertices.add(v);
+        }
+        // edges only go forward, so the graph is acyclic; small multiplicities make for many paths with tied scores
+        for ( int i = 0; i < numVertices - 1; i++ ) {
+            graph.addEdge(vertices.get(i), vertices.get(i + 1), new BaseEdge(false, 1 + random.nextInt(3)));
+            for ( int j = i + 2; j < numVertices; j++ ) {
+                if ( random.nextInt(4) == 0 ) {
+                    graph.addEdge(vertices.get(i), vertices.get(j), new BaseEdge(false, 1 + random.nextInt(3)));
+                }
+            }
+        }
+
+        final KBestHaplotypeFinder finder = new KBestHaplotypeFinder(graph);
+        final List<KBestHaplotype> expected = findBestHaplotypesWithPathObjects(graph, finder, maxNumberOfHaplotypes);
+        final List<KBestHaplotype> actual = finder.findBestHaplotypes(maxNumberOfHaplotypes);
+        Assert.assertEquals(actual.size(), expected.size());
+        for ( int n = 0; n < expected.size(); n++ ) {
+            Assert.assertEquals(actual.get(n).getEdges(), expected.get(n).getEdges());
+            Assert.assertEquals(actual.get(n).getVertices(), expected.get(n).getVertices());
+            Assert.assertEquals(actual.get(n).score(), expected.get(n).score());
+            Assert.assertEquals(actual.get(n).isReference(), expected.get(n).isReference());
+        }
+    }
+
 
     @DataProvider(name = "BasicBubbleDataProvider")
     public Object[][] makeBasicBubbleDataProvider() {
@@ -182,6 +182,53 @@ public final class ReadThreadingAssemblerUnitTest extends GATKBaseTest {
         return assemblyResultSet.getHaplotypeList();
     }
 
+    @Test
+    public void testReuseReadKmersAcrossRegions() {
+        final String contig = "1";
+        final int start = 100000;
+        final int windowSize = 200;
+        final int stepSize = 50;
+        final int readLength = 80;
+        final byte[] refBases = seq.getSubsequenceAt(contig, start, start + 1000).getBases();
+        // add short tandem repeats, so that the reads overlapping them have non-unique kmers
+        for ( int i = 0; i < refBases.length; i++ ) {
+            if ( i % 100 >= 20 && i % 100 < 50 ) {
+                refBases[i] = (byte) "AC".charAt(i % 2);
+            }
+        }
+        // put a SNP every 120 bases, so that most windows assemble some variation
+        final byte[] altBases = refBases.clone();
+        for ( int i = 60; i < altBases.length; i += 120 ) {
+            altBases[i] = altBases[i] == 'A' ? (byte)'C' : (byte)'A';
+        }
+
+        final ReadThreadingAssembler reusingAssembler = new ReadThreadingAssembler();
+        reusingAssembler.setReuseReadKmersAcrossRegions(true);
+        final NonUniqueKmerCache cache = reusingAssembler.getNonUniqueKmerCache();
+        Assert.assertNotNull(cache);
+        int maxCacheSize = 0;
+        for ( int windowStart = 0; windowStart + windowSize <= refBases.length; windowStart += stepSize ) {
+            final SimpleInterval loc = new SimpleInterval(contig, start + windowStart, start + windowStart + windowSize - 1);
+            final byte[] windowRefBases = Arrays.copyOfRange(refBases, windowStart, windowStart + windowSize);
+            final List<GATKRead> reads = new ArrayList<>();
+            for ( int readStart = windowStart; readStart + readLength <= windowStart + windowSize; readStart += 5 ) {
+                final byte[] bases = Arrays.copyOfRange(readStart % 2 == 0 ? altBases : refBases, readStart, readStart + readLength);
+                reads.add(ArtificialReadUtils.createArtificialRead(header, "read" + readStart, contig, start + readStart,
+                        bases, Utils.dupBytes((byte) 30, readLength), readLength + "M"));
+            }
+
+            final List<Haplotype> expected = assemble(new ReadThreadingAssembler(), windowRefBases, loc, reads);
+            final List<Haplotype> actual = assemble(reusingAssembler, windowRefBases, loc, reads);
+            Assert.assertEquals(actual, expected, "different haplotypes for " + loc);
+            maxCacheSize = Math.max(maxCacheSize, cache.size());
+        }
+
+        Assert.assertTrue(cache.getHits() > 0, "hits: " + cache.getHits() + " misses: " + cache.getMisses());
+        // only the reads of the last two windows are kept (plus the reference of each)
+        final int readsPerWindow = (windowSize - readLength) / 5 + 1;
+        Assert.assertTrue(maxCacheSize <= 2 * (readsPerWindow + 1), "cache size: " + maxCacheSize);
+    }
+
     @DataProvider(name = "SimpleAssemblyTestData")
     public Object[][] makeSimpleAssemblyTestData() {
         List<Object[]> tests = new ArrayList<>();
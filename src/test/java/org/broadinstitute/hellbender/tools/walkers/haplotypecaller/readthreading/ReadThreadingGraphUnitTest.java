@@ -526,4 +526,41 @@ public final class ReadThreadingGraphUnitTest extends GATKBaseTest {
 
         return tests.toArray(new Object[][]{});
     }
+
+    @Test
+    public void testRepeatLengthUpperBound() {
+        final Random random = new Random(13);
+        final int[] kmerSizes = {5, 10, 25, 40};
+        for ( int trial = 0; trial < 500; trial++ ) {
+            // random sequences, some with a repeat unit or an N
+            final StringBuilder builder = new StringBuilder();
+            final int length = random.nextInt(200);
+            final String unit = trial % 3 == 0 ? "ACGTTGCATG".substring(0, 1 + random.nextInt(10)) : null;
+            for ( int i = 0; i < length; i++ ) {
+                builder.append(unit != null && i > length / 3 && i < 2 * length / 3 ? unit.charAt(i % unit.length()) : "ACGT".charAt(random.nextInt(4)));
+            }
+            if ( trial % 50 == 0 && length > 0 ) {
+                builder.setCharAt(random.nextInt(length), 'N');
+            }
+            final byte[] bases = builder.toString().getBytes();
+
+            final int bound = ReadThreadingGraph.repeatLengthUpperBound(bases, bases.length, kmerSizes);
+            for ( int kmerSize = 1; kmerSize <= 50; kmerSize++ ) {
+                final ReadThreadingGraph.SequenceForKmers sequence = new ReadThreadingGraph.SequenceForKmers("seq", bases, 0, bases.length, 1, false);
+                if ( kmerSize > bound ) {
+                    Assert.assertTrue(ReadThreadingGraph.determineNonUniqueKmers(sequence, kmerSize).isEmpty(), builder + " " + kmerSize);
+                }
+            }
+            if ( bound == ReadThreadingGraph.SequenceForKmers.UNKNOWN_REPEAT_LENGTH && builder.indexOf("N") == -1 ) {
+                // every encodable size must have non-unique kmers
+                for ( final int kmerSize : new int[]{5, 10, 25} ) {
+                    Assert.assertFalse(ReadThreadingGraph.determineNonUniqueKmers(new ReadThreadingGraph.SequenceForKmers("seq", bases, 0, bases.length, 1, false), kmerSize).isEmpty(), builder.toString());
+                }
+            }
+        }
+        // the bound is the first size with unique kmers, minus one
+        Assert.assertEquals(ReadThreadingGraph.repeatLengthUpperBound("ACGTACGAAC".getBytes(), 10, new int[]{3, 4, 6}), 3);
+        Assert.assertEquals(ReadThreadingGraph.repeatLengthUpperBound("ACGTACGTAC".getBytes(), 10, new int[]{3, 4, 6}), ReadThreadingGraph.SequenceForKmers.UNKNOWN_REPEAT_LENGTH);
+        Assert.assertEquals(ReadThreadingGraph.repeatLengthUpperBound("ACGTACGAAC".getBytes(), 5, new int[]{6}), 5);
+    }
 }
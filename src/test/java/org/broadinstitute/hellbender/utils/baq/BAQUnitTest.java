@@ -10,6 +10,7 @@ import java.nio.file.Path;
 import org.broadinstitute.hellbender.engine.ReferenceDataSource;
 import org.broadinstitute.hellbender.engine.ReferenceFileSource;
 import org.broadinstitute.hellbender.engine.ReferenceMemorySource;
+import org.broadinstitute.hellbender.engine.ReadsDataSource;
 import org.broadinstitute.hellbender.utils.SimpleInterval;
 import org.broadinstitute.hellbender.utils.io.IOUtils;
 import org.broadinstitute.hellbender.utils.read.ArtificialReadUtils;
@@ -23,7 +24,9 @@ import org.testng.annotations.Test;
 import java.io.File;
 import java.io.PrintStream;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 public final class BAQUnitTest extends GATKBaseTest {
 
@@ -194,6 +197,46 @@ public final class BAQUnitTest extends GATKBaseTest {
         Assert.assertFalse(read.hasAttribute("BQ"));
     }
 
+    /**
+     * BAQ reuses its matrices between reads, so check that the results for each read of a BAM don't depend on which reads
+     * were BAQed before it, in the same thread or in another one
+     */
+    @Test
+    public void testBAQIndependentOfReadOrder() throws Exception {
+        final Path reference = IOUtils.getPath(publicTestDir + "human_g1k_v37.chr17_1Mb.fasta");
+        final Path bam = IOUtils.getPath(toolsTestDir + "BQSR/NA12878.chr17_69k_70k.dictFix.bam");
+        final List<GATKRead> reads = new ArrayList<>();
+        try ( final ReadsDataSource readsSource = new ReadsDataSource(bam) ) {
+            for ( final GATKRead read : readsSource ) {
+                reads.add(read);
+            }
+        }
+        Assert.assertFalse(reads.isEmpty());
+
+        try ( final ReferenceDataSource rds = new ReferenceFileSource(reference) ) {
+            final BAQ baq = new BAQ(1.0e-3, 0.1, 7, (byte) 4);
+            final List<byte[]> forward = calcBAQs(baq, reads, rds);
+            final List<GATKRead> reversedReads = new ArrayList<>(reads);
+            Collections.reverse(reversedReads);
+            final List<byte[]> reversed = calcBAQs(baq, reversedReads, rds);
+            Collections.reverse(reversed);
+            final List<byte[]> otherThread = CompletableFuture.supplyAsync(() -> calcBAQs(baq, reads, rds)).get();
+            for ( int i = 0; i < reads.size(); i++ ) {
+                Assert.assertEquals(reversed.get(i), forward.get(i), reads.get(i).getName());
+                Assert.assertEquals(otherThread.get(i), forward.get(i), reads.get(i).getName());
+            }
+        }
+    }
+
+    private static List<byte[]> calcBAQs(final BAQ baq, final List<GATKRead> reads, final ReferenceDataSource rds) {
+        final List<byte[]> results = new ArrayList<>(reads.size());
+        for ( final GATKRead read : reads ) {
+            final BAQ.BAQCalculationResult result = baq.excludeReadFromBAQ(read) ? null : baq.calcBAQFromHMM(read, rds);
+            results.add(result == null ? null : result.bq);
+        }
+        return results;
+    }
+
     private void testBAQ(BAQTest test, boolean lookupWithFasta, ReferenceDataSource rds) {
         final int bandWidth = 7;
         final BAQ baqHMM = new BAQ(1.0e-3, 0.1, bandWidth, (byte) 4);         // matches current samtools parameters
@@ -0,0 +1,80 @@
+package org.broadinstitute.hellbender.utils.bwa;
+
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+public class BwaMemIndexCacheUnitTest extends GATKBaseTest {
+    private static final String IMAGE = toolsTestDir + "spark/bwa/BwaSpark/ref.fa.img";
+
+    @Test
+    public void testNodeLocalImage() throws IOException {
+        // two executors with their own copies of the same image
+        final Path copy1 = Files.copy(new File(IMAGE).toPath(), createTempDir("executor1").toPath().resolve("ref.fa.img"));
+        final Path copy2 = Files.copy(new File(IMAGE).toPath(), createTempDir("executor2").toPath().resolve("ref.fa.img"));
+        final String sharedDirectory = new File(createTempDir("shared"), "bwa").getAbsolutePath();
+
+        final String sharedImage1 = BwaMemIndexCache.getNodeLocalImage(copy1.toString(), sharedDirectory);
+        final String sharedImage2 = BwaMemIndexCache.getNodeLocalImage(copy2.toString(), sharedDirectory);
+        Assert.assertEquals(sharedImage2, sharedImage1);
+        Assert.assertTrue(new File(sharedImage1).getParentFile().equals(new File(sharedDirectory)));
+        Assert.assertEquals(Files.readAllBytes(new File(sharedImage1).toPath()), Files.readAllBytes(copy1));
+        Assert.assertEquals(new File(sharedDirectory).list().length, 1);
+
+        // a different image with the same name and size is not confused with it
+        final Path other = Files.copy(new File(IMAGE).toPath(), createTempDir("executor3").toPath().resolve("ref.fa.img"), StandardCopyOption.REPLACE_EXISTING);
+        final byte[] bytes = Files.readAllBytes(other);
+        bytes[0] ^= 1;
+        Files.write(other, bytes, StandardOpenOption.TRUNCATE_EXISTING);
+        Assert.assertNotEquals(BwaMemIndexCache.getNodeLocalImage(other.toString(), sharedDirectory), sharedImage1);
+    }
+
+    @Test
+    public void testAcquireAndRelease() throws IOException {
+        final String image = Files.copy(new File(IMAGE).toPath(), createTempDir("acquire").toPath().resolve("ref.fa.img")).toString();
+        final BwaMemIndex index = BwaMemIndexCache.acquireInstance(image);
+        Assert.assertSame(BwaMemIndexCache.acquireInstance(image), index);
+        Assert.assertEquals(BwaMemIndexCache.getReferenceCount(image), 2);
+
+        // closing an instance in use is deferred until its last release
+        BwaMemIndexCache.closeInstance(image);
+        Assert.assertTrue(index.isOpen());
+        BwaMemIndexCache.releaseInstance(image);
+        Assert.assertTrue(index.isOpen());
+        BwaMemIndexCache.releaseInstance(image);
+        Assert.assertFalse(index.isOpen());
+        Assert.assertEquals(BwaMemIndexCache.getReferenceCount(image), 0);
+
+        // an instance that is not in use remains cached after its release
+        final BwaMemIndex reopenedIndex = BwaMemIndexCache.acquireInstance(image);
+        Assert.assertNotSame(reopenedIndex, index);
+        BwaMemIndexCache.releaseInstance(image);
+        Assert.assertSame(BwaMemIndexCache.getInstance(image), reopenedIndex);
+        BwaMemIndexCache.closeInstance(image);
+        Assert.assertFalse(reopenedIndex.isOpen());
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testReleaseWithoutAcquire() {
+        BwaMemIndexCache.releaseInstance(IMAGE + ".notAcquired");
+    }
+
+    @Test
+    public void testWarmUp() throws IOException {
+        final String image = Files.copy(new File(IMAGE).toPath(), createTempDir("warmUp").toPath().resolve("ref.fa.img")).toString();
+        BwaMemIndexCache.warmUp(image);
+        final BwaMemIndex index = BwaMemIndexCache.getInstance(image);
+        Assert.assertTrue(index.isOpen());
+        BwaMemIndexCache.warmUp(image);
+        Assert.assertSame(BwaMemIndexCache.getInstance(image), index);
+        BwaMemIndexCache.closeInstance(image);
+        Assert.assertFalse(index.isOpen());
+    }
+}
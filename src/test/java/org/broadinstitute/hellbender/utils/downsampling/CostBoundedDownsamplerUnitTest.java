@@ -0,0 +1,149 @@
+package org.broadinstitute.hellbender.utils.downsampling;
+
+import htsjdk.samtools.SAMFileHeader;
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.read.ArtificialReadUtils;
+import org.broadinstitute.hellbender.utils.read.GATKRead;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+public final class CostBoundedDownsamplerUnitTest extends GATKBaseTest {
+
+    private static final int READ_LENGTH = 100;
+
+    private final SAMFileHeader header = ArtificialReadUtils.createArtificialSamHeader(1, 1, 1000000);
+
+    // reads of READ_LENGTH bases starting at each of the given positions, the given number of times on each strand
+    private List<GATKRead> createReads( final int[] starts, final int[] forwardReadsPerStart, final int[] reverseReadsPerStart ) {
+        final List<GATKRead> reads = new ArrayList<>();
+        for ( int i = 0; i < starts.length; i++ ) {
+            reads.addAll(ArtificialReadUtils.createIdenticalArtificialReads(forwardReadsPerStart[i], header, "forward" + i, 0, starts[i], READ_LENGTH));
+            for ( final GATKRead read : ArtificialReadUtils.createIdenticalArtificialReads(reverseReadsPerStart[i], header, "reverse" + i, 0, starts[i], READ_LENGTH) ) {
+                read.setIsReverseStrand(true);
+                reads.add(read);
+            }
+        }
+        return reads;
+    }
+
+    private static List<GATKRead> downsample( final ReadsDownsampler downsampler, final List<GATKRead> reads ) {
+        downsampler.submit(reads);
+        Assert.assertFalse(downsampler.hasFinalizedItems());
+        Assert.assertEquals(downsampler.hasPendingItems(), ! reads.isEmpty());
+        downsampler.signalEndOfInput();
+        Assert.assertFalse(downsampler.hasPendingItems());
+        return downsampler.consumeFinalizedItems();
+    }
+
+    @DataProvider(name = "NoDownsamplingData")
+    public Object[][] makeNoDownsamplingData() {
+        return new Object[][] {
+                {0, 0},
+                {1, READ_LENGTH},
+                {10, 10 * READ_LENGTH},
+                {10, 100 * READ_LENGTH}
+        };
+    }
+
+    @Test(dataProvider = "NoDownsamplingData")
+    public void testNoDownsamplingWithinBudget( final int numReads, final long maxReadBases ) {
+        final List<GATKRead> reads = createReads(new int[]{1}, new int[]{numReads}, new int[]{0});
+        final CostBoundedDownsampler downsampler = new CostBoundedDownsampler(maxReadBases, 1);
+        final List<GATKRead> downsampledReads = downsample(downsampler, reads);
+        Assert.assertEquals(downsampledReads, reads);
+        Assert.assertEquals(downsampler.getNumberOfDiscardedItems(), 0);
+    }
+
+    @Test
+    public void testDeepestStrataAreDownsampledFirst() {
+        Utils.resetRandomGenerator();
+        final int[] starts = {1, 5, 10, 20};
+        final List<GATKRead> reads = createReads(starts, new int[]{500, 2, 1, 300}, new int[]{400, 3, 0, 1});
+        final long maxReadBases = 100 * READ_LENGTH;
+        final CostBoundedDownsampler downsampler = new CostBoundedDownsampler(maxReadBases, 1);
+        final List<GATKRead> downsampledReads = downsample(downsampler, reads);
+
+        // the strata with fewer reads than the cap are untouched, and the others are all reduced to the cap, which is
+        // the largest that fits: (2 + 1 + 3 + 1) + 3 * 31 = 100 reads
+        Assert.assertEquals(downsampledReads.size(), 100);
+        Assert.assertEquals(downsampler.getNumberOfDiscardedItems(), reads.size() - 100);
+        final Map<String, Long> readsPerStratum = downsampledReads.stream()
+                .collect(Collectors.groupingBy(read -> read.getStart() + (read.isReverseStrand() ? "-" : "+"), Collectors.counting()));
+        Assert.assertEquals(readsPerStratum.get("1+").longValue(), 31);
+        Assert.assertEquals(readsPerStratum.get("1-").longValue(), 31);
+        Assert.assertEquals(readsPerStratum.get("20+").longValue(), 31);
+        Assert.assertEquals(readsPerStratum.get("5+").longValue(), 2);
+        Assert.assertEquals(readsPerStratum.get("5-").longValue(), 3);
+        Assert.assertEquals(readsPerStratum.get("10+").longValue(), 1);
+        Assert.assertEquals(readsPerStratum.get("20-").longValue(), 1);
+
+        // the reads that are kept come out in the order in which they were submitted
+        final Map<GATKRead, Integer> submissionOrder = new IdentityHashMap<>();
+        for ( int i = 0; i < reads.size(); i++ ) {
+            submissionOrder.put(reads.get(i), i);
+        }
+        for ( int i = 1; i < downsampledReads.size(); i++ ) {
+            Assert.assertTrue(submissionOrder.get(downsampledReads.get(i - 1)) < submissionOrder.get(downsampledReads.get(i)));
+        }
+    }
+
+    @Test
+    public void testMinReadsPerStratum() {
+        final int[] starts = {1, 2, 3, 4, 5};
+        final List<GATKRead> reads = createReads(starts, new int[]{10, 10, 10, 10, 10}, new int[]{0, 0, 0, 0, 0});
+
+        // the budget only allows for 4 reads, but no stratum may be left with fewer than 2
+        final CostBoundedDownsampler downsampler = new CostBoundedDownsampler(4 * READ_LENGTH, 2);
+        final List<GATKRead> downsampledReads = downsample(downsampler, reads);
+        Assert.assertEquals(downsampledReads.size(), 10);
+        Assert.assertEquals(downsampler.getNumberOfDiscardedItems(), 40);
+
+        final List<GATKRead> allDiscarded = downsample(new CostBoundedDownsampler(0, 0), reads);
+        Assert.assertTrue(allDiscarded.isEmpty());
+    }
+
+    @Test
+    public void testReadLengthsCount() {
+        // two strata of the same depth, with reads of different lengths: the cap is the same for both, and it is the
+        // bases that are kept within the budget, not the number of reads
+        final List<GATKRead> reads = new ArrayList<>();
+        reads.addAll(ArtificialReadUtils.createIdenticalArtificialReads(20, header, "short", 0, 1, 10));
+        reads.addAll(ArtificialReadUtils.createIdenticalArtificialReads(20, header, "long", 0, 2, 90));
+        final CostBoundedDownsampler downsampler = new CostBoundedDownsampler(1000, 1);
+        final List<GATKRead> downsampledReads = downsample(downsampler, reads);
+        Assert.assertEquals(downsampledReads.size(), 20);
+        Assert.assertEquals(downsampledReads.stream().mapToInt(GATKRead::getLength).sum(), 1000);
+    }
+
+    @Test
+    public void testSameResultAfterResettingRandomGenerator() {
+        final List<GATKRead> reads = createReads(new int[]{1, 2}, new int[]{50, 70}, new int[]{60, 0});
+        // identical reads are equal, so compare which of them are kept by identity
+        final Function<List<GATKRead>, List<Integer>> downsample = r -> {
+            Utils.resetRandomGenerator();
+            final List<GATKRead> downsampledReads = downsample(new CostBoundedDownsampler(40 * READ_LENGTH, 1), r);
+            return downsampledReads.stream().map(read -> IntStream.range(0, r.size()).filter(i -> r.get(i) == read).findFirst().getAsInt()).collect(Collectors.toList());
+        };
+        Assert.assertEquals(downsample.apply(reads), downsample.apply(reads));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testNegativeMaxReadBases() {
+        new CostBoundedDownsampler(-1, 1);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testNegativeMinReadsPerStratum() {
+        new CostBoundedDownsampler(100, -1);
+    }
+}
@@ -7,6 +7,7 @@ import java.nio.channels.SeekableByteChannel;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import org.testng.Assert;
+import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
 /**
@@ -105,6 +106,89 @@ public class SeekableByteChannelPrefetcherTest {
         chan.close();
     }
 
+    @DataProvider(name = "bufferCounts")
+    public Object[][] getBufferCounts() {
+        return new Object[][]{{1}, {3}, {5}};
+    }
+
+    @DataProvider(name = "readAheadBufferCounts")
+    public Object[][] getReadAheadBufferCounts() {
+        return new Object[][]{{2}, {3}, {5}};
+    }
+
+    @Test(dataProvider = "bufferCounts")
+    public void testSeekWithBufferCount(final int bufCount) throws Exception {
+        SeekableByteChannel chan1 = Files.newByteChannel(Paths.get(input));
+        SeekableByteChannel chan2 = new SeekableByteChannelPrefetcher(
+            Files.newByteChannel(Paths.get(input)), 1024, bufCount, new PrefetchStatistics());
+
+        testReading(chan1, chan2, 3000);
+        testSeeking(chan1, chan2, 1500);
+        testSeeking(chan1, chan2, 128);
+        testSeeking(chan1, chan2, 6000);
+        testReading(chan1, chan2, 2500);
+        testSeeking(chan1, chan2, 0);
+        testSeeking(chan1, chan2, (int)chan1.size()-127);
+        testSeeking(chan1, chan2, (int)chan1.size()+128);
+        testSeeking(chan1, chan2, 2048);
+        testReading(chan1, chan2, 5000);
+    }
+
+    @Test(dataProvider = "readAheadBufferCounts")
+    public void testSequentialReadStatistics(final int bufCount) throws Exception {
+        final PrefetchStatistics statistics = new PrefetchStatistics();
+        SeekableByteChannel chan1 = Files.newByteChannel(Paths.get(input));
+        SeekableByteChannel chan2 = new SeekableByteChannelPrefetcher(
+            Files.newByteChannel(Paths.get(input)), 1024, bufCount, statistics);
+
+        testReading(chan1, chan2, (int)chan1.size());
+        // only the first block isn't anticipated
+        Assert.assertEquals(statistics.getMisses(), 1);
+        Assert.assertEquals(statistics.getGoingBack(), 0);
+        Assert.assertEquals(statistics.getBytesReturned(), chan1.size());
+        Assert.assertTrue(statistics.getHits() + statistics.getNearHits() > 0);
+    }
+
+    @Test
+    public void testPrefetchHint() throws Exception {
+        final PrefetchStatistics statistics = new PrefetchStatistics();
+        SeekableByteChannel chan1 = Files.newByteChannel(Paths.get(input));
+        SeekableByteChannelPrefetcher chan2 = new SeekableByteChannelPrefetcher(
+            Files.newByteChannel(Paths.get(input)), 1024, 3, statistics);
+
+        testSeeking(chan1, chan2, 0);
+        chan2.prefetch(6100);
+        Assert.assertEquals(chan2.position(), 128);
+        Assert.assertEquals(statistics.getHintsFetched(), 1);
+        // reading on doesn't throw the hinted block away
+        testReading(chan1, chan2, 1500);
+        testSeeking(chan1, chan2, 6000);
+        Assert.assertEquals(statistics.getHintHits(), 1);
+        Assert.assertEquals(statistics.getMisses(), 1);
+
+        // hints past the end are ignored
+        chan2.prefetch(chan1.size() + 10);
+        Assert.assertEquals(statistics.getHintsFetched(), 1);
+    }
+
+    @Test
+    public void testAddStatistics() {
+        final PrefetchStatistics first = new PrefetchStatistics();
+        Assert.assertTrue(first.isEmpty());
+        first.hits = 3;
+        first.misses = 1;
+        first.bytesRead = 100;
+        final PrefetchStatistics second = new PrefetchStatistics();
+        second.hits = 1;
+        second.nearHits = 1;
+        second.hintHits = 2;
+        first.add(second);
+        Assert.assertFalse(first.isEmpty());
+        Assert.assertEquals(first.getHits(), 4);
+        Assert.assertEquals(first.getHintHits(), 2);
+        Assert.assertEquals(first.getHitRate(), 4.0 / 6.0);
+    }
+
     private void testReading(SeekableByteChannel chan1, SeekableByteChannel chan2, int howMuch) throws IOException {
         ByteBuffer one = ByteBuffer.allocate(howMuch);
         ByteBuffer two = ByteBuffer.allocate(howMuch);
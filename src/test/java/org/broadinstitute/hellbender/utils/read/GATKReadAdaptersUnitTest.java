@@ -10,6 +10,8 @@ import org.testng.Assert;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.regex.Matcher;
@@ -231,6 +233,32 @@ public class GATKReadAdaptersUnitTest extends GATKBaseTest {
         Assert.assertEquals(read.getLength(), expectedLength, "Wrong length for read");
     }
 
+    @Test
+    public void testGetLengthOfBAMRecord() throws Exception {
+        final SAMRecord sam = basicSAMRecord();
+        final BAMRecordCodec codec = new BAMRecordCodec(sam.getHeader());
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        codec.setOutputStream(bytes);
+        codec.encode(sam);
+        codec.setInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        final GATKRead read = new SAMRecordToGATKReadAdapter(codec.decode());
+
+        Assert.assertEquals(read.getLength(), BASIC_READ_BASES.length);
+        Assert.assertEquals(read.getBases(), BASIC_READ_BASES);
+        read.setBases(new byte[]{'A', 'C'});
+        Assert.assertEquals(read.getLength(), 2);
+    }
+
+    @Test
+    public void testGetLengthDoesNotDecodeBases() {
+        final SAMRecord sam = new SAMRecord(basicSAMRecord().getHeader()) {
+            private static final long serialVersionUID = 1L;
+            @Override public int getReadLength() { return 7; }
+            @Override public byte[] getReadBases() { throw new AssertionError("bases should not be decoded"); }
+        };
+        Assert.assertEquals(new SAMRecordToGATKReadAdapter(sam).getLength(), 7);
+    }
+
     @DataProvider(name = "GetUnclippedStartAndEndData")
     public Object[][] getUnclippedStartAndEndData() {
         final SAMRecord softClippedSam = basicSAMRecord();
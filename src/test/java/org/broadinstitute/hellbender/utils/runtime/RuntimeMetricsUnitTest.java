@@ -0,0 +1,178 @@
+package org.broadinstitute.hellbender.utils.runtime;
+
+import com.google.api.client.googleapis.util.Utils;
+import com.google.api.client.json.GenericJson;
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.broadinstitute.hellbender.utils.tsv.DataLine;
+import org.broadinstitute.hellbender.utils.tsv.TableReader;
+import org.broadinstitute.hellbender.utils.tsv.TableUtils;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+public final class RuntimeMetricsUnitTest extends GATKBaseTest {
+
+    @AfterMethod
+    public void disableMetrics() {
+        RuntimeMetrics.setEnabled(false);
+        RuntimeMetrics.reset();
+    }
+
+    private static Optional<RuntimeMetrics.MetricSummary> getSummary( final String name ) {
+        return RuntimeMetrics.getSummaries().stream().filter(summary -> summary.getName().equals(name)).findFirst();
+    }
+
+    @Test
+    public void testSameMetricForSameName() {
+        Assert.assertSame(RuntimeMetrics.timer("testSameMetricForSameName.timer"), RuntimeMetrics.timer("testSameMetricForSameName.timer"));
+        Assert.assertSame(RuntimeMetrics.counter("testSameMetricForSameName.counter"), RuntimeMetrics.counter("testSameMetricForSameName.counter"));
+        Assert.assertNotSame(RuntimeMetrics.histogram("testSameMetricForSameName.histogram"), RuntimeMetrics.histogram("testSameMetricForSameName.other"));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testSameNameDifferentType() {
+        RuntimeMetrics.timer("testSameNameDifferentType");
+        RuntimeMetrics.counter("testSameNameDifferentType");
+    }
+
+    @Test
+    public void testNothingRecordedWhenDisabled() {
+        final RuntimeMetrics.Timer timer = RuntimeMetrics.timer("testNothingRecordedWhenDisabled.timer");
+        final RuntimeMetrics.Counter counter = RuntimeMetrics.counter("testNothingRecordedWhenDisabled.counter");
+        RuntimeMetrics.setEnabled(false);
+        final long startTime = timer.start();
+        Assert.assertEquals(startTime, 0L);
+        timer.stop(startTime);
+        counter.add(5);
+        Assert.assertFalse(getSummary(timer.getName()).isPresent());
+        Assert.assertFalse(getSummary(counter.getName()).isPresent());
+    }
+
+    @Test
+    public void testCounterAndHistogram() {
+        final RuntimeMetrics.Counter counter = RuntimeMetrics.counter("testCounterAndHistogram.counter");
+        final RuntimeMetrics.Histogram histogram = RuntimeMetrics.histogram("testCounterAndHistogram.histogram");
+        RuntimeMetrics.setEnabled(true);
+        counter.increment();
+        counter.add(4);
+        for ( final long value : new long[]{0, 1, 2, 3, 4, 100} ) {
+            histogram.add(value);
+        }
+
+        final RuntimeMetrics.MetricSummary counterSummary = getSummary(counter.getName()).get();
+        Assert.assertEquals(counterSummary.getType(), RuntimeMetrics.MetricType.COUNTER);
+        Assert.assertEquals(counterSummary.getCount(), 2);
+        Assert.assertEquals(counterSummary.getSum(), 5);
+        Assert.assertNull(counterSummary.getBins());
+
+        final RuntimeMetrics.MetricSummary histogramSummary = getSummary(histogram.getName()).get();
+        Assert.assertEquals(histogramSummary.getCount(), 6);
+        Assert.assertEquals(histogramSummary.getSum(), 110);
+        Assert.assertEquals(histogramSummary.getMin(), 0);
+        Assert.assertEquals(histogramSummary.getMax(), 100);
+        final long[] bins = histogramSummary.getBins();
+        Assert.assertEquals(bins[0], 1);  // 0
+        Assert.assertEquals(bins[1], 1);  // 1
+        Assert.assertEquals(bins[2], 2);  // 2 and 3
+        Assert.assertEquals(bins[3], 1);  // 4
+        Assert.assertEquals(bins[7], 1);  // 100
+    }
+
+    @Test
+    public void testTotalsOverThreads() throws InterruptedException {
+        final RuntimeMetrics.Counter counter = RuntimeMetrics.counter("testTotalsOverThreads.counter");
+        final RuntimeMetrics.Timer timer = RuntimeMetrics.timer("testTotalsOverThreads.timer");
+        RuntimeMetrics.setEnabled(true);
+        final int numThreads = 4;
+        final int numIncrements = 10000;
+        final List<Thread> threads = new ArrayList<>();
+        for ( int i = 0; i < numThreads; i++ ) {
+            final int threadIndex = i;
+            threads.add(new Thread(() -> {
+                for ( int j = 0; j < numIncrements; j++ ) {
+                    counter.add(threadIndex + 1);
+                }
+                timer.stop(timer.start());
+            }));
+        }
+        threads.forEach(Thread::start);
+        for ( final Thread thread : threads ) {
+            thread.join();
+        }
+
+        final RuntimeMetrics.MetricSummary counterSummary = getSummary(counter.getName()).get();
+        Assert.assertEquals(counterSummary.getCount(), numThreads * numIncrements);
+        Assert.assertEquals(counterSummary.getSum(), (long)numIncrements * (1 + 2 + 3 + 4));
+        Assert.assertEquals(counterSummary.getMin(), 1);
+        Assert.assertEquals(counterSummary.getMax(), numThreads);
+        Assert.assertEquals(getSummary(timer.getName()).get().getCount(), numThreads);
+    }
+
+    @Test
+    public void testReset() {
+        final RuntimeMetrics.Counter counter = RuntimeMetrics.counter("testReset");
+        RuntimeMetrics.setEnabled(true);
+        counter.add(3);
+        RuntimeMetrics.reset();
+        Assert.assertFalse(getSummary(counter.getName()).isPresent());
+        counter.add(2);
+        Assert.assertEquals(getSummary(counter.getName()).get().getSum(), 2);
+    }
+
+    @Test
+    public void testWriteTsv() throws IOException {
+        final RuntimeMetrics.Timer timer = RuntimeMetrics.timer("testWriteTsv.timer");
+        final RuntimeMetrics.Counter counter = RuntimeMetrics.counter("testWriteTsv.counter");
+        RuntimeMetrics.setEnabled(true);
+        timer.stop(timer.start());
+        counter.add(7);
+        final File output = createTempFile("testWriteTsv", ".tsv");
+        RuntimeMetrics.write(output.toPath());
+
+        final List<String> names = new ArrayList<>();
+        try ( final TableReader<DataLine> reader = TableUtils.reader(output, (columns, exceptionFactory) -> dataLine -> dataLine) ) {
+            for ( final DataLine line : reader ) {
+                names.add(line.get("NAME"));
+                if ( line.get("NAME").equals(counter.getName()) ) {
+                    Assert.assertEquals(line.get("TYPE"), RuntimeMetrics.MetricType.COUNTER.name());
+                    Assert.assertEquals(line.getLong("COUNT"), 1);
+                    Assert.assertEquals(line.getDouble("SUM"), 7.0);
+                }
+            }
+        }
+        Assert.assertTrue(names.contains(timer.getName()));
+        Assert.assertTrue(names.contains(counter.getName()));
+    }
+
+    @Test
+    public void testWriteJson() throws IOException {
+        final RuntimeMetrics.Histogram histogram = RuntimeMetrics.histogram("testWriteJson \"histogram\"");
+        RuntimeMetrics.setEnabled(true);
+        histogram.add(5);
+        final File output = createTempFile("testWriteJson", ".json");
+        RuntimeMetrics.write(output.toPath());
+
+        final String json = new String(Files.readAllBytes(output.toPath()), StandardCharsets.UTF_8);
+        final GenericJson parsed = Utils.getDefaultJsonFactory().fromString(json, GenericJson.class);
+        final List<?> metrics = (List<?>)parsed.get("metrics");
+        Assert.assertEquals(metrics.size(), 1, json);
+        final Map<?, ?> metric = (Map<?, ?>)metrics.get(0);
+        Assert.assertEquals(metric.get("name"), histogram.getName());
+        Assert.assertEquals(metric.get("type"), RuntimeMetrics.MetricType.HISTOGRAM.name());
+        Assert.assertEquals(((Number)metric.get("count")).longValue(), 1);
+        Assert.assertEquals(((Number)metric.get("sum")).doubleValue(), 5.0);
+        final List<?> bins = (List<?>)metric.get("bins");
+        Assert.assertEquals(bins.size(), 1, json);
+        Assert.assertEquals(((Number)((Map<?, ?>)bins.get(0)).get("max")).longValue(), 7);
+        Assert.assertEquals(((Number)((Map<?, ?>)bins.get(0)).get("count")).longValue(), 1);
+    }
+}
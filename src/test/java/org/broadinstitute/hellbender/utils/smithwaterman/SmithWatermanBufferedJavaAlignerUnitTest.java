@@ -0,0 +1,82 @@
+package org.broadinstitute.hellbender.utils.smithwaterman;
+
+import org.broadinstitute.gatk.nativebindings.smithwaterman.SWOverhangStrategy;
+import org.broadinstitute.gatk.nativebindings.smithwaterman.SWParameters;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+public final class SmithWatermanBufferedJavaAlignerUnitTest extends SmithWatermanAlignerAbstractUnitTest {
+
+    @Override
+    protected SmithWatermanBufferedJavaAligner getAligner() {
+        return new SmithWatermanBufferedJavaAligner();
+    }
+
+    @DataProvider(name = "parityParameters")
+    public Object[][] getParityParameters() {
+        final SWParameters[] weights = {SmithWatermanAligner.ORIGINAL_DEFAULT, SmithWatermanAligner.STANDARD_NGS,
+                new SWParameters(200, -150, -260, -11)};
+        final Object[][] result = new Object[weights.length * SWOverhangStrategy.values().length][];
+        int idx = 0;
+        for ( final SWParameters parameters : weights ) {
+            for ( final SWOverhangStrategy strategy : SWOverhangStrategy.values() ) {
+                result[idx++] = new Object[]{parameters, strategy};
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Aligns random, mutated sequences of varying lengths with a single aligner, so that its buffers are reused, and
+     * checks that the alignments are the same as those of {@link SmithWatermanJavaAligner}
+     */
+    @Test(dataProvider = "parityParameters")
+    public void testSameAlignmentsAsJavaAligner(final SWParameters parameters, final SWOverhangStrategy strategy) {
+        final Random random = new Random(31L);
+        final SmithWatermanAligner expectedAligner = SmithWatermanJavaAligner.getInstance();
+        final SmithWatermanAligner aligner = getAligner();
+        for ( int trial = 0; trial < 500; trial++ ) {
+            final byte[] ref = randomBases(random, 1 + random.nextInt(trial % 50 == 0 ? 600 : 80));
+            final byte[] alt = mutate(random, ref);
+            final SmithWatermanAlignment expected = expectedAligner.align(ref, alt, parameters, strategy);
+            final SmithWatermanAlignment actual = aligner.align(ref, alt, parameters, strategy);
+            final String context = new String(ref) + " " + new String(alt);
+            Assert.assertEquals(actual.getCigar(), expected.getCigar(), context);
+            Assert.assertEquals(actual.getAlignmentOffset(), expected.getAlignmentOffset(), context);
+        }
+    }
+
+    private static byte[] randomBases(final Random random, final int length) {
+        final byte[] bases = new byte[length];
+        for ( int i = 0; i < length; i++ ) {
+            bases[i] = "ACGTN".getBytes()[random.nextInt(random.nextInt(20) == 0 ? 5 : 4)];
+        }
+        return bases;
+    }
+
+    // takes a random piece of the sequence and adds substitutions, indels and random flanks
+    private static byte[] mutate(final Random random, final byte[] seq) {
+        final int start = random.nextInt(seq.length);
+        final int end = start + 1 + random.nextInt(seq.length - start);
+        final StringBuilder result = new StringBuilder(new String(randomBases(random, random.nextInt(4) == 0 ? 1 + random.nextInt(10) : 0)));
+        for ( int i = start; i < end; i++ ) {
+            final int event = random.nextInt(40);
+            if ( event == 0 ) {
+                result.append(new String(randomBases(random, 1 + random.nextInt(6))));
+            } else if ( event == 1 ) {
+                i += random.nextInt(6);
+                continue;
+            } else if ( event < 4 ) {
+                result.append((char)randomBases(random, 1)[0]);
+                continue;
+            }
+            result.append((char)seq[i]);
+        }
+        if ( random.nextInt(4) == 0 ) result.append(new String(randomBases(random, 1 + random.nextInt(10))));
+        return result.length() == 0 ? Arrays.copyOf(seq, 1) : result.toString().getBytes();
+    }
+}
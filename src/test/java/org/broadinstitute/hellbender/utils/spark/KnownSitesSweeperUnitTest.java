@@ -0,0 +1,131 @@
+package org.broadinstitute.hellbender.utils.spark;
+
+import htsjdk.variant.variantcontext.VariantContext;
+import org.apache.spark.SparkConf;
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.broadinstitute.hellbender.engine.FeatureDataSource;
+import org.broadinstitute.hellbender.testutils.SparkTestUtils;
+import org.broadinstitute.hellbender.utils.SimpleInterval;
+import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.variant.GATKVariant;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+import java.util.stream.Collectors;
+
+public class KnownSitesSweeperUnitTest extends GATKBaseTest {
+    private static final File KNOWN_SITES = new File(publicTestDir, "Homo_sapiens_assembly19.dbsnp135.chr1_1M.exome_intervals.vcf");
+
+    @DataProvider
+    public Object[][] getSweepData() {
+        return new Object[][]{
+                //blockSize, initialWindowCapacity, sorted
+                {100000, 1024, true},
+                {50, 1024, true},
+                {1000, 4, true},
+                {100000, 1024, false},
+                {1000, 4, false}
+        };
+    }
+
+    @Test(dataProvider = "getSweepData")
+    public void testSweepMatchesQueries(final int blockSize, final int initialWindowCapacity, final boolean sorted) {
+        final List<SimpleInterval> intervals = generateIntervals(sorted);
+
+        final List<Iterable<GATKVariant>> sweepResults = new ArrayList<>();
+        try (final FeatureDataSource<VariantContext> sweepSource = new FeatureDataSource<>(KNOWN_SITES)) {
+            final KnownSitesSweeper sweeper = new KnownSitesSweeper(sweepSource, blockSize, initialWindowCapacity);
+            for (final SimpleInterval interval : intervals) {
+                sweepResults.add(sweeper.getOverlappingVariants(interval));
+            }
+        }
+
+        //results are checked only once the sweep is complete, to ensure that earlier results are not affected by later ones
+        int numNonEmpty = 0;
+        try (final FeatureDataSource<VariantContext> querySource = new FeatureDataSource<>(KNOWN_SITES)) {
+            for (int i = 0; i < intervals.size(); i++) {
+                final List<SimpleInterval> expected = Utils.stream(querySource.query(intervals.get(i)))
+                        .map(SimpleInterval::new)
+                        .collect(Collectors.toList());
+                final List<SimpleInterval> actual = Utils.stream(sweepResults.get(i))
+                        .map(SimpleInterval::new)
+                        .collect(Collectors.toList());
+                Assert.assertEquals(actual, expected, "Mismatch for interval " + intervals.get(i));
+                numNonEmpty += expected.isEmpty() ? 0 : 1;
+            }
+        }
+        Assert.assertTrue(numNonEmpty > 0);
+    }
+
+    @Test
+    public void testVariantTypes() {
+        try (final FeatureDataSource<VariantContext> source = new FeatureDataSource<>(KNOWN_SITES)) {
+            final KnownSitesSweeper sweeper = new KnownSitesSweeper(source, 1000);
+            final List<VariantContext> expected = source.queryAndPrefetch(new SimpleInterval("1", 1, 1000000));
+            for (final VariantContext vc : expected) {
+                final Iterator<GATKVariant> overlapping = sweeper.getOverlappingVariants(new SimpleInterval(vc.getContig(), vc.getStart(), vc.getStart())).iterator();
+                boolean found = false;
+                while (overlapping.hasNext()) {
+                    final GATKVariant variant = overlapping.next();
+                    if (variant.getStart() == vc.getStart() && variant.getEnd() == vc.getEnd()) {
+                        Assert.assertEquals(variant.isSnp(), vc.isSNP());
+                        Assert.assertEquals(variant.isIndel(), vc.isIndel());
+                        found = true;
+                    }
+                }
+                Assert.assertTrue(found, "Missing variant " + vc);
+            }
+        }
+    }
+
+    @Test
+    public void testOtherContigs() {
+        try (final FeatureDataSource<VariantContext> source = new FeatureDataSource<>(KNOWN_SITES)) {
+            final KnownSitesSweeper sweeper = new KnownSitesSweeper(source, 1000);
+            Assert.assertFalse(sweeper.getOverlappingVariants(new SimpleInterval("2", 69000, 71000)).iterator().hasNext());
+            Assert.assertTrue(sweeper.getOverlappingVariants(new SimpleInterval("1", 69000, 1000000)).iterator().hasNext());
+            Assert.assertFalse(sweeper.getOverlappingVariants(new SimpleInterval("2", 69000, 1000000)).iterator().hasNext());
+        }
+    }
+
+    @Test
+    public void testSerializationCopiesOnlyTheViewedVariants() throws IOException, ClassNotFoundException {
+        try (final FeatureDataSource<VariantContext> source = new FeatureDataSource<>(KNOWN_SITES)) {
+            final KnownSitesSweeper sweeper = new KnownSitesSweeper(source, 1000000);
+            final SimpleInterval interval = generateIntervals(true).stream()
+                    .filter(i -> source.query(i).hasNext())
+                    .findFirst().get();
+            final Iterable<GATKVariant> view = sweeper.getOverlappingVariants(interval);
+            final List<SimpleInterval> expected = Utils.stream(view).map(SimpleInterval::new).collect(Collectors.toList());
+
+            final Iterable<GATKVariant> javaRoundTripped = SparkTestUtils.roundTripThroughJavaSerialization(view);
+            Assert.assertEquals(javaRoundTripped.getClass(), ArrayList.class);
+            Assert.assertEquals(Utils.stream(javaRoundTripped).map(SimpleInterval::new).collect(Collectors.toList()), expected);
+
+            final SparkConf conf = new SparkConf();
+            final Iterable<GATKVariant> kryoRoundTripped = SparkTestUtils.roundTripInKryo(view, Iterable.class, conf);
+            Assert.assertEquals(kryoRoundTripped.getClass(), ArrayList.class);
+            Assert.assertEquals(Utils.stream(kryoRoundTripped).map(SimpleInterval::new).collect(Collectors.toList()), expected);
+        }
+    }
+
+    //read-like intervals covering the variants file, with some gaps, some long intervals, and the last interval past the end of the variants
+    private static List<SimpleInterval> generateIntervals(final boolean sorted) {
+        final Random random = new Random(13);
+        final List<SimpleInterval> intervals = new ArrayList<>();
+        int start = 69000;
+        while (start < 1000000) {
+            final int length = random.nextInt(10) == 0 ? 1 + random.nextInt(5000) : 1 + random.nextInt(150);
+            intervals.add(new SimpleInterval("1", start, start + length - 1));
+            start += random.nextInt(20) == 0 ? random.nextInt(200000) : random.nextInt(300);
+        }
+        if (!sorted) {
+            Collections.shuffle(intervals, random);
+        }
+        return intervals;
+    }
+}
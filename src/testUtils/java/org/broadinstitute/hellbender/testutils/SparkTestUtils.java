@@ -9,6 +9,8 @@ import scala.reflect.ClassTag;
 import scala.reflect.ClassTag$;
 
 import java.io.*;
+import java.nio.file.Files;
+import java.util.Arrays;
 
 public final class SparkTestUtils {
     private SparkTestUtils() {}
@@ -55,4 +57,25 @@ public final class SparkTestUtils {
             return (T) in.readObject();
         }
     }
+
+    /**
+     * Concatenates the part files of a directory written by saveAsTextFile, in partition order, into a single file,
+     * so that the output can be compared with an expected file however many partitions were written.
+     *
+     * @param directory the output directory of saveAsTextFile.  Never {@code null}
+     * @return a temporary file holding the contents of all the part files
+     */
+    public static File concatenatePartFiles(final File directory) throws IOException {
+        Utils.nonNull(directory);
+        final File[] partFiles = directory.listFiles((dir, name) -> name.startsWith("part-"));
+        Utils.validateArg(partFiles != null && partFiles.length > 0, () -> "no part files in " + directory);
+        Arrays.sort(partFiles);
+        final File concatenated = BaseTest.createTempFile("concatenated", ".txt");
+        try (final OutputStream out = new FileOutputStream(concatenated)) {
+            for (final File partFile : partFiles) {
+                Files.copy(partFile.toPath(), out);
+            }
+        }
+        return concatenated;
+    }
 }